@@ -1,15 +1,18 @@
 package collisionDetection;
 
 import collisionDetection.broadPhase.BPBox;
+import collisionDetection.broadPhase.BPPairList;
 import collisionDetection.broadPhase.BPPairs;
 import collisionDetection.broadPhase.BroadPhase;
-import collisionDetection.narrowPhase.Shape;
+import collisionDetection.narrowPhase.SeparatingAxisCache;
 import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+import collisionDetection.narrowPhase.collisionResult.ContactManifold;
+import collisionDetection.narrowPhase.dispatch.CollisionDispatcher;
 import collisionDetection.narrowPhase.gjk.GJK;
-import collisionDetection.narrowPhase.gjk.GJKSupport;
+import collisionDetection.narrowPhase.manifold.ManifoldGenerator;
 import collisionDetection.narrowPhase.rc.RayCast;
+import collisionDetection.narrowPhase.sat.BoxBoxSAT;
 import collisionDetection.narrowPhase.sat.SAT;
-import collisionDetection.narrowPhase.sat.SATSupport;
 import collisionDetection.primitive.Ray;
 
 import java.util.List;
@@ -18,15 +21,21 @@ import java.util.Set;
 public class CDEngine {
     private final BroadPhase broadPhase;
     private final SAT sat;
+    private final BoxBoxSAT boxBoxSat;
     private final GJK gjk;
     private final RayCast rayCast;
+    private final ManifoldGenerator manifoldGenerator;
+    private final CollisionDispatcher dispatcher;
     private static CDEngine cdEngine;
 
     private CDEngine(BroadPhase broadPhase) {
         this.broadPhase = broadPhase;
         sat = new SAT();
+        boxBoxSat = new BoxBoxSAT();
         gjk = new GJK();
         rayCast = new RayCast();
+        manifoldGenerator = new ManifoldGenerator();
+        dispatcher = new CollisionDispatcher(gjk, sat, boxBoxSat);
     }
 
     public static void init(BroadPhase broadPhase) {
@@ -54,21 +63,31 @@ public class CDEngine {
     }
 
     public void update(List<BPBox> boxes) {
-        broadPhase.updateAll(boxes);
+        updateAll(boxes);
     }
 
     public void update(BPBox bpBox) {
         broadPhase.update(bpBox);
     }
 
+    // Boxes of sleeping bodies have not moved and keep their place in the broad phase
     public void updateAll(List<BPBox> boxes) {
-        broadPhase.updateAll(boxes);
+        for (int i = 0; i < boxes.size(); i++) {
+            BPBox bpBox = boxes.get(i);
+            if (bpBox.getBody() == null || !bpBox.getBody().isSleeping())
+                broadPhase.update(bpBox);
+        }
     }
 
     public Set<BPPairs> query(){
         return broadPhase.query();
     }
 
+    // Allocation free variant, the list is cleared and refilled on every call
+    public void query(BPPairList pairs) {
+        broadPhase.query(pairs);
+    }
+
     public Set<BPBox> query(BPBox bpBox) {
         return broadPhase.query(bpBox);
     }
@@ -78,28 +97,60 @@ public class CDEngine {
     }
 
     public CollisionResult solve(BPPairs bpPairs) {
-        Shape shape1 = bpPairs.getBpBox1().getShape();
-        Shape shape2 = bpPairs.getBpBox2().getShape();
-        if (shape1 instanceof GJKSupport && shape2 instanceof GJKSupport)
-            return gjk.isCollide((GJKSupport) shape1, (GJKSupport) shape2);
-        else if (shape1 instanceof SATSupport && shape2 instanceof SATSupport)
-            return sat.isCollide((SATSupport) shape1, (SATSupport) shape2);
+        return solve(bpPairs.getBpBox1(), bpPairs.getBpBox2());
+    }
+
+    public CollisionResult solve(BPBox bpBox1, BPBox bpBox2) {
+        return solve(bpBox1, bpBox2, null);
+    }
+
+    // Runs the algorithm registered for the shape types, warm started from the separating axis cached
+    // for the pair; the pair must be passed in the same order every time. Pairs that fall back to SAT
+    // only get the normal and depth, the overload with a manifold adds their contact points.
+    public CollisionResult solve(BPBox bpBox1, BPBox bpBox2, SeparatingAxisCache axisCache) {
+        return dispatcher.collide(bpBox1.getShape(), bpBox2.getShape(), new CollisionResult(),
+                axisCache, BPPairs.key(bpBox1, bpBox2));
+    }
 
-        throw new IllegalStateException("Unexpected values: " + shape2 + " : " + shape1);
+    // Also fills manifold with up to four contact points, clipped from the faces of box and polyhedron shapes
+    public CollisionResult solve(BPBox bpBox1, BPBox bpBox2, SeparatingAxisCache axisCache, ContactManifold manifold) {
+        return solve(bpBox1, bpBox2, axisCache, new CollisionResult(), manifold);
+    }
+
+    // Writes into result instead of creating one. Safe to call from several threads for different
+    // pairs, see SeparatingAxisCache for sharing the cache.
+    public CollisionResult solve(BPBox bpBox1, BPBox bpBox2, SeparatingAxisCache axisCache, CollisionResult result,
+                                 ContactManifold manifold) {
+        dispatcher.collide(bpBox1.getShape(), bpBox2.getShape(), result, axisCache, BPPairs.key(bpBox1, bpBox2));
+        manifoldGenerator.generate(bpBox1.getShape(), bpBox2.getShape(), result, manifold);
+        return result;
     }
 
     public void clear() {
         broadPhase.clear();
     }
 
+    // Where user algorithms for a pair of shape types are registered
+    public CollisionDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
     public SAT getSat() {
         return sat;
     }
 
+    public BoxBoxSAT getBoxBoxSat() {
+        return boxBoxSat;
+    }
+
     public GJK getGjk() {
         return gjk;
     }
 
+    public ManifoldGenerator getManifoldGenerator() {
+        return manifoldGenerator;
+    }
+
     public RayCast getRayCast() {
         return rayCast;
     }
@@ -5,21 +5,49 @@ import collisionDetection.primitive.Ray;
 import math.Vector3f;
 import physics.rigidBody.RigidBody;
 
-import java.util.Objects;
 //TODO also add CCD for update
 //TODO need to update position from RigidBody
 // TODO also to check if the RigidBody have collider
 public class BPBox {
+    // Ids of boxes that left every broad phase are handed out again, so ids stay small and never wrap
+    private static final ProxyIdPool IDS = new ProxyIdPool();
+    public static final int NO_ID = -1;
+
+    // Proxy id, given out when the box enters a broad phase and kept while it moves there,
+    // so it is safe to pack into pair keys. Live boxes never share an id.
+    private int id;
+    // Number of broad phases holding the box, the id goes back to the pool when it drops to 0
+    private int proxyCount;
     private Vector3f min; // Min corner of the AABB
     private Vector3f max; // Max corner of the AABB
     private RigidBody body;
 
     public BPBox(Vector3f min, Vector3f max, RigidBody body) {
+        this.id = NO_ID;
         this.min = min;
         this.max = max;
         this.body = body;
     }
 
+    // NO_ID while the box is not in a broad phase
+    public int getId() {
+        return id;
+    }
+
+    // Called by a broad phase when it starts holding the box
+    void attach() {
+        if (proxyCount++ == 0)
+            id = IDS.acquire();
+    }
+
+    // Called by a broad phase when it stops holding the box
+    void detach() {
+        if (proxyCount > 0 && --proxyCount == 0) {
+            IDS.release(id);
+            id = NO_ID;
+        }
+    }
+
     public Vector3f getMax() {
         return max;
     }
@@ -109,25 +137,53 @@ public class BPBox {
         return betweenX && betweenY && betweenZ;
     }
 
+    // Slab test of the ray against raw bounds, used by the tree broad phases on their node bounds
+    public static boolean isCollide(Ray ray, float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        Vector3f origin = ray.getOrigin();
+        Vector3f direction = ray.getDirection();
+        float tMin = 0.0f;
+        float tMax = Float.POSITIVE_INFINITY;
+
+        if (direction.x != 0.0f) {
+            float inv = 1.0f / direction.x;
+            float t1 = (minX - origin.x) * inv;
+            float t2 = (maxX - origin.x) * inv;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        } else if (origin.x < minX || origin.x > maxX) {
+            return false;
+        }
+
+        if (direction.y != 0.0f) {
+            float inv = 1.0f / direction.y;
+            float t1 = (minY - origin.y) * inv;
+            float t2 = (maxY - origin.y) * inv;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        } else if (origin.y < minY || origin.y > maxY) {
+            return false;
+        }
+
+        if (direction.z != 0.0f) {
+            float inv = 1.0f / direction.z;
+            float t1 = (minZ - origin.z) * inv;
+            float t2 = (maxZ - origin.z) * inv;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        } else if (origin.z < minZ || origin.z > maxZ) {
+            return false;
+        }
+
+        return tMin <= tMax;
+    }
+
     @Override
     public String toString() {
         return "BPBox{" +
-                "min=" + min +
+                "id=" + id +
+                ", min=" + min +
                 ", max=" + max +
                 ", body=" + body +
                 '}';
     }
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        BPBox bpBox = (BPBox) o;
-        return Objects.equals(min, bpBox.min) && Objects.equals(max, bpBox.max) && Objects.equals(body, bpBox.body);
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(min, max, body);
-    }
 }
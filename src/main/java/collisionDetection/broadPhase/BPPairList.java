@@ -0,0 +1,57 @@
+package collisionDetection.broadPhase;
+
+import java.util.Arrays;
+
+// Reusable list of overlapping box pairs. A broad phase fills it without creating a BPPairs per
+// pair, and the caller keeps one list across steps so a steady-state query allocates nothing.
+public class BPPairList {
+    private BPBox[] boxes1;
+    private BPBox[] boxes2;
+    private int size;
+
+    public BPPairList() {
+        this(64);
+    }
+
+    public BPPairList(int capacity) {
+        boxes1 = new BPBox[Math.max(1, capacity)];
+        boxes2 = new BPBox[Math.max(1, capacity)];
+    }
+
+    public void add(BPBox bpBox1, BPBox bpBox2) {
+        if (size == boxes1.length) {
+            boxes1 = Arrays.copyOf(boxes1, size * 2);
+            boxes2 = Arrays.copyOf(boxes2, size * 2);
+        }
+        boxes1[size] = bpBox1;
+        boxes2[size] = bpBox2;
+        size++;
+    }
+
+    public BPBox getBox1(int index) {
+        return boxes1[index];
+    }
+
+    public BPBox getBox2(int index) {
+        return boxes2[index];
+    }
+
+    public long getKey(int index) {
+        return BPPairs.key(boxes1[index], boxes2[index]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        // Drop the references so removed bodies are not kept alive by an old step
+        Arrays.fill(boxes1, 0, size, null);
+        Arrays.fill(boxes2, 0, size, null);
+        size = 0;
+    }
+}
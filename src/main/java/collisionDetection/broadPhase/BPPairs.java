@@ -1,6 +1,5 @@
 package collisionDetection.broadPhase;
 
-import java.util.Objects;
 //TODO swap this with pair class
 public class BPPairs {
     private BPBox bpBox1;
@@ -27,6 +26,21 @@ public class BPPairs {
         this.bpBox2 = bpBox2;
     }
 
+    // Order independent key of the pair, the smaller proxy id in the high bits
+    public long getKey() {
+        return key(bpBox1, bpBox2);
+    }
+
+    public static long key(BPBox bpBox1, BPBox bpBox2) {
+        return key(bpBox1.getId(), bpBox2.getId());
+    }
+
+    public static long key(int id1, int id2) {
+        int low = Math.min(id1, id2);
+        int high = Math.max(id1, id2);
+        return ((long) low << 32) | (high & 0xFFFFFFFFL);
+    }
+
     @Override
     public String toString() {
         return "BPPairs{" +
@@ -40,11 +54,11 @@ public class BPPairs {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         BPPairs bpPairs = (BPPairs) o;
-        return Objects.equals(bpBox1, bpPairs.bpBox1) && Objects.equals(bpBox2, bpPairs.bpBox2);
+        return getKey() == bpPairs.getKey();
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(bpBox1, bpBox2);
+        return Long.hashCode(getKey());
     }
 }
@@ -1,31 +1,64 @@
 package collisionDetection.broadPhase;
 
 import collisionDetection.primitive.Ray;
+import math.Vector3f;
 
-import java.util.Comparator;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class BVH implements BroadPhase {
 
     private BVHNode root;
+    // Boxes in the tree, so a box added twice gets one leaf and one id reference
+    private final Set<BPBox> contained;
+    // Flattened copy of the tree used by the ray and box queries, rebuilt lazily after changes
+    private final FlatBVH snapshot;
+    private boolean snapshotDirty;
+    // Pool for the parallel pair query, null keeps the query on the calling thread
+    private final ForkJoinPool pool;
 
     private static final int MAX_OBJECTS_PER_LEAF = 10;
+    private static final int SAH_BINS = 16;
+    // Subtrees smaller than this are built on the current thread
+    private static final int PARALLEL_THRESHOLD = 4096;
+    // Below this many boxes the pair query stays on the calling thread
+    private static final int PARALLEL_QUERY_THRESHOLD = 2048;
 
     public BVH() {
+        this(null);
+    }
+
+    public BVH(ForkJoinPool pool) {
         root = null;
+        contained = Collections.newSetFromMap(new IdentityHashMap<>());
+        snapshot = new FlatBVH();
+        snapshotDirty = true;
+        this.pool = pool;
     }
 
     @Override
     public void insert(BPBox obj) {
+        if (!contained.add(obj))
+            return;
+
+        obj.attach();
+        insertBox(obj);
+    }
+
+    private void insertBox(BPBox obj) {
+        snapshotDirty = true;
         // Check if the root is null
         if (root == null) {
             // Create a new BVHNode with the object's bounding box as the node's bounds
             root = new BVHNode();
             root.getObjects().add(obj); // Add the object to the root node's objects list
-            root.setBounds(obj); // Set the root node's bounds to the object's bounds
+            root.setBounds(obj);
         } else {
             // Recursively insert the object into the BVH tree starting from the root
             insertRecursive(root, obj);
@@ -34,61 +67,103 @@ public class BVH implements BroadPhase {
 
     @Override
     public void remove(BPBox obj) {
-        // Check if the root is null
-        if (root == null) {
-            // The tree is empty, nothing to remove
+        if (!contained.remove(obj))
             return;
-        }
 
+        removeBox(obj);
+        obj.detach();
+    }
+
+    private void removeBox(BPBox obj) {
+        snapshotDirty = true;
         // Recursively remove the object from the BVH tree starting from the root
         removeRecursive(root, obj);
     }
 
     @Override
     public void update(BPBox obj) {
-        remove(obj);
-        insert(obj);
+        // The box keeps its id while it is moved to its new leaf
+        if (contained.add(obj))
+            obj.attach();
+        else
+            removeBox(obj);
+        insertBox(obj);
     }
 
     @Override
     public Set<BPPairs> query() {
-        Set<BPPairs> pairs = new HashSet<>();
+        BPPairList pairs = new BPPairList();
+        collectPairs(pairs);
+        return new PairSet(pairs);
+    }
+
+    @Override
+    public void query(BPPairList pairs) {
+        pairs.clear();
+        collectPairs(pairs);
+    }
+
+    // Every object lives in exactly one leaf, so each pair is found once
+    private void collectPairs(BPPairList pairs) {
+        if (pool != null && getSnapshot().getPrimitiveCount() >= PARALLEL_QUERY_THRESHOLD) {
+            // Split the traversal of the flattened tree across the pool
+            snapshot.queryPairs(pairs, pool);
+            return;
+        }
         // Perform a broad-phase collision detection check recursively starting from the root
         queryRecursive(root, pairs);
-        return pairs;
     }
 
     @Override
     public Set<BPBox> query(Ray ray) {
-        Set<BPBox> result = new HashSet<>();
-
-        // Perform the query recursively starting from the root
-        queryRecursive(root, ray, result);
-
-        return result;
+        return getSnapshot().query(ray);
     }
 
     @Override
     public Set<BPBox> query(BPBox obj) {
-        Set<BPBox> result = new HashSet<>();
-
-        // Perform the query recursively starting from the root
-        queryRecursive(root, obj, result);
+        return getSnapshot().query(obj);
+    }
 
-        return result.stream()
-                .filter(b -> !b.getShape().equals(obj.getShape()))
-                .collect(Collectors.toSet());
+    // Returns the flattened tree, rebuilding it once after the tree changed.
+    // Callers that move boxes without update can refit the snapshot instead.
+    public FlatBVH getSnapshot() {
+        if (snapshotDirty) {
+            snapshot.rebuild(root);
+            snapshotDirty = false;
+        }
+        return snapshot;
     }
 
     @Override
     public void clear() {
+        for (BPBox bpBox : contained)
+            bpBox.detach();
+        contained.clear();
         root = null;// Set the root node to null to clear the BVH.
+        snapshotDirty = true;
     }
 
     @Override
     public void addAll(List<BPBox> boxes) {
-        for (BPBox bpBox : boxes)
-            insert(bpBox);
+        // Build the whole tree again in bulk instead of inserting one box at a time
+        List<BPBox> objects = new ArrayList<>();
+        collectObjects(root, objects);
+        for (BPBox bpBox : boxes) {
+            if (contained.add(bpBox)) {
+                bpBox.attach();
+                objects.add(bpBox);
+            }
+        }
+        root = build(objects);
+        snapshotDirty = true;
+    }
+
+    // Rebuilds the tree top-down from the current objects, e.g. after many updates degraded it
+    public void rebuild() {
+        List<BPBox> objects = new ArrayList<>();
+        collectObjects(root, objects);
+        root = build(objects);
+        snapshotDirty = true;
     }
 
     @Override
@@ -112,21 +187,26 @@ public class BVH implements BroadPhase {
                 // and distribute the objects between the left and right child nodes
 
                 // Determine the longest axis of the node's bounding box
-                int longestAxis = node.getBounds().getLongestAxis();
+                int longestAxis = node.getLongestAxis();
 
                 // Create left and right child nodes
                 BVHNode leftChild = new BVHNode();
                 BVHNode rightChild = new BVHNode();
 
                 // Distribute the objects between the left and right child nodes
-                for (BPBox existingObj : node.getObjects()) {
-                    if (existingObj.getCenter().get(longestAxis) <= node.getBounds().getCenter().get(longestAxis)) {
-                        leftChild.getObjects().add(existingObj);
-                        leftChild.setBounds(BVHNode.merge(leftChild.getBounds(), existingObj));
-                    } else {
-                        rightChild.getObjects().add(existingObj);
-                        rightChild.setBounds(BVHNode.merge(rightChild.getBounds(), existingObj));
-                    }
+                List<BPBox> objects = node.getObjects();
+                float splitCenter = node.getCenter(longestAxis);
+                int leftCount = 0;
+                for (BPBox existingObj : objects) {
+                    if (center(existingObj, longestAxis) <= splitCenter)
+                        leftCount++;
+                }
+                // All centers on one side of the split, halve the list instead to avoid splitting forever
+                boolean halve = leftCount == 0 || leftCount == objects.size();
+                for (int i = 0; i < objects.size(); i++) {
+                    BPBox existingObj = objects.get(i);
+                    boolean left = halve ? i < objects.size() / 2 : center(existingObj, longestAxis) <= splitCenter;
+                    addToLeaf(left ? leftChild : rightChild, existingObj);
                 }
 
                 // Clear the objects list in the current node
@@ -143,34 +223,47 @@ public class BVH implements BroadPhase {
                 insertRecursive(node, obj);
             } else {
                 // The leaf node does not contain too many objects, so simply add the object to it
-                node.getObjects().add(obj);
-                // Update the node's bounds to include the new object's bounds
-                node.setBounds(BVHNode.merge(node.getBounds(), obj));
+                addToLeaf(node, obj);
             }
         } else {
-            insertRecursive(node.getLeftChild(), obj);
-            insertRecursive(node.getRightChild(), obj);
+            // Grow the internal node and descend into the child that grows the least
+            node.merge(obj);
+            BVHNode left = node.getLeftChild();
+            BVHNode right = node.getRightChild();
+            float leftGrowth = left.mergedSurfaceArea(obj) - left.surfaceArea();
+            float rightGrowth = right.mergedSurfaceArea(obj) - right.surfaceArea();
+            insertRecursive(leftGrowth <= rightGrowth ? left : right, obj);
         }
     }
 
+    private void addToLeaf(BVHNode node, BPBox obj) {
+        // An empty leaf has no bounds yet, start from the object's bounds
+        if (node.getObjects().isEmpty())
+            node.setBounds(obj);
+        else
+            node.merge(obj);
+        node.getObjects().add(obj);
+    }
+
+    private static float center(BPBox box, int axis) {
+        return (box.getMin().get(axis) + box.getMax().get(axis)) * 0.5f;
+    }
+
 
     // Recursive method to remove an object from the BVH tree
-    private void removeRecursive(BVHNode node, BPBox obj) {
+    private boolean removeRecursive(BVHNode node, BPBox obj) {
         if (node.isLeaf()) {
-            // Check if the object exists in the leaf node's objects list
-            if (node.getObjects().contains(obj)) {
-                // Remove the object from the leaf node's objects list
-                node.getObjects().remove(obj);
-                // If the node has no more objects, remove it from the tree
-                if (node.getObjects().isEmpty()) {
-                    // Handle the case where the parent node might become a leaf node
-                    handlePossibleMerge(node);
-                }
+            // Remove the object from the leaf node's objects list if it is there
+            if (!node.getObjects().remove(obj))
+                return false;
+            // If the node has no more objects, remove it from the tree
+            if (node.getObjects().isEmpty()) {
+                // Handle the case where the parent node might become a leaf node
+                handlePossibleMerge(node);
             }
-        } else {
-            removeRecursive(node.getLeftChild(), obj);
-            removeRecursive(node.getRightChild(), obj);
+            return true;
         }
+        return removeRecursive(node.getLeftChild(), obj) || removeRecursive(node.getRightChild(), obj);
     }
 
     // Helper method to handle possible merge and tree restructuring
@@ -185,7 +278,7 @@ public class BVH implements BroadPhase {
 
         // Merge the sibling's objects into the parent node's objects
         parent.getObjects().addAll(sibling.getObjects());
-        parent.setBounds(BVHNode.merge(parent.getBounds(), sibling.getBounds()));
+        parent.merge(sibling);
 
         // Remove the sibling node from the tree
         if (parent == root) {
@@ -222,85 +315,294 @@ public class BVH implements BroadPhase {
 
 
     // Recursive method to perform broad-phase collision detection
-    private void queryRecursive(BVHNode node, Set<BPPairs> pairs) {
+    private void queryRecursive(BVHNode node, BPPairList pairs) {
         if (node == null) {
-            return; // Stop if the node is null or a leaf node
+            return; // Stop if the node is null
         }
 
-        if (node.isLeaf() && node.getObjects().size() > 1) {
-            // Check for potential collisions between objects in the leaf node
+        if (node.isLeaf()) {
+            // Check for potential collisions between all objects in the leaf node
             List<BPBox> objects = node.getObjects();
-            objects.sort(Comparator.comparing(o -> o.getCenter().x));
-            addPairs(pairs, objects);
-            objects.sort(Comparator.comparing(o -> o.getCenter().y));
-            addPairs(pairs, objects);
-            objects.sort(Comparator.comparing(o -> o.getCenter().z));
-            addPairs(pairs, objects);
-        }
-
-        if (!node.isLeaf()) {
-            // Check for potential collisions between objects in the left and right child nodes
-            for (BPBox box1 : node.getLeftChild().getObjects()) {
-                for (BPBox box2 : node.getRightChild().getObjects()) {
-                    // Check if box1 and box2 potentially collide
-                    if (BPBox.isCollide(box1, box2)) {
-                        // Create a BPPairs object to represent the pair and add it to the set
-                        pairs.add(new BPPairs(box1, box2));
-                    }
+            for (int i = 0; i < objects.size(); i++) {
+                for (int j = i + 1; j < objects.size(); j++) {
+                    if (BPBox.isCollide(objects.get(i), objects.get(j)))
+                        pairs.add(objects.get(i), objects.get(j));
                 }
             }
+            return;
         }
 
-        // Recursively check for collisions in the left and right child subtrees
+        // Pairs inside each subtree, then pairs with one object on each side
         queryRecursive(node.getLeftChild(), pairs);
         queryRecursive(node.getRightChild(), pairs);
+        queryRecursive(node.getLeftChild(), node.getRightChild(), pairs);
     }
 
-    private void addPairs(Set<BPPairs> pairs, List<BPBox> objects) {
-        for (int i = 0; i < objects.size() - 1; i++) {
-            if (BPBox.isCollide(objects.get(i), objects.get(i + 1)))
-                pairs.add(new BPPairs(objects.get(i), objects.get(i + 1)));
+    private void queryRecursive(BVHNode a, BVHNode b, BPPairList pairs) {
+        if (!a.overlaps(b))
+            return;
+
+        if (a.isLeaf() && b.isLeaf()) {
+            for (BPBox box1 : a.getObjects()) {
+                for (BPBox box2 : b.getObjects()) {
+                    if (BPBox.isCollide(box1, box2))
+                        pairs.add(box1, box2);
+                }
+            }
+        } else if (b.isLeaf() || (!a.isLeaf() && a.surfaceArea() >= b.surfaceArea())) {
+            // Descend into the larger node
+            queryRecursive(a.getLeftChild(), b, pairs);
+            queryRecursive(a.getRightChild(), b, pairs);
+        } else {
+            queryRecursive(a, b.getLeftChild(), pairs);
+            queryRecursive(a, b.getRightChild(), pairs);
         }
     }
 
-    // Recursive method to perform the query
-    private void queryRecursive(BVHNode node, BPBox obj, Set<BPBox> result) {
-        if (node == null) {
-            return; // Stop if the node is null
+    private void collectObjects(BVHNode node, List<BPBox> objects) {
+        if (node == null)
+            return;
+        if (node.isLeaf()) {
+            objects.addAll(node.getObjects());
+        } else {
+            collectObjects(node.getLeftChild(), objects);
+            collectObjects(node.getRightChild(), objects);
         }
+    }
 
-        // Check if the node's bounding box and the object's bounding box intersect
-        if (BPBox.isCollide(node.getBounds(), obj)) {
-            if (node.isLeaf()) {
-                // If the node is a leaf, add all objects in the leaf to the result set
-                result.addAll(node.getObjects().stream()
-                        .filter(box -> BPBox.isCollide(obj, box))
-                        .collect(Collectors.toSet()));
-            } else {
-                // If the node is an internal node, recursively query its children
-                queryRecursive(node.getLeftChild(), obj, result);
-                queryRecursive(node.getRightChild(), obj, result);
-            }
+    private BVHNode build(List<BPBox> objects) {
+        if (objects.isEmpty())
+            return null;
+
+        // Copy bounds and centroids into flat arrays once, the build only moves indices around
+        int count = objects.size();
+        BPBox[] boxes = objects.toArray(new BPBox[0]);
+        float[] bounds = new float[count * 6];
+        float[] centroids = new float[count * 3];
+        int[] indices = new int[count];
+        for (int i = 0; i < count; i++) {
+            Vector3f min = boxes[i].getMin();
+            Vector3f max = boxes[i].getMax();
+            bounds[i * 6] = min.x;
+            bounds[i * 6 + 1] = min.y;
+            bounds[i * 6 + 2] = min.z;
+            bounds[i * 6 + 3] = max.x;
+            bounds[i * 6 + 4] = max.y;
+            bounds[i * 6 + 5] = max.z;
+            centroids[i * 3] = (min.x + max.x) * 0.5f;
+            centroids[i * 3 + 1] = (min.y + max.y) * 0.5f;
+            centroids[i * 3 + 2] = (min.z + max.z) * 0.5f;
+            indices[i] = i;
         }
+
+        BuildTask task = new BuildTask(boxes, bounds, centroids, indices, 0, count);
+        if (count < PARALLEL_THRESHOLD)
+            return task.compute();
+        return ForkJoinPool.commonPool().invoke(task);
     }
 
-    private void queryRecursive(BVHNode node, Ray ray, Set<BPBox> result) {
-        if (node == null) {
-            return; // Stop if the node is null
+    // Top-down build of the subtree over indices[start, end), split with binned SAH.
+    // Both halves are partitioned in place, so the two subtrees can be built in parallel.
+    private static class BuildTask extends RecursiveTask<BVHNode> {
+        private final BPBox[] boxes;
+        private final float[] bounds;
+        private final float[] centroids;
+        private final int[] indices;
+        private final int start;
+        private final int end;
+
+        BuildTask(BPBox[] boxes, float[] bounds, float[] centroids, int[] indices, int start, int end) {
+            this.boxes = boxes;
+            this.bounds = bounds;
+            this.centroids = centroids;
+            this.indices = indices;
+            this.start = start;
+            this.end = end;
         }
 
-        // Check if the node's bounding box and the object's bounding box intersect
-        if (BPBox.isCollide(ray, node.getBounds())) {
-            if (node.isLeaf()) {
-                // If the node is a leaf, add all objects in the leaf to the result set
-                result.addAll(node.getObjects());
+        @Override
+        protected BVHNode compute() {
+            return build(start, end);
+        }
+
+        private BVHNode build(int from, int to) {
+            BVHNode node = new BVHNode();
+            float[] nodeBounds = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+                    Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+            float[] centroidBounds = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+                    Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+            for (int i = from; i < to; i++) {
+                int index = indices[i];
+                for (int axis = 0; axis < 3; axis++) {
+                    nodeBounds[axis] = Math.min(nodeBounds[axis], bounds[index * 6 + axis]);
+                    nodeBounds[axis + 3] = Math.max(nodeBounds[axis + 3], bounds[index * 6 + 3 + axis]);
+                    centroidBounds[axis] = Math.min(centroidBounds[axis], centroids[index * 3 + axis]);
+                    centroidBounds[axis + 3] = Math.max(centroidBounds[axis + 3], centroids[index * 3 + axis]);
+                }
+            }
+            node.setBounds(nodeBounds[0], nodeBounds[1], nodeBounds[2], nodeBounds[3], nodeBounds[4], nodeBounds[5]);
+
+            int count = to - from;
+            if (count <= MAX_OBJECTS_PER_LEAF) {
+                for (int i = from; i < to; i++)
+                    node.getObjects().add(boxes[indices[i]]);
+                return node;
+            }
+
+            int mid = splitSAH(from, to, centroidBounds);
+            if (mid <= from || mid >= to) {
+                // Every centroid falls into the same bin, fall back to a median split
+                mid = (from + to) >>> 1;
+                selectMedian(from, to, mid, longestAxis(centroidBounds));
+            }
+
+            node.setLeaf(false);
+            if (count >= PARALLEL_THRESHOLD) {
+                BuildTask left = new BuildTask(boxes, bounds, centroids, indices, from, mid);
+                left.fork();
+                node.setRight(build(mid, to));
+                node.setLeft(left.join());
             } else {
-                // If the node is an internal node, recursively query its children
-                queryRecursive(node.getLeftChild(), ray, result);
-                queryRecursive(node.getRightChild(), ray, result);
+                node.setLeft(build(from, mid));
+                node.setRight(build(mid, to));
             }
+            return node;
         }
-    }
 
+        // Returns the partition point of the cheapest SAH split, or from when there is none
+        private int splitSAH(int from, int to, float[] centroidBounds) {
+            int[] binCounts = new int[SAH_BINS];
+            float[] binBounds = new float[SAH_BINS * 6];
+            float[] rightAreas = new float[SAH_BINS];
+
+            float bestCost = Float.POSITIVE_INFINITY;
+            int bestAxis = -1;
+            int bestBin = 0;
+            for (int axis = 0; axis < 3; axis++) {
+                float extent = centroidBounds[axis + 3] - centroidBounds[axis];
+                if (extent <= 0.0f)
+                    continue;
+
+                float scale = SAH_BINS / extent;
+                Arrays.fill(binCounts, 0);
+                for (int bin = 0; bin < SAH_BINS; bin++)
+                    resetBounds(binBounds, bin);
+
+                for (int i = from; i < to; i++) {
+                    int index = indices[i];
+                    int bin = binIndex(centroids[index * 3 + axis], centroidBounds[axis], scale);
+                    binCounts[bin]++;
+                    for (int k = 0; k < 3; k++) {
+                        binBounds[bin * 6 + k] = Math.min(binBounds[bin * 6 + k], bounds[index * 6 + k]);
+                        binBounds[bin * 6 + 3 + k] = Math.max(binBounds[bin * 6 + 3 + k], bounds[index * 6 + 3 + k]);
+                    }
+                }
+
+                // Sweep from the right to get the area of everything right of each plane
+                float[] sweep = new float[6];
+                resetBounds(sweep, 0);
+                for (int bin = SAH_BINS - 1; bin > 0; bin--) {
+                    grow(sweep, binBounds, bin);
+                    rightAreas[bin] = area(sweep);
+                }
+
+                // Then from the left, pricing the plane between bin - 1 and bin
+                resetBounds(sweep, 0);
+                int leftCount = 0;
+                for (int bin = 1; bin < SAH_BINS; bin++) {
+                    grow(sweep, binBounds, bin - 1);
+                    leftCount += binCounts[bin - 1];
+                    int rightCount = (to - from) - leftCount;
+                    if (leftCount == 0 || rightCount == 0)
+                        continue;
+
+                    float cost = leftCount * area(sweep) + rightCount * rightAreas[bin];
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestAxis = axis;
+                        bestBin = bin;
+                    }
+                }
+            }
+
+            if (bestAxis < 0)
+                return from;
+
+            // Partition the indices in place around the chosen plane
+            float scale = SAH_BINS / (centroidBounds[bestAxis + 3] - centroidBounds[bestAxis]);
+            int i = from;
+            int j = to - 1;
+            while (i <= j) {
+                if (binIndex(centroids[indices[i] * 3 + bestAxis], centroidBounds[bestAxis], scale) < bestBin) {
+                    i++;
+                } else {
+                    int tmp = indices[i];
+                    indices[i] = indices[j];
+                    indices[j--] = tmp;
+                }
+            }
+            return i;
+        }
+
+        // Quickselect so that indices[mid] holds the median centroid on the axis
+        private void selectMedian(int from, int to, int mid, int axis) {
+            int lo = from;
+            int hi = to - 1;
+            while (lo < hi) {
+                float pivot = centroids[indices[(lo + hi) >>> 1] * 3 + axis];
+                int i = lo;
+                int j = hi;
+                while (i <= j) {
+                    while (centroids[indices[i] * 3 + axis] < pivot) i++;
+                    while (centroids[indices[j] * 3 + axis] > pivot) j--;
+                    if (i <= j) {
+                        int tmp = indices[i];
+                        indices[i++] = indices[j];
+                        indices[j--] = tmp;
+                    }
+                }
+                if (mid <= j) {
+                    hi = j;
+                } else if (mid >= i) {
+                    lo = i;
+                } else {
+                    return;
+                }
+            }
+        }
 
+        private static int binIndex(float centroid, float min, float scale) {
+            return Math.min(SAH_BINS - 1, (int) ((centroid - min) * scale));
+        }
+
+        private static int longestAxis(float[] box) {
+            float dx = box[3] - box[0];
+            float dy = box[4] - box[1];
+            float dz = box[5] - box[2];
+            if (dx >= dy && dx >= dz)
+                return 0;
+            return dy >= dz ? 1 : 2;
+        }
+
+        private static void resetBounds(float[] box, int bin) {
+            for (int k = 0; k < 3; k++) {
+                box[bin * 6 + k] = Float.POSITIVE_INFINITY;
+                box[bin * 6 + 3 + k] = Float.NEGATIVE_INFINITY;
+            }
+        }
+
+        private static void grow(float[] box, float[] binBounds, int bin) {
+            for (int k = 0; k < 3; k++) {
+                box[k] = Math.min(box[k], binBounds[bin * 6 + k]);
+                box[k + 3] = Math.max(box[k + 3], binBounds[bin * 6 + 3 + k]);
+            }
+        }
+
+        private static float area(float[] box) {
+            float dx = box[3] - box[0];
+            float dy = box[4] - box[1];
+            float dz = box[5] - box[2];
+            return dx * dy + dy * dz + dz * dx;
+        }
+    }
 }
@@ -6,26 +6,89 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class BVHNode {
-    private BPBox nodeBounds;
+    // Node bounds are plain corners updated in place, they are not proxies and take no id
+    private final Vector3f min;
+    private final Vector3f max;
     boolean isLeaf;
     private final List<BPBox> objects;
     private BVHNode left;
     private BVHNode right;
 
     public BVHNode() {
-        nodeBounds = new BPBox(new Vector3f(), new Vector3f(), null);
+        min = new Vector3f();
+        max = new Vector3f();
         isLeaf = true;
         objects = new ArrayList<>();
         left = null;
         right = null;
     }
 
-    public BPBox getBounds() {
-        return nodeBounds;
+    public Vector3f getMin() {
+        return min;
     }
 
-    public void setBounds(BPBox bounds) {
-        nodeBounds = bounds;
+    public Vector3f getMax() {
+        return max;
+    }
+
+    // Copies the bounds of the box, the box itself keeps moving
+    public void setBounds(BPBox box) {
+        min.set(box.getMin());
+        max.set(box.getMax());
+    }
+
+    public void setBounds(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        min.set(minX, minY, minZ);
+        max.set(maxX, maxY, maxZ);
+    }
+
+    // Grows the bounds to also contain the box
+    public void merge(BPBox box) {
+        merge(box.getMin(), box.getMax());
+    }
+
+    public void merge(BVHNode node) {
+        merge(node.min, node.max);
+    }
+
+    private void merge(Vector3f otherMin, Vector3f otherMax) {
+        min.set(Math.min(min.x, otherMin.x), Math.min(min.y, otherMin.y), Math.min(min.z, otherMin.z));
+        max.set(Math.max(max.x, otherMax.x), Math.max(max.y, otherMax.y), Math.max(max.z, otherMax.z));
+    }
+
+    public boolean overlaps(BVHNode other) {
+        return !(other.min.x > max.x || other.max.x < min.x ||
+                other.min.y > max.y || other.max.y < min.y ||
+                other.min.z > max.z || other.max.z < min.z);
+    }
+
+    // Half of the surface area, enough to compare SAH costs
+    public float surfaceArea() {
+        float dx = max.x - min.x;
+        float dy = max.y - min.y;
+        float dz = max.z - min.z;
+        return dx * dy + dy * dz + dz * dx;
+    }
+
+    // Half of the surface area of the bounds grown by the box, without growing them
+    public float mergedSurfaceArea(BPBox box) {
+        float dx = Math.max(max.x, box.getMax().x) - Math.min(min.x, box.getMin().x);
+        float dy = Math.max(max.y, box.getMax().y) - Math.min(min.y, box.getMin().y);
+        float dz = Math.max(max.z, box.getMax().z) - Math.min(min.z, box.getMin().z);
+        return dx * dy + dy * dz + dz * dx;
+    }
+
+    public int getLongestAxis() {
+        float dx = max.x - min.x;
+        float dy = max.y - min.y;
+        float dz = max.z - min.z;
+        if (dx >= dy && dx >= dz)
+            return 0;
+        return dy >= dz ? 1 : 2;
+    }
+
+    public float getCenter(int axis) {
+        return (min.get(axis) + max.get(axis)) * 0.5f;
     }
 
     public List<BPBox> getObjects() {
@@ -55,24 +118,4 @@ public class BVHNode {
     public boolean isLeaf() {
         return isLeaf;
     }
-
-    public static BPBox merge(BPBox box1, BPBox box2) {
-        // Compute the new bounding box that contains both input boxes
-        Vector3f newMin = new Vector3f(
-                Math.min(box1.getMin().x, box2.getMin().x),
-                Math.min(box1.getMin().y, box2.getMin().y),
-                Math.min(box1.getMin().z, box2.getMin().z)
-        );
-
-        Vector3f newMax = new Vector3f(
-                Math.max(box1.getMax().x, box2.getMax().x),
-                Math.max(box1.getMax().y, box2.getMax().y),
-                Math.max(box1.getMax().z, box2.getMax().z)
-        );
-
-        // Create a new BPBox representing the merged bounding box
-        return new BPBox(newMin, newMax, null); // Replace 'null' with the appropriate Shape object if needed
-    }
-
-
 }
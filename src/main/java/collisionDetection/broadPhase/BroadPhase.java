@@ -14,6 +14,13 @@ public interface BroadPhase {
 
     Set<BPPairs> query();
 
+    // Fills the list with the overlapping pairs, reusing its storage between steps
+    default void query(BPPairList pairs) {
+        pairs.clear();
+        for (BPPairs pair : query())
+            pairs.add(pair.getBpBox1(), pair.getBpBox2());
+    }
+
     Set<BPBox> query(Ray ray);
 
     Set<BPBox> query(BPBox obj);
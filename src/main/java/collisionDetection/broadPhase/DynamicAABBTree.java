@@ -0,0 +1,395 @@
+package collisionDetection.broadPhase;
+
+import collisionDetection.primitive.Ray;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Dynamic AABB tree in the style of Box2D/Bullet. Every box owns one leaf whose bounds are the box
+// fattened by a margin, so an update only touches the tree once the box leaves its fat bounds.
+// Leaves are inserted next to the sibling with the lowest surface area cost and the tree is kept
+// balanced with AVL rotations on the way back to the root.
+public class DynamicAABBTree implements BroadPhase {
+
+    private static final float DEFAULT_MARGIN = 0.1f;
+
+    private final float margin;
+    private DynamicTreeNode root;
+    // Leaf of every box in the tree
+    private final Map<BPBox, DynamicTreeNode> leaves;
+    private DynamicTreeNode[] stack;
+
+    public DynamicAABBTree() {
+        this(DEFAULT_MARGIN);
+    }
+
+    public DynamicAABBTree(float margin) {
+        if (margin < 0)
+            throw new IllegalArgumentException("margin must not be negative");
+        this.margin = margin;
+        leaves = new IdentityHashMap<>();
+        stack = new DynamicTreeNode[64];
+    }
+
+    @Override
+    public void insert(BPBox obj) {
+        if (leaves.containsKey(obj))
+            return;
+
+        obj.attach();
+        DynamicTreeNode leaf = new DynamicTreeNode();
+        leaf.box = obj;
+        fatten(leaf, obj);
+        leaves.put(obj, leaf);
+        insertLeaf(leaf);
+    }
+
+    @Override
+    public void remove(BPBox obj) {
+        DynamicTreeNode leaf = leaves.remove(obj);
+        if (leaf != null) {
+            removeLeaf(leaf);
+            obj.detach();
+        }
+    }
+
+    @Override
+    public void update(BPBox obj) {
+        DynamicTreeNode leaf = leaves.get(obj);
+        if (leaf == null) {
+            insert(obj);
+            return;
+        }
+
+        // Small motions stay inside the fat bounds and leave the tree untouched
+        if (leaf.contains(obj))
+            return;
+
+        removeLeaf(leaf);
+        fatten(leaf, obj);
+        insertLeaf(leaf);
+    }
+
+    @Override
+    public Set<BPPairs> query() {
+        BPPairList pairs = new BPPairList();
+        if (root != null)
+            selfQuery(root, pairs);
+        return new PairSet(pairs);
+    }
+
+    @Override
+    public void query(BPPairList pairs) {
+        pairs.clear();
+        if (root != null)
+            selfQuery(root, pairs);
+    }
+
+    @Override
+    public Set<BPBox> query(Ray ray) {
+        Set<BPBox> result = new HashSet<>();
+        if (root == null)
+            return result;
+
+        int size = 0;
+        stack[size++] = root;
+        while (size > 0) {
+            DynamicTreeNode node = stack[--size];
+            if (!BPBox.isCollide(ray, node.minX, node.minY, node.minZ, node.maxX, node.maxY, node.maxZ))
+                continue;
+
+            if (node.isLeaf()) {
+                BPBox box = node.box;
+                if (BPBox.isCollide(ray, box.getMin().x, box.getMin().y, box.getMin().z,
+                        box.getMax().x, box.getMax().y, box.getMax().z))
+                    result.add(box);
+            } else {
+                size = push(size, node);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Set<BPBox> query(BPBox obj) {
+        Set<BPBox> result = new HashSet<>();
+        if (root == null)
+            return result;
+
+        int size = 0;
+        stack[size++] = root;
+        while (size > 0) {
+            DynamicTreeNode node = stack[--size];
+            if (!node.overlaps(obj))
+                continue;
+
+            if (node.isLeaf()) {
+                if (BPBox.isCollide(node.box, obj) && !node.box.getShape().equals(obj.getShape()))
+                    result.add(node.box);
+            } else {
+                size = push(size, node);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        for (BPBox bpBox : leaves.keySet())
+            bpBox.detach();
+        root = null;
+        leaves.clear();
+    }
+
+    @Override
+    public void addAll(List<BPBox> boxes) {
+        for (BPBox bpBox : boxes)
+            insert(bpBox);
+    }
+
+    @Override
+    public void updateAll(List<BPBox> boxes) {
+        for (BPBox bpBox : boxes)
+            update(bpBox);
+    }
+
+    @Override
+    public void removeAll(List<BPBox> boxes) {
+        for (BPBox bpBox : boxes)
+            remove(bpBox);
+    }
+
+    public float getMargin() {
+        return margin;
+    }
+
+    public int getHeight() {
+        return root == null ? 0 : root.height;
+    }
+
+    private void fatten(DynamicTreeNode leaf, BPBox obj) {
+        leaf.minX = obj.getMin().x - margin;
+        leaf.minY = obj.getMin().y - margin;
+        leaf.minZ = obj.getMin().z - margin;
+        leaf.maxX = obj.getMax().x + margin;
+        leaf.maxY = obj.getMax().y + margin;
+        leaf.maxZ = obj.getMax().z + margin;
+    }
+
+    private void insertLeaf(DynamicTreeNode leaf) {
+        if (root == null) {
+            root = leaf;
+            leaf.parent = null;
+            return;
+        }
+
+        // Walk down towards the sibling with the cheapest surface area cost
+        DynamicTreeNode sibling = root;
+        while (!sibling.isLeaf()) {
+            float area = sibling.area();
+            float combinedArea = sibling.unionArea(leaf);
+
+            // Cost of making a new parent for this node and the leaf
+            float cost = 2.0f * combinedArea;
+            // Minimum cost pushed down to the children when descending
+            float inheritanceCost = 2.0f * (combinedArea - area);
+
+            float cost1 = descendCost(sibling.child1, leaf) + inheritanceCost;
+            float cost2 = descendCost(sibling.child2, leaf) + inheritanceCost;
+
+            if (cost < cost1 && cost < cost2)
+                break;
+
+            sibling = cost1 < cost2 ? sibling.child1 : sibling.child2;
+        }
+
+        DynamicTreeNode oldParent = sibling.parent;
+        DynamicTreeNode newParent = new DynamicTreeNode();
+        newParent.parent = oldParent;
+        newParent.setUnion(sibling, leaf);
+        newParent.height = sibling.height + 1;
+        newParent.child1 = sibling;
+        newParent.child2 = leaf;
+        sibling.parent = newParent;
+        leaf.parent = newParent;
+
+        if (oldParent == null) {
+            root = newParent;
+        } else if (oldParent.child1 == sibling) {
+            oldParent.child1 = newParent;
+        } else {
+            oldParent.child2 = newParent;
+        }
+
+        refitAncestors(leaf.parent);
+    }
+
+    private float descendCost(DynamicTreeNode child, DynamicTreeNode leaf) {
+        float combinedArea = child.unionArea(leaf);
+        if (child.isLeaf())
+            return combinedArea;
+        // An internal child only grows, its own cost is already paid
+        return combinedArea - child.area();
+    }
+
+    private void removeLeaf(DynamicTreeNode leaf) {
+        if (leaf == root) {
+            root = null;
+            return;
+        }
+
+        DynamicTreeNode parent = leaf.parent;
+        DynamicTreeNode grandParent = parent.parent;
+        DynamicTreeNode sibling = parent.child1 == leaf ? parent.child2 : parent.child1;
+        leaf.parent = null;
+
+        // The sibling takes the place of the parent
+        sibling.parent = grandParent;
+        if (grandParent == null) {
+            root = sibling;
+            return;
+        }
+
+        if (grandParent.child1 == parent) {
+            grandParent.child1 = sibling;
+        } else {
+            grandParent.child2 = sibling;
+        }
+        refitAncestors(grandParent);
+    }
+
+    // Rebalances and refits every node from the given one up to the root
+    private void refitAncestors(DynamicTreeNode node) {
+        while (node != null) {
+            node = balance(node);
+
+            node.height = 1 + Math.max(node.child1.height, node.child2.height);
+            node.setUnion(node.child1, node.child2);
+
+            node = node.parent;
+        }
+    }
+
+    // Rotates the taller grandchild up when the children of a differ in height by more than one.
+    // Returns the node that now sits where a was.
+    private DynamicTreeNode balance(DynamicTreeNode a) {
+        if (a.isLeaf() || a.height < 2)
+            return a;
+
+        DynamicTreeNode b = a.child1;
+        DynamicTreeNode c = a.child2;
+        int balance = c.height - b.height;
+
+        if (balance > 1) {
+            // Rotate c up
+            DynamicTreeNode f = c.child1;
+            DynamicTreeNode g = c.child2;
+
+            c.child1 = a;
+            c.parent = a.parent;
+            a.parent = c;
+            replaceChild(c.parent, a, c);
+
+            if (f.height > g.height) {
+                c.child2 = f;
+                a.child2 = g;
+                g.parent = a;
+                a.setUnion(b, g);
+                c.setUnion(a, f);
+                a.height = 1 + Math.max(b.height, g.height);
+                c.height = 1 + Math.max(a.height, f.height);
+            } else {
+                c.child2 = g;
+                a.child2 = f;
+                f.parent = a;
+                a.setUnion(b, f);
+                c.setUnion(a, g);
+                a.height = 1 + Math.max(b.height, f.height);
+                c.height = 1 + Math.max(a.height, g.height);
+            }
+            return c;
+        }
+
+        if (balance < -1) {
+            // Rotate b up
+            DynamicTreeNode d = b.child1;
+            DynamicTreeNode e = b.child2;
+
+            b.child1 = a;
+            b.parent = a.parent;
+            a.parent = b;
+            replaceChild(b.parent, a, b);
+
+            if (d.height > e.height) {
+                b.child2 = d;
+                a.child1 = e;
+                e.parent = a;
+                a.setUnion(e, c);
+                b.setUnion(a, d);
+                a.height = 1 + Math.max(e.height, c.height);
+                b.height = 1 + Math.max(a.height, d.height);
+            } else {
+                b.child2 = e;
+                a.child1 = d;
+                d.parent = a;
+                a.setUnion(d, c);
+                b.setUnion(a, e);
+                a.height = 1 + Math.max(d.height, c.height);
+                b.height = 1 + Math.max(a.height, e.height);
+            }
+            return b;
+        }
+
+        return a;
+    }
+
+    private void replaceChild(DynamicTreeNode parent, DynamicTreeNode oldChild, DynamicTreeNode newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.child1 == oldChild) {
+            parent.child1 = newChild;
+        } else {
+            parent.child2 = newChild;
+        }
+    }
+
+    // Every pair is found exactly once: inside a subtree, or across the two children of its lowest common ancestor
+    private void selfQuery(DynamicTreeNode node, BPPairList pairs) {
+        if (node.isLeaf())
+            return;
+
+        selfQuery(node.child1, pairs);
+        selfQuery(node.child2, pairs);
+        crossQuery(node.child1, node.child2, pairs);
+    }
+
+    private void crossQuery(DynamicTreeNode a, DynamicTreeNode b, BPPairList pairs) {
+        if (!a.overlaps(b))
+            return;
+
+        if (a.isLeaf() && b.isLeaf()) {
+            // The fat bounds overlap, the boxes themselves may not
+            if (BPBox.isCollide(a.box, b.box))
+                pairs.add(a.box, b.box);
+        } else if (b.isLeaf() || (!a.isLeaf() && a.area() >= b.area())) {
+            // Descend into the larger node first
+            crossQuery(a.child1, b, pairs);
+            crossQuery(a.child2, b, pairs);
+        } else {
+            crossQuery(a, b.child1, pairs);
+            crossQuery(a, b.child2, pairs);
+        }
+    }
+
+    private int push(int size, DynamicTreeNode node) {
+        if (size + 2 > stack.length)
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        stack[size++] = node.child1;
+        stack[size++] = node.child2;
+        return size;
+    }
+}
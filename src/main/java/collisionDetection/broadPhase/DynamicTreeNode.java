@@ -0,0 +1,61 @@
+package collisionDetection.broadPhase;
+
+// Node of the DynamicAABBTree. Leaves hold a box and its fattened bounds,
+// internal nodes always have two children and the union of their bounds.
+class DynamicTreeNode {
+    float minX, minY, minZ;
+    float maxX, maxY, maxZ;
+
+    DynamicTreeNode parent;
+    DynamicTreeNode child1;
+    DynamicTreeNode child2;
+
+    // leaves have height 0
+    int height;
+    BPBox box;
+
+    boolean isLeaf() {
+        return child1 == null;
+    }
+
+    void setUnion(DynamicTreeNode a, DynamicTreeNode b) {
+        minX = Math.min(a.minX, b.minX);
+        minY = Math.min(a.minY, b.minY);
+        minZ = Math.min(a.minZ, b.minZ);
+        maxX = Math.max(a.maxX, b.maxX);
+        maxY = Math.max(a.maxY, b.maxY);
+        maxZ = Math.max(a.maxZ, b.maxZ);
+    }
+
+    // Half of the surface area, enough to compare SAH costs
+    float area() {
+        float dx = maxX - minX;
+        float dy = maxY - minY;
+        float dz = maxZ - minZ;
+        return dx * dy + dy * dz + dz * dx;
+    }
+
+    float unionArea(DynamicTreeNode other) {
+        float dx = Math.max(maxX, other.maxX) - Math.min(minX, other.minX);
+        float dy = Math.max(maxY, other.maxY) - Math.min(minY, other.minY);
+        float dz = Math.max(maxZ, other.maxZ) - Math.min(minZ, other.minZ);
+        return dx * dy + dy * dz + dz * dx;
+    }
+
+    boolean overlaps(DynamicTreeNode other) {
+        return !(other.minX > maxX || other.maxX < minX ||
+                other.minY > maxY || other.maxY < minY ||
+                other.minZ > maxZ || other.maxZ < minZ);
+    }
+
+    boolean overlaps(BPBox other) {
+        return !(other.getMin().x > maxX || other.getMax().x < minX ||
+                other.getMin().y > maxY || other.getMax().y < minY ||
+                other.getMin().z > maxZ || other.getMax().z < minZ);
+    }
+
+    boolean contains(BPBox other) {
+        return minX <= other.getMin().x && minY <= other.getMin().y && minZ <= other.getMin().z &&
+                maxX >= other.getMax().x && maxY >= other.getMax().y && maxZ >= other.getMax().z;
+    }
+}
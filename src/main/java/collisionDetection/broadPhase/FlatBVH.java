@@ -0,0 +1,358 @@
+package collisionDetection.broadPhase;
+
+import collisionDetection.primitive.Ray;
+import math.Vector3f;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Read-only snapshot of a BVH with the nodes in depth-first order inside primitive arrays.
+// The left child of an internal node is the next node, so only the right child is stored,
+// and queries walk the arrays with an explicit stack instead of chasing BVHNode references.
+public class FlatBVH {
+
+    // Levels of the tree cut into parallel jobs, up to 4^JOB_DEPTH jobs
+    private static final int JOB_DEPTH = 5;
+
+    // minX, minY, minZ, maxX, maxY, maxZ per node
+    private float[] nodeBounds;
+    // internal node: index of the right child, leaf: index of the first primitive
+    private int[] offsets;
+    // number of primitives in a leaf, -1 for internal nodes
+    private int[] counts;
+    private int nodeCount;
+    private int depth;
+
+    private BPBox[] primitives;
+    private float[] primitiveBounds;
+    private int primitiveCount;
+
+    public FlatBVH() {
+        nodeBounds = new float[0];
+        offsets = new int[0];
+        counts = new int[0];
+        primitives = new BPBox[0];
+        primitiveBounds = new float[0];
+    }
+
+    // Flattens the tree, keeping the arrays when they are already large enough
+    void rebuild(BVHNode root) {
+        int[] sizes = new int[2];
+        measure(root, sizes);
+        ensureCapacity(sizes[0], sizes[1]);
+
+        nodeCount = 0;
+        primitiveCount = 0;
+        depth = 0;
+        if (root != null)
+            flatten(root, 1);
+        refit();
+    }
+
+    // Recomputes all bounds from the current box positions without changing the tree shape
+    public void refit() {
+        for (int i = 0; i < primitiveCount; i++) {
+            Vector3f min = primitives[i].getMin();
+            Vector3f max = primitives[i].getMax();
+            primitiveBounds[i * 6] = min.x;
+            primitiveBounds[i * 6 + 1] = min.y;
+            primitiveBounds[i * 6 + 2] = min.z;
+            primitiveBounds[i * 6 + 3] = max.x;
+            primitiveBounds[i * 6 + 4] = max.y;
+            primitiveBounds[i * 6 + 5] = max.z;
+        }
+
+        // Children always come after their parent, so a reverse walk is bottom-up
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            int base = node * 6;
+            for (int k = 0; k < 3; k++) {
+                nodeBounds[base + k] = Float.POSITIVE_INFINITY;
+                nodeBounds[base + 3 + k] = Float.NEGATIVE_INFINITY;
+            }
+
+            if (counts[node] >= 0) {
+                int first = offsets[node];
+                for (int p = first; p < first + counts[node]; p++)
+                    grow(base, primitiveBounds, p * 6);
+            } else {
+                grow(base, nodeBounds, (node + 1) * 6);
+                grow(base, nodeBounds, offsets[node] * 6);
+            }
+        }
+    }
+
+    public Set<BPBox> query(Ray ray) {
+        Set<BPBox> result = new HashSet<>();
+        query(ray, result);
+        return result;
+    }
+
+    // Adds every box hit by the ray to the result, so callers can reuse one collection per frame
+    public void query(Ray ray, Collection<BPBox> result) {
+        if (nodeCount == 0)
+            return;
+
+        Vector3f origin = ray.getOrigin();
+        Vector3f direction = ray.getDirection();
+        float ox = origin.x, oy = origin.y, oz = origin.z;
+        float invX = 1.0f / direction.x, invY = 1.0f / direction.y, invZ = 1.0f / direction.z;
+
+        int[] stack = new int[depth + 1];
+        int size = 0;
+        stack[size++] = 0;
+        while (size > 0) {
+            int node = stack[--size];
+            if (!intersects(nodeBounds, node * 6, ox, oy, oz, invX, invY, invZ))
+                continue;
+
+            if (counts[node] >= 0) {
+                int first = offsets[node];
+                for (int p = first; p < first + counts[node]; p++) {
+                    if (intersects(primitiveBounds, p * 6, ox, oy, oz, invX, invY, invZ))
+                        result.add(primitives[p]);
+                }
+            } else {
+                stack[size++] = offsets[node];
+                stack[size++] = node + 1;
+            }
+        }
+    }
+
+    public Set<BPBox> query(BPBox obj) {
+        Set<BPBox> result = new HashSet<>();
+        query(obj, result);
+        return result;
+    }
+
+    // Adds every box overlapping obj, except boxes sharing its shape, to the result
+    public void query(BPBox obj, Collection<BPBox> result) {
+        if (nodeCount == 0)
+            return;
+
+        float minX = obj.getMin().x, minY = obj.getMin().y, minZ = obj.getMin().z;
+        float maxX = obj.getMax().x, maxY = obj.getMax().y, maxZ = obj.getMax().z;
+
+        int[] stack = new int[depth + 1];
+        int size = 0;
+        stack[size++] = 0;
+        while (size > 0) {
+            int node = stack[--size];
+            if (!overlaps(nodeBounds, node * 6, minX, minY, minZ, maxX, maxY, maxZ))
+                continue;
+
+            if (counts[node] >= 0) {
+                int first = offsets[node];
+                for (int p = first; p < first + counts[node]; p++) {
+                    if (overlaps(primitiveBounds, p * 6, minX, minY, minZ, maxX, maxY, maxZ)
+                            && !primitives[p].getShape().equals(obj.getShape()))
+                        result.add(primitives[p]);
+                }
+            } else {
+                stack[size++] = offsets[node];
+                stack[size++] = node + 1;
+            }
+        }
+    }
+
+    // Finds every overlapping pair of boxes. The top of the tree is cut into independent
+    // self and cross subtree jobs that fill their own index buffers on the pool.
+    void queryPairs(BPPairList pairs, ForkJoinPool pool) {
+        if (nodeCount == 0)
+            return;
+
+        List<int[]> jobs = new ArrayList<>();
+        expandSelf(0, JOB_DEPTH, jobs);
+        List<ForkJoinTask<PairBuffer>> tasks = new ArrayList<>(jobs.size());
+        for (int[] job : jobs) {
+            tasks.add(pool.submit(() -> {
+                PairBuffer buffer = new PairBuffer();
+                if (job[1] < 0) {
+                    selfQuery(job[0], buffer);
+                } else {
+                    crossQuery(job[0], job[1], buffer);
+                }
+                return buffer;
+            }));
+        }
+
+        for (ForkJoinTask<PairBuffer> task : tasks) {
+            PairBuffer buffer = task.join();
+            for (int p = 0; p < buffer.size(); p++)
+                pairs.add(primitives[buffer.first(p)], primitives[buffer.second(p)]);
+        }
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getPrimitiveCount() {
+        return primitiveCount;
+    }
+
+    // self(n) = self(left) + self(right) + cross(left, right), split until the depth budget runs out
+    private void expandSelf(int node, int budget, List<int[]> jobs) {
+        if (counts[node] >= 0 || budget == 0) {
+            jobs.add(new int[]{node, -1});
+            return;
+        }
+        expandSelf(node + 1, budget - 1, jobs);
+        expandSelf(offsets[node], budget - 1, jobs);
+        expandCross(node + 1, offsets[node], budget - 1, jobs);
+    }
+
+    private void expandCross(int a, int b, int budget, List<int[]> jobs) {
+        if (!overlaps(nodeBounds, a * 6, nodeBounds[b * 6], nodeBounds[b * 6 + 1], nodeBounds[b * 6 + 2],
+                nodeBounds[b * 6 + 3], nodeBounds[b * 6 + 4], nodeBounds[b * 6 + 5]))
+            return;
+
+        if (budget == 0 || (counts[a] >= 0 && counts[b] >= 0)) {
+            jobs.add(new int[]{a, b});
+        } else if (counts[a] < 0) {
+            expandCross(a + 1, b, budget - 1, jobs);
+            expandCross(offsets[a], b, budget - 1, jobs);
+        } else {
+            expandCross(a, b + 1, budget - 1, jobs);
+            expandCross(a, offsets[b], budget - 1, jobs);
+        }
+    }
+
+    private void selfQuery(int node, PairBuffer buffer) {
+        if (counts[node] >= 0) {
+            int first = offsets[node];
+            int last = first + counts[node];
+            for (int p = first; p < last; p++) {
+                for (int q = p + 1; q < last; q++) {
+                    if (overlaps(primitiveBounds, p * 6, primitiveBounds[q * 6], primitiveBounds[q * 6 + 1],
+                            primitiveBounds[q * 6 + 2], primitiveBounds[q * 6 + 3], primitiveBounds[q * 6 + 4],
+                            primitiveBounds[q * 6 + 5]))
+                        buffer.add(p, q);
+                }
+            }
+            return;
+        }
+        selfQuery(node + 1, buffer);
+        selfQuery(offsets[node], buffer);
+        crossQuery(node + 1, offsets[node], buffer);
+    }
+
+    private void crossQuery(int a, int b, PairBuffer buffer) {
+        if (!overlaps(nodeBounds, a * 6, nodeBounds[b * 6], nodeBounds[b * 6 + 1], nodeBounds[b * 6 + 2],
+                nodeBounds[b * 6 + 3], nodeBounds[b * 6 + 4], nodeBounds[b * 6 + 5]))
+            return;
+
+        if (counts[a] >= 0 && counts[b] >= 0) {
+            for (int p = offsets[a]; p < offsets[a] + counts[a]; p++) {
+                for (int q = offsets[b]; q < offsets[b] + counts[b]; q++) {
+                    if (overlaps(primitiveBounds, p * 6, primitiveBounds[q * 6], primitiveBounds[q * 6 + 1],
+                            primitiveBounds[q * 6 + 2], primitiveBounds[q * 6 + 3], primitiveBounds[q * 6 + 4],
+                            primitiveBounds[q * 6 + 5]))
+                        buffer.add(p, q);
+                }
+            }
+        } else if (counts[a] < 0) {
+            crossQuery(a + 1, b, buffer);
+            crossQuery(offsets[a], b, buffer);
+        } else {
+            crossQuery(a, b + 1, buffer);
+            crossQuery(a, offsets[b], buffer);
+        }
+    }
+
+    private void measure(BVHNode node, int[] sizes) {
+        if (node == null)
+            return;
+        sizes[0]++;
+        if (node.isLeaf()) {
+            sizes[1] += node.getObjects().size();
+        } else {
+            measure(node.getLeftChild(), sizes);
+            measure(node.getRightChild(), sizes);
+        }
+    }
+
+    private void ensureCapacity(int nodes, int boxes) {
+        if (counts.length < nodes) {
+            nodeBounds = new float[nodes * 6];
+            offsets = new int[nodes];
+            counts = new int[nodes];
+        }
+        if (primitives.length < boxes) {
+            primitives = new BPBox[boxes];
+            primitiveBounds = new float[boxes * 6];
+        } else {
+            // Drop references to boxes that are no longer in the tree
+            Arrays.fill(primitives, boxes, primitives.length, null);
+        }
+    }
+
+    private void flatten(BVHNode node, int level) {
+        int index = nodeCount++;
+        depth = Math.max(depth, level);
+
+        if (node.isLeaf()) {
+            offsets[index] = primitiveCount;
+            counts[index] = node.getObjects().size();
+            for (BPBox box : node.getObjects())
+                primitives[primitiveCount++] = box;
+            return;
+        }
+
+        // The left subtree follows directly, the right one starts after it
+        counts[index] = -1;
+        flatten(node.getLeftChild(), level + 1);
+        offsets[index] = nodeCount;
+        flatten(node.getRightChild(), level + 1);
+    }
+
+    private void grow(int base, float[] source, int from) {
+        for (int k = 0; k < 3; k++) {
+            nodeBounds[base + k] = Math.min(nodeBounds[base + k], source[from + k]);
+            nodeBounds[base + 3 + k] = Math.max(nodeBounds[base + 3 + k], source[from + 3 + k]);
+        }
+    }
+
+    // Slab test with the inverse direction computed once per ray
+    private static boolean intersects(float[] bounds, int base, float ox, float oy, float oz,
+                                      float invX, float invY, float invZ) {
+        float tMin = 0.0f;
+        float tMax = Float.POSITIVE_INFINITY;
+
+        float t1 = (bounds[base] - ox) * invX;
+        float t2 = (bounds[base + 3] - ox) * invX;
+        // A zero direction component gives NaN on the slab border, treat it as inside
+        if (t1 == t1 && t2 == t2) {
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        }
+
+        t1 = (bounds[base + 1] - oy) * invY;
+        t2 = (bounds[base + 4] - oy) * invY;
+        if (t1 == t1 && t2 == t2) {
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        }
+
+        t1 = (bounds[base + 2] - oz) * invZ;
+        t2 = (bounds[base + 5] - oz) * invZ;
+        if (t1 == t1 && t2 == t2) {
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        }
+
+        return tMin <= tMax;
+    }
+
+    private static boolean overlaps(float[] bounds, int base, float minX, float minY, float minZ,
+                                    float maxX, float maxY, float maxZ) {
+        return !(minX > bounds[base + 3] || maxX < bounds[base] ||
+                minY > bounds[base + 4] || maxY < bounds[base + 1] ||
+                minZ > bounds[base + 5] || maxZ < bounds[base + 2]);
+    }
+}
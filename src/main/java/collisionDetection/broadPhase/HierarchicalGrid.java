@@ -0,0 +1,231 @@
+package collisionDetection.broadPhase;
+
+import collisionDetection.primitive.Ray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Stack of spatial hash grids whose cell size doubles from level to level. Every box goes into the
+// finest level whose cells are at least as large as the box, so it never covers more than two cells
+// per axis no matter how sizes are mixed. Pairs inside a level come from that grid, and every box
+// is tested against the coarser levels to find the pairs across levels.
+public class HierarchicalGrid implements BroadPhase {
+
+    private static final float DEFAULT_CELL_SIZE = 1.0f;
+    private static final int MAX_LEVELS = 16;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final float baseCellSize;
+    // Created on first use, level i has cells of baseCellSize * 2^i
+    private final SpatialHashGrid[] levels;
+    // Per slot: the box and its level, walked by index in the pair query
+    private BPBox[] boxes;
+    private int[] boxLevels;
+    private int[] freeSlots;
+    private int freeSlotCount;
+    private int slotCount;
+    // Slot of every box in the grid
+    private final Map<BPBox, Integer> slots;
+    private final List<BPBox> candidates;
+
+    public HierarchicalGrid() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    public HierarchicalGrid(float baseCellSize) {
+        if (baseCellSize <= 0)
+            throw new IllegalArgumentException("baseCellSize must be positive");
+        this.baseCellSize = baseCellSize;
+        levels = new SpatialHashGrid[MAX_LEVELS];
+        boxes = new BPBox[INITIAL_CAPACITY];
+        boxLevels = new int[INITIAL_CAPACITY];
+        freeSlots = new int[INITIAL_CAPACITY];
+        slots = new IdentityHashMap<>();
+        candidates = new ArrayList<>();
+    }
+
+    @Override
+    public void insert(BPBox obj) {
+        if (slots.containsKey(obj))
+            return;
+
+        // Held by the grid as well as by its level, so the id survives moving between levels
+        obj.attach();
+        int level = levelFor(obj);
+        int slot = allocateSlot(obj);
+        boxLevels[slot] = level;
+        getLevel(level).insert(obj);
+    }
+
+    @Override
+    public void remove(BPBox obj) {
+        Integer slot = slots.remove(obj);
+        if (slot == null)
+            return;
+
+        levels[boxLevels[slot]].remove(obj);
+        boxes[slot] = null;
+        freeSlots[freeSlotCount++] = slot;
+        obj.detach();
+    }
+
+    @Override
+    public void update(BPBox obj) {
+        Integer slot = slots.get(obj);
+        if (slot == null) {
+            insert(obj);
+            return;
+        }
+
+        // A box that grew or shrank past a cell size moves to another level
+        int level = boxLevels[slot];
+        int newLevel = levelFor(obj);
+        if (newLevel == level) {
+            levels[level].update(obj);
+        } else {
+            levels[level].remove(obj);
+            boxLevels[slot] = newLevel;
+            getLevel(newLevel).insert(obj);
+        }
+    }
+
+    @Override
+    public Set<BPPairs> query() {
+        BPPairList pairs = new BPPairList();
+        collectPairs(pairs);
+        return new PairSet(pairs);
+    }
+
+    @Override
+    public void query(BPPairList pairs) {
+        pairs.clear();
+        collectPairs(pairs);
+    }
+
+    private void collectPairs(BPPairList pairs) {
+        for (SpatialHashGrid level : levels) {
+            if (level != null && level.size() > 1)
+                level.collectPairs(pairs);
+        }
+
+        // A box only looks upwards, so every pair across levels is found once from its finer box
+        for (int slot = 0; slot < slotCount; slot++) {
+            BPBox box = boxes[slot];
+            if (box == null)
+                continue;
+            for (int level = boxLevels[slot] + 1; level < MAX_LEVELS; level++) {
+                if (levels[level] == null || levels[level].size() == 0)
+                    continue;
+
+                candidates.clear();
+                levels[level].query(box, candidates, false);
+                for (int i = 0; i < candidates.size(); i++)
+                    pairs.add(box, candidates.get(i));
+            }
+        }
+    }
+
+    @Override
+    public Set<BPBox> query(Ray ray) {
+        Set<BPBox> result = new HashSet<>();
+        for (SpatialHashGrid level : levels) {
+            if (level != null && level.size() > 0)
+                result.addAll(level.query(ray));
+        }
+        return result;
+    }
+
+    @Override
+    public Set<BPBox> query(BPBox obj) {
+        Set<BPBox> result = new HashSet<>();
+        for (SpatialHashGrid level : levels) {
+            if (level != null && level.size() > 0)
+                level.query(obj, result, true);
+        }
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (boxes[slot] != null)
+                boxes[slot].detach();
+        }
+        for (SpatialHashGrid level : levels) {
+            if (level != null)
+                level.clear();
+        }
+        Arrays.fill(boxes, 0, slotCount, null);
+        freeSlotCount = 0;
+        slotCount = 0;
+        slots.clear();
+    }
+
+    @Override
+    public void addAll(List<BPBox> boxes) {
+        for (BPBox bpBox : boxes)
+            insert(bpBox);
+    }
+
+    @Override
+    public void updateAll(List<BPBox> boxes) {
+        for (BPBox bpBox : boxes)
+            update(bpBox);
+    }
+
+    @Override
+    public void removeAll(List<BPBox> boxes) {
+        for (BPBox bpBox : boxes)
+            remove(bpBox);
+    }
+
+    public float getBaseCellSize() {
+        return baseCellSize;
+    }
+
+    // Number of boxes stored in a level, 0 for levels that were never used
+    public int getLevelSize(int level) {
+        return levels[level] == null ? 0 : levels[level].size();
+    }
+
+    private int levelFor(BPBox obj) {
+        float extent = Math.max(obj.getMax().x - obj.getMin().x,
+                Math.max(obj.getMax().y - obj.getMin().y, obj.getMax().z - obj.getMin().z));
+        int level = 0;
+        float cellSize = baseCellSize;
+        while (cellSize < extent && level < MAX_LEVELS - 1) {
+            cellSize *= 2;
+            level++;
+        }
+        return level;
+    }
+
+    private int allocateSlot(BPBox obj) {
+        int slot;
+        if (freeSlotCount > 0) {
+            slot = freeSlots[--freeSlotCount];
+        } else {
+            slot = slotCount++;
+            if (slot == boxes.length) {
+                int capacity = boxes.length * 2;
+                boxes = Arrays.copyOf(boxes, capacity);
+                boxLevels = Arrays.copyOf(boxLevels, capacity);
+                freeSlots = Arrays.copyOf(freeSlots, capacity);
+            }
+        }
+        boxes[slot] = obj;
+        slots.put(obj, slot);
+        return slot;
+    }
+
+    private SpatialHashGrid getLevel(int level) {
+        if (levels[level] == null)
+            levels[level] = new SpatialHashGrid(baseCellSize * (1 << level));
+        return levels[level];
+    }
+}
@@ -0,0 +1,386 @@
+package collisionDetection.broadPhase;
+
+import collisionDetection.primitive.Ray;
+import collisionDetection.util.LongHashSet;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+// Sort-and-sweep that keeps sorted min/max endpoint arrays between frames. An update moves the
+// endpoints of one box with insertion sort, so a frame of small motions costs close to O(n), and
+// overlapping pairs are added or removed while endpoints swap instead of being rebuilt on query.
+public class IncrementalSAP implements BroadPhase {
+
+    private static final int AXES = 3;
+    private static final int INITIAL_CAPACITY = 16;
+
+    // per axis: endpoint values and endpoint ids (slot << 1 | 1 for a max endpoint)
+    private final float[][] values;
+    private final int[][] endpoints;
+    // per axis: index of every endpoint id inside the sorted arrays
+    private final int[][] positions;
+    private int endpointCount;
+
+    // bounds each slot was last sorted with: minX, minY, minZ, maxX, maxY, maxZ
+    private float[] bounds;
+    private BPBox[] boxes;
+    private int[] freeSlots;
+    private int freeCount;
+    private int slotCount;
+
+    // Slot of every box in the structure
+    private final Map<BPBox, Integer> slots;
+    // Overlapping slot pairs packed as min slot << 32 | max slot
+    private final LongHashSet pairs;
+
+    public IncrementalSAP() {
+        values = new float[AXES][INITIAL_CAPACITY * 2];
+        endpoints = new int[AXES][INITIAL_CAPACITY * 2];
+        positions = new int[AXES][INITIAL_CAPACITY * 2];
+        bounds = new float[INITIAL_CAPACITY * 6];
+        boxes = new BPBox[INITIAL_CAPACITY];
+        freeSlots = new int[INITIAL_CAPACITY];
+        slots = new IdentityHashMap<>();
+        pairs = new LongHashSet();
+    }
+
+    @Override
+    public void insert(BPBox obj) {
+        if (slots.containsKey(obj))
+            return;
+
+        obj.attach();
+        int slot = allocateSlot(obj);
+        storeBounds(slot, obj);
+
+        for (int axis = 0; axis < AXES; axis++) {
+            // Append both endpoints at the end and let insertion sort move them into place
+            setEndpoint(axis, endpointCount, slot << 1, bounds[slot * 6 + axis]);
+            siftDown(axis, endpointCount);
+            setEndpoint(axis, endpointCount + 1, slot << 1 | 1, bounds[slot * 6 + 3 + axis]);
+            siftDown(axis, endpointCount + 1);
+        }
+        endpointCount += 2;
+    }
+
+    @Override
+    public void remove(BPBox obj) {
+        Integer slot = slots.remove(obj);
+        if (slot == null)
+            return;
+
+        // Moving the box past every other endpoint ends all of its pairs on the way
+        for (int i = 0; i < 6; i++)
+            bounds[slot * 6 + i] = Float.POSITIVE_INFINITY;
+        for (int axis = 0; axis < AXES; axis++) {
+            moveEndpoints(axis, slot);
+            removeEndpoint(axis, positions[axis][slot << 1 | 1], endpointCount);
+            removeEndpoint(axis, positions[axis][slot << 1], endpointCount - 1);
+        }
+        endpointCount -= 2;
+
+        boxes[slot] = null;
+        freeSlots[freeCount++] = slot;
+        obj.detach();
+    }
+
+    @Override
+    public void update(BPBox obj) {
+        Integer slot = slots.get(obj);
+        if (slot == null) {
+            insert(obj);
+            return;
+        }
+
+        storeBounds(slot, obj);
+        for (int axis = 0; axis < AXES; axis++)
+            moveEndpoints(axis, slot);
+    }
+
+    @Override
+    public Set<BPPairs> query() {
+        BPPairList list = new BPPairList(pairs.size());
+        collectPairs(list);
+        return new PairSet(list);
+    }
+
+    @Override
+    public void query(BPPairList list) {
+        list.clear();
+        collectPairs(list);
+    }
+
+    private void collectPairs(BPPairList list) {
+        for (int i = pairs.next(0); i >= 0; i = pairs.next(i + 1)) {
+            long key = pairs.get(i);
+            list.add(boxes[(int) (key >>> 32)], boxes[(int) key]);
+        }
+    }
+
+    @Override
+    public Set<BPBox> query(Ray ray) {
+        return slots.keySet().stream()
+                .filter(box -> BPBox.isCollide(ray, box))
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public Set<BPBox> query(BPBox obj) {
+        Set<BPBox> result = new HashSet<>();
+        float[] xValues = values[0];
+        int[] xEndpoints = endpoints[0];
+
+        // Only boxes that start before the query box ends on x can overlap it
+        for (int i = 0; i < endpointCount && xValues[i] <= obj.getMax().x; i++) {
+            if ((xEndpoints[i] & 1) == 1)
+                continue;
+            BPBox box = boxes[xEndpoints[i] >> 1];
+            if (BPBox.isCollide(box, obj) && !box.getShape().equals(obj.getShape()))
+                result.add(box);
+        }
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        for (BPBox bpBox : slots.keySet())
+            bpBox.detach();
+        slots.clear();
+        pairs.clear();
+        Arrays.fill(boxes, null);
+        endpointCount = 0;
+        slotCount = 0;
+        freeCount = 0;
+    }
+
+    @Override
+    public void addAll(List<BPBox> boxes) {
+        // A small batch is cheaper to insert one by one than to re-sort everything
+        if (boxes.size() < endpointCount / 4) {
+            for (BPBox bpBox : boxes)
+                insert(bpBox);
+            return;
+        }
+
+        for (BPBox bpBox : boxes) {
+            if (slots.containsKey(bpBox))
+                continue;
+            bpBox.attach();
+            int slot = allocateSlot(bpBox);
+            storeBounds(slot, bpBox);
+            for (int axis = 0; axis < AXES; axis++) {
+                setEndpoint(axis, endpointCount, slot << 1, bounds[slot * 6 + axis]);
+                setEndpoint(axis, endpointCount + 1, slot << 1 | 1, bounds[slot * 6 + 3 + axis]);
+            }
+            endpointCount += 2;
+        }
+        rebuild();
+    }
+
+    @Override
+    public void updateAll(List<BPBox> boxes) {
+        for (BPBox bpBox : boxes)
+            update(bpBox);
+    }
+
+    @Override
+    public void removeAll(List<BPBox> boxes) {
+        for (BPBox bpBox : boxes)
+            remove(bpBox);
+    }
+
+    // Sorts every axis from scratch and recomputes the pairs with one sweep along x
+    private void rebuild() {
+        long[] keys = new long[endpointCount];
+        for (int axis = 0; axis < AXES; axis++) {
+            for (int i = 0; i < endpointCount; i++)
+                keys[i] = sortKey(values[axis][i], endpoints[axis][i]);
+            Arrays.sort(keys);
+            for (int i = 0; i < endpointCount; i++) {
+                int endpoint = (int) (keys[i] & 0x7FFFFFFF) << 1 | (int) (keys[i] >>> 31 & 1);
+                setEndpoint(axis, i, endpoint, endpointValue(axis, endpoint));
+            }
+        }
+
+        pairs.clear();
+        int[] active = new int[slotCount];
+        int[] activeIndex = new int[slotCount];
+        int activeCount = 0;
+        int[] xEndpoints = endpoints[0];
+        for (int i = 0; i < endpointCount; i++) {
+            int slot = xEndpoints[i] >> 1;
+            if ((xEndpoints[i] & 1) == 0) {
+                for (int a = 0; a < activeCount; a++) {
+                    if (overlaps(slot, active[a]))
+                        addPair(slot, active[a]);
+                }
+                activeIndex[slot] = activeCount;
+                active[activeCount++] = slot;
+            } else {
+                // swap-remove the finished interval from the active list
+                int index = activeIndex[slot];
+                int last = active[--activeCount];
+                active[index] = last;
+                activeIndex[last] = index;
+            }
+        }
+    }
+
+    // Orders by value, then min endpoints before max endpoints, matching isGreater
+    private static long sortKey(float value, int endpoint) {
+        int bits = Float.floatToIntBits(value);
+        bits ^= (bits >> 31) & 0x7FFFFFFF;
+        long low = ((long) (endpoint & 1) << 31) | (endpoint >>> 1);
+        return ((long) bits << 32) | low;
+    }
+
+    private float endpointValue(int axis, int endpoint) {
+        return bounds[(endpoint >> 1) * 6 + (endpoint & 1) * 3 + axis];
+    }
+
+    private int allocateSlot(BPBox obj) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            slot = slotCount++;
+            ensureSlotCapacity(slotCount);
+        }
+        boxes[slot] = obj;
+        slots.put(obj, slot);
+        return slot;
+    }
+
+    private void ensureSlotCapacity(int capacity) {
+        if (capacity <= boxes.length)
+            return;
+
+        int newCapacity = Math.max(capacity, boxes.length * 2);
+        boxes = Arrays.copyOf(boxes, newCapacity);
+        bounds = Arrays.copyOf(bounds, newCapacity * 6);
+        freeSlots = Arrays.copyOf(freeSlots, newCapacity);
+        for (int axis = 0; axis < AXES; axis++) {
+            values[axis] = Arrays.copyOf(values[axis], newCapacity * 2);
+            endpoints[axis] = Arrays.copyOf(endpoints[axis], newCapacity * 2);
+            positions[axis] = Arrays.copyOf(positions[axis], newCapacity * 2);
+        }
+    }
+
+    private void storeBounds(int slot, BPBox box) {
+        int base = slot * 6;
+        bounds[base] = box.getMin().x;
+        bounds[base + 1] = box.getMin().y;
+        bounds[base + 2] = box.getMin().z;
+        bounds[base + 3] = box.getMax().x;
+        bounds[base + 4] = box.getMax().y;
+        bounds[base + 5] = box.getMax().z;
+    }
+
+    private void setEndpoint(int axis, int index, int endpoint, float value) {
+        values[axis][index] = value;
+        endpoints[axis][index] = endpoint;
+        positions[axis][endpoint] = index;
+    }
+
+    // Removes the endpoint at index from an axis holding count endpoints
+    private void removeEndpoint(int axis, int index, int count) {
+        for (int i = index; i < count - 1; i++)
+            setEndpoint(axis, i, endpoints[axis][i + 1], values[axis][i + 1]);
+    }
+
+    // Moves the endpoints of a slot to its stored bounds, reporting overlaps that start or end
+    private void moveEndpoints(int axis, int slot) {
+        int min = slot << 1;
+        int max = min | 1;
+        values[axis][positions[axis][min]] = bounds[slot * 6 + axis];
+        values[axis][positions[axis][max]] = bounds[slot * 6 + 3 + axis];
+
+        // The order keeps an endpoint from being blocked by the stale position of its partner
+        siftUp(axis, positions[axis][max]);
+        siftDown(axis, positions[axis][min]);
+        siftUp(axis, positions[axis][min]);
+        siftDown(axis, positions[axis][max]);
+    }
+
+    // Insertion sort step towards the start of the axis
+    private void siftDown(int axis, int index) {
+        float[] axisValues = values[axis];
+        int[] axisEndpoints = endpoints[axis];
+        float value = axisValues[index];
+        int endpoint = axisEndpoints[index];
+        boolean isMax = (endpoint & 1) == 1;
+        int slot = endpoint >> 1;
+
+        while (index > 0 && isGreater(axisValues[index - 1], axisEndpoints[index - 1], value, endpoint)) {
+            int other = axisEndpoints[index - 1];
+            boolean otherIsMax = (other & 1) == 1;
+            if (!isMax && otherIsMax) {
+                // a min passing a max to the left: the intervals start overlapping on this axis
+                if (overlaps(slot, other >> 1))
+                    addPair(slot, other >> 1);
+            } else if (isMax && !otherIsMax) {
+                // a max passing a min to the left: the intervals separate on this axis
+                removePair(slot, other >> 1);
+            }
+
+            setEndpoint(axis, index, other, axisValues[index - 1]);
+            index--;
+        }
+        setEndpoint(axis, index, endpoint, value);
+    }
+
+    // Insertion sort step towards the end of the axis
+    private void siftUp(int axis, int index) {
+        float[] axisValues = values[axis];
+        int[] axisEndpoints = endpoints[axis];
+        float value = axisValues[index];
+        int endpoint = axisEndpoints[index];
+        boolean isMax = (endpoint & 1) == 1;
+        int slot = endpoint >> 1;
+        int last = endpointCount - 1;
+
+        while (index < last && isGreater(value, endpoint, axisValues[index + 1], axisEndpoints[index + 1])) {
+            int other = axisEndpoints[index + 1];
+            boolean otherIsMax = (other & 1) == 1;
+            if (isMax && !otherIsMax) {
+                // a max passing a min to the right: the intervals start overlapping on this axis
+                if (overlaps(slot, other >> 1))
+                    addPair(slot, other >> 1);
+            } else if (!isMax && otherIsMax) {
+                // a min passing a max to the right: the intervals separate on this axis
+                removePair(slot, other >> 1);
+            }
+
+            setEndpoint(axis, index, other, axisValues[index + 1]);
+            index++;
+        }
+        setEndpoint(axis, index, endpoint, value);
+    }
+
+    // Min endpoints sort before max endpoints of the same value, so touching boxes overlap
+    private static boolean isGreater(float value1, int endpoint1, float value2, int endpoint2) {
+        if (value1 != value2)
+            return value1 > value2;
+        return (endpoint1 & 1) > (endpoint2 & 1);
+    }
+
+    private boolean overlaps(int slot1, int slot2) {
+        int a = slot1 * 6;
+        int b = slot2 * 6;
+        return bounds[a] <= bounds[b + 3] && bounds[b] <= bounds[a + 3] &&
+                bounds[a + 1] <= bounds[b + 4] && bounds[b + 1] <= bounds[a + 4] &&
+                bounds[a + 2] <= bounds[b + 5] && bounds[b + 2] <= bounds[a + 5];
+    }
+
+    private void addPair(int slot1, int slot2) {
+        pairs.add(pairKey(slot1, slot2));
+    }
+
+    private void removePair(int slot1, int slot2) {
+        pairs.remove(pairKey(slot1, slot2));
+    }
+
+    private static long pairKey(int slot1, int slot2) {
+        return ((long) Math.min(slot1, slot2) << 32) | Math.max(slot1, slot2);
+    }
+}
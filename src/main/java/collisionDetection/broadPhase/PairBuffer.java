@@ -0,0 +1,37 @@
+package collisionDetection.broadPhase;
+
+import java.util.Arrays;
+
+// Growable list of index pairs packed into one int array. Parallel queries give every task its own
+// buffer and merge them at the end, so workers never share a collection.
+class PairBuffer {
+    private int[] data;
+    private int size;
+
+    PairBuffer() {
+        data = new int[64];
+    }
+
+    void add(int first, int second) {
+        if (size + 2 > data.length)
+            data = Arrays.copyOf(data, data.length * 2);
+        data[size++] = first;
+        data[size++] = second;
+    }
+
+    int size() {
+        return size >> 1;
+    }
+
+    int first(int pair) {
+        return data[pair << 1];
+    }
+
+    int second(int pair) {
+        return data[(pair << 1) + 1];
+    }
+
+    void clear() {
+        size = 0;
+    }
+}
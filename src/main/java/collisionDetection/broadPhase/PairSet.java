@@ -0,0 +1,57 @@
+package collisionDetection.broadPhase;
+
+import collisionDetection.util.LongHashSet;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Read-only set view of a pair list for broad phases that already emit every pair exactly once,
+// so the pairs never have to be hashed on the way out. BPPairs are only created while iterating.
+class PairSet extends AbstractSet<BPPairs> {
+    private final BPPairList pairs;
+    // Built on the first contains call
+    private LongHashSet keys;
+
+    PairSet(BPPairList pairs) {
+        this.pairs = pairs;
+    }
+
+    @Override
+    public Iterator<BPPairs> iterator() {
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < pairs.size();
+            }
+
+            @Override
+            public BPPairs next() {
+                if (index >= pairs.size())
+                    throw new NoSuchElementException();
+                BPPairs pair = new BPPairs(pairs.getBox1(index), pairs.getBox2(index));
+                index++;
+                return pair;
+            }
+        };
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof BPPairs pair))
+            return false;
+        if (keys == null) {
+            keys = new LongHashSet(pairs.size());
+            for (int i = 0; i < pairs.size(); i++)
+                keys.add(pairs.getKey(i));
+        }
+        return keys.contains(pair.getKey());
+    }
+
+    @Override
+    public int size() {
+        return pairs.size();
+    }
+}
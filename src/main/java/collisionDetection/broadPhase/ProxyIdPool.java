@@ -0,0 +1,27 @@
+package collisionDetection.broadPhase;
+
+import java.util.Arrays;
+
+// Free list of proxy ids. Released ids are reused first, so the ids in use stay dense from 0.
+// Only touched when boxes enter or leave a broad phase, never by the queries.
+final class ProxyIdPool {
+    private int[] free;
+    private int freeCount;
+    private int nextId;
+
+    ProxyIdPool() {
+        free = new int[64];
+    }
+
+    synchronized int acquire() {
+        if (freeCount > 0)
+            return free[--freeCount];
+        return nextId++;
+    }
+
+    synchronized void release(int id) {
+        if (freeCount == free.length)
+            free = Arrays.copyOf(free, freeCount * 2);
+        free[freeCount++] = id;
+    }
+}
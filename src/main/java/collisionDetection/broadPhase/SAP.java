@@ -3,65 +3,184 @@ package collisionDetection.broadPhase;
 import collisionDetection.primitive.Ray;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
 
 public class SAP implements BroadPhase {
-    private final List<BPBox> xAxis;
-    private final List<BPBox> yAxis;
-    private final List<BPBox> zAxis;
+    private final List<BPBox> boxes;
+    // Pool for the parallel sweep, null keeps the query on the calling thread
+    private final ForkJoinPool pool;
 
+    // Below this many boxes the tasks cost more than the sweep itself
+    private static final int PARALLEL_THRESHOLD = 2048;
+    private static final int TASKS_PER_THREAD = 4;
+    // Moves per box the insertion sort may make before the order is sorted from scratch
+    private static final int INSERTION_MOVES_PER_BOX = 8;
+    // Another axis has to spread the boxes this much wider before the sweep moves to it
+    private static final float AXIS_SWITCH_RATIO = 1.1f;
+
+    // Scratch of the query, grown to the box count and kept between frames
+    private long[] order = new long[0];
+    private BPBox[] sorted = new BPBox[0];
+    private float[] bounds = new float[0];
+    private int[] active = new int[0];
+    private final float[] sum = new float[3];
+    private final float[] sumSquared = new float[3];
+    private int sweepAxis;
 
     public SAP() {
-        xAxis = new ArrayList<>();
-        yAxis = new ArrayList<>();
-        zAxis = new ArrayList<>();
+        this(null);
+    }
+
+    public SAP(ForkJoinPool pool) {
+        boxes = new ArrayList<>();
+        this.pool = pool;
     }
 
     @Override
     public void insert(BPBox obj) {
-        xAxis.add(obj);
-        yAxis.add(obj);
-        zAxis.add(obj);
-
-        // Sort the lists based on the object's positions along each axis
-        xAxis.sort(Comparator.comparing(o -> o.getCenter().x));
-        yAxis.sort(Comparator.comparing(o -> o.getCenter().y));
-        zAxis.sort(Comparator.comparing(o -> o.getCenter().z));
+        // Sorting is deferred to query, where the sweep axis is known
+        obj.attach();
+        boxes.add(obj);
     }
 
     @Override
     public void remove(BPBox obj) {
-        xAxis.remove(obj);
-        yAxis.remove(obj);
-        zAxis.remove(obj);
+        if (boxes.remove(obj))
+            obj.detach();
     }
 
     @Override
     public void update(BPBox obj) {
-        remove(obj);
-        insert(obj);
+        // The box is re-sorted by the next query, nothing to do until then
     }
 
     @Override
     public Set<BPPairs> query() {
-        Set<BPPairs> pairsSet = new HashSet<>();
-        pairsSet.addAll(getFromList(xAxis));
-        pairsSet.addAll(getFromList(yAxis));
-        pairsSet.addAll(getFromList(zAxis));
+        BPPairList pairs = new BPPairList();
+        collectPairs(pairs);
+        return new PairSet(pairs);
+    }
 
-        return pairsSet;
+    @Override
+    public void query(BPPairList pairs) {
+        pairs.clear();
+        collectPairs(pairs);
+    }
+
+    private void collectPairs(BPPairList pairs) {
+        int count = boxes.size();
+        if (count < 2)
+            return;
+
+        int axis = getSweepAxis();
+        int axis1 = (axis + 1) % 3;
+        int axis2 = (axis + 2) % 3;
+
+        if (order.length < count) {
+            order = new long[count];
+            sorted = new BPBox[count];
+            bounds = new float[count * 6];
+            active = new int[count];
+        }
+
+        // Sort the boxes by their start on the sweep axis, keeping the box index in the low bits
+        for (int i = 0; i < count; i++)
+            order[i] = ((long) sortableBits(boxes.get(i).getMin().get(axis)) << 32) | i;
+        sort(order, count);
+
+        // Copy the bounds in sweep order so the inner loop only reads primitive arrays
+        for (int i = 0; i < count; i++) {
+            BPBox box = boxes.get((int) order[i]);
+            sorted[i] = box;
+            bounds[i * 6] = box.getMin().get(axis);
+            bounds[i * 6 + 1] = box.getMax().get(axis);
+            bounds[i * 6 + 2] = box.getMin().get(axis1);
+            bounds[i * 6 + 3] = box.getMax().get(axis1);
+            bounds[i * 6 + 4] = box.getMin().get(axis2);
+            bounds[i * 6 + 5] = box.getMax().get(axis2);
+        }
+
+        if (pool != null && count >= PARALLEL_THRESHOLD) {
+            sweepParallel(sorted, bounds, count, pairs);
+        } else {
+            sweep(sorted, bounds, count, active, pairs);
+        }
+
+        // Keep the list in sweep order, the next frame's sort then starts from almost sorted data
+        for (int i = 0; i < count; i++)
+            boxes.set(i, sorted[i]);
+    }
+
+    private static void sweep(BPBox[] sorted, float[] bounds, int count, int[] active, BPPairList pairs) {
+        // Sweep along the axis keeping the intervals that are still open
+        int activeCount = 0;
+        for (int i = 0; i < count; i++) {
+            int b = i * 6;
+            float start = bounds[b];
+            int kept = 0;
+            for (int k = 0; k < activeCount; k++) {
+                int j = active[k];
+                int a = j * 6;
+                if (bounds[a + 1] < start)
+                    continue; // the interval ended before this one starts
+
+                active[kept++] = j;
+                if (bounds[a + 2] <= bounds[b + 3] && bounds[b + 2] <= bounds[a + 3] &&
+                        bounds[a + 4] <= bounds[b + 5] && bounds[b + 4] <= bounds[a + 5])
+                    pairs.add(sorted[j], sorted[i]);
+            }
+            activeCount = kept;
+            active[activeCount++] = i;
+        }
+    }
+
+    // Splits the sorted boxes into ranges that scan forward independently. Every task fills its
+    // own buffer with sorted indices and the buffers are merged in order on the calling thread,
+    // giving the same pairs as the sequential sweep.
+    private void sweepParallel(BPBox[] sorted, float[] bounds, int count, BPPairList pairs) {
+        int taskCount = Math.min(count, pool.getParallelism() * TASKS_PER_THREAD);
+        List<ForkJoinTask<PairBuffer>> tasks = new ArrayList<>(taskCount);
+        for (int t = 0; t < taskCount; t++) {
+            int from = (int) ((long) count * t / taskCount);
+            int to = (int) ((long) count * (t + 1) / taskCount);
+            tasks.add(pool.submit(() -> scanForward(bounds, count, from, to)));
+        }
+
+        for (ForkJoinTask<PairBuffer> task : tasks) {
+            PairBuffer buffer = task.join();
+            for (int p = 0; p < buffer.size(); p++)
+                pairs.add(sorted[buffer.first(p)], sorted[buffer.second(p)]);
+        }
+    }
+
+    private static PairBuffer scanForward(float[] bounds, int count, int from, int to) {
+        PairBuffer buffer = new PairBuffer();
+        for (int i = from; i < to; i++) {
+            int b = i * 6;
+            float end = bounds[b + 1];
+            // Later boxes start at or after this one, stop at the first that starts past its end
+            for (int j = i + 1; j < count && bounds[j * 6] <= end; j++) {
+                int a = j * 6;
+                if (bounds[a + 2] <= bounds[b + 3] && bounds[b + 2] <= bounds[a + 3] &&
+                        bounds[a + 4] <= bounds[b + 5] && bounds[b + 4] <= bounds[a + 5])
+                    buffer.add(i, j);
+            }
+        }
+        return buffer;
     }
 
     @Override
     public Set<BPBox> query(Ray ray) {
-        return xAxis.stream()
+        return boxes.stream()
                 .filter(box -> BPBox.isCollide(ray, box))
                 .collect(Collectors.toSet());
     }
 
     @Override
     public Set<BPBox> query(BPBox obj) {
-        return xAxis.stream()
+        return boxes.stream()
                 .filter(b -> !b.getShape().equals(obj.getShape()))
                 .filter(box -> BPBox.isCollide(box, obj))
                 .collect(Collectors.toSet());
@@ -69,9 +188,10 @@ public class SAP implements BroadPhase {
 
     @Override
     public void clear() {
-        xAxis.clear();
-        yAxis.clear();
-        zAxis.clear();
+        for (BPBox bpBox : boxes)
+            bpBox.detach();
+        boxes.clear();
+        Arrays.fill(sorted, null);
     }
 
     @Override
@@ -82,8 +202,8 @@ public class SAP implements BroadPhase {
 
     @Override
     public void updateAll(List<BPBox> boxes) {
-        for (BPBox bpBox : boxes)
-            update(bpBox);
+        for (int i = 0; i < boxes.size(); i++)
+            update(boxes.get(i));
     }
 
     @Override
@@ -92,14 +212,63 @@ public class SAP implements BroadPhase {
             remove(bpBox);
     }
 
-    private Set<BPPairs> getFromList(List<BPBox> bpBoxes) {
-        Set<BPPairs> pairsSet = new HashSet<>();
-        if (bpBoxes.size() > 1) {
-            for (int i = 0; i < bpBoxes.size() - 1; i++) {
-                if (BPBox.isCollide(bpBoxes.get(i), bpBoxes.get(i + 1)))
-                    pairsSet.add(new BPPairs(bpBoxes.get(i), bpBoxes.get(i + 1)));
+    // The boxes are kept in the last sweep order and move little between frames, so an insertion
+    // sort is close to linear here. It gives up on orders that changed a lot, the first query or a
+    // new sweep axis, which Arrays.sort handles better; unlike Arrays.sort it never allocates.
+    private static void sort(long[] order, int count) {
+        long budget = (long) count * INSERTION_MOVES_PER_BOX;
+        for (int i = 1; i < count; i++) {
+            long key = order[i];
+            int j = i - 1;
+            while (j >= 0 && order[j] > key) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = key;
+            budget -= i - 1 - j;
+            if (budget < 0) {
+                Arrays.sort(order, 0, count);
+                return;
+            }
+        }
+    }
+
+    // Maps a float to an int with the same ordering
+    private static int sortableBits(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+    }
+
+    // The axis where the box centers are spread the most keeps the active list the shortest
+    private int getSweepAxis() {
+        Arrays.fill(sum, 0);
+        Arrays.fill(sumSquared, 0);
+        for (int i = 0; i < boxes.size(); i++) {
+            BPBox box = boxes.get(i);
+            for (int axis = 0; axis < 3; axis++) {
+                float center = (box.getMin().get(axis) + box.getMax().get(axis)) * 0.5f;
+                sum[axis] += center;
+                sumSquared[axis] += center * center;
             }
         }
-        return pairsSet;
+
+        // A new axis costs a full sort, and axes spread about as wide as each other would trade
+        // places with every rounding of the sums, so the current one is kept unless clearly beaten
+        int best = sweepAxis;
+        float bestVariance = variance(sweepAxis) * AXIS_SWITCH_RATIO;
+        for (int axis = 0; axis < 3; axis++) {
+            float variance = variance(axis);
+            if (variance > bestVariance) {
+                bestVariance = variance;
+                best = axis;
+            }
+        }
+        sweepAxis = best;
+        return sweepAxis;
+    }
+
+    private float variance(int axis) {
+        float mean = sum[axis] / boxes.size();
+        return sumSquared[axis] / boxes.size() - mean * mean;
     }
 }
@@ -0,0 +1,571 @@
+package collisionDetection.broadPhase;
+
+import collisionDetection.primitive.Ray;
+import math.Vector3f;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Uniform grid over unbounded space. Cell coordinates are packed into a long and hashed with open
+// addressing into buckets of proxy slots, so only occupied cells cost memory. Works best when most
+// objects are about the size of a cell.
+public class SpatialHashGrid implements BroadPhase {
+
+    private static final float DEFAULT_CELL_SIZE = 2.0f;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long EMPTY = Long.MIN_VALUE;
+    // Cell coordinates are packed into 21 bits per axis
+    private static final int CELL_LIMIT = (1 << 20) - 1;
+
+    private final float cellSize;
+    private final float inverseCellSize;
+
+    // Open addressing table from packed cell coordinates to bucket ids, linear probing
+    private long[] cellKeys;
+    private int[] cellBuckets;
+    private int cellCount;
+
+    // Buckets of proxy slots, recycled through a free list when a cell empties
+    private int[][] bucketItems;
+    private int[] bucketSizes;
+    private int[] freeBuckets;
+    private int freeBucketCount;
+    private int bucketCount;
+
+    // Per proxy slot: bounds (minX, minY, minZ, maxX, maxY, maxZ) and covered cell range in the same order
+    private float[] bounds;
+    private int[] ranges;
+    private BPBox[] boxes;
+    private int[] stamps;
+    private int stamp;
+    private int[] freeSlots;
+    private int freeSlotCount;
+    private int slotCount;
+    // Slot of every box in the grid
+    private final Map<BPBox, Integer> slots;
+
+    // Cell range a proxy is moving to, reused by every update
+    private final int[] nextRange;
+    // Cell range covered by all proxies, recomputed lazily for ray traversal
+    private final int[] occupiedRange;
+    private boolean occupiedDirty;
+
+    public SpatialHashGrid() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    public SpatialHashGrid(float cellSize) {
+        if (cellSize <= 0)
+            throw new IllegalArgumentException("cellSize must be positive");
+        this.cellSize = cellSize;
+        inverseCellSize = 1.0f / cellSize;
+        slots = new IdentityHashMap<>();
+        nextRange = new int[6];
+        occupiedRange = new int[6];
+        clear();
+    }
+
+    @Override
+    public void insert(BPBox obj) {
+        if (slots.containsKey(obj))
+            return;
+
+        obj.attach();
+        int slot = allocateSlot(obj);
+        storeBounds(slot, obj);
+        int base = slot * 6;
+        computeRange(slot, ranges, base);
+        for (int x = ranges[base]; x <= ranges[base + 3]; x++)
+            for (int y = ranges[base + 1]; y <= ranges[base + 4]; y++)
+                for (int z = ranges[base + 2]; z <= ranges[base + 5]; z++)
+                    addToCell(pack(x, y, z), slot);
+        occupiedDirty = true;
+    }
+
+    @Override
+    public void remove(BPBox obj) {
+        Integer slot = slots.remove(obj);
+        if (slot == null)
+            return;
+
+        int base = slot * 6;
+        for (int x = ranges[base]; x <= ranges[base + 3]; x++)
+            for (int y = ranges[base + 1]; y <= ranges[base + 4]; y++)
+                for (int z = ranges[base + 2]; z <= ranges[base + 5]; z++)
+                    removeFromCell(pack(x, y, z), slot);
+
+        boxes[slot] = null;
+        freeSlots[freeSlotCount++] = slot;
+        occupiedDirty = true;
+        obj.detach();
+    }
+
+    @Override
+    public void update(BPBox obj) {
+        Integer boxed = slots.get(obj);
+        if (boxed == null) {
+            insert(obj);
+            return;
+        }
+
+        int slot = boxed;
+        int base = slot * 6;
+        storeBounds(slot, obj);
+        int[] next = nextRange;
+        computeRange(slot, next, 0);
+        if (Arrays.equals(ranges, base, base + 6, next, 0, 6))
+            return;
+
+        // Only the cells that entered or left the range are touched
+        for (int x = ranges[base]; x <= ranges[base + 3]; x++)
+            for (int y = ranges[base + 1]; y <= ranges[base + 4]; y++)
+                for (int z = ranges[base + 2]; z <= ranges[base + 5]; z++)
+                    if (!inRange(next, 0, x, y, z))
+                        removeFromCell(pack(x, y, z), slot);
+
+        for (int x = next[0]; x <= next[3]; x++)
+            for (int y = next[1]; y <= next[4]; y++)
+                for (int z = next[2]; z <= next[5]; z++)
+                    if (!inRange(ranges, base, x, y, z))
+                        addToCell(pack(x, y, z), slot);
+
+        System.arraycopy(next, 0, ranges, base, 6);
+        occupiedDirty = true;
+    }
+
+    @Override
+    public Set<BPPairs> query() {
+        BPPairList pairs = new BPPairList();
+        collectPairs(pairs);
+        return new PairSet(pairs);
+    }
+
+    @Override
+    public void query(BPPairList pairs) {
+        pairs.clear();
+        collectPairs(pairs);
+    }
+
+    // Appends the pairs of this grid without clearing the list first
+    void collectPairs(BPPairList pairs) {
+        for (int i = 0; i < cellKeys.length; i++) {
+            long key = cellKeys[i];
+            if (key == EMPTY)
+                continue;
+
+            int bucket = cellBuckets[i];
+            int[] items = bucketItems[bucket];
+            int size = bucketSizes[bucket];
+            for (int a = 0; a < size; a++) {
+                int slotA = items[a];
+                int baseA = slotA * 6;
+                for (int b = a + 1; b < size; b++) {
+                    int slotB = items[b];
+                    int baseB = slotB * 6;
+                    // Two proxies can share many cells, the pair belongs to the lowest cell they share
+                    long sharedMin = pack(Math.max(ranges[baseA], ranges[baseB]),
+                            Math.max(ranges[baseA + 1], ranges[baseB + 1]),
+                            Math.max(ranges[baseA + 2], ranges[baseB + 2]));
+                    if (sharedMin == key && overlaps(baseA, baseB))
+                        pairs.add(boxes[slotA], boxes[slotB]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Set<BPBox> query(Ray ray) {
+        Set<BPBox> result = new HashSet<>();
+        if (slots.isEmpty())
+            return result;
+        updateOccupiedRange();
+
+        Vector3f origin = ray.getOrigin();
+        Vector3f direction = ray.getDirection();
+        float[] o = {origin.x, origin.y, origin.z};
+        float[] d = {direction.x, direction.y, direction.z};
+
+        // Clip the ray against the occupied part of the grid
+        float tEnter = 0.0f;
+        float tExit = Float.POSITIVE_INFINITY;
+        for (int axis = 0; axis < 3; axis++) {
+            float lo = occupiedRange[axis] * cellSize;
+            float hi = (occupiedRange[axis + 3] + 1) * cellSize;
+            if (d[axis] == 0.0f) {
+                if (o[axis] < lo || o[axis] > hi)
+                    return result;
+                continue;
+            }
+            float t1 = (lo - o[axis]) / d[axis];
+            float t2 = (hi - o[axis]) / d[axis];
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tExit = Math.min(tExit, Math.max(t1, t2));
+        }
+        if (tEnter > tExit)
+            return result;
+
+        // 3D DDA from the entry cell: always step across the nearest cell boundary
+        int[] cell = new int[3];
+        int[] step = new int[3];
+        float[] tNext = new float[3];
+        float[] tDelta = new float[3];
+        for (int axis = 0; axis < 3; axis++) {
+            float p = o[axis] + d[axis] * tEnter;
+            cell[axis] = Math.max(occupiedRange[axis], Math.min(occupiedRange[axis + 3], toCell(p)));
+            if (d[axis] > 0.0f) {
+                step[axis] = 1;
+                tNext[axis] = ((cell[axis] + 1) * cellSize - o[axis]) / d[axis];
+                tDelta[axis] = cellSize / d[axis];
+            } else if (d[axis] < 0.0f) {
+                step[axis] = -1;
+                tNext[axis] = (cell[axis] * cellSize - o[axis]) / d[axis];
+                tDelta[axis] = -cellSize / d[axis];
+            } else {
+                tNext[axis] = Float.POSITIVE_INFINITY;
+                tDelta[axis] = Float.POSITIVE_INFINITY;
+            }
+        }
+
+        int currentStamp = nextStamp();
+        while (true) {
+            int bucket = findBucket(pack(cell[0], cell[1], cell[2]));
+            if (bucket >= 0) {
+                int[] items = bucketItems[bucket];
+                for (int i = 0; i < bucketSizes[bucket]; i++) {
+                    int slot = items[i];
+                    if (stamps[slot] == currentStamp)
+                        continue;
+                    stamps[slot] = currentStamp;
+                    int base = slot * 6;
+                    if (BPBox.isCollide(ray, bounds[base], bounds[base + 1], bounds[base + 2],
+                            bounds[base + 3], bounds[base + 4], bounds[base + 5]))
+                        result.add(boxes[slot]);
+                }
+            }
+
+            int axis = tNext[0] < tNext[1] ? (tNext[0] < tNext[2] ? 0 : 2) : (tNext[1] < tNext[2] ? 1 : 2);
+            if (tNext[axis] > tExit)
+                break;
+            cell[axis] += step[axis];
+            if (cell[axis] < occupiedRange[axis] || cell[axis] > occupiedRange[axis + 3])
+                break;
+            tNext[axis] += tDelta[axis];
+        }
+        return result;
+    }
+
+    @Override
+    public Set<BPBox> query(BPBox obj) {
+        Set<BPBox> result = new HashSet<>();
+        query(obj, result, true);
+        return result;
+    }
+
+    // Adds every box overlapping obj to the result, each box once. The pair queries of
+    // HierarchicalGrid keep boxes sharing the shape of obj, the public query skips them.
+    void query(BPBox obj, Collection<BPBox> result, boolean skipSameShape) {
+        if (slots.isEmpty())
+            return;
+        updateOccupiedRange();
+
+        float minX = obj.getMin().x, minY = obj.getMin().y, minZ = obj.getMin().z;
+        float maxX = obj.getMax().x, maxY = obj.getMax().y, maxZ = obj.getMax().z;
+        int currentStamp = nextStamp();
+
+        // Cells outside the occupied range are empty, no need to probe them
+        int fromX = Math.max(toCell(minX), occupiedRange[0]), toX = Math.min(toCell(maxX), occupiedRange[3]);
+        int fromY = Math.max(toCell(minY), occupiedRange[1]), toY = Math.min(toCell(maxY), occupiedRange[4]);
+        int fromZ = Math.max(toCell(minZ), occupiedRange[2]), toZ = Math.min(toCell(maxZ), occupiedRange[5]);
+        for (int x = fromX; x <= toX; x++) {
+            for (int y = fromY; y <= toY; y++) {
+                for (int z = fromZ; z <= toZ; z++) {
+                    int bucket = findBucket(pack(x, y, z));
+                    if (bucket < 0)
+                        continue;
+
+                    int[] items = bucketItems[bucket];
+                    for (int i = 0; i < bucketSizes[bucket]; i++) {
+                        int slot = items[i];
+                        if (stamps[slot] == currentStamp)
+                            continue;
+                        stamps[slot] = currentStamp;
+                        int base = slot * 6;
+                        if (!(minX > bounds[base + 3] || maxX < bounds[base] ||
+                                minY > bounds[base + 4] || maxY < bounds[base + 1] ||
+                                minZ > bounds[base + 5] || maxZ < bounds[base + 2])
+                                && !(skipSameShape && boxes[slot].getShape().equals(obj.getShape())))
+                            result.add(boxes[slot]);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (boxes[slot] != null)
+                boxes[slot].detach();
+        }
+        cellKeys = new long[INITIAL_CAPACITY];
+        Arrays.fill(cellKeys, EMPTY);
+        cellBuckets = new int[INITIAL_CAPACITY];
+        cellCount = 0;
+
+        bucketItems = new int[INITIAL_CAPACITY][];
+        bucketSizes = new int[INITIAL_CAPACITY];
+        freeBuckets = new int[INITIAL_CAPACITY];
+        freeBucketCount = 0;
+        bucketCount = 0;
+
+        bounds = new float[INITIAL_CAPACITY * 6];
+        ranges = new int[INITIAL_CAPACITY * 6];
+        boxes = new BPBox[INITIAL_CAPACITY];
+        stamps = new int[INITIAL_CAPACITY];
+        stamp = 0;
+        freeSlots = new int[INITIAL_CAPACITY];
+        freeSlotCount = 0;
+        slotCount = 0;
+        slots.clear();
+        occupiedDirty = true;
+    }
+
+    @Override
+    public void addAll(List<BPBox> boxes) {
+        for (BPBox bpBox : boxes)
+            insert(bpBox);
+    }
+
+    @Override
+    public void updateAll(List<BPBox> boxes) {
+        for (BPBox bpBox : boxes)
+            update(bpBox);
+    }
+
+    @Override
+    public void removeAll(List<BPBox> boxes) {
+        for (BPBox bpBox : boxes)
+            remove(bpBox);
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    int size() {
+        return slots.size();
+    }
+
+    private int allocateSlot(BPBox obj) {
+        int slot;
+        if (freeSlotCount > 0) {
+            slot = freeSlots[--freeSlotCount];
+        } else {
+            slot = slotCount++;
+            if (slot == boxes.length) {
+                int capacity = boxes.length * 2;
+                boxes = Arrays.copyOf(boxes, capacity);
+                bounds = Arrays.copyOf(bounds, capacity * 6);
+                ranges = Arrays.copyOf(ranges, capacity * 6);
+                stamps = Arrays.copyOf(stamps, capacity);
+                freeSlots = Arrays.copyOf(freeSlots, capacity);
+            }
+        }
+        boxes[slot] = obj;
+        slots.put(obj, slot);
+        return slot;
+    }
+
+    private void storeBounds(int slot, BPBox obj) {
+        int base = slot * 6;
+        bounds[base] = obj.getMin().x;
+        bounds[base + 1] = obj.getMin().y;
+        bounds[base + 2] = obj.getMin().z;
+        bounds[base + 3] = obj.getMax().x;
+        bounds[base + 4] = obj.getMax().y;
+        bounds[base + 5] = obj.getMax().z;
+    }
+
+    private void computeRange(int slot, int[] range, int offset) {
+        int base = slot * 6;
+        for (int k = 0; k < 6; k++)
+            range[offset + k] = toCell(bounds[base + k]);
+    }
+
+    private int toCell(float value) {
+        float cell = (float) Math.floor(value * inverseCellSize);
+        return (int) Math.max(-CELL_LIMIT, Math.min(CELL_LIMIT, cell));
+    }
+
+    private static boolean inRange(int[] range, int offset, int x, int y, int z) {
+        return x >= range[offset] && x <= range[offset + 3] &&
+                y >= range[offset + 1] && y <= range[offset + 4] &&
+                z >= range[offset + 2] && z <= range[offset + 5];
+    }
+
+    private boolean overlaps(int baseA, int baseB) {
+        return !(bounds[baseB] > bounds[baseA + 3] || bounds[baseB + 3] < bounds[baseA] ||
+                bounds[baseB + 1] > bounds[baseA + 4] || bounds[baseB + 4] < bounds[baseA + 1] ||
+                bounds[baseB + 2] > bounds[baseA + 5] || bounds[baseB + 5] < bounds[baseA + 2]);
+    }
+
+    private int nextStamp() {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+        return stamp;
+    }
+
+    private void updateOccupiedRange() {
+        if (!occupiedDirty)
+            return;
+
+        Arrays.fill(occupiedRange, 0, 3, Integer.MAX_VALUE);
+        Arrays.fill(occupiedRange, 3, 6, Integer.MIN_VALUE);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (boxes[slot] == null)
+                continue;
+            for (int k = 0; k < 3; k++) {
+                occupiedRange[k] = Math.min(occupiedRange[k], ranges[slot * 6 + k]);
+                occupiedRange[k + 3] = Math.max(occupiedRange[k + 3], ranges[slot * 6 + 3 + k]);
+            }
+        }
+        occupiedDirty = false;
+    }
+
+    private static long pack(int x, int y, int z) {
+        return ((long) (x & 0x1FFFFF) << 42) | ((long) (y & 0x1FFFFF) << 21) | (z & 0x1FFFFF);
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private int findBucket(long key) {
+        int mask = cellKeys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            if (cellKeys[i] == key)
+                return cellBuckets[i];
+            if (cellKeys[i] == EMPTY)
+                return -1;
+        }
+    }
+
+    private void addToCell(long key, int slot) {
+        int mask = cellKeys.length - 1;
+        int i = hash(key) & mask;
+        while (cellKeys[i] != EMPTY && cellKeys[i] != key)
+            i = (i + 1) & mask;
+
+        if (cellKeys[i] == EMPTY) {
+            cellKeys[i] = key;
+            cellBuckets[i] = allocateBucket();
+            if (++cellCount * 2 > cellKeys.length) {
+                int bucket = cellBuckets[i];
+                resizeTable();
+                appendToBucket(bucket, slot);
+                return;
+            }
+        }
+        appendToBucket(cellBuckets[i], slot);
+    }
+
+    private void removeFromCell(long key, int slot) {
+        int mask = cellKeys.length - 1;
+        int i = hash(key) & mask;
+        while (cellKeys[i] != key) {
+            if (cellKeys[i] == EMPTY)
+                return;
+            i = (i + 1) & mask;
+        }
+
+        int bucket = cellBuckets[i];
+        int[] items = bucketItems[bucket];
+        int size = bucketSizes[bucket];
+        for (int k = 0; k < size; k++) {
+            if (items[k] == slot) {
+                items[k] = items[--size];
+                break;
+            }
+        }
+        bucketSizes[bucket] = size;
+        if (size > 0)
+            return;
+
+        // The cell is empty, give the bucket back and delete the key with backward shifting
+        freeBuckets[freeBucketCount++] = bucket;
+        cellCount--;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (cellKeys[j] == EMPTY)
+                break;
+            int home = hash(cellKeys[j]) & mask;
+            // Move the entry back when its home slot is not between the hole and its position
+            if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+                cellKeys[i] = cellKeys[j];
+                cellBuckets[i] = cellBuckets[j];
+                i = j;
+            }
+        }
+        cellKeys[i] = EMPTY;
+    }
+
+    private int allocateBucket() {
+        int bucket;
+        if (freeBucketCount > 0) {
+            bucket = freeBuckets[--freeBucketCount];
+        } else {
+            bucket = bucketCount++;
+            if (bucket == bucketItems.length) {
+                int capacity = bucketItems.length * 2;
+                bucketItems = Arrays.copyOf(bucketItems, capacity);
+                bucketSizes = Arrays.copyOf(bucketSizes, capacity);
+                freeBuckets = Arrays.copyOf(freeBuckets, capacity);
+            }
+            bucketItems[bucket] = new int[4];
+        }
+        bucketSizes[bucket] = 0;
+        return bucket;
+    }
+
+    private void appendToBucket(int bucket, int slot) {
+        int size = bucketSizes[bucket];
+        if (size == bucketItems[bucket].length)
+            bucketItems[bucket] = Arrays.copyOf(bucketItems[bucket], size * 2);
+        bucketItems[bucket][size] = slot;
+        bucketSizes[bucket] = size + 1;
+    }
+
+    private void resizeTable() {
+        long[] oldKeys = cellKeys;
+        int[] oldBuckets = cellBuckets;
+        cellKeys = new long[oldKeys.length * 2];
+        Arrays.fill(cellKeys, EMPTY);
+        cellBuckets = new int[oldKeys.length * 2];
+
+        int mask = cellKeys.length - 1;
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldKeys[k] == EMPTY)
+                continue;
+            int i = hash(oldKeys[k]) & mask;
+            while (cellKeys[i] != EMPTY)
+                i = (i + 1) & mask;
+            cellKeys[i] = oldKeys[k];
+            cellBuckets[i] = oldBuckets[k];
+        }
+    }
+}
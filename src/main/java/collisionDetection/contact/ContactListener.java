@@ -0,0 +1,17 @@
+package collisionDetection.contact;
+
+// Receives touch events from a PairManager. Every method has an empty default so a listener only
+// overrides the events it cares about.
+public interface ContactListener {
+    // The two shapes started touching this step
+    default void onBegin(ContactPair pair) {
+    }
+
+    // The two shapes were touching in the previous step and still are
+    default void onPersist(ContactPair pair) {
+    }
+
+    // The two shapes stopped touching, or one of them left the broad phase
+    default void onEnd(ContactPair pair) {
+    }
+}
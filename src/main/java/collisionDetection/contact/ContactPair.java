@@ -0,0 +1,131 @@
+package collisionDetection.contact;
+
+import collisionDetection.broadPhase.BPBox;
+import collisionDetection.broadPhase.BPPairs;
+import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+
+// Broad phase pair that lives for as long as the two boxes overlap. It keeps the last narrow phase
+// result and the bounds it was computed from, so the result can be reused while nothing moved.
+public class ContactPair {
+    private final BPBox bpBox1;
+    private final BPBox bpBox2;
+    private final long key;
+    // Bounds of both boxes when the narrow phase last ran: min and max of box 1, then of box 2
+    private final float[] bounds;
+    private CollisionResult result;
+    private final PersistentManifold manifold;
+    private boolean touching;
+    private boolean hasBounds;
+    private int lastSeen;
+    // Slot in the narrow phase batch of the running update, -1 when the pair is not in it
+    private int slot;
+    private Object userData;
+
+    ContactPair(BPBox bpBox1, BPBox bpBox2) {
+        this.bpBox1 = bpBox1;
+        this.bpBox2 = bpBox2;
+        this.key = BPPairs.key(bpBox1, bpBox2);
+        this.bounds = new float[12];
+        this.manifold = new PersistentManifold();
+        this.slot = -1;
+    }
+
+    public BPBox getBpBox1() {
+        return bpBox1;
+    }
+
+    public BPBox getBpBox2() {
+        return bpBox2;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    // Ids are reused once a box leaves the broad phase, so the key alone does not tell two pairs apart
+    boolean hasBoxes(BPBox box1, BPBox box2) {
+        return (bpBox1 == box1 && bpBox2 == box2) || (bpBox1 == box2 && bpBox2 == box1);
+    }
+
+    // Last narrow phase result, null until the pair has been tested once
+    public CollisionResult getResult() {
+        return result;
+    }
+
+    void setResult(CollisionResult result) {
+        this.result = result;
+        this.touching = result != null && result.isColliding();
+    }
+
+    // Contact points kept across steps with their accumulated impulses, empty while the pair is not touching
+    public PersistentManifold getManifold() {
+        return manifold;
+    }
+
+    public boolean isTouching() {
+        return touching;
+    }
+
+    void setTouching(boolean touching) {
+        this.touching = touching;
+    }
+
+    public Object getUserData() {
+        return userData;
+    }
+
+    public void setUserData(Object userData) {
+        this.userData = userData;
+    }
+
+    int getLastSeen() {
+        return lastSeen;
+    }
+
+    void setLastSeen(int lastSeen) {
+        this.lastSeen = lastSeen;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    // True when both boxes still have the bounds stored by the last storeBounds call
+    boolean boundsUnchanged() {
+        return hasBounds && matches(bpBox1, 0) && matches(bpBox2, 6);
+    }
+
+    void storeBounds() {
+        store(bpBox1, 0);
+        store(bpBox2, 6);
+        hasBounds = true;
+    }
+
+    private boolean matches(BPBox box, int offset) {
+        return bounds[offset] == box.getMin().x && bounds[offset + 1] == box.getMin().y && bounds[offset + 2] == box.getMin().z
+                && bounds[offset + 3] == box.getMax().x && bounds[offset + 4] == box.getMax().y && bounds[offset + 5] == box.getMax().z;
+    }
+
+    private void store(BPBox box, int offset) {
+        bounds[offset] = box.getMin().x;
+        bounds[offset + 1] = box.getMin().y;
+        bounds[offset + 2] = box.getMin().z;
+        bounds[offset + 3] = box.getMax().x;
+        bounds[offset + 4] = box.getMax().y;
+        bounds[offset + 5] = box.getMax().z;
+    }
+
+    @Override
+    public String toString() {
+        return "ContactPair{" +
+                "bpBox1=" + bpBox1 +
+                ", bpBox2=" + bpBox2 +
+                ", touching=" + touching +
+                ", result=" + result +
+                '}';
+    }
+}
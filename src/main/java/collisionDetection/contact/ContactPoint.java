@@ -0,0 +1,108 @@
+package collisionDetection.contact;
+
+import math.Vector3f;
+
+// One point of a persistent manifold. The touching points are kept in the local space of each
+// body so the point can be found again after the bodies moved, together with the impulses the
+// solver applied at it, which are fed back in as a warm start on the next step.
+public class ContactPoint {
+    private final Vector3f localA;
+    private final Vector3f localB;
+    private final Vector3f worldA;
+    private final Vector3f worldB;
+    private float depth;
+    private float normalImpulse;
+    private float tangentImpulse1;
+    private float tangentImpulse2;
+    // Steps this point has been matched for, 0 on the step it appeared
+    private int lifetime;
+
+    ContactPoint() {
+        this.localA = new Vector3f();
+        this.localB = new Vector3f();
+        this.worldA = new Vector3f();
+        this.worldB = new Vector3f();
+    }
+
+    public Vector3f getLocalA() {
+        return localA;
+    }
+
+    public Vector3f getLocalB() {
+        return localB;
+    }
+
+    public Vector3f getWorldA() {
+        return worldA;
+    }
+
+    public Vector3f getWorldB() {
+        return worldB;
+    }
+
+    public float getDepth() {
+        return depth;
+    }
+
+    void setDepth(float depth) {
+        this.depth = depth;
+    }
+
+    public float getNormalImpulse() {
+        return normalImpulse;
+    }
+
+    public void setNormalImpulse(float normalImpulse) {
+        this.normalImpulse = normalImpulse;
+    }
+
+    public float getTangentImpulse1() {
+        return tangentImpulse1;
+    }
+
+    public void setTangentImpulse1(float tangentImpulse1) {
+        this.tangentImpulse1 = tangentImpulse1;
+    }
+
+    public float getTangentImpulse2() {
+        return tangentImpulse2;
+    }
+
+    public void setTangentImpulse2(float tangentImpulse2) {
+        this.tangentImpulse2 = tangentImpulse2;
+    }
+
+    public int getLifetime() {
+        return lifetime;
+    }
+
+    void setLifetime(int lifetime) {
+        this.lifetime = lifetime;
+    }
+
+    // Copies everything but the positions, which the caller sets
+    void copyState(ContactPoint other) {
+        normalImpulse = other.normalImpulse;
+        tangentImpulse1 = other.tangentImpulse1;
+        tangentImpulse2 = other.tangentImpulse2;
+        lifetime = other.lifetime;
+    }
+
+    void clearImpulses() {
+        normalImpulse = 0;
+        tangentImpulse1 = 0;
+        tangentImpulse2 = 0;
+        lifetime = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ContactPoint{" +
+                "worldA=" + worldA +
+                ", worldB=" + worldB +
+                ", depth=" + depth +
+                ", normalImpulse=" + normalImpulse +
+                ", lifetime=" + lifetime +
+                '}';
+    }
+}
@@ -0,0 +1,166 @@
+package collisionDetection.contact;
+
+import collisionDetection.CDEngine;
+import collisionDetection.narrowPhase.SeparatingAxisCache;
+import collisionDetection.narrowPhase.ShapeType;
+import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+import collisionDetection.narrowPhase.collisionResult.ContactManifold;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Narrow phase of every pair that needs one this step, run in one go. Pairs are ordered by the
+// type pair of their shapes, so a chunk runs the same algorithm back to back, and the chunks run on
+// the executor. Every pair writes into its own preallocated result and manifold slot, so the workers
+// share nothing but the axis cache, whose entries the caller reserves beforehand.
+public class NarrowPhaseBatch {
+
+    public static final int DEFAULT_CHUNK_SIZE = 64;
+
+    private static final int TYPE_COUNT = ShapeType.values().length;
+
+    private final CDEngine cdEngine;
+    private final SeparatingAxisCache axisCache;
+    private ContactPair[] pairs;
+    private CollisionResult[] results;
+    private ContactManifold[] manifolds;
+    // Type pair in the high half, slot in the low half, sorted to get the run order
+    private long[] order;
+    private int size;
+    private Executor executor;
+    private int chunkSize;
+
+    public NarrowPhaseBatch(CDEngine cdEngine, SeparatingAxisCache axisCache) {
+        this.cdEngine = cdEngine;
+        this.axisCache = axisCache;
+        this.pairs = new ContactPair[0];
+        this.results = new CollisionResult[0];
+        this.manifolds = new ContactManifold[0];
+        this.order = new long[0];
+        this.chunkSize = DEFAULT_CHUNK_SIZE;
+    }
+
+    // Queues the pair and returns its slot
+    public int add(ContactPair pair) {
+        if (size == pairs.length)
+            grow(Math.max(16, size * 2));
+        int typePair = pair.getBpBox1().getShape().getType().ordinal() * TYPE_COUNT
+                + pair.getBpBox2().getShape().getType().ordinal();
+        pairs[size] = pair;
+        order[size] = ((long) typePair << 32) | size;
+        return size++;
+    }
+
+    // Tests every queued pair, on the executor when one is set and there is more than one chunk
+    public void run() {
+        Arrays.sort(order, 0, size);
+        int chunks = (size + chunkSize - 1) / chunkSize;
+        if (executor == null || chunks <= 1) {
+            runChunk(0, size);
+            return;
+        }
+
+        CountDownLatch done = new CountDownLatch(chunks - 1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int chunk = 1; chunk < chunks; chunk++) {
+            int from = chunk * chunkSize;
+            int to = Math.min(size, from + chunkSize);
+            executor.execute(() -> {
+                try {
+                    runChunk(from, to);
+                } catch (Throwable throwable) {
+                    failure.compareAndSet(null, throwable);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        // The calling thread takes the first chunk instead of waiting idle
+        runChunk(0, Math.min(size, chunkSize));
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the narrow phase", e);
+        }
+
+        Throwable throwable = failure.get();
+        if (throwable instanceof RuntimeException runtimeException)
+            throw runtimeException;
+        if (throwable instanceof Error error)
+            throw error;
+        if (throwable != null)
+            throw new IllegalStateException(throwable);
+    }
+
+    private void runChunk(int from, int to) {
+        for (int i = from; i < to; i++) {
+            int slot = (int) order[i];
+            ContactPair pair = pairs[slot];
+            cdEngine.solve(pair.getBpBox1(), pair.getBpBox2(), axisCache, results[slot], manifolds[slot]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public ContactPair getPair(int slot) {
+        return pairs[slot];
+    }
+
+    public CollisionResult getResult(int slot) {
+        return results[slot];
+    }
+
+    public ContactManifold getManifold(int slot) {
+        return manifolds[slot];
+    }
+
+    // Hands the result of the slot over and keeps replacement in its place for the next run
+    public CollisionResult swapResult(int slot, CollisionResult replacement) {
+        CollisionResult result = results[slot];
+        results[slot] = replacement != null ? replacement : new CollisionResult();
+        return result;
+    }
+
+    public void clear() {
+        // Drop the pairs so removed bodies are not kept alive by an old step
+        Arrays.fill(pairs, 0, size, null);
+        size = 0;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    // Null runs the narrow phase on the calling thread
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        this.chunkSize = chunkSize;
+    }
+
+    private void grow(int capacity) {
+        int oldCapacity = pairs.length;
+        pairs = Arrays.copyOf(pairs, capacity);
+        results = Arrays.copyOf(results, capacity);
+        manifolds = Arrays.copyOf(manifolds, capacity);
+        order = Arrays.copyOf(order, capacity);
+        for (int i = oldCapacity; i < capacity; i++) {
+            results[i] = new CollisionResult();
+            manifolds[i] = new ContactManifold();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package collisionDetection.contact;
+
+import collisionDetection.CDEngine;
+import collisionDetection.broadPhase.BPBox;
+import collisionDetection.broadPhase.BPPairList;
+import collisionDetection.broadPhase.BPPairs;
+import collisionDetection.narrowPhase.SeparatingAxisCache;
+import collisionDetection.util.LongHashMap;
+import physics.rigidBody.RigidBody;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+// Keeps broad phase pairs alive between steps, keyed by their packed id pair. Every update runs the
+// narrow phase on the pairs whose boxes moved, as one batch that can be spread over an executor,
+// reuses the cached result for the rest, and reports touch changes to the listeners instead of
+// making game code diff pair sets itself.
+public class PairManager {
+    private final CDEngine cdEngine;
+    private final LongHashMap<ContactPair> pairs;
+    private final BPPairList broadPhasePairs;
+    private final List<ContactPair> touching;
+    private final List<ContactListener> listeners;
+    // Warm start data for the narrow phase, reserved when a pair appears and dropped together with it
+    private final SeparatingAxisCache axisCache;
+    // Narrow phase of the pairs that need one, its results are merged into the pairs afterwards
+    private final NarrowPhaseBatch batch;
+    // Pairs seen in the current update, in broad phase order
+    private final List<ContactPair> current;
+    // Keys of pairs that left the broad phase, removed after the map walk
+    private long[] staleKeys;
+    private int step;
+    private boolean skipUnchanged;
+
+    public PairManager(CDEngine cdEngine) {
+        this.cdEngine = cdEngine;
+        this.pairs = new LongHashMap<>();
+        this.broadPhasePairs = new BPPairList();
+        this.touching = new ArrayList<>();
+        this.listeners = new ArrayList<>();
+        this.axisCache = new SeparatingAxisCache();
+        this.batch = new NarrowPhaseBatch(cdEngine, axisCache);
+        this.current = new ArrayList<>();
+        this.staleKeys = new long[16];
+        this.skipUnchanged = true;
+    }
+
+    public void addListener(ContactListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ContactListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void update() {
+        step++;
+        touching.clear();
+        current.clear();
+        batch.clear();
+        cdEngine.query(broadPhasePairs);
+
+        // Pairs whose boxes moved go to the narrow phase batch, the rest keep their cached result
+        for (int i = 0; i < broadPhasePairs.size(); i++) {
+            long key = broadPhasePairs.getKey(i);
+            ContactPair pair = pairs.get(key);
+            if (pair != null && !pair.hasBoxes(broadPhasePairs.getBox1(i), broadPhasePairs.getBox2(i))) {
+                // A box of the pair left the broad phase and its id went to a new box, the old pair ends
+                dropPair(key);
+                pair = null;
+            }
+            if (pair == null) {
+                pair = new ContactPair(broadPhasePairs.getBox1(i), broadPhasePairs.getBox2(i));
+                pairs.put(key, pair);
+                axisCache.reserve(key);
+            } else if (pair.getLastSeen() == step) {
+                continue;
+            }
+            pair.setLastSeen(step);
+            current.add(pair);
+            pair.setSlot(!skipUnchanged || !pair.boundsUnchanged() ? batch.add(pair) : -1);
+        }
+
+        batch.run();
+
+        // Back in broad phase order, so listeners see the same order whatever the batch did
+        for (int i = 0; i < current.size(); i++) {
+            ContactPair pair = current.get(i);
+            boolean wasTouching = pair.isTouching();
+            BPBox bpBox1 = pair.getBpBox1();
+            BPBox bpBox2 = pair.getBpBox2();
+            int slot = pair.getSlot();
+            if (slot >= 0) {
+                pair.setResult(batch.swapResult(slot, pair.getResult()));
+                pair.storeBounds();
+                if (pair.isTouching())
+                    pair.getManifold().update(batch.getManifold(slot), bpBox1.getBody(), bpBox2.getBody());
+                else
+                    pair.getManifold().reset();
+                pair.setSlot(-1);
+            } else if (pair.isTouching() && !isAsleep(bpBox1.getBody(), bpBox2.getBody())) {
+                pair.getManifold().refresh(bpBox1.getBody(), bpBox2.getBody());
+            }
+
+            if (pair.isTouching()) {
+                touching.add(pair);
+                if (wasTouching)
+                    firePersist(pair);
+                else
+                    fireBegin(pair);
+            } else if (wasTouching) {
+                fireEnd(pair);
+            }
+        }
+
+        removeStalePairs();
+    }
+
+    // Pairs that touch after the last update, in broad phase order. The list is reused between updates.
+    public List<ContactPair> getTouching() {
+        return touching;
+    }
+
+    public ContactPair getPair(BPBox bpBox1, BPBox bpBox2) {
+        return pairs.get(BPPairs.key(bpBox1, bpBox2));
+    }
+
+    public int size() {
+        return pairs.size();
+    }
+
+    public SeparatingAxisCache getAxisCache() {
+        return axisCache;
+    }
+
+    public Executor getExecutor() {
+        return batch.getExecutor();
+    }
+
+    // Runs the narrow phase in chunks on executor, null keeps it on the calling thread
+    public void setExecutor(Executor executor) {
+        batch.setExecutor(executor);
+    }
+
+    public int getChunkSize() {
+        return batch.getChunkSize();
+    }
+
+    // Pairs per executor task
+    public void setChunkSize(int chunkSize) {
+        batch.setChunkSize(chunkSize);
+    }
+
+    public boolean isSkipUnchanged() {
+        return skipUnchanged;
+    }
+
+    // Turn off when shapes can move without their BPBox changing, so every pair is retested each update
+    public void setSkipUnchanged(boolean skipUnchanged) {
+        this.skipUnchanged = skipUnchanged;
+    }
+
+    // Drops every pair, the touching ones get onEnd first
+    public void clear() {
+        for (int i = pairs.next(0); i >= 0; i = pairs.next(i + 1)) {
+            ContactPair pair = pairs.valueAt(i);
+            if (pair.isTouching()) {
+                pair.setTouching(false);
+                fireEnd(pair);
+            }
+        }
+        pairs.clear();
+        touching.clear();
+        current.clear();
+        batch.clear();
+        axisCache.clear();
+    }
+
+    private void removeStalePairs() {
+        int staleCount = 0;
+        for (int i = pairs.next(0); i >= 0; i = pairs.next(i + 1)) {
+            if (pairs.valueAt(i).getLastSeen() == step)
+                continue;
+            if (staleCount == staleKeys.length)
+                staleKeys = Arrays.copyOf(staleKeys, staleCount * 2);
+            staleKeys[staleCount++] = pairs.keyAt(i);
+        }
+
+        for (int i = 0; i < staleCount; i++)
+            dropPair(staleKeys[i]);
+    }
+
+    private void dropPair(long key) {
+        ContactPair pair = pairs.remove(key);
+        axisCache.remove(key);
+        if (pair.isTouching()) {
+            pair.setTouching(false);
+            fireEnd(pair);
+        }
+    }
+
+    // A sleeping body against another one or a static body: nothing moves, so the points are left
+    // as they were, lifetimes included, until the island wakes
+    private static boolean isAsleep(RigidBody body1, RigidBody body2) {
+        return (body1.isSleeping() || body2.isSleeping())
+                && (body1.isSleeping() || body1.getInverseMass() == 0)
+                && (body2.isSleeping() || body2.getInverseMass() == 0);
+    }
+
+    private void fireBegin(ContactPair pair) {
+        for (ContactListener listener : listeners)
+            listener.onBegin(pair);
+    }
+
+    // Called for every touching pair every frame, so indexed rather than through an iterator
+    private void firePersist(ContactPair pair) {
+        for (int i = 0; i < listeners.size(); i++)
+            listeners.get(i).onPersist(pair);
+    }
+
+    private void fireEnd(ContactPair pair) {
+        for (ContactListener listener : listeners)
+            listener.onEnd(pair);
+    }
+}
@@ -0,0 +1,227 @@
+package collisionDetection.contact;
+
+import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+import collisionDetection.narrowPhase.collisionResult.ContactManifold;
+import math.Maths;
+import math.Quaternion;
+import math.Vector3f;
+import physics.rigidBody.RigidBody;
+
+import java.util.List;
+
+// Contact manifold of a pair that is kept from step to step. Fresh narrow phase points are matched
+// to the points of the previous step by their position in the local space of both bodies, and a
+// matched point takes over the impulses accumulated so far so the solver can warm start from them.
+// Between narrow phase runs the points are moved with the bodies and dropped once they drift apart.
+// As a CollisionResult it reports the deepest point, so it can be passed wherever a result is expected.
+public class PersistentManifold extends CollisionResult {
+
+    // Points closer than this on both bodies are taken to be the same contact
+    private static final float MATCH_DISTANCE = 0.02f;
+
+    // A point is dropped when the bodies separate further than this at it, or when its two halves
+    // slide apart sideways by more than this
+    private static final float BREAKING_DISTANCE = 0.02f;
+
+    private ContactPoint[] points;
+    private ContactPoint[] previous;
+    private int pointCount;
+    private final Vector3f tangent1;
+    private final Vector3f tangent2;
+    private final Vector3f offset;
+    // Body position and orientation, read into these instead of allocating copies
+    private final Vector3f bodyPosition;
+    private final Quaternion bodyOrientation;
+
+    public PersistentManifold() {
+        this.points = contactPoints();
+        this.previous = contactPoints();
+        this.tangent1 = new Vector3f();
+        this.tangent2 = new Vector3f();
+        this.offset = new Vector3f();
+        this.bodyPosition = new Vector3f();
+        this.bodyOrientation = new Quaternion();
+    }
+
+    // Replaces the points with the ones the narrow phase just found, keeping the impulses of every
+    // point that matches one from before. Bodies may be null for shapes without one.
+    public void update(ContactManifold manifold, RigidBody bodyA, RigidBody bodyB) {
+        ContactPoint[] swap = previous;
+        previous = points;
+        points = swap;
+        int previousCount = pointCount;
+        int matched = 0;
+
+        getNormal().set(manifold.getNormal());
+        computeTangents();
+
+        pointCount = 0;
+        for (int i = 0; i < manifold.getPointCount(); i++) {
+            ContactPoint point = points[pointCount++];
+            point.getWorldA().set(manifold.getPointA(i));
+            point.getWorldB().set(manifold.getPointB(i));
+            point.setDepth(manifold.getDepth(i));
+            toLocal(bodyA, point.getWorldA(), point.getLocalA());
+            toLocal(bodyB, point.getWorldB(), point.getLocalB());
+
+            int match = findMatch(point, previousCount, matched);
+            if (match >= 0) {
+                matched |= 1 << match;
+                point.copyState(previous[match]);
+                point.setLifetime(point.getLifetime() + 1);
+            } else {
+                point.clearImpulses();
+            }
+        }
+        syncResult();
+    }
+
+    // Moves the points with the bodies when the narrow phase did not run this step, and drops the
+    // ones that separated or slid apart
+    public void refresh(RigidBody bodyA, RigidBody bodyB) {
+        Vector3f normal = getNormal();
+        int kept = 0;
+        for (int i = 0; i < pointCount; i++) {
+            ContactPoint point = points[i];
+            toWorld(bodyA, point.getLocalA(), point.getWorldA());
+            toWorld(bodyB, point.getLocalB(), point.getWorldB());
+
+            // Point on A is the one inside B, so it lies further along the normal while they overlap
+            Vector3f difference = point.getWorldA().subInto(point.getWorldB(), offset);
+            float depth = difference.dot(normal);
+            float drift = difference.addScaledLocal(normal, -depth).lengthSquared();
+            if (depth < -BREAKING_DISTANCE || drift > BREAKING_DISTANCE * BREAKING_DISTANCE)
+                continue;
+
+            point.setDepth(depth);
+            point.setLifetime(point.getLifetime() + 1);
+            points[i] = points[kept];
+            points[kept++] = point;
+        }
+        pointCount = kept;
+        syncResult();
+    }
+
+    // Drops all points along with their impulses
+    @Override
+    public void reset() {
+        super.reset();
+        pointCount = 0;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    public ContactPoint getPoint(int index) {
+        return points[index];
+    }
+
+    // Friction directions, perpendicular to the normal and to each other
+    public Vector3f getTangent1() {
+        return tangent1;
+    }
+
+    public Vector3f getTangent2() {
+        return tangent2;
+    }
+
+    // Closest unmatched previous point within the match distance on both bodies, or -1
+    private int findMatch(ContactPoint point, int previousCount, int matched) {
+        int best = -1;
+        float bestDistance = MATCH_DISTANCE * MATCH_DISTANCE;
+        for (int i = 0; i < previousCount; i++) {
+            if ((matched & (1 << i)) != 0)
+                continue;
+
+            ContactPoint candidate = previous[i];
+            float distance = Math.max(point.getLocalA().distanceSquared(candidate.getLocalA()),
+                    point.getLocalB().distanceSquared(candidate.getLocalB()));
+            if (distance <= bestDistance) {
+                bestDistance = distance;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private void computeTangents() {
+        Maths.tangentBasis(getNormal(), tangent1, tangent2);
+    }
+
+    // CollisionResult view: colliding while any point is left, depth and contact points of the deepest one
+    private void syncResult() {
+        setColliding(pointCount > 0);
+        List<Vector3f> contactPoints = getContactPoints();
+        if (pointCount == 0) {
+            setDepth(0);
+            contactPoints.clear();
+            return;
+        }
+
+        ContactPoint deepest = points[0];
+        for (int i = 1; i < pointCount; i++) {
+            if (points[i].getDepth() > deepest.getDepth())
+                deepest = points[i];
+        }
+        setDepth(deepest.getDepth());
+        if (contactPoints.size() == 2) {
+            contactPoints.get(0).set(deepest.getWorldA());
+            contactPoints.get(1).set(deepest.getWorldB());
+        } else {
+            contactPoints.clear();
+            contactPoints.add(new Vector3f(deepest.getWorldA()));
+            contactPoints.add(new Vector3f(deepest.getWorldB()));
+        }
+    }
+
+    // Inverse of the body rotation applied to world - position, without allocating
+    private void toLocal(RigidBody body, Vector3f world, Vector3f dest) {
+        if (body == null) {
+            dest.set(world);
+            return;
+        }
+        world.subInto(body.getPosition(bodyPosition), dest);
+        Quaternion q = body.getOrientation(bodyOrientation);
+        rotate(-q.x, -q.y, -q.z, q.w, dest);
+    }
+
+    private void toWorld(RigidBody body, Vector3f local, Vector3f dest) {
+        if (body == null) {
+            dest.set(local);
+            return;
+        }
+        dest.set(local);
+        Quaternion q = body.getOrientation(bodyOrientation);
+        rotate(q.x, q.y, q.z, q.w, dest);
+        dest.addLocal(body.getPosition(bodyPosition));
+    }
+
+    // v + w * t + q x t with t = 2 * (q x v), the rotation of v by the unit quaternion (x, y, z, w)
+    private static void rotate(float x, float y, float z, float w, Vector3f v) {
+        float tx = 2 * (y * v.z - z * v.y);
+        float ty = 2 * (z * v.x - x * v.z);
+        float tz = 2 * (x * v.y - y * v.x);
+        v.set(v.x + w * tx + (y * tz - z * ty),
+                v.y + w * ty + (z * tx - x * tz),
+                v.z + w * tz + (x * ty - y * tx));
+    }
+
+    private static ContactPoint[] contactPoints() {
+        ContactPoint[] points = new ContactPoint[ContactManifold.MAX_POINTS];
+        for (int i = 0; i < points.length; i++)
+            points[i] = new ContactPoint();
+        return points;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("PersistentManifold{normal=").append(getNormal()).append(", points=[");
+        for (int i = 0; i < pointCount; i++) {
+            if (i > 0)
+                builder.append(", ");
+            builder.append(points[i]);
+        }
+        return builder.append("]}").toString();
+    }
+}
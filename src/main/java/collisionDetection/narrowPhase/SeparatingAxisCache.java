@@ -0,0 +1,101 @@
+package collisionDetection.narrowPhase;
+
+import collisionDetection.util.LongHashMap;
+import math.Vector3f;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Last separating direction of every pair, keyed by the packed broad phase pair key. A pair that
+// stays apart is usually rejected again by the direction that rejected it in the previous step,
+// so a query seeded with it needs a single support call. The axis is only valid for the shape
+// order it was stored with.
+// Queries on different keys may run on several threads at once as long as their keys were reserved
+// beforehand and nothing is reserved or removed meanwhile; put then only writes into the entry.
+public class SeparatingAxisCache {
+    private final LongHashMap<Entry> entries;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    public SeparatingAxisCache() {
+        this.entries = new LongHashMap<>();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    // Copies the cached axis into dest, returns false when the pair has none
+    public boolean get(long key, Vector3f dest) {
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.stored)
+            return false;
+        dest.set(entry.axis);
+        return true;
+    }
+
+    public void put(long key, Vector3f axis) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(key, entry);
+        }
+        entry.axis.set(axis);
+        entry.stored = true;
+    }
+
+    // Creates the entry of a pair without an axis, so later puts for it do not change the map
+    public void reserve(long key) {
+        if (entries.get(key) == null)
+            entries.put(key, new Entry());
+    }
+
+    public void remove(long key) {
+        entries.remove(key);
+    }
+
+    // Called by the queries: a hit is a query the cached axis settled on its own
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public float getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (float) hitCount / total;
+    }
+
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+    }
+
+    // Pairs that have an axis stored, reserved entries without one are not counted
+    public int size() {
+        int size = 0;
+        for (int i = entries.next(0); i >= 0; i = entries.next(i + 1)) {
+            if (entries.valueAt(i).stored)
+                size++;
+        }
+        return size;
+    }
+
+    public void clear() {
+        entries.clear();
+        resetStatistics();
+    }
+
+    private static final class Entry {
+        final Vector3f axis = new Vector3f();
+        boolean stored;
+    }
+}
@@ -9,6 +9,10 @@ public interface Shape {
 
     Vector3f closestPoint(Vector3f point);
 
+    default ShapeType getType() {
+        return ShapeType.OTHER;
+    }
+
     default void translate(Vector3f position) {
     }
 
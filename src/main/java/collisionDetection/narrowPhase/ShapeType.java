@@ -0,0 +1,17 @@
+package collisionDetection.narrowPhase;
+
+// Kind of a shape, its ordinal indexes the narrow phase dispatch table. Shapes from outside this
+// library report OTHER unless they override Shape.getType.
+public enum ShapeType {
+    SPHERE,
+    CAPSULE,
+    OBB,
+    AABB,
+    TRIANGLE,
+    CONVEX_POLYHEDRON,
+    LINE,
+    CYLINDER,
+    PLANE,
+    RAY,
+    OTHER
+}
@@ -4,12 +4,16 @@ import math.Vector3f;
 
 import java.util.ArrayList;
 import java.util.List;
-//TODO instead of contactPoints do bodyA and bodyB contactPoints
+// Contact points are stored as [point on shape 1, point on shape 2]; getContactPointA/B name them.
+// Several points per pair are kept by ContactManifold and PersistentManifold.
 public class CollisionResult {
     private boolean colliding;
     private Vector3f normal;
     private float depth;
     private List<Vector3f> contactPoints;
+    // Contact vectors put aside by reset, taken back by the next setContact
+    private Vector3f spareA;
+    private Vector3f spareB;
 
     public CollisionResult() {
         this.colliding = false;
@@ -53,10 +57,81 @@ public class CollisionResult {
         return contactPoints;
     }
 
+    // Deepest point on shape 1, null when there is no contact
+    public Vector3f getContactPointA() {
+        return contactPoints.isEmpty() ? null : contactPoints.get(0);
+    }
+
+    // Deepest point on shape 2, null when there is no contact
+    public Vector3f getContactPointB() {
+        return contactPoints.size() < 2 ? null : contactPoints.get(1);
+    }
+
     public void setContactPoints(List<Vector3f> contactPoints) {
         this.contactPoints = contactPoints;
     }
 
+    // Colliding with a single contact, reusing the normal and contact vectors of a previous result
+    public CollisionResult setContact(Vector3f normal, float depth, Vector3f pointA, Vector3f pointB) {
+        colliding = true;
+        this.normal.set(normal);
+        this.depth = depth;
+        if (contactPoints.size() == 2) {
+            contactPoints.get(0).set(pointA);
+            contactPoints.get(1).set(pointB);
+        } else {
+            contactPoints.clear();
+            contactPoints.add(spareA == null ? new Vector3f(pointA) : spareA.set(pointA));
+            contactPoints.add(spareB == null ? new Vector3f(pointB) : spareB.set(pointB));
+            spareA = null;
+            spareB = null;
+        }
+        return this;
+    }
+
+    // Colliding without contact points, for tests that only find the normal and the depth
+    public CollisionResult setPenetration(Vector3f normal, float depth) {
+        reset();
+        colliding = true;
+        this.normal.set(normal);
+        this.depth = depth;
+        return this;
+    }
+
+    // Copies other into this result
+    public CollisionResult set(CollisionResult other) {
+        if (other.isColliding() && other.getContactPoints().size() == 2)
+            return setContact(other.getNormal(), other.getDepth(), other.getContactPointA(), other.getContactPointB());
+
+        colliding = other.colliding;
+        normal.set(other.normal);
+        depth = other.depth;
+        contactPoints.clear();
+        for (Vector3f point : other.contactPoints)
+            contactPoints.add(new Vector3f(point));
+        return this;
+    }
+
+    // The same contact seen from the other shape: the normal turns around and the points swap
+    public CollisionResult flip() {
+        normal.negateLocal();
+        if (contactPoints.size() == 2)
+            contactPoints.set(0, contactPoints.set(1, contactPoints.get(0)));
+        return this;
+    }
+
+    // Back to the no collision state, keeping the normal and contact list instances
+    public void reset() {
+        colliding = false;
+        normal.clear();
+        depth = 0;
+        if (contactPoints.size() == 2) {
+            spareA = contactPoints.get(0);
+            spareB = contactPoints.get(1);
+        }
+        contactPoints.clear();
+    }
+
     @Override
     public String toString() {
         return "CollisionManifold{" +
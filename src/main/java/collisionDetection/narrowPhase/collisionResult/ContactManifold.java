@@ -0,0 +1,84 @@
+package collisionDetection.narrowPhase.collisionResult;
+
+import math.Vector3f;
+
+import java.util.Arrays;
+
+// Up to four contact points between two shapes sharing one normal that points from shape 1 to
+// shape 2. Every point is stored as the pair of touching points on shape 1 and shape 2 with its own
+// penetration depth. The vectors are allocated once and reused by clear().
+public class ContactManifold {
+    public static final int MAX_POINTS = 4;
+
+    private final Vector3f normal;
+    private final Vector3f[] pointsA;
+    private final Vector3f[] pointsB;
+    private final float[] depths;
+    private int pointCount;
+
+    public ContactManifold() {
+        this.normal = new Vector3f();
+        this.pointsA = new Vector3f[MAX_POINTS];
+        this.pointsB = new Vector3f[MAX_POINTS];
+        for (int i = 0; i < MAX_POINTS; i++) {
+            pointsA[i] = new Vector3f();
+            pointsB[i] = new Vector3f();
+        }
+        this.depths = new float[MAX_POINTS];
+    }
+
+    public void clear() {
+        normal.clear();
+        pointCount = 0;
+    }
+
+    public void addPoint(Vector3f pointA, Vector3f pointB, float depth) {
+        if (pointCount == MAX_POINTS)
+            throw new IllegalStateException("Manifold already holds " + MAX_POINTS + " points");
+        pointsA[pointCount].set(pointA);
+        pointsB[pointCount].set(pointB);
+        depths[pointCount] = depth;
+        pointCount++;
+    }
+
+    public Vector3f getNormal() {
+        return normal;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    public boolean isEmpty() {
+        return pointCount == 0;
+    }
+
+    public Vector3f getPointA(int index) {
+        return pointsA[index];
+    }
+
+    public Vector3f getPointB(int index) {
+        return pointsB[index];
+    }
+
+    public float getDepth(int index) {
+        return depths[index];
+    }
+
+    public float getMaxDepth() {
+        float max = 0;
+        for (int i = 0; i < pointCount; i++)
+            max = Math.max(max, depths[i]);
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "ContactManifold{" +
+                "normal=" + normal +
+                ", pointsA=" + Arrays.toString(Arrays.copyOf(pointsA, pointCount)) +
+                ", pointsB=" + Arrays.toString(Arrays.copyOf(pointsB, pointCount)) +
+                ", depths=" + Arrays.toString(Arrays.copyOf(depths, pointCount)) +
+                '}';
+    }
+}
@@ -0,0 +1,83 @@
+package collisionDetection.narrowPhase.collisionResult;
+
+import math.Vector3f;
+
+public class DistanceResult {
+    private boolean overlapping;
+    private float distance;
+    // Closest points on shape 1 and shape 2
+    private Vector3f pointA;
+    private Vector3f pointB;
+    // Unit axis from shape 1 towards shape 2, zero when the shapes overlap
+    private Vector3f separatingAxis;
+    private int iterations;
+
+    public DistanceResult() {
+        this.overlapping = false;
+        this.distance = 0;
+        this.pointA = new Vector3f();
+        this.pointB = new Vector3f();
+        this.separatingAxis = new Vector3f();
+        this.iterations = 0;
+    }
+
+    public boolean isOverlapping() {
+        return overlapping;
+    }
+
+    public void setOverlapping(boolean overlapping) {
+        this.overlapping = overlapping;
+    }
+
+    public float getDistance() {
+        return distance;
+    }
+
+    public void setDistance(float distance) {
+        this.distance = distance;
+    }
+
+    public Vector3f getPointA() {
+        return pointA;
+    }
+
+    public void setPointA(Vector3f pointA) {
+        this.pointA = pointA;
+    }
+
+    public Vector3f getPointB() {
+        return pointB;
+    }
+
+    public void setPointB(Vector3f pointB) {
+        this.pointB = pointB;
+    }
+
+    public Vector3f getSeparatingAxis() {
+        return separatingAxis;
+    }
+
+    public void setSeparatingAxis(Vector3f separatingAxis) {
+        this.separatingAxis = separatingAxis;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public void setIterations(int iterations) {
+        this.iterations = iterations;
+    }
+
+    @Override
+    public String toString() {
+        return "DistanceResult{" +
+                "overlapping=" + overlapping +
+                ", distance=" + distance +
+                ", pointA=" + pointA +
+                ", pointB=" + pointB +
+                ", separatingAxis=" + separatingAxis +
+                ", iterations=" + iterations +
+                '}';
+    }
+}
@@ -0,0 +1,14 @@
+package collisionDetection.narrowPhase.dispatch;
+
+import collisionDetection.narrowPhase.SeparatingAxisCache;
+import collisionDetection.narrowPhase.Shape;
+import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+
+// Narrow phase test for one pair of shape types. Fills result with the normal from shape 1 to
+// shape 2 and the contact points as [on shape 1, on shape 2], or resets it when the shapes are
+// apart, and returns it. The cache and key may be used to warm start, cache is null when there is none.
+@FunctionalInterface
+public interface CollisionAlgorithm {
+
+    CollisionResult collide(Shape shape1, Shape shape2, CollisionResult result, SeparatingAxisCache cache, long key);
+}
@@ -0,0 +1,85 @@
+package collisionDetection.narrowPhase.dispatch;
+
+import collisionDetection.narrowPhase.SeparatingAxisCache;
+import collisionDetection.narrowPhase.Shape;
+import collisionDetection.narrowPhase.ShapeType;
+import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+import collisionDetection.narrowPhase.gjk.GJK;
+import collisionDetection.narrowPhase.gjk.GJKSupport;
+import collisionDetection.narrowPhase.sat.BoxBoxSAT;
+import collisionDetection.narrowPhase.sat.SAT;
+import collisionDetection.narrowPhase.sat.SATSupport;
+import collisionDetection.primitive.OBB;
+
+import static collisionDetection.narrowPhase.ShapeType.*;
+
+// Narrow phase algorithm for every pair of shape types, looked up by the type ordinals. Pairs with
+// an exact test of their own get it, sphere and capsule pairs never reach EPA, everything else goes
+// through GJK/EPA, or SAT for shapes that only support that.
+public class CollisionDispatcher {
+
+    private static final ShapeType[] ROUND = {SPHERE, CAPSULE};
+    private static final ShapeType[] CONVEX = {OBB, AABB, TRIANGLE, CONVEX_POLYHEDRON, LINE, CYLINDER};
+
+    private final CollisionAlgorithm[][] algorithms;
+    private final GJK gjk;
+    private final SAT sat;
+
+    public CollisionDispatcher(GJK gjk, SAT sat, BoxBoxSAT boxBoxSat) {
+        int count = ShapeType.values().length;
+        this.algorithms = new CollisionAlgorithm[count][count];
+        this.gjk = gjk;
+        this.sat = sat;
+
+        register(OBB, OBB, (shape1, shape2, result, cache, key) ->
+                boxBoxSat.isCollide((OBB) shape1, (OBB) shape2, result, cache, key));
+
+        CollisionAlgorithm round = new RoundCollision();
+        CollisionAlgorithm roundConvex = new RoundConvexCollision(gjk);
+        CollisionAlgorithm plane = new PlaneCollision();
+        for (ShapeType type : ROUND) {
+            for (ShapeType other : ROUND)
+                register(type, other, round);
+            for (ShapeType other : CONVEX)
+                register(type, other, roundConvex);
+            register(PLANE, type, plane);
+        }
+        for (ShapeType type : CONVEX)
+            register(PLANE, type, plane);
+    }
+
+    // Uses algorithm for shapes of type1 against shapes of type2. The other order is registered too,
+    // running the same algorithm with the shapes swapped and the result turned around.
+    public void register(ShapeType type1, ShapeType type2, CollisionAlgorithm algorithm) {
+        if (type1 == null || type2 == null || algorithm == null)
+            throw new IllegalArgumentException("Shape types and algorithm must not be null");
+
+        algorithms[type1.ordinal()][type2.ordinal()] = algorithm;
+        if (type1 != type2)
+            algorithms[type2.ordinal()][type1.ordinal()] = (shape1, shape2, result, cache, key) ->
+                    algorithm.collide(shape2, shape1, result, cache, key).flip();
+    }
+
+    // Registered algorithm for the pair, null when the pair falls back to GJK/EPA or SAT
+    public CollisionAlgorithm getAlgorithm(ShapeType type1, ShapeType type2) {
+        return algorithms[type1.ordinal()][type2.ordinal()];
+    }
+
+    public CollisionResult collide(Shape shape1, Shape shape2, CollisionResult result) {
+        return collide(shape1, shape2, result, null, 0);
+    }
+
+    // The cache and key are handed to the algorithm, the pair must be passed in the same order every time
+    public CollisionResult collide(Shape shape1, Shape shape2, CollisionResult result, SeparatingAxisCache cache, long key) {
+        CollisionAlgorithm algorithm = algorithms[shape1.getType().ordinal()][shape2.getType().ordinal()];
+        if (algorithm != null)
+            return algorithm.collide(shape1, shape2, result, cache, key);
+
+        if (shape1 instanceof GJKSupport && shape2 instanceof GJKSupport)
+            return gjk.isCollide((GJKSupport) shape1, (GJKSupport) shape2, result, cache, key);
+        else if (shape1 instanceof SATSupport && shape2 instanceof SATSupport)
+            return sat.isCollide((SATSupport) shape1, (SATSupport) shape2, result, cache, key);
+
+        throw new IllegalStateException("Unexpected values: " + shape2 + " : " + shape1);
+    }
+}
@@ -0,0 +1,76 @@
+package collisionDetection.narrowPhase.dispatch;
+
+import collisionDetection.narrowPhase.SeparatingAxisCache;
+import collisionDetection.narrowPhase.Shape;
+import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+import collisionDetection.narrowPhase.gjk.GJKSupport;
+import collisionDetection.primitive.Capsule;
+import collisionDetection.primitive.Plane;
+import collisionDetection.primitive.Sphere;
+import math.Vector3f;
+
+// A plane against any convex shape from the two support points along the plane normal: the shape
+// crosses the plane when they lie on either side of it. Like the other plane tests the plane has two
+// sides, the shape is pushed out to the side most of it is on. Spheres and capsules take their
+// extremes from their core instead of the support function.
+public class PlaneCollision implements CollisionAlgorithm {
+
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+    @Override
+    public CollisionResult collide(Shape shape1, Shape shape2, CollisionResult result, SeparatingAxisCache cache, long key) {
+        Workspace workspace = WORKSPACE.get();
+        Plane plane = (Plane) shape1;
+        Vector3f planeNormal = plane.getNormal();
+        Vector3f below = workspace.below;
+        Vector3f above = workspace.above;
+        if (shape2 instanceof Sphere || shape2 instanceof Capsule)
+            roundExtremes(shape2, planeNormal, workspace);
+        else {
+            GJKSupport convex = (GJKSupport) shape2;
+            convex.support(planeNormal.negateInto(workspace.direction), below);
+            convex.support(planeNormal, above);
+        }
+
+        // Signed distances of the lowest and the highest point of the shape
+        float low = planeNormal.dot(below) - plane.getDistance();
+        float high = planeNormal.dot(above) - plane.getDistance();
+        if (low > 0 || high < 0) {
+            result.reset();
+            return result;
+        }
+
+        Vector3f normal = workspace.normal;
+        Vector3f pointA = workspace.pointA;
+        if (low + high >= 0) {
+            normal.set(planeNormal);
+            below.addInto(planeNormal.mulInto(-low, pointA), pointA);
+            return result.setContact(normal, -low, pointA, below);
+        }
+        planeNormal.negateInto(normal);
+        above.addInto(planeNormal.mulInto(-high, pointA), pointA);
+        return result.setContact(normal, high, pointA, above);
+    }
+
+    // Ends of the core furthest against and along the normal, moved out by the radius
+    private static void roundExtremes(Shape shape, Vector3f normal, Workspace workspace) {
+        Vector3f start = workspace.below;
+        Vector3f end = workspace.above;
+        float radius = RoundCollision.core(shape, start, end);
+        if (normal.dot(start) > normal.dot(end)) {
+            workspace.direction.set(start);
+            start.set(end);
+            end.set(workspace.direction);
+        }
+        start.addScaledLocal(normal, -radius);
+        end.addScaledLocal(normal, radius);
+    }
+
+    private static final class Workspace {
+        final Vector3f direction = new Vector3f();
+        final Vector3f below = new Vector3f();
+        final Vector3f above = new Vector3f();
+        final Vector3f normal = new Vector3f();
+        final Vector3f pointA = new Vector3f();
+    }
+}
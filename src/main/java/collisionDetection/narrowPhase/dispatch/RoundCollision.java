@@ -0,0 +1,132 @@
+package collisionDetection.narrowPhase.dispatch;
+
+import collisionDetection.narrowPhase.SeparatingAxisCache;
+import collisionDetection.narrowPhase.Shape;
+import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+import collisionDetection.primitive.Capsule;
+import collisionDetection.primitive.Sphere;
+import math.Vector3f;
+
+import static math.Const.EPSILON;
+
+// Sphere and capsule pairs. Both are a core, a point or a segment, grown by a radius, so two of them
+// touch when the closest points of their cores are nearer than the sum of the radii.
+public class RoundCollision implements CollisionAlgorithm {
+
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+    @Override
+    public CollisionResult collide(Shape shape1, Shape shape2, CollisionResult result, SeparatingAxisCache cache, long key) {
+        Workspace workspace = WORKSPACE.get();
+        float radius1 = core(shape1, workspace.start1, workspace.end1);
+        float radius2 = core(shape2, workspace.start2, workspace.end2);
+        closestPoints(workspace.start1, workspace.end1, workspace.start2, workspace.end2,
+                workspace.closest1, workspace.closest2, workspace);
+
+        Vector3f normal = workspace.closest2.subInto(workspace.closest1, workspace.normal);
+        float radius = radius1 + radius2;
+        float distanceSquared = normal.lengthSquared();
+        if (distanceSquared > radius * radius) {
+            result.reset();
+            return result;
+        }
+
+        float distance = (float) Math.sqrt(distanceSquared);
+        if (distance > EPSILON)
+            normal.mulLocal(1.0f / distance);
+        else
+            crossingNormal(workspace);
+
+        workspace.closest1.addInto(normal.mulInto(radius1, workspace.pointA), workspace.pointA);
+        workspace.closest2.subInto(normal.mulInto(radius2, workspace.pointB), workspace.pointB);
+        return result.setContact(normal, radius - distance, workspace.pointA, workspace.pointB);
+    }
+
+    // Writes the core of a sphere or capsule into start and end and returns its radius
+    static float core(Shape shape, Vector3f start, Vector3f end) {
+        if (shape instanceof Sphere sphere) {
+            start.set(sphere.getCenter());
+            end.set(sphere.getCenter());
+            return sphere.getRadius();
+        }
+        if (shape instanceof Capsule capsule) {
+            start.set(capsule.getStart());
+            end.set(capsule.getEnd());
+            return capsule.getRadius();
+        }
+        throw new IllegalArgumentException("Not a sphere or capsule: " + shape);
+    }
+
+    // Closest points of the segments start1-end1 and start2-end2, either may be a single point
+    static void closestPoints(Vector3f start1, Vector3f end1, Vector3f start2, Vector3f end2,
+                              Vector3f closest1, Vector3f closest2, Workspace workspace) {
+        Vector3f direction1 = end1.subInto(start1, workspace.direction1);
+        Vector3f direction2 = end2.subInto(start2, workspace.direction2);
+        Vector3f offset = start1.subInto(start2, workspace.offset);
+        float length1 = direction1.lengthSquared();
+        float length2 = direction2.lengthSquared();
+        float along2 = direction2.dot(offset);
+
+        float s;
+        float t;
+        if (length1 <= EPSILON && length2 <= EPSILON) {
+            s = 0;
+            t = 0;
+        } else if (length1 <= EPSILON) {
+            s = 0;
+            t = clamp(along2 / length2);
+        } else {
+            float along1 = direction1.dot(offset);
+            if (length2 <= EPSILON) {
+                t = 0;
+                s = clamp(-along1 / length1);
+            } else {
+                float cosine = direction1.dot(direction2);
+                float denominator = length1 * length2 - cosine * cosine;
+                // Parallel segments have no single closest pair, any s works
+                s = denominator > EPSILON ? clamp((cosine * along2 - along1 * length2) / denominator) : 0;
+                t = (cosine * s + along2) / length2;
+                // Clamping t moves the closest point on segment 1, recompute s for it
+                if (t < 0) {
+                    t = 0;
+                    s = clamp(-along1 / length1);
+                } else if (t > 1) {
+                    t = 1;
+                    s = clamp((cosine - along1) / length1);
+                }
+            }
+        }
+
+        closest1.set(start1).addScaledLocal(direction1, s);
+        closest2.set(start2).addScaledLocal(direction2, t);
+    }
+
+    // Cores that cross have no direction between them: push apart perpendicular to both segments,
+    // or along any axis when that is not defined either
+    private static void crossingNormal(Workspace workspace) {
+        Vector3f normal = workspace.direction1.crossInto(workspace.direction2, workspace.normal);
+        if (normal.lengthSquared() > EPSILON)
+            normal.normalizeLocal();
+        else
+            normal.set(0, 1, 0);
+    }
+
+    private static float clamp(float value) {
+        return Math.max(0, Math.min(1, value));
+    }
+
+    static final class Workspace {
+        final Vector3f start1 = new Vector3f();
+        final Vector3f end1 = new Vector3f();
+        final Vector3f start2 = new Vector3f();
+        final Vector3f end2 = new Vector3f();
+        final Vector3f closest1 = new Vector3f();
+        final Vector3f closest2 = new Vector3f();
+        final Vector3f direction1 = new Vector3f();
+        final Vector3f direction2 = new Vector3f();
+        final Vector3f offset = new Vector3f();
+        final Vector3f normal = new Vector3f();
+        final Vector3f pointA = new Vector3f();
+        final Vector3f pointB = new Vector3f();
+    }
+}
@@ -0,0 +1,64 @@
+package collisionDetection.narrowPhase.dispatch;
+
+import collisionDetection.narrowPhase.SeparatingAxisCache;
+import collisionDetection.narrowPhase.Shape;
+import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+import collisionDetection.narrowPhase.collisionResult.DistanceResult;
+import collisionDetection.narrowPhase.gjk.GJK;
+import collisionDetection.narrowPhase.gjk.GJKSupport;
+import collisionDetection.primitive.Line;
+import math.Vector3f;
+
+// A sphere or capsule against any convex shape. The GJK distance between the core of the round
+// shape, its center point or segment, and the convex shape gives the normal, depth and points
+// exactly. EPA only runs when the core itself ends up inside, which a stepping simulation rarely
+// lets happen, and then on the core as well, so Capsule.support is never used.
+public class RoundConvexCollision implements CollisionAlgorithm {
+
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+    private final GJK gjk;
+
+    public RoundConvexCollision(GJK gjk) {
+        this.gjk = gjk;
+    }
+
+    @Override
+    public CollisionResult collide(Shape shape1, Shape shape2, CollisionResult result, SeparatingAxisCache cache, long key) {
+        Workspace workspace = WORKSPACE.get();
+        Line core = workspace.core;
+        float radius = RoundCollision.core(shape1, core.getStart(), core.getEnd());
+        GJKSupport convex = (GJKSupport) shape2;
+
+        DistanceResult distance = gjk.distance(core, convex, workspace.distance);
+        if (distance.isOverlapping() || distance.getDistance() == 0)
+            return deep(core, convex, radius, result, cache, key);
+
+        if (distance.getDistance() > radius) {
+            result.reset();
+            return result;
+        }
+
+        // The separating axis points from the core to the convex shape
+        Vector3f normal = distance.getSeparatingAxis();
+        distance.getPointA().addInto(normal.mulInto(radius, workspace.pointA), workspace.pointA);
+        return result.setContact(normal, radius - distance.getDistance(), workspace.pointA, distance.getPointB());
+    }
+
+    // EPA between the core and the convex shape, the round surface lies one radius further out
+    private CollisionResult deep(Line core, GJKSupport convex, float radius, CollisionResult result,
+                                 SeparatingAxisCache cache, long key) {
+        gjk.isCollide(core, convex, result, cache, key);
+        if (!result.isColliding())
+            return result;
+        result.setDepth(result.getDepth() + radius);
+        result.getContactPointA().addScaledLocal(result.getNormal(), radius);
+        return result;
+    }
+
+    private static final class Workspace {
+        final Line core = new Line(new Vector3f(), new Vector3f());
+        final DistanceResult distance = new DistanceResult();
+        final Vector3f pointA = new Vector3f();
+    }
+}
@@ -0,0 +1,266 @@
+package collisionDetection.narrowPhase.gjk;
+
+import math.Vector3f;
+
+// Simplex of the GJK distance query. Every vertex keeps the two support points it came from, so the
+// closest points on both shapes follow from the barycentric weights of the closest point to the
+// origin. The sub-simplex search walks the Voronoi regions of the simplex (Johnson's algorithm in
+// the form of Ericson's closest point routines) and keeps only the vertices of the closest feature.
+final class DistanceSimplex {
+    // Minkowski difference vertices and the support points on shape 1 and shape 2 they came from
+    private Vector3f[] w = vectors(4);
+    private Vector3f[] a = vectors(4);
+    private Vector3f[] b = vectors(4);
+    // Target of the reduction, swapped with the arrays above
+    private Vector3f[] reducedW = vectors(4);
+    private Vector3f[] reducedA = vectors(4);
+    private Vector3f[] reducedB = vectors(4);
+    private final float[] lambda = new float[4];
+    private int size;
+
+    // Closest feature found by the last segment or triangle search
+    private final int[] subIndex = new int[3];
+    private final float[] subLambda = new float[3];
+    private int subSize;
+    // Best face of a tetrahedron search
+    private final int[] bestIndex = new int[3];
+    private final float[] bestLambda = new float[3];
+    private int bestSize;
+
+    private final Vector3f edge1 = new Vector3f();
+    private final Vector3f edge2 = new Vector3f();
+    private final Vector3f normal = new Vector3f();
+
+    void clear() {
+        size = 0;
+        // Weight of the first vertex, in case the query stops before the first reduction
+        lambda[0] = 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(Vector3f point, Vector3f pointA, Vector3f pointB) {
+        w[size].set(point);
+        a[size].set(pointA);
+        b[size].set(pointB);
+        size++;
+    }
+
+    boolean contains(Vector3f point) {
+        for (int i = 0; i < size; i++) {
+            if (w[i].x == point.x && w[i].y == point.y && w[i].z == point.z)
+                return true;
+        }
+        return false;
+    }
+
+    // Reduces the simplex to the feature closest to the origin and writes the closest point.
+    // Returns false when the origin lies inside the tetrahedron.
+    boolean reduce(Vector3f closest) {
+        switch (size) {
+            case 1 -> lambda[0] = 1;
+            case 2 -> {
+                segment(0, 1);
+                commit();
+            }
+            case 3 -> {
+                triangle(0, 1, 2);
+                commit();
+            }
+            case 4 -> {
+                if (!tetrahedron())
+                    return false;
+                commit();
+            }
+            default -> throw new IllegalStateException("Empty simplex");
+        }
+
+        closest.clear();
+        for (int i = 0; i < size; i++)
+            closest.addScaledLocal(w[i], lambda[i]);
+        return true;
+    }
+
+    void closestPoints(Vector3f pointA, Vector3f pointB) {
+        pointA.clear();
+        pointB.clear();
+        for (int i = 0; i < size; i++) {
+            pointA.addScaledLocal(a[i], lambda[i]);
+            pointB.addScaledLocal(b[i], lambda[i]);
+        }
+    }
+
+    private void segment(int i, int j) {
+        Vector3f p = w[i];
+        Vector3f ab = w[j].subInto(p, edge1);
+        float t = -p.dot(ab);
+        float lengthSquared = ab.lengthSquared();
+        if (t <= 0 || lengthSquared == 0) {
+            setSub(i);
+        } else if (t >= lengthSquared) {
+            setSub(j);
+        } else {
+            t /= lengthSquared;
+            setSub(i, 1 - t, j, t);
+        }
+    }
+
+    private void triangle(int i, int j, int k) {
+        Vector3f pa = w[i];
+        Vector3f pb = w[j];
+        Vector3f pc = w[k];
+        Vector3f ab = pb.subInto(pa, edge1);
+        Vector3f ac = pc.subInto(pa, edge2);
+
+        // Vertex region of a
+        float d1 = -ab.dot(pa);
+        float d2 = -ac.dot(pa);
+        if (d1 <= 0 && d2 <= 0) {
+            setSub(i);
+            return;
+        }
+
+        // Vertex region of b
+        float d3 = -ab.dot(pb);
+        float d4 = -ac.dot(pb);
+        if (d3 >= 0 && d4 <= d3) {
+            setSub(j);
+            return;
+        }
+
+        // Edge region of ab
+        float vc = d1 * d4 - d3 * d2;
+        if (vc <= 0 && d1 >= 0 && d3 <= 0) {
+            float t = d1 / (d1 - d3);
+            setSub(i, 1 - t, j, t);
+            return;
+        }
+
+        // Vertex region of c
+        float d5 = -ab.dot(pc);
+        float d6 = -ac.dot(pc);
+        if (d6 >= 0 && d5 <= d6) {
+            setSub(k);
+            return;
+        }
+
+        // Edge region of ac
+        float vb = d5 * d2 - d1 * d6;
+        if (vb <= 0 && d2 >= 0 && d6 <= 0) {
+            float t = d2 / (d2 - d6);
+            setSub(i, 1 - t, k, t);
+            return;
+        }
+
+        // Edge region of bc
+        float va = d3 * d6 - d5 * d4;
+        if (va <= 0 && (d4 - d3) >= 0 && (d5 - d6) >= 0) {
+            float t = (d4 - d3) / ((d4 - d3) + (d5 - d6));
+            setSub(j, 1 - t, k, t);
+            return;
+        }
+
+        // Face region
+        float denominator = va + vb + vc;
+        if (denominator == 0) {
+            // Degenerate triangle, fall back to one of its edges
+            segment(i, j);
+            return;
+        }
+        float v = vb / denominator;
+        float u = vc / denominator;
+        subSize = 3;
+        subIndex[0] = i;
+        subIndex[1] = j;
+        subIndex[2] = k;
+        subLambda[0] = 1 - v - u;
+        subLambda[1] = v;
+        subLambda[2] = u;
+    }
+
+    private boolean tetrahedron() {
+        float bestDistance = Float.POSITIVE_INFINITY;
+        bestDistance = tetrahedronFace(0, 1, 2, 3, bestDistance);
+        bestDistance = tetrahedronFace(0, 2, 3, 1, bestDistance);
+        bestDistance = tetrahedronFace(0, 3, 1, 2, bestDistance);
+        bestDistance = tetrahedronFace(1, 3, 2, 0, bestDistance);
+        if (bestDistance == Float.POSITIVE_INFINITY)
+            return false;
+
+        subSize = bestSize;
+        System.arraycopy(bestIndex, 0, subIndex, 0, bestSize);
+        System.arraycopy(bestLambda, 0, subLambda, 0, bestSize);
+        return true;
+    }
+
+    // Searches a face when the origin is on its outer side, keeps it if it is closer than the best so far
+    private float tetrahedronFace(int i, int j, int k, int opposite, float bestDistance) {
+        Vector3f p = w[i];
+        w[j].subInto(p, edge1).crossInto(w[k].subInto(p, edge2), normal);
+        float signOrigin = -p.dot(normal);
+        float signOpposite = w[opposite].subInto(p, edge1).dot(normal);
+        // A flat tetrahedron has no inside, so all of its faces are searched
+        if (signOrigin * signOpposite > 0)
+            return bestDistance;
+
+        triangle(i, j, k);
+        float x = 0, y = 0, z = 0;
+        for (int n = 0; n < subSize; n++) {
+            x += w[subIndex[n]].x * subLambda[n];
+            y += w[subIndex[n]].y * subLambda[n];
+            z += w[subIndex[n]].z * subLambda[n];
+        }
+        float distance = x * x + y * y + z * z;
+        if (distance >= bestDistance)
+            return bestDistance;
+
+        bestSize = subSize;
+        System.arraycopy(subIndex, 0, bestIndex, 0, subSize);
+        System.arraycopy(subLambda, 0, bestLambda, 0, subSize);
+        return distance;
+    }
+
+    private void setSub(int i) {
+        subSize = 1;
+        subIndex[0] = i;
+        subLambda[0] = 1;
+    }
+
+    private void setSub(int i, float lambdaI, int j, float lambdaJ) {
+        subSize = 2;
+        subIndex[0] = i;
+        subIndex[1] = j;
+        subLambda[0] = lambdaI;
+        subLambda[1] = lambdaJ;
+    }
+
+    // Keeps only the vertices of the last search result
+    private void commit() {
+        for (int n = 0; n < subSize; n++) {
+            reducedW[n].set(w[subIndex[n]]);
+            reducedA[n].set(a[subIndex[n]]);
+            reducedB[n].set(b[subIndex[n]]);
+            lambda[n] = subLambda[n];
+        }
+
+        Vector3f[] swap = w;
+        w = reducedW;
+        reducedW = swap;
+        swap = a;
+        a = reducedA;
+        reducedA = swap;
+        swap = b;
+        b = reducedB;
+        reducedB = swap;
+        size = subSize;
+    }
+
+    private static Vector3f[] vectors(int count) {
+        Vector3f[] vectors = new Vector3f[count];
+        for (int i = 0; i < count; i++)
+            vectors[i] = new Vector3f();
+        return vectors;
+    }
+}
@@ -1,164 +1,186 @@
 package collisionDetection.narrowPhase.gjk;
 
 import collisionDetection.narrowPhase.collisionResult.CollisionResult;
-import collisionDetection.util.CollisionUtil;
 import math.Vector3f;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
-
-import static math.Const.*;
+import static math.Const.EPSILON;
+import static math.Const.GJK_EPA_MAX_ITERATORS;
 
+// Expanding polytope algorithm over the Minkowski difference shape1 - shape2. Starting from the
+// tetrahedron GJK ended with, the face closest to the origin is pushed out to the support point
+// along its normal until the support point no longer gets further out. The resulting normal points
+// from shape 1 towards shape 2, and the contact points are [on shape 1, on shape 2].
 public class EPA {
 
-    public CollisionResult epaCollisionResult(GJKSupport shape1, GJKSupport shape2, Simplex simplex) {
-
-        simplex.createFacesFromSimplex();
-
-        List<Face> faces = new ArrayList<>(simplex.getFaces());
-
-        for (int iteration = 0; iteration < GJK_EPA_MAX_ITERATORS; iteration++) {
-            // Find the face in the list with the smallest penetration depth
-            Face closestFace = findClosestFaceToOrigin(faces);
-
-            // Calculate the support point in the direction of the face's normal
-            Vector3f supportPoint = CollisionUtil.support(shape1, shape2, closestFace.getNormal());
-
-            // Calculate the distance from the support point to the face
-            float distance = closestFace.distanceToPoint(supportPoint);
-
-            // If the distance is within a small tolerance, a collision has been found
-            if (distance <= EPSILON) {
-                // Extract collision information from the minimum penetration face
-                return createResult(shape1, shape2, closestFace);
-            }
-
-            // Create new faces by connecting the support point to the edges of the minimum penetration face
-            createNewFaces(faces, supportPoint, closestFace);
-
-            // Remove the minimum penetration face from the list
-            faces.remove(closestFace);
+    // Relative growth of the closest face below which the polytope counts as converged, rounded
+    // shapes would otherwise keep adding vertices until the iteration limit
+    private static final float TOLERANCE = 1e-4f;
+
+    // EPA converges much slower than GJK on rounded shapes
+    private static final int MAX_ITERATIONS = GJK_EPA_MAX_ITERATORS * 2;
+
+    // Smallest distance from the line or plane of the starting vertices that still counts as volume
+    private static final float DEGENERATE = 1e-5f;
+
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+    // points is the tetrahedron of the Minkowski difference GJK ended with, pointsA and pointsB hold
+    // the support points on each shape that produced its vertices
+    public CollisionResult penetration(GJKSupport shape1, GJKSupport shape2, Vector3f[] points, Vector3f[] pointsA,
+                                       Vector3f[] pointsB, CollisionResult result) {
+        Workspace workspace = WORKSPACE.get();
+        Polytope polytope = workspace.polytope;
+        polytope.clear();
+        if (!buildTetrahedron(shape1, shape2, points, pointsA, pointsB, workspace))
+            return touching(shape1, shape2, workspace, result);
+        polytope.initTetrahedron();
+
+        int closest = polytope.closestFace();
+        for (int iteration = 0; iteration < MAX_ITERATIONS && closest >= 0; iteration++) {
+            Vector3f normal = polytope.getNormal(closest, workspace.normal);
+            support(shape1, shape2, normal, workspace);
+
+            float distance = polytope.getDistance(closest);
+            if (workspace.point.dot(normal) - distance <= Math.max(EPSILON, TOLERANCE * distance))
+                break;
+
+            polytope.expand(polytope.addVertex(workspace.point, workspace.pointA, workspace.pointB));
+            int next = polytope.closestFace();
+            if (next < 0)
+                break;
+            closest = next;
         }
 
-        Face closestFace =faces.stream()
-                .min(Comparator.comparing(Face::getDistanceToOrigin))
-                .orElse(faces.get(0));// No collision
-        return createResult(shape1, shape2, closestFace);
-
-    }
-
-
-    private CollisionResult createResult(GJKSupport shape1, GJKSupport shape2, Face closestFace) {
-        Vector3f normal = closestFace.getNormal();
-        float depth = calculatePenetrationDepth(closestFace);
-        List<Vector3f> contactPoints = calculateContactPoints(shape1, shape2, closestFace);
-        return new CollisionResult(true, normal, depth, contactPoints);
-    }
-
-    private float calculatePenetrationDepth(Face closestFace) {
-        // You can calculate the penetration depth by using the dot product of
-        // the origin (0,0,0) to any point on the plane (e.g., a vertex)
-        // and the face's normal vector, then taking the absolute value.
-        // The absolute value ensures that the penetration depth is always positive.
-        Vector3f pointOnPlane = closestFace.getVertices()[0]; // Choose one of the vertices as a reference
-        Vector3f originToPlane = pointOnPlane.negate(); // Assuming origin is at (0,0,0)
-        return Math.abs(originToPlane.dot(closestFace.getNormal()));
-    }
-
-    private List<Vector3f> calculateContactPoints(GJKSupport shape1, GJKSupport shape2, Face face) {
-        List<Vector3f> contactPoints = new ArrayList<>();
-
+        if (closest < 0)
+            return touching(shape1, shape2, workspace, result);
 
-        // Calculate the barycentric coordinates of the origin on the face.
-        float[] barycentricCoords = calculateBarycentricCoordinates(face);
-
-        // Use the barycentric coordinates to find the contact point on the face.
-        Vector3f contactPoint = interpolateVertices(face.getVertices(), barycentricCoords);
-
-        // Add the contact point to the list.
-        contactPoints.add(shape1.closestPoint(contactPoint));
-        contactPoints.add(shape2.closestPoint(contactPoint));
-
-
-        return contactPoints;
+        polytope.getNormal(closest, workspace.normal);
+        polytope.contactPoints(closest, workspace.pointA, workspace.pointB);
+        return result.setContact(workspace.normal, polytope.getDistance(closest), workspace.pointA, workspace.pointB);
     }
 
-    private float[] calculateBarycentricCoordinates(Face face) {
-        // Calculate the barycentric coordinates of the origin on the face.
-        // This involves projecting the origin onto the plane of the face and expressing
-        // the point in terms of the face's vertices.
-
-        Vector3f pointOnPlane = projectPointOntoPlane(face.getNormal(), face.getVertices()[0]);
-
-        // Calculate the barycentric coordinates using the point on the plane and the face's vertices.
-        float[] barycentricCoords = new float[3];
-
-        for (int i = 0; i < 3; i++) {
-            Vector3f edge = face.getVertices()[(i + 1) % 3].sub(face.getVertices()[i]);
-            Vector3f pointToVertex = pointOnPlane.sub(face.getVertices()[i]);
+    // GJK can end on a tetrahedron with repeated or coplanar vertices, for instance when the origin
+    // lies exactly on an edge of the Minkowski difference. Only affinely independent points are kept
+    // and the rest is filled in with support points off the current line or plane. Returns false
+    // when the Minkowski difference has no volume there, which means the shapes only touch.
+    private static boolean buildTetrahedron(GJKSupport shape1, GJKSupport shape2, Vector3f[] points,
+                                            Vector3f[] pointsA, Vector3f[] pointsB, Workspace workspace) {
+        Polytope polytope = workspace.polytope;
+        for (int i = 0; i < 4 && polytope.getVertexCount() < 4; i++) {
+            if (offHull(points[i], workspace) > DEGENERATE)
+                polytope.addVertex(points[i], pointsA[i], pointsB[i]);
+        }
 
-            if (edge.lengthSquared() <= EPSILON) {
-                barycentricCoords[i] = 0;
-            } else {
-                // Calculate the barycentric coordinate for each vertex.
-                barycentricCoords[i] = pointToVertex.dot(edge) / edge.lengthSquared();
+        while (polytope.getVertexCount() < 4) {
+            int candidates = searchDirections(workspace);
+            float best = DEGENERATE;
+            for (int i = 0; i < candidates; i++) {
+                support(shape1, shape2, workspace.directions[i], workspace);
+                float offset = offHull(workspace.point, workspace);
+                if (offset > best) {
+                    best = offset;
+                    workspace.bestPoint.set(workspace.point);
+                    workspace.bestA.set(workspace.pointA);
+                    workspace.bestB.set(workspace.pointB);
+                }
             }
+            if (best == DEGENERATE)
+                return false;
+            polytope.addVertex(workspace.bestPoint, workspace.bestA, workspace.bestB);
         }
-
-        return barycentricCoords;
+        return true;
     }
 
-    private Vector3f interpolateVertices(Vector3f[] vertices, float[] weights) {
-        // Interpolate the vertices of a triangle using barycentric coordinates.
-        Vector3f result = new Vector3f(0, 0, 0);
+    // Distance of point from the point, line or plane spanned by the vertices added so far
+    private static float offHull(Vector3f point, Workspace workspace) {
+        Polytope polytope = workspace.polytope;
+        int count = polytope.getVertexCount();
+        if (count == 0)
+            return Float.MAX_VALUE;
 
-        for (int i = 0; i < 3; i++) {
-            result = result.add(vertices[i].mul(weights[i]));
-        }
+        Vector3f a = polytope.getPoint(0);
+        Vector3f ap = point.subInto(a, workspace.edge1);
+        if (count == 1)
+            return ap.length();
 
-        return result;
-    }
+        Vector3f ab = polytope.getPoint(1).subInto(a, workspace.edge2);
+        if (count == 2)
+            return ab.crossInto(ap, workspace.normal).length() / ab.length();
 
-    private Vector3f projectPointOntoPlane(Vector3f planeNormal, Vector3f planePoint) {
-        // Project a point onto a plane defined by its normal and a point on the plane.
-        Vector3f pointToPlane = Vector3f.Zero.sub(planePoint);
-        float distance = pointToPlane.dot(planeNormal);
-        return Vector3f.Zero.sub(planeNormal.mul(distance));
+        Vector3f normal = ab.crossInto(polytope.getPoint(2).subInto(a, workspace.normal), workspace.normal);
+        return Math.abs(normal.dot(ap)) / normal.length();
     }
 
-    private void createNewFaces(List<Face> faces, Vector3f supportPoint, Face minPenetrationFace) {
-        // Iterate over the edges of the minimum penetration face
-        int numEdges = minPenetrationFace.getVertices().length;
-        for (int i = 0; i < numEdges; i++) {
-            int j = (i + 1) % numEdges; // Next edge index
-            Vector3f edgeStart = minPenetrationFace.getVertices()[i];
-            Vector3f edgeEnd = minPenetrationFace.getVertices()[j];
-
-            // Create a new face using the support point and the edge vertices
-            Face newFace = new Face(new Vector3f[]{supportPoint, edgeStart, edgeEnd});
-
-            // Add the new face to the list of faces
-            faces.add(newFace);
+    // Directions that lead off the hull of the vertices added so far, returns how many were written
+    private static int searchDirections(Workspace workspace) {
+        Polytope polytope = workspace.polytope;
+        Vector3f[] directions = workspace.directions;
+        int count = polytope.getVertexCount();
+        if (count <= 1) {
+            directions[0].set(1, 0, 0);
+            directions[1].set(0, 1, 0);
+            directions[2].set(0, 0, 1);
+        } else if (count == 2) {
+            // Two directions perpendicular to the line and to each other
+            Vector3f line = polytope.getPoint(1).subInto(polytope.getPoint(0), workspace.edge1);
+            float ax = Math.abs(line.x);
+            float ay = Math.abs(line.y);
+            float az = Math.abs(line.z);
+            Vector3f axis = ax <= ay && ax <= az ? directions[2].set(1, 0, 0)
+                    : ay <= az ? directions[2].set(0, 1, 0) : directions[2].set(0, 0, 1);
+            line.crossInto(axis, directions[0]);
+            line.crossInto(directions[0], directions[1]);
+        } else {
+            Vector3f a = polytope.getPoint(0);
+            polytope.getPoint(1).subInto(a, workspace.edge1)
+                    .crossInto(polytope.getPoint(2).subInto(a, workspace.edge2), directions[0]);
+            return negated(directions, 1);
         }
+        return negated(directions, count == 2 ? 2 : 3);
     }
 
+    // Appends the negation of the first count directions
+    private static int negated(Vector3f[] directions, int count) {
+        for (int i = 0; i < count; i++)
+            directions[i].negateInto(directions[count + i]);
+        return count * 2;
+    }
 
-    private Face findClosestFaceToOrigin(List<Face> faces) {
-
-        Face minPenetrationFace = faces.get(0); // Initialize with the first face
-        float minPenetrationDepth = minPenetrationFace.getDistanceToOrigin();
-
-        for (Face face : faces) {
-            float depth = face.getDistanceToOrigin();
-            if (depth < minPenetrationDepth) {
-                minPenetrationDepth = depth;
-                minPenetrationFace = face;
-            }
+    // Shapes that only touch: zero depth along a normal of the flat Minkowski difference
+    private static CollisionResult touching(GJKSupport shape1, GJKSupport shape2, Workspace workspace,
+                                            CollisionResult result) {
+        Polytope polytope = workspace.polytope;
+        Vector3f normal = workspace.normal;
+        if (polytope.getVertexCount() < 2) {
+            normal.set(1, 0, 0);
+        } else {
+            searchDirections(workspace);
+            normal.set(workspace.directions[0]).normalizeLocal();
         }
 
-        return minPenetrationFace;
+        support(shape1, shape2, normal, workspace);
+        return result.setContact(normal, 0, workspace.pointA, workspace.pointB);
     }
 
+    private static void support(GJKSupport shape1, GJKSupport shape2, Vector3f direction, Workspace workspace) {
+        shape1.support(direction, workspace.pointA);
+        shape2.support(direction.negateInto(workspace.negated), workspace.pointB);
+        workspace.pointA.subInto(workspace.pointB, workspace.point);
+    }
 
+    private static final class Workspace {
+        private final Polytope polytope = new Polytope();
+        private final Vector3f normal = new Vector3f();
+        private final Vector3f negated = new Vector3f();
+        private final Vector3f point = new Vector3f();
+        private final Vector3f pointA = new Vector3f();
+        private final Vector3f pointB = new Vector3f();
+        private final Vector3f edge1 = new Vector3f();
+        private final Vector3f edge2 = new Vector3f();
+        private final Vector3f[] directions = {new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f(),
+                new Vector3f(), new Vector3f()};
+        private final Vector3f bestPoint = new Vector3f();
+        private final Vector3f bestA = new Vector3f();
+        private final Vector3f bestB = new Vector3f();
+    }
 }
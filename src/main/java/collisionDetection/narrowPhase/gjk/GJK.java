@@ -1,13 +1,22 @@
 package collisionDetection.narrowPhase.gjk;
 
+import collisionDetection.narrowPhase.SeparatingAxisCache;
 import collisionDetection.narrowPhase.collisionResult.CollisionResult;
-import collisionDetection.util.CollisionUtil;
+import collisionDetection.narrowPhase.collisionResult.DistanceResult;
 import math.Vector3f;
 
+import static math.Const.EPSILON;
 import static math.Const.GJK_EPA_MAX_ITERATORS;
 
 public class GJK {
 
+    // Scratch vectors and the simplex of the running query, one set per thread so the query
+    // itself allocates nothing and GJK can still be called from parallel narrow phases
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+    // Relative progress below which the distance query stops
+    private static final float DISTANCE_TOLERANCE = 1e-5f;
+
     private final EPA epa;
 
     public GJK() {
@@ -15,53 +24,167 @@ public class GJK {
     }
 
     public CollisionResult isCollide(GJKSupport shape1, GJKSupport shape2) {
-        Simplex simplex = new Simplex();
+        return isCollide(shape1, shape2, new CollisionResult());
+    }
+
+    // Fills result instead of creating one, a miss does not allocate
+    public CollisionResult isCollide(GJKSupport shape1, GJKSupport shape2, CollisionResult result) {
+        return isCollide(shape1, shape2, result, null, 0);
+    }
+
+    // Warm started from the separating direction cached for the pair key, and keeps the cache up to date
+    public CollisionResult isCollide(GJKSupport shape1, GJKSupport shape2, CollisionResult result,
+                                     SeparatingAxisCache cache, long key) {
+        Workspace workspace = WORKSPACE.get();
+        if (!intersects(shape1, shape2, workspace, cache, key)) {
+            result.reset();
+            return result;
+        }
+
+        // EPA copies the tetrahedron into its own polytope, it only needs the support points behind each vertex
+        Simplex simplex = workspace.simplex;
+        for (int i = 0; i < 4; i++) {
+            int index = workspace.indexOf(simplex.getPoint(i));
+            workspace.epaPoints[i] = workspace.points[index];
+            workspace.epaPointsA[i] = workspace.pointsA[index];
+            workspace.epaPointsB[i] = workspace.pointsB[index];
+        }
+        return epa.penetration(shape1, shape2, workspace.epaPoints, workspace.epaPointsA, workspace.epaPointsB, result);
+    }
+
+    // Boolean query without penetration data, never allocates
+    public boolean intersects(GJKSupport shape1, GJKSupport shape2) {
+        return intersects(shape1, shape2, WORKSPACE.get(), null, 0);
+    }
+
+    public boolean intersects(GJKSupport shape1, GJKSupport shape2, SeparatingAxisCache cache, long key) {
+        return intersects(shape1, shape2, WORKSPACE.get(), cache, key);
+    }
+
+    public DistanceResult distance(GJKSupport shape1, GJKSupport shape2) {
+        return distance(shape1, shape2, new DistanceResult());
+    }
+
+    // Separation distance, closest points and separating axis of two convex shapes. When they overlap
+    // only the overlapping flag is meaningful; use isCollide for the penetration depth.
+    public DistanceResult distance(GJKSupport shape1, GJKSupport shape2, DistanceResult result) {
+        Workspace workspace = WORKSPACE.get();
+        DistanceSimplex simplex = workspace.distanceSimplex;
+        simplex.clear();
+
+        // Start from any point of the Minkowski difference
+        Vector3f v = workspace.closest;
+        v.set(supportPair(shape1, shape2, workspace.direction.set(1, 0, 0), workspace));
+        simplex.add(v, workspace.supportA, workspace.supportB);
+
+        boolean overlapping = false;
+        int iteration = 0;
+        while (iteration < GJK_EPA_MAX_ITERATORS) {
+            iteration++;
+            float distanceSquared = v.lengthSquared();
+            if (distanceSquared <= EPSILON * EPSILON) {
+                overlapping = true;
+                break;
+            }
+
+            // Support point of the Minkowski difference towards the origin
+            Vector3f w = supportPair(shape1, shape2, v.negateInto(workspace.direction), workspace);
+            // No progress towards the origin, v is the closest point up to float precision
+            if (simplex.contains(w) || distanceSquared - v.dot(w) <= DISTANCE_TOLERANCE * distanceSquared)
+                break;
+
+            simplex.add(w, workspace.supportA, workspace.supportB);
+            if (!simplex.reduce(v)) {
+                overlapping = true;
+                break;
+            }
+        }
+
+        result.setOverlapping(overlapping);
+        result.setIterations(iteration);
+        simplex.closestPoints(result.getPointA(), result.getPointB());
+        if (overlapping) {
+            result.setDistance(0);
+            result.getSeparatingAxis().clear();
+        } else {
+            float distance = v.length();
+            result.setDistance(distance);
+            v.negateInto(result.getSeparatingAxis()).mulLocal(1.0f / distance);
+        }
+        return result;
+    }
+
+    // Writes the support points of both shapes into the workspace and returns their difference
+    private static Vector3f supportPair(GJKSupport shape1, GJKSupport shape2, Vector3f direction, Workspace workspace) {
+        shape1.support(direction, workspace.supportA);
+        shape2.support(direction.negateInto(workspace.negated), workspace.supportB);
+        return workspace.supportA.subInto(workspace.supportB, workspace.difference);
+    }
+
+    private static boolean intersects(GJKSupport shape1, GJKSupport shape2, Workspace workspace,
+                                      SeparatingAxisCache cache, long key) {
+        Simplex simplex = workspace.simplex;
+        simplex.clear();
+
+        Vector3f direction = workspace.direction;
+        boolean warmStart = cache != null && cache.get(key, direction);
+        if (!warmStart)
+            direction.set(1, 0, 0);
+        Vector3f support = workspace.support(shape1, shape2, direction);
+
+        if (cache != null) {
+            // The direction that separated the pair last time still does
+            if (warmStart && support.dot(direction) < 0) {
+                cache.recordHit();
+                return false;
+            }
+            cache.recordMiss();
+        }
 
-        Vector3f support = CollisionUtil.support(shape1, shape2, new Vector3f(1, 0, 0));
         simplex.pushFront(support); // Initial simplex
 
-        Vector3f direction = support.negate();
+        support.negateInto(direction);
 
         for (int i = 0; i < GJK_EPA_MAX_ITERATORS; i++) {
-            support = CollisionUtil.support(shape1, shape2, direction);
+            support = workspace.support(shape1, shape2, direction);
 
             if (support.dot(direction) < 0) {
-                return new CollisionResult(); // No collision
+                if (cache != null)
+                    cache.put(key, direction);
+                return false; // No collision
             }
 
             simplex.pushFront(support);
 
             // If the simplex has reached rank 3, then check for collision
-            if (nextSimplex(simplex, direction)) {
-                return epa.epaCollisionResult(shape1, shape2, simplex);
+            if (nextSimplex(simplex, direction, workspace)) {
+                return true;
             }
-
         }
 
-        return new CollisionResult();// No collision
+        return false;// No collision
     }
 
-
-    private static boolean nextSimplex(Simplex points, Vector3f direction) {
+    private static boolean nextSimplex(Simplex points, Vector3f direction, Workspace workspace) {
         return switch (points.getSize()) {
-            case 2 -> line(points, direction);
-            case 3 -> triangle(points, direction);
-            case 4 -> tetrahedron(points, direction);
+            case 2 -> line(points, direction, workspace);
+            case 3 -> triangle(points, direction, workspace);
+            case 4 -> tetrahedron(points, direction, workspace);
             // never should be here
             default -> false;
         };
 
     }
 
-    private static boolean line(Simplex points, Vector3f direction) {
+    private static boolean line(Simplex points, Vector3f direction, Workspace workspace) {
         Vector3f a = points.getPoint(0);
         Vector3f b = points.getPoint(1);
 
-        Vector3f ab = b.sub(a);
-        Vector3f ao = a.negate();
+        Vector3f ab = b.subInto(a, workspace.ab);
+        Vector3f ao = a.negateInto(workspace.ao);
 
         if (sameDirection(ab, ao)) {
-            direction.set(ab.cross(ao).cross(ab));
+            ab.crossInto(ao, direction).crossInto(ab, direction);
         } else {
             points.setValue(0, a);
             points.setSize(1);
@@ -71,35 +194,35 @@ public class GJK {
         return false;
     }
 
-    private static boolean triangle(Simplex points, Vector3f direction) {
-        Vector3f a = points.getPoint(0);// 1,1,1
+    private static boolean triangle(Simplex points, Vector3f direction, Workspace workspace) {
+        Vector3f a = points.getPoint(0);
         Vector3f b = points.getPoint(1);
         Vector3f c = points.getPoint(2);
 
-        Vector3f ab = b.sub(a);
-        Vector3f ac = c.sub(a);
-        Vector3f ao = a.negate();
+        Vector3f ab = b.subInto(a, workspace.ab);
+        Vector3f ac = c.subInto(a, workspace.ac);
+        Vector3f ao = a.negateInto(workspace.ao);
 
-        Vector3f abc = ab.cross(ac);
+        Vector3f abc = ab.crossInto(ac, workspace.abc);
 
-        if (sameDirection(abc.cross(ac), ao)) {
+        if (sameDirection(abc.crossInto(ac, workspace.temp), ao)) {
             if (sameDirection(ac, ao)) {
                 points.setValue(0, a);
                 points.setValue(1, c);
                 points.setSize(2);
-                direction.sub(ac.cross(ao).cross(ac));
+                ac.crossInto(ao, direction).crossInto(ac, direction);
             } else {
                 points.setValue(0, a);
                 points.setValue(1, b);
                 points.setSize(2);
-                return line(points, direction);
+                return line(points, direction, workspace);
             }
         } else {
-            if (sameDirection(ab.cross(abc), ao)) {
+            if (sameDirection(ab.crossInto(abc, workspace.temp), ao)) {
                 points.setValue(0, a);
                 points.setValue(1, b);
                 points.setSize(2);
-                return line(points, direction);
+                return line(points, direction, workspace);
             } else {
                 if (sameDirection(abc, ao)) {
                     direction.set(abc);
@@ -108,7 +231,7 @@ public class GJK {
                     points.setValue(1, c);
                     points.setValue(2, b);
                     points.setSize(3);
-                    direction.set(abc.negate());
+                    abc.negateInto(direction);
                 }
             }
         }
@@ -116,43 +239,39 @@ public class GJK {
         return false;
     }
 
-    private static boolean tetrahedron(Simplex points, Vector3f direction) {
+    private static boolean tetrahedron(Simplex points, Vector3f direction, Workspace workspace) {
         Vector3f a = points.getPoint(0);
         Vector3f b = points.getPoint(1);
         Vector3f c = points.getPoint(2);
         Vector3f d = points.getPoint(3);
 
-        Vector3f ab = b.sub(a);
-        Vector3f ac = c.sub(a);
-        Vector3f ad = d.sub(a);
-        Vector3f ao = a.negate();
+        Vector3f ab = b.subInto(a, workspace.ab);
+        Vector3f ac = c.subInto(a, workspace.ac);
+        Vector3f ad = d.subInto(a, workspace.ad);
+        Vector3f ao = a.negateInto(workspace.ao);
 
-        Vector3f abc = ab.cross(ac);
-        Vector3f acd = ac.cross(ad);
-        Vector3f adb = ad.cross(ab);
-
-        if (sameDirection(abc, ao)) {
+        if (sameDirection(ab.crossInto(ac, workspace.temp), ao)) {
             points.setValue(0, a);
             points.setValue(1, b);
             points.setValue(2, c);
             points.setSize(3);
-            return triangle(points, direction);
+            return triangle(points, direction, workspace);
         }
 
-        if (sameDirection(acd, ao)) {
+        if (sameDirection(ac.crossInto(ad, workspace.temp), ao)) {
             points.setValue(0, a);
             points.setValue(1, c);
             points.setValue(2, d);
             points.setSize(3);
-            return triangle(points, direction);
+            return triangle(points, direction, workspace);
         }
 
-        if (sameDirection(adb, ao)) {
+        if (sameDirection(ad.crossInto(ab, workspace.temp), ao)) {
             points.setValue(0, a);
             points.setValue(1, d);
             points.setValue(2, b);
             points.setSize(3);
-            return triangle(points, direction);
+            return triangle(points, direction, workspace);
         }
 
         return true;
@@ -162,4 +281,62 @@ public class GJK {
         return direction.dot(ao) > 0;
     }
 
+    private static final class Workspace {
+        private final Simplex simplex = new Simplex();
+        // Backing vectors of the simplex points, one more than the simplex can hold so a free one always exists
+        private final Vector3f[] points = vectors(5);
+        // Support points on shape 1 and shape 2 that produced the point at the same index
+        private final Vector3f[] pointsA = vectors(5);
+        private final Vector3f[] pointsB = vectors(5);
+        private final Vector3f[] epaPoints = new Vector3f[4];
+        private final Vector3f[] epaPointsA = new Vector3f[4];
+        private final Vector3f[] epaPointsB = new Vector3f[4];
+        private final Vector3f direction = new Vector3f();
+        private final Vector3f negated = new Vector3f();
+        private final Vector3f ab = new Vector3f();
+        private final Vector3f ac = new Vector3f();
+        private final Vector3f ad = new Vector3f();
+        private final Vector3f ao = new Vector3f();
+        private final Vector3f abc = new Vector3f();
+        private final Vector3f temp = new Vector3f();
+        private final DistanceSimplex distanceSimplex = new DistanceSimplex();
+        private final Vector3f closest = new Vector3f();
+        private final Vector3f supportA = new Vector3f();
+        private final Vector3f supportB = new Vector3f();
+        private final Vector3f difference = new Vector3f();
+
+        // Minkowski difference support point, written into a point vector the simplex does not use
+        private Vector3f support(GJKSupport shape1, GJKSupport shape2, Vector3f direction) {
+            int index = freePoint();
+            shape1.support(direction, pointsA[index]);
+            shape2.support(direction.negateInto(negated), pointsB[index]);
+            return pointsA[index].subInto(pointsB[index], points[index]);
+        }
+
+        private int freePoint() {
+            for (int index = 0; index < points.length; index++) {
+                boolean used = false;
+                for (int i = 0; i < simplex.getSize() && !used; i++)
+                    used = simplex.getPoint(i) == points[index];
+                if (!used)
+                    return index;
+            }
+            throw new IllegalStateException("No free simplex point");
+        }
+
+        private int indexOf(Vector3f point) {
+            for (int index = 0; index < points.length; index++) {
+                if (points[index] == point)
+                    return index;
+            }
+            throw new IllegalStateException("Point is not a simplex point");
+        }
+
+        private static Vector3f[] vectors(int count) {
+            Vector3f[] vectors = new Vector3f[count];
+            for (int i = 0; i < count; i++)
+                vectors[i] = new Vector3f();
+            return vectors;
+        }
+    }
 }
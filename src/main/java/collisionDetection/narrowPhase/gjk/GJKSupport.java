@@ -6,4 +6,11 @@ import math.Vector3f;
 public interface GJKSupport extends Shape {
 
     Vector3f support(Vector3f  direction);
+
+    // Writes the support point into dest and returns it. Shapes override this so GJK can run
+    // without allocating; dest is never the direction vector.
+    default Vector3f support(Vector3f direction, Vector3f dest) {
+        dest.set(support(direction));
+        return dest;
+    }
 }
@@ -0,0 +1,275 @@
+package collisionDetection.narrowPhase.gjk;
+
+import math.Vector3f;
+
+import java.util.Arrays;
+
+// Convex polytope expanded by EPA. Vertices remember the support points on both shapes they came
+// from, faces are stored as index triples with a cached outward normal and distance to the origin,
+// and live faces sit in a binary min-heap ordered by that distance. Removed faces are only flagged
+// and skipped when they reach the top of the heap. All storage is reused between queries and only
+// grows when a query needs more room than any query before it.
+final class Polytope {
+    private static final int INITIAL_VERTICES = 64;
+    private static final int INITIAL_FACES = 256;
+
+    private Vector3f[] points = vectors(INITIAL_VERTICES);
+    private Vector3f[] pointsA = vectors(INITIAL_VERTICES);
+    private Vector3f[] pointsB = vectors(INITIAL_VERTICES);
+    private int vertexCount;
+
+    // Three vertex indices and three normal components per face
+    private int[] faceVertices = new int[INITIAL_FACES * 3];
+    private float[] faceNormals = new float[INITIAL_FACES * 3];
+    private float[] faceDistances = new float[INITIAL_FACES];
+    private boolean[] faceRemoved = new boolean[INITIAL_FACES];
+    private int faceCount;
+
+    private int[] heap = new int[INITIAL_FACES];
+    private int heapSize;
+
+    // Horizon edges as vertex index pairs, an edge and its reverse cancel out
+    private int[] edges = new int[64];
+    private int edgeCount;
+
+    // Point strictly inside the polytope, used to orient new faces outwards
+    private final Vector3f interior = new Vector3f();
+    private final Vector3f edge1 = new Vector3f();
+    private final Vector3f edge2 = new Vector3f();
+    private final Vector3f normal = new Vector3f();
+
+    void clear() {
+        vertexCount = 0;
+        faceCount = 0;
+        heapSize = 0;
+        edgeCount = 0;
+    }
+
+    int addVertex(Vector3f point, Vector3f pointA, Vector3f pointB) {
+        if (vertexCount == points.length) {
+            points = grow(points);
+            pointsA = grow(pointsA);
+            pointsB = grow(pointsB);
+        }
+        points[vertexCount].set(point);
+        pointsA[vertexCount].set(pointA);
+        pointsB[vertexCount].set(pointB);
+        return vertexCount++;
+    }
+
+    void setVertex(int vertex, Vector3f point, Vector3f pointA, Vector3f pointB) {
+        points[vertex].set(point);
+        pointsA[vertex].set(pointA);
+        pointsB[vertex].set(pointB);
+    }
+
+    Vector3f getPoint(int vertex) {
+        return points[vertex];
+    }
+
+    int getVertexCount() {
+        return vertexCount;
+    }
+
+    // Builds the four faces of the starting tetrahedron from vertices 0 to 3
+    void initTetrahedron() {
+        interior.set(points[0]).addLocal(points[1]).addLocal(points[2]).addLocal(points[3]).mulLocal(0.25f);
+        addFace(0, 1, 2);
+        addFace(0, 3, 1);
+        addFace(0, 2, 3);
+        addFace(1, 3, 2);
+    }
+
+    // Closest live face to the origin, or -1 when none is left
+    int closestFace() {
+        while (heapSize > 0) {
+            int face = heap[0];
+            if (!faceRemoved[face])
+                return face;
+            popHeap();
+        }
+        return -1;
+    }
+
+    float getDistance(int face) {
+        return faceDistances[face];
+    }
+
+    Vector3f getNormal(int face, Vector3f dest) {
+        return dest.set(faceNormals[face * 3], faceNormals[face * 3 + 1], faceNormals[face * 3 + 2]);
+    }
+
+    // Removes every face the new vertex can see and closes the hole with faces from the horizon to the vertex
+    void expand(int vertex) {
+        Vector3f point = points[vertex];
+        edgeCount = 0;
+        for (int face = 0; face < faceCount; face++) {
+            if (faceRemoved[face])
+                continue;
+
+            int base = face * 3;
+            Vector3f first = points[faceVertices[base]];
+            float side = faceNormals[base] * (point.x - first.x) + faceNormals[base + 1] * (point.y - first.y)
+                    + faceNormals[base + 2] * (point.z - first.z);
+            if (side <= 0)
+                continue;
+
+            faceRemoved[face] = true;
+            addEdge(faceVertices[base], faceVertices[base + 1]);
+            addEdge(faceVertices[base + 1], faceVertices[base + 2]);
+            addEdge(faceVertices[base + 2], faceVertices[base]);
+        }
+
+        for (int i = 0; i < edgeCount; i += 2)
+            addFace(edges[i], edges[i + 1], vertex);
+    }
+
+    // Closest point of the face to the origin as points on shape 1 and shape 2
+    void contactPoints(int face, Vector3f pointA, Vector3f pointB) {
+        int base = face * 3;
+        int i = faceVertices[base];
+        int j = faceVertices[base + 1];
+        int k = faceVertices[base + 2];
+
+        // Barycentric coordinates of the origin projected onto the face plane
+        float distance = faceDistances[face];
+        float px = faceNormals[base] * distance - points[i].x;
+        float py = faceNormals[base + 1] * distance - points[i].y;
+        float pz = faceNormals[base + 2] * distance - points[i].z;
+        Vector3f v0 = points[j].subInto(points[i], edge1);
+        Vector3f v1 = points[k].subInto(points[i], edge2);
+        float d00 = v0.dot(v0);
+        float d01 = v0.dot(v1);
+        float d11 = v1.dot(v1);
+        float d20 = px * v0.x + py * v0.y + pz * v0.z;
+        float d21 = px * v1.x + py * v1.y + pz * v1.z;
+        float denominator = d00 * d11 - d01 * d01;
+
+        float v = 0;
+        float w = 0;
+        if (denominator != 0) {
+            v = (d11 * d20 - d01 * d21) / denominator;
+            w = (d00 * d21 - d01 * d20) / denominator;
+        }
+        float u = 1 - v - w;
+
+        pointA.set(pointsA[i]).mulLocal(u).addScaledLocal(pointsA[j], v).addScaledLocal(pointsA[k], w);
+        pointB.set(pointsB[i]).mulLocal(u).addScaledLocal(pointsB[j], v).addScaledLocal(pointsB[k], w);
+    }
+
+    private void addFace(int i, int j, int k) {
+        Vector3f a = points[i];
+        points[j].subInto(a, edge1).crossInto(points[k].subInto(a, edge2), normal);
+        float length = normal.length();
+
+        // Keep every face facing away from the inside of the polytope
+        if (normal.x * (a.x - interior.x) + normal.y * (a.y - interior.y) + normal.z * (a.z - interior.z) < 0) {
+            int swap = j;
+            j = k;
+            k = swap;
+            normal.negateLocal();
+        }
+
+        if (faceCount == faceDistances.length)
+            growFaces();
+
+        int face = faceCount++;
+        int base = face * 3;
+        faceVertices[base] = i;
+        faceVertices[base + 1] = j;
+        faceVertices[base + 2] = k;
+        faceRemoved[face] = false;
+
+        if (length > 0) {
+            normal.mulLocal(1.0f / length);
+            faceNormals[base] = normal.x;
+            faceNormals[base + 1] = normal.y;
+            faceNormals[base + 2] = normal.z;
+            // The origin is inside, so this is never meaningfully negative
+            faceDistances[face] = Math.max(0, normal.dot(a));
+            pushHeap(face);
+        } else {
+            // A sliver face has no direction to expand in, it stays in the polytope but is never picked
+            faceNormals[base] = 0;
+            faceNormals[base + 1] = 0;
+            faceNormals[base + 2] = 0;
+            faceDistances[face] = Float.MAX_VALUE;
+        }
+    }
+
+    private void addEdge(int from, int to) {
+        for (int i = 0; i < edgeCount; i += 2) {
+            if (edges[i] == to && edges[i + 1] == from) {
+                // Shared with another removed face, so not part of the horizon
+                edgeCount -= 2;
+                edges[i] = edges[edgeCount];
+                edges[i + 1] = edges[edgeCount + 1];
+                return;
+            }
+        }
+
+        if (edgeCount == edges.length)
+            edges = Arrays.copyOf(edges, edges.length * 2);
+        edges[edgeCount++] = from;
+        edges[edgeCount++] = to;
+    }
+
+    private void pushHeap(int face) {
+        if (heapSize == heap.length)
+            heap = Arrays.copyOf(heap, heap.length * 2);
+
+        int index = heapSize++;
+        float distance = faceDistances[face];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (faceDistances[heap[parent]] <= distance)
+                break;
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = face;
+    }
+
+    private void popHeap() {
+        int last = heap[--heapSize];
+        if (heapSize == 0)
+            return;
+
+        float distance = faceDistances[last];
+        int index = 0;
+        while (true) {
+            int child = index * 2 + 1;
+            if (child >= heapSize)
+                break;
+            if (child + 1 < heapSize && faceDistances[heap[child + 1]] < faceDistances[heap[child]])
+                child++;
+            if (faceDistances[heap[child]] >= distance)
+                break;
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = last;
+    }
+
+    private void growFaces() {
+        int capacity = faceDistances.length * 2;
+        faceVertices = Arrays.copyOf(faceVertices, capacity * 3);
+        faceNormals = Arrays.copyOf(faceNormals, capacity * 3);
+        faceDistances = Arrays.copyOf(faceDistances, capacity);
+        faceRemoved = Arrays.copyOf(faceRemoved, capacity);
+    }
+
+    private static Vector3f[] grow(Vector3f[] vectors) {
+        Vector3f[] grown = Arrays.copyOf(vectors, vectors.length * 2);
+        for (int i = vectors.length; i < grown.length; i++)
+            grown[i] = new Vector3f();
+        return grown;
+    }
+
+    private static Vector3f[] vectors(int count) {
+        Vector3f[] vectors = new Vector3f[count];
+        for (int i = 0; i < count; i++)
+            vectors[i] = new Vector3f();
+        return vectors;
+    }
+}
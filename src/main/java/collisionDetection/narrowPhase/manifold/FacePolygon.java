@@ -0,0 +1,188 @@
+package collisionDetection.narrowPhase.manifold;
+
+import math.Vector3f;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Vertices of a convex face in order around its boundary. The vertex vectors are pooled, clear()
+// keeps them, so a polygon can be refilled every step without allocating.
+public class FacePolygon {
+    // Sine of the largest tilt between a face and the search direction that still selects the face
+    public static final float FACE_TOLERANCE = 0.05f;
+
+    private Vector3f[] vertices;
+    private float[] angles;
+    private int size;
+    // Center and the three axes scaled by the half extents of the box being filled by fromBox
+    private final float[] box = new float[12];
+
+    public FacePolygon() {
+        this.vertices = new Vector3f[8];
+        for (int i = 0; i < vertices.length; i++)
+            vertices[i] = new Vector3f();
+        this.angles = new float[8];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(float x, float y, float z) {
+        if (size == vertices.length) {
+            int capacity = vertices.length * 2;
+            vertices = Arrays.copyOf(vertices, capacity);
+            for (int i = size; i < capacity; i++)
+                vertices[i] = new Vector3f();
+            angles = Arrays.copyOf(angles, capacity);
+        }
+        vertices[size++].set(x, y, z);
+    }
+
+    public void add(Vector3f vertex) {
+        add(vertex.x, vertex.y, vertex.z);
+    }
+
+    // Support feature of a convex vertex set: the vertex furthest along direction and every vertex
+    // that is almost level with it, so a slightly tilted direction still picks the whole face
+    public void fromVertices(List<Vector3f> points, Vector3f direction) {
+        clear();
+        Vector3f top = points.get(0);
+        float max = top.dot(direction);
+        for (int i = 1; i < points.size(); i++) {
+            float projection = points.get(i).dot(direction);
+            if (projection > max) {
+                max = projection;
+                top = points.get(i);
+            }
+        }
+
+        float length = direction.length();
+        for (Vector3f point : points) {
+            float drop = max - point.dot(direction);
+            if (drop <= FACE_TOLERANCE * length * point.distance(top))
+                add(point);
+        }
+        sortAround(direction);
+    }
+
+    // Support feature of a box given by its center, its unit axes and the half extents along them.
+    // Axes the direction is almost perpendicular to span the feature, the others pick a side.
+    public void fromBox(Vector3f direction, float centerX, float centerY, float centerZ,
+                        Vector3f axis0, Vector3f axis1, Vector3f axis2, float extent0, float extent1, float extent2) {
+        box[0] = centerX;
+        box[1] = centerY;
+        box[2] = centerZ;
+        setAxis(3, axis0, extent0);
+        setAxis(6, axis1, extent1);
+        setAxis(9, axis2, extent2);
+
+        float tolerance = FACE_TOLERANCE * direction.length();
+        float dot0 = direction.dot(axis0);
+        float dot1 = direction.dot(axis1);
+        float dot2 = direction.dot(axis2);
+        boolean flat0 = Math.abs(dot0) <= tolerance;
+        boolean flat1 = Math.abs(dot1) <= tolerance;
+        boolean flat2 = Math.abs(dot2) <= tolerance;
+        float side0 = dot0 >= 0 ? 1 : -1;
+        float side1 = dot1 >= 0 ? 1 : -1;
+        float side2 = dot2 >= 0 ? 1 : -1;
+
+        clear();
+        if (flat0 && flat1) {
+            corner(1, 1, side2);
+            corner(-1, 1, side2);
+            corner(-1, -1, side2);
+            corner(1, -1, side2);
+        } else if (flat0 && flat2) {
+            corner(1, side1, 1);
+            corner(-1, side1, 1);
+            corner(-1, side1, -1);
+            corner(1, side1, -1);
+        } else if (flat1 && flat2) {
+            corner(side0, 1, 1);
+            corner(side0, -1, 1);
+            corner(side0, -1, -1);
+            corner(side0, 1, -1);
+        } else if (flat0) {
+            corner(1, side1, side2);
+            corner(-1, side1, side2);
+        } else if (flat1) {
+            corner(side0, 1, side2);
+            corner(side0, -1, side2);
+        } else if (flat2) {
+            corner(side0, side1, 1);
+            corner(side0, side1, -1);
+        } else {
+            corner(side0, side1, side2);
+        }
+    }
+
+    private void setAxis(int base, Vector3f axis, float extent) {
+        box[base] = axis.x * extent;
+        box[base + 1] = axis.y * extent;
+        box[base + 2] = axis.z * extent;
+    }
+
+    private void corner(float side0, float side1, float side2) {
+        add(box[0] + box[3] * side0 + box[6] * side1 + box[9] * side2,
+                box[1] + box[4] * side0 + box[7] * side1 + box[10] * side2,
+                box[2] + box[5] * side0 + box[8] * side1 + box[11] * side2);
+    }
+
+    public Vector3f get(int index) {
+        return vertices[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Puts the vertices in order around their centroid, seen along normal. Used by shapes that only
+    // know which vertices lie on the face and not how they connect.
+    public void sortAround(Vector3f normal) {
+        if (size < 4)
+            return;
+
+        float cx = 0, cy = 0, cz = 0;
+        for (int i = 0; i < size; i++) {
+            cx += vertices[i].x;
+            cy += vertices[i].y;
+            cz += vertices[i].z;
+        }
+        cx /= size;
+        cy /= size;
+        cz /= size;
+
+        // Two axes in the face plane, the first one towards vertex 0
+        float ux = vertices[0].x - cx, uy = vertices[0].y - cy, uz = vertices[0].z - cz;
+        float vx = normal.y * uz - normal.z * uy;
+        float vy = normal.z * ux - normal.x * uz;
+        float vz = normal.x * uy - normal.y * ux;
+        for (int i = 0; i < size; i++) {
+            float dx = vertices[i].x - cx, dy = vertices[i].y - cy, dz = vertices[i].z - cz;
+            angles[i] = (float) Math.atan2(dx * vx + dy * vy + dz * vz, dx * ux + dy * uy + dz * uz);
+        }
+
+        // Faces are small, insertion sort moves the pooled vectors along with their angles
+        for (int i = 1; i < size; i++) {
+            Vector3f vertex = vertices[i];
+            float angle = angles[i];
+            int j = i - 1;
+            while (j >= 0 && angles[j] > angle) {
+                vertices[j + 1] = vertices[j];
+                angles[j + 1] = angles[j];
+                j--;
+            }
+            vertices[j + 1] = vertex;
+            angles[j + 1] = angle;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FacePolygon{" +
+                "vertices=" + Arrays.toString(Arrays.copyOf(vertices, size)) +
+                '}';
+    }
+}
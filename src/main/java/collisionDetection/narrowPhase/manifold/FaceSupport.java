@@ -0,0 +1,13 @@
+package collisionDetection.narrowPhase.manifold;
+
+import collisionDetection.narrowPhase.Shape;
+import math.Vector3f;
+
+// Shapes with flat faces that the manifold generator can clip against each other
+public interface FaceSupport extends Shape {
+
+    // Fills face with the feature furthest along direction: the face whose outward normal is closest
+    // to direction, or an edge or vertex when no face points that way. Vertices are in order around
+    // the face boundary.
+    void supportFace(Vector3f direction, FacePolygon face);
+}
@@ -0,0 +1,377 @@
+package collisionDetection.narrowPhase.manifold;
+
+import collisionDetection.narrowPhase.Shape;
+import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+import collisionDetection.narrowPhase.collisionResult.ContactManifold;
+import math.Vector3f;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Builds contact manifolds by reference/incident face clipping. The face of each shape that best
+// faces the other along the collision normal is found; the better aligned one is the reference
+// face, the other one is clipped against the side planes of the reference face (Sutherland-Hodgman)
+// and the clipped points below the reference face become contacts. More than four contacts are
+// reduced to the four that keep the deepest point and span the largest area.
+public class ManifoldGenerator {
+
+    // Clipped points further above the reference face than this are separated and dropped
+    private static final float SEPARATION_TOLERANCE = 1e-3f;
+
+    // Shape 2 only becomes the reference when its face is clearly better aligned than the face of
+    // shape 1, so the choice does not flip between steps for faces that are about as good
+    private static final float REFERENCE_BIAS = 0.98f;
+
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+    // Fills manifold for a narrow phase result. Shapes with faces are clipped against each other,
+    // any other pair gets the single contact of the result.
+    public ContactManifold generate(Shape shape1, Shape shape2, CollisionResult result, ContactManifold manifold) {
+        manifold.clear();
+        if (!result.isColliding())
+            return manifold;
+
+        if (shape1 instanceof FaceSupport && shape2 instanceof FaceSupport
+                && generate((FaceSupport) shape1, (FaceSupport) shape2, result.getNormal(), result.getDepth(), manifold))
+            return manifold;
+
+        List<Vector3f> contactPoints = result.getContactPoints();
+        if (contactPoints.size() >= 2) {
+            manifold.getNormal().set(result.getNormal());
+            manifold.addPoint(contactPoints.get(0), contactPoints.get(1), result.getDepth());
+        }
+        return manifold;
+    }
+
+    // Clipped manifold for a normal pointing from shape 1 to shape 2 and the penetration depth along
+    // it, returns false without touching the manifold when the normal is zero
+    public boolean generate(FaceSupport shape1, FaceSupport shape2, Vector3f normal, float depth,
+                            ContactManifold manifold) {
+        if (normal.lengthSquared() == 0)
+            return false;
+
+        Workspace workspace = WORKSPACE.get();
+        Vector3f direction = normal.mulInto(1.0f / normal.length(), workspace.direction);
+        shape1.supportFace(direction, workspace.faceA);
+        shape2.supportFace(direction.negateInto(workspace.negated), workspace.faceB);
+
+        manifold.clear();
+        float alignmentA = faceAlignment(workspace.faceA, direction, workspace.normalA);
+        float alignmentB = faceAlignment(workspace.faceB, workspace.negated, workspace.normalB);
+        if (alignmentA < 0 && alignmentB < 0) {
+            // Edge against edge or a vertex: one contact between the two features
+            closestFeaturePoints(workspace.faceA, workspace.faceB, workspace);
+            manifold.getNormal().set(direction);
+            manifold.addPoint(workspace.pointA, workspace.pointB, depth);
+            return true;
+        }
+
+        boolean referenceOnB = alignmentB * REFERENCE_BIAS > alignmentA;
+        FacePolygon reference = referenceOnB ? workspace.faceB : workspace.faceA;
+        FacePolygon incident = referenceOnB ? workspace.faceA : workspace.faceB;
+        Vector3f referenceNormal = referenceOnB ? workspace.normalB : workspace.normalA;
+
+        FacePolygon clipped = clip(reference, incident, referenceNormal, workspace);
+        collectContacts(reference, incident, clipped, referenceNormal, workspace);
+        if (referenceOnB) {
+            referenceNormal.negateInto(manifold.getNormal());
+            reduce(workspace.incidentPoints, workspace.referencePoints, manifold, workspace);
+        } else {
+            manifold.getNormal().set(referenceNormal);
+            reduce(workspace.referencePoints, workspace.incidentPoints, manifold, workspace);
+        }
+        return true;
+    }
+
+    // Cosine between the face normal and direction, the normal is written into dest pointing along
+    // direction. Returns -1 for edges and vertices, which have no normal.
+    private static float faceAlignment(FacePolygon face, Vector3f direction, Vector3f dest) {
+        if (face.size() < 3)
+            return -1;
+
+        // Newell's method, robust for polygons with almost collinear vertices
+        float x = 0, y = 0, z = 0;
+        for (int i = 0, j = face.size() - 1; i < face.size(); j = i, i++) {
+            Vector3f current = face.get(i);
+            Vector3f previous = face.get(j);
+            x += (previous.y - current.y) * (previous.z + current.z);
+            y += (previous.z - current.z) * (previous.x + current.x);
+            z += (previous.x - current.x) * (previous.y + current.y);
+        }
+        dest.set(x, y, z);
+        float length = dest.length();
+        if (length == 0)
+            return -1;
+
+        dest.mulLocal(1.0f / length);
+        float alignment = dest.dot(direction);
+        if (alignment < 0) {
+            dest.negateLocal();
+            alignment = -alignment;
+        }
+        return alignment;
+    }
+
+    // Clips the incident feature against the planes through the reference face edges that are
+    // perpendicular to the reference face
+    private static FacePolygon clip(FacePolygon reference, FacePolygon incident, Vector3f referenceNormal,
+                                    Workspace workspace) {
+        // The reference vertices go around referenceNormal either way, winding flips the edge planes outwards
+        float winding = windingAround(reference, referenceNormal, workspace) >= 0 ? 1 : -1;
+
+        FacePolygon input = incident;
+        FacePolygon output = workspace.clipA;
+        for (int i = 0, j = reference.size() - 1; i < reference.size(); j = i, i++) {
+            Vector3f start = reference.get(j);
+            Vector3f edge = reference.get(i).subInto(start, workspace.edge);
+            Vector3f plane = edge.crossInto(referenceNormal, workspace.plane).mulLocal(winding);
+            clipAgainstPlane(input, output, start, plane, workspace);
+
+            input = output;
+            output = output == workspace.clipA ? workspace.clipB : workspace.clipA;
+            if (input.size() == 0)
+                break;
+        }
+        return input;
+    }
+
+    private static float windingAround(FacePolygon face, Vector3f normal, Workspace workspace) {
+        Vector3f a = face.get(0);
+        Vector3f ab = face.get(1).subInto(a, workspace.edge);
+        Vector3f ac = face.get(face.size() - 1).subInto(a, workspace.plane);
+        return ab.crossInto(ac, workspace.edge).dot(normal);
+    }
+
+    // Keeps the part of the polygon on the inner side of the plane through point with outward normal plane
+    private static void clipAgainstPlane(FacePolygon input, FacePolygon output, Vector3f point, Vector3f plane,
+                                         Workspace workspace) {
+        output.clear();
+        int size = input.size();
+        if (size == 1) {
+            if (signedDistance(input.get(0), point, plane) <= 0)
+                output.add(input.get(0));
+            return;
+        }
+
+        if (size == 2) {
+            // A segment has one edge, walking it as a closed polygon would add the crossing twice
+            Vector3f start = input.get(0);
+            Vector3f end = input.get(1);
+            float startDistance = signedDistance(start, point, plane);
+            float endDistance = signedDistance(end, point, plane);
+            if (startDistance <= 0)
+                output.add(start);
+            if ((startDistance <= 0) != (endDistance <= 0))
+                addCrossing(output, start, end, startDistance, endDistance, workspace);
+            if (endDistance <= 0)
+                output.add(end);
+            return;
+        }
+
+        Vector3f previous = input.get(size - 1);
+        float previousDistance = signedDistance(previous, point, plane);
+        for (int i = 0; i < size; i++) {
+            Vector3f current = input.get(i);
+            float currentDistance = signedDistance(current, point, plane);
+            if (currentDistance <= 0) {
+                if (previousDistance > 0)
+                    addCrossing(output, previous, current, previousDistance, currentDistance, workspace);
+                output.add(current);
+            } else if (previousDistance <= 0) {
+                addCrossing(output, previous, current, previousDistance, currentDistance, workspace);
+            }
+            previous = current;
+            previousDistance = currentDistance;
+        }
+    }
+
+    private static void addCrossing(FacePolygon output, Vector3f from, Vector3f to, float fromDistance,
+                                    float toDistance, Workspace workspace) {
+        float t = fromDistance / (fromDistance - toDistance);
+        Vector3f crossing = to.subInto(from, workspace.edge).mulLocal(t).addLocal(from);
+        output.add(crossing);
+    }
+
+    private static float signedDistance(Vector3f vertex, Vector3f point, Vector3f plane) {
+        return (vertex.x - point.x) * plane.x + (vertex.y - point.y) * plane.y + (vertex.z - point.z) * plane.z;
+    }
+
+    // Clipped points below the reference face, with their projections onto it. Falls back to the
+    // deepest incident vertex when clipping left nothing, which only happens through round off.
+    private static void collectContacts(FacePolygon reference, FacePolygon incident, FacePolygon clipped,
+                                        Vector3f referenceNormal, Workspace workspace) {
+        workspace.referencePoints.clear();
+        workspace.incidentPoints.clear();
+        workspace.depthCount = 0;
+
+        Vector3f origin = reference.get(0);
+        for (int i = 0; i < clipped.size(); i++)
+            addContact(clipped.get(i), origin, referenceNormal, workspace, false);
+
+        if (workspace.depthCount == 0) {
+            int deepest = 0;
+            for (int i = 1; i < incident.size(); i++) {
+                if (signedDistance(incident.get(i), origin, referenceNormal)
+                        < signedDistance(incident.get(deepest), origin, referenceNormal))
+                    deepest = i;
+            }
+            addContact(incident.get(deepest), origin, referenceNormal, workspace, true);
+        }
+    }
+
+    private static void addContact(Vector3f point, Vector3f origin, Vector3f referenceNormal, Workspace workspace,
+                                   boolean always) {
+        float separation = signedDistance(point, origin, referenceNormal);
+        if (!always && separation > SEPARATION_TOLERANCE)
+            return;
+
+        workspace.incidentPoints.add(point);
+        Vector3f projected = point.subInto(referenceNormal.mulInto(separation, workspace.edge), workspace.edge);
+        workspace.referencePoints.add(projected);
+        if (workspace.depthCount == workspace.depths.length)
+            workspace.depths = Arrays.copyOf(workspace.depths, workspace.depthCount * 2);
+        workspace.depths[workspace.depthCount++] = -separation;
+    }
+
+    // Writes at most four of the candidates into the manifold: the deepest point, the point furthest
+    // from it, the point that makes the largest triangle with both, and the point that adds the most
+    // area outside that triangle
+    private static void reduce(FacePolygon pointsA, FacePolygon pointsB, ContactManifold manifold,
+                               Workspace workspace) {
+        int count = workspace.depthCount;
+        float[] depths = workspace.depths;
+        if (count <= ContactManifold.MAX_POINTS) {
+            for (int i = 0; i < count; i++)
+                manifold.addPoint(pointsA.get(i), pointsB.get(i), depths[i]);
+            return;
+        }
+
+        Vector3f normal = manifold.getNormal();
+        int first = 0;
+        for (int i = 1; i < count; i++) {
+            if (depths[i] > depths[first])
+                first = i;
+        }
+
+        int second = -1;
+        float furthest = -1;
+        for (int i = 0; i < count; i++) {
+            float distance = pointsB.get(i).distanceSquared(pointsB.get(first));
+            if (distance > furthest) {
+                furthest = distance;
+                second = i;
+            }
+        }
+
+        int third = -1;
+        float largest = -1;
+        for (int i = 0; i < count; i++) {
+            float area = Math.abs(signedArea(pointsB, first, second, i, normal, workspace));
+            if (area > largest) {
+                largest = area;
+                third = i;
+            }
+        }
+
+        // Walk the triangle counter clockwise so points outside it have a negative area with some edge
+        if (signedArea(pointsB, first, second, third, normal, workspace) < 0) {
+            int swap = second;
+            second = third;
+            third = swap;
+        }
+
+        int fourth = -1;
+        float outside = 0;
+        for (int i = 0; i < count; i++) {
+            float area = Math.min(signedArea(pointsB, first, second, i, normal, workspace),
+                    Math.min(signedArea(pointsB, second, third, i, normal, workspace),
+                            signedArea(pointsB, third, first, i, normal, workspace)));
+            if (area < outside) {
+                outside = area;
+                fourth = i;
+            }
+        }
+
+        manifold.addPoint(pointsA.get(first), pointsB.get(first), depths[first]);
+        manifold.addPoint(pointsA.get(second), pointsB.get(second), depths[second]);
+        manifold.addPoint(pointsA.get(third), pointsB.get(third), depths[third]);
+        if (fourth >= 0)
+            manifold.addPoint(pointsA.get(fourth), pointsB.get(fourth), depths[fourth]);
+    }
+
+    private static float signedArea(FacePolygon points, int a, int b, int c, Vector3f normal, Workspace workspace) {
+        Vector3f origin = points.get(a);
+        Vector3f ab = points.get(b).subInto(origin, workspace.edge);
+        Vector3f ac = points.get(c).subInto(origin, workspace.plane);
+        return ab.crossInto(ac, workspace.edge).dot(normal);
+    }
+
+    // Closest points between two features of at most two vertices, treated as segments
+    private static void closestFeaturePoints(FacePolygon featureA, FacePolygon featureB, Workspace workspace) {
+        Vector3f p1 = featureA.get(0);
+        Vector3f q1 = featureA.get(featureA.size() - 1);
+        Vector3f p2 = featureB.get(0);
+        Vector3f q2 = featureB.get(featureB.size() - 1);
+
+        Vector3f d1 = q1.subInto(p1, workspace.edge);
+        Vector3f d2 = q2.subInto(p2, workspace.plane);
+        Vector3f r = p1.subInto(p2, workspace.negated);
+        float a = d1.dot(d1);
+        float e = d2.dot(d2);
+        float f = d2.dot(r);
+
+        float s;
+        float t;
+        if (a <= 0 && e <= 0) {
+            s = 0;
+            t = 0;
+        } else if (a <= 0) {
+            s = 0;
+            t = clamp(f / e);
+        } else {
+            float c = d1.dot(r);
+            if (e <= 0) {
+                t = 0;
+                s = clamp(-c / a);
+            } else {
+                float b = d1.dot(d2);
+                float denominator = a * e - b * b;
+                s = denominator != 0 ? clamp((b * f - c * e) / denominator) : 0;
+                t = (b * s + f) / e;
+                if (t < 0) {
+                    t = 0;
+                    s = clamp(-c / a);
+                } else if (t > 1) {
+                    t = 1;
+                    s = clamp((b - c) / a);
+                }
+            }
+        }
+
+        workspace.pointA.set(p1).addScaledLocal(d1, s);
+        workspace.pointB.set(p2).addScaledLocal(d2, t);
+    }
+
+    private static float clamp(float value) {
+        return Math.max(0, Math.min(1, value));
+    }
+
+    private static final class Workspace {
+        private final FacePolygon faceA = new FacePolygon();
+        private final FacePolygon faceB = new FacePolygon();
+        private final FacePolygon clipA = new FacePolygon();
+        private final FacePolygon clipB = new FacePolygon();
+        private final FacePolygon referencePoints = new FacePolygon();
+        private final FacePolygon incidentPoints = new FacePolygon();
+        private float[] depths = new float[16];
+        private int depthCount;
+        private final Vector3f direction = new Vector3f();
+        private final Vector3f negated = new Vector3f();
+        private final Vector3f normalA = new Vector3f();
+        private final Vector3f normalB = new Vector3f();
+        private final Vector3f edge = new Vector3f();
+        private final Vector3f plane = new Vector3f();
+        private final Vector3f pointA = new Vector3f();
+        private final Vector3f pointB = new Vector3f();
+    }
+}
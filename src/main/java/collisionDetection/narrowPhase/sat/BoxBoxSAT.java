@@ -0,0 +1,251 @@
+package collisionDetection.narrowPhase.sat;
+
+import collisionDetection.narrowPhase.SeparatingAxisCache;
+import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+import collisionDetection.primitive.OBB;
+import math.Vector3f;
+
+// Box against box with the 15 axis test: the three face axes of each box and the nine cross
+// products of their edges. Everything runs in the frame of box 1 on the rotation matrix between
+// the boxes, R[i][j] = a[i] . b[j], so an axis costs a few multiplications and nothing is allocated.
+public class BoxBoxSAT {
+
+    // Scratch of the running query, one set per thread
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+    // Added to |R| so edges that are almost parallel do not produce a zero axis that hides a separation
+    private static final float PARALLEL_EPSILON = 1e-6f;
+
+    // An edge axis must beat the best face axis by this factor, face contacts are more stable
+    private static final float EDGE_BIAS = 0.95f;
+
+    public CollisionResult isCollide(OBB box1, OBB box2) {
+        return isCollide(box1, box2, new CollisionResult(), null, 0);
+    }
+
+    public CollisionResult isCollide(OBB box1, OBB box2, CollisionResult result) {
+        return isCollide(box1, box2, result, null, 0);
+    }
+
+    // Tries the axis that separated the pair last time first, and keeps the cache up to date. Fills
+    // result with the normal from box 1 to box 2, the depth and the deepest point on both boxes.
+    public CollisionResult isCollide(OBB box1, OBB box2, CollisionResult result, SeparatingAxisCache cache, long key) {
+        Workspace workspace = WORKSPACE.get();
+        if (!overlap(box1, box2, workspace, cache, key)) {
+            result.reset();
+            return result;
+        }
+
+        contactPoints(box1, box2, workspace);
+        return result.setContact(workspace.normal, workspace.depth, workspace.pointA, workspace.pointB);
+    }
+
+    public boolean intersects(OBB box1, OBB box2) {
+        return overlap(box1, box2, WORKSPACE.get(), null, 0);
+    }
+
+    public boolean intersects(OBB box1, OBB box2, SeparatingAxisCache cache, long key) {
+        return overlap(box1, box2, WORKSPACE.get(), cache, key);
+    }
+
+    private static boolean overlap(OBB box1, OBB box2, Workspace workspace, SeparatingAxisCache cache, long key) {
+        Vector3f[] a = workspace.axes1;
+        Vector3f[] b = workspace.axes2;
+        for (int i = 0; i < 3; i++) {
+            a[i] = box1.getAxis(i);
+            b[i] = box2.getAxis(i);
+        }
+        float[] ea = workspace.extents1;
+        float[] eb = workspace.extents2;
+        Vector3f halfExtents1 = box1.getHalfExtents();
+        Vector3f halfExtents2 = box2.getHalfExtents();
+        ea[0] = halfExtents1.x;
+        ea[1] = halfExtents1.y;
+        ea[2] = halfExtents1.z;
+        eb[0] = halfExtents2.x;
+        eb[1] = halfExtents2.y;
+        eb[2] = halfExtents2.z;
+
+        Vector3f distance = box2.getCenter().subInto(box1.getCenter(), workspace.distance);
+
+        if (cache != null && cache.get(key, workspace.cached)) {
+            if (isSeparating(workspace.cached, distance, a, b, ea, eb)) {
+                cache.recordHit();
+                return false;
+            }
+            cache.recordMiss();
+        }
+
+        float[][] r = workspace.rotation;
+        float[][] absR = workspace.absRotation;
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                r[i][j] = a[i].dot(b[j]);
+                absR[i][j] = Math.abs(r[i][j]) + PARALLEL_EPSILON;
+            }
+        }
+
+        // Distance between the centers in the frame of box 1
+        float[] t = workspace.distanceLocal;
+        for (int i = 0; i < 3; i++)
+            t[i] = distance.dot(a[i]);
+
+        workspace.depth = Float.MAX_VALUE;
+
+        // Face axes of box 1
+        for (int i = 0; i < 3; i++) {
+            float radius1 = ea[i];
+            float radius2 = eb[0] * absR[i][0] + eb[1] * absR[i][1] + eb[2] * absR[i][2];
+            if (!track(workspace, t[i], radius1 + radius2, 1, i, -1))
+                return separated(cache, key, workspace, a[i]);
+        }
+
+        // Face axes of box 2
+        for (int j = 0; j < 3; j++) {
+            float radius1 = ea[0] * absR[0][j] + ea[1] * absR[1][j] + ea[2] * absR[2][j];
+            float radius2 = eb[j];
+            float projection = t[0] * r[0][j] + t[1] * r[1][j] + t[2] * r[2][j];
+            if (!track(workspace, projection, radius1 + radius2, 1, -1, j))
+                return separated(cache, key, workspace, b[j]);
+        }
+
+        // Edge axes a[i] x b[j], their length is the sine between the edges
+        float faceDepth = workspace.depth;
+        for (int i = 0; i < 3; i++) {
+            int i1 = (i + 1) % 3;
+            int i2 = (i + 2) % 3;
+            for (int j = 0; j < 3; j++) {
+                int j1 = (j + 1) % 3;
+                int j2 = (j + 2) % 3;
+                float radius1 = ea[i1] * absR[i2][j] + ea[i2] * absR[i1][j];
+                float radius2 = eb[j1] * absR[i][j2] + eb[j2] * absR[i][j1];
+                float projection = t[i2] * r[i1][j] - t[i1] * r[i2][j];
+                float length = (float) Math.sqrt(r[i2][j] * r[i2][j] + r[i1][j] * r[i1][j]);
+                if (Math.abs(projection) > radius1 + radius2) {
+                    a[i].crossInto(b[j], workspace.cross);
+                    return separated(cache, key, workspace, workspace.cross);
+                }
+                // Parallel edges give no axis of their own, the face axes cover them
+                if (length > 1e-3f && (radius1 + radius2 - Math.abs(projection)) / length < faceDepth * EDGE_BIAS)
+                    track(workspace, projection, radius1 + radius2, length, i, j);
+            }
+        }
+
+        setNormal(workspace);
+        return true;
+    }
+
+    // Keeps the axis when it needs the smallest push so far, edge axes are divided by their length.
+    // Returns false when the projections do not overlap.
+    private static boolean track(Workspace workspace, float projection, float radius, float length,
+                                 int axis1, int axis2) {
+        float overlap = radius - Math.abs(projection);
+        if (overlap < 0)
+            return false;
+        overlap /= length;
+        if (overlap < workspace.depth) {
+            workspace.depth = overlap;
+            workspace.axis1 = axis1;
+            workspace.axis2 = axis2;
+            // Towards box 2
+            workspace.flip = projection < 0;
+        }
+        return true;
+    }
+
+    private static void setNormal(Workspace workspace) {
+        Vector3f normal = workspace.normal;
+        if (workspace.axis2 < 0)
+            normal.set(workspace.axes1[workspace.axis1]);
+        else if (workspace.axis1 < 0)
+            normal.set(workspace.axes2[workspace.axis2]);
+        else
+            workspace.axes1[workspace.axis1].crossInto(workspace.axes2[workspace.axis2], normal).normalizeLocal();
+        if (workspace.flip)
+            normal.negateLocal();
+    }
+
+    private static boolean separated(SeparatingAxisCache cache, long key, Workspace workspace, Vector3f axis) {
+        if (cache != null)
+            cache.put(key, axis);
+        return false;
+    }
+
+    // Separation along any world axis, used for the cached one
+    private static boolean isSeparating(Vector3f axis, Vector3f distance, Vector3f[] a, Vector3f[] b,
+                                        float[] ea, float[] eb) {
+        float radius = 0;
+        for (int i = 0; i < 3; i++)
+            radius += ea[i] * Math.abs(axis.dot(a[i])) + eb[i] * Math.abs(axis.dot(b[i]));
+        return Math.abs(distance.dot(axis)) > radius;
+    }
+
+    // Deepest point on both boxes for the axis that won. On a face axis it is the corner of the other
+    // box furthest into the face, on an edge axis the closest points of the two touching edges.
+    private static void contactPoints(OBB box1, OBB box2, Workspace workspace) {
+        Vector3f normal = workspace.normal;
+        Vector3f pointA = workspace.pointA;
+        Vector3f pointB = workspace.pointB;
+        if (workspace.axis2 < 0) {
+            box2.support(normal.negateInto(workspace.cross), pointB);
+            pointB.addInto(normal.mulInto(workspace.depth, workspace.cross), pointA);
+            return;
+        }
+        if (workspace.axis1 < 0) {
+            box1.support(normal, pointA);
+            pointA.subInto(normal.mulInto(workspace.depth, workspace.cross), pointB);
+            return;
+        }
+
+        // Middle of the edge of each box that lies furthest along the normal towards the other box
+        int edge1 = workspace.axis1;
+        int edge2 = workspace.axis2;
+        Vector3f[] a = workspace.axes1;
+        Vector3f[] b = workspace.axes2;
+        float[] ea = workspace.extents1;
+        float[] eb = workspace.extents2;
+        pointA.set(box1.getCenter());
+        pointB.set(box2.getCenter());
+        for (int k = 0; k < 3; k++) {
+            if (k != edge1)
+                pointA.addScaledLocal(a[k], normal.dot(a[k]) >= 0 ? ea[k] : -ea[k]);
+            if (k != edge2)
+                pointB.addScaledLocal(b[k], normal.dot(b[k]) >= 0 ? -eb[k] : eb[k]);
+        }
+
+        // Closest points of the two edge lines, clamped to the edges
+        Vector3f direction1 = a[edge1];
+        Vector3f direction2 = b[edge2];
+        Vector3f offset = pointB.subInto(pointA, workspace.cross);
+        float cosine = direction1.dot(direction2);
+        float along1 = direction1.dot(offset);
+        float along2 = direction2.dot(offset);
+        float denominator = 1 - cosine * cosine;
+        float s = denominator > PARALLEL_EPSILON ? (along1 - cosine * along2) / denominator : 0;
+        s = Math.max(-ea[edge1], Math.min(ea[edge1], s));
+        float u = Math.max(-eb[edge2], Math.min(eb[edge2], s * cosine - along2));
+        pointA.addScaledLocal(direction1, s);
+        pointB.addScaledLocal(direction2, u);
+    }
+
+    private static final class Workspace {
+        final Vector3f[] axes1 = new Vector3f[3];
+        final Vector3f[] axes2 = new Vector3f[3];
+        final float[] extents1 = new float[3];
+        final float[] extents2 = new float[3];
+        final float[][] rotation = new float[3][3];
+        final float[][] absRotation = new float[3][3];
+        final float[] distanceLocal = new float[3];
+        final Vector3f distance = new Vector3f();
+        final Vector3f cached = new Vector3f();
+        final Vector3f cross = new Vector3f();
+        final Vector3f normal = new Vector3f();
+        final Vector3f pointA = new Vector3f();
+        final Vector3f pointB = new Vector3f();
+        float depth;
+        // Axis of the least overlap: a face of box 1 (axis2 < 0), of box 2 (axis1 < 0) or their edge cross product
+        int axis1;
+        int axis2;
+        boolean flip;
+    }
+}
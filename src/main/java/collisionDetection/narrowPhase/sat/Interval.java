@@ -9,6 +9,12 @@ public class Interval {
         this.max = max;
     }
 
+    public Interval set(float min, float max) {
+        this.min = min;
+        this.max = max;
+        return this;
+    }
+
     public float getMin() {
         return min;
     }
@@ -1,56 +1,147 @@
 package collisionDetection.narrowPhase.sat;
 
+import collisionDetection.narrowPhase.SeparatingAxisCache;
 import collisionDetection.narrowPhase.collisionResult.CollisionResult;
 import math.Vector3f;
 
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 public class SAT {
 
-    private final SATSolver satSolver;
+    // Scratch intervals and vectors of the running query, one set per thread
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
 
-    public SAT() {
-        this.satSolver = new SATSolver();
-    }
+    // Relative squared sine below which two axes are taken as parallel: their cross product is no
+    // axis at all and a face axis of shape 2 repeats one of shape 1
+    private static final float PARALLEL_EPSILON = 1e-6f;
 
     public CollisionResult isCollide(SATSupport shape1, SATSupport shape2) {
+        return isCollide(shape1, shape2, null, 0);
+    }
 
-        Set<Vector3f> allAxis = combineAxis(shape1, shape2);
+    // Tries the axis that separated the pair last time first, and keeps the cache up to date
+    public CollisionResult isCollide(SATSupport shape1, SATSupport shape2, SeparatingAxisCache cache, long key) {
+        return isCollide(shape1, shape2, new CollisionResult(), cache, key);
+    }
 
-        // Check for separation along each axis
-        for (Vector3f axis : allAxis) {
-            if (isAxisSeparating(axis, shape1, shape2)) {
-                return new CollisionResult(); // No collision along this axis
-            }
+    // Fills result with the normal from shape 1 to shape 2 and the depth, without contact points:
+    // those come from clipping the faces, see ManifoldGenerator, so a hit costs no more than the axes
+    public CollisionResult isCollide(SATSupport shape1, SATSupport shape2, CollisionResult result,
+                                     SeparatingAxisCache cache, long key) {
+        Workspace workspace = WORKSPACE.get();
+        if (!overlap(shape1, shape2, workspace, cache, key)) {
+            result.reset(); // No collision along this axis
+            return result;
         }
 
-        return satSolver.satCollisionResult(shape1, shape2, allAxis); // No separation along any axis, collision detected
+        // No separation along any axis, the axis of least overlap is the collision normal
+        return result.setPenetration(workspace.normal, workspace.depth);
     }
 
-    private static boolean isAxisSeparating(Vector3f axis, SATSupport shape1, SATSupport shape2) {
-        // Project the shapes onto the axis
-        Interval projection1 = shape1.getInterval(axis);
-        Interval projection2 = shape2.getInterval(axis);
+    // Boolean query without penetration data, stops at the first separating axis
+    public boolean intersects(SATSupport shape1, SATSupport shape2) {
+        return intersects(shape1, shape2, null, 0);
+    }
 
-        // Check for separation between the intervals
-        return projection1.getMax() < projection2.getMin() || projection2.getMax() < projection1.getMin();
+    public boolean intersects(SATSupport shape1, SATSupport shape2, SeparatingAxisCache cache, long key) {
+        return overlap(shape1, shape2, WORKSPACE.get(), cache, key);
     }
 
-    private static Set<Vector3f> combineAxis(SATSupport shape1, SATSupport shape2) {
-        Set<Vector3f> allAxis = new HashSet<>();
+    // Face axes of both shapes first, they separate most pairs, then the cross products of the
+    // edges. Leaves the minimum overlap and its normal, from shape 1 to shape 2, in the workspace.
+    private static boolean overlap(SATSupport shape1, SATSupport shape2, Workspace workspace,
+                                   SeparatingAxisCache cache, long key) {
+        workspace.depth = Float.MAX_VALUE;
+
+        if (cache != null && cache.get(key, workspace.cached)) {
+            if (isSeparating(workspace.cached, shape1, shape2, workspace, false)) {
+                cache.recordHit();
+                return false;
+            }
+            cache.recordMiss();
+        }
+
         List<Vector3f> shape1Axis = shape1.getAxis();
         List<Vector3f> shape2Axis = shape2.getAxis();
 
+        for (Vector3f axis : shape1Axis) {
+            if (isSeparating(axis, shape1, shape2, workspace, true))
+                return separated(cache, key, workspace);
+        }
+
+        for (Vector3f axis : shape2Axis) {
+            if (!isParallelToAny(axis, shape1Axis) && isSeparating(axis, shape1, shape2, workspace, true))
+                return separated(cache, key, workspace);
+        }
+
+        Vector3f cross = workspace.cross;
         for (Vector3f axis1 : shape1Axis) {
             for (Vector3f axis2 : shape2Axis) {
-                allAxis.add(axis1.cross(axis2).normalize());
+                axis1.crossInto(axis2, cross);
+                // Parallel edges span no plane, the face axes already covered them
+                if (cross.lengthSquared() <= PARALLEL_EPSILON * axis1.lengthSquared() * axis2.lengthSquared())
+                    continue;
+                if (isSeparating(cross, shape1, shape2, workspace, true))
+                    return separated(cache, key, workspace);
             }
         }
-        allAxis.addAll(shape1Axis);
-        allAxis.addAll(shape2Axis);
+        return true;
+    }
+
+    private static boolean separated(SeparatingAxisCache cache, long key, Workspace workspace) {
+        if (cache != null)
+            cache.put(key, workspace.axis);
+        return false;
+    }
+
+    // Projects both shapes on the normalised axis. When they overlap and track is set, keeps the
+    // axis if it needs the smallest push so far, signed so it points from shape 1 to shape 2.
+    private static boolean isSeparating(Vector3f direction, SATSupport shape1, SATSupport shape2,
+                                        Workspace workspace, boolean track) {
+        float lengthSquared = direction.lengthSquared();
+        // Also rejects the NaN axes of degenerate shapes
+        if (!(lengthSquared > PARALLEL_EPSILON))
+            return false;
+        Vector3f axis = workspace.axis.set(direction).mulLocal(1.0f / (float) Math.sqrt(lengthSquared));
+
+        Interval projection1 = shape1.getInterval(axis, workspace.interval1);
+        Interval projection2 = shape2.getInterval(axis, workspace.interval2);
+        if (projection1.getMax() < projection2.getMin() || projection2.getMax() < projection1.getMin())
+            return true;
+
+        if (track) {
+            // Push shape 2 forward along the axis, or back against it
+            float forward = projection1.getMax() - projection2.getMin();
+            float backward = projection2.getMax() - projection1.getMin();
+            float depth = Math.min(forward, backward);
+            if (depth < workspace.depth) {
+                workspace.depth = depth;
+                if (forward <= backward)
+                    workspace.normal.set(axis);
+                else
+                    axis.negateInto(workspace.normal);
+            }
+        }
+        return false;
+    }
+
+    private static boolean isParallelToAny(Vector3f axis, List<Vector3f> axes) {
+        float lengthSquared = axis.lengthSquared();
+        for (Vector3f other : axes) {
+            float dot = axis.dot(other);
+            if (dot * dot >= (1 - PARALLEL_EPSILON) * lengthSquared * other.lengthSquared())
+                return true;
+        }
+        return false;
+    }
 
-        return allAxis;
+    private static final class Workspace {
+        final Interval interval1 = new Interval(0, 0);
+        final Interval interval2 = new Interval(0, 0);
+        final Vector3f axis = new Vector3f();
+        final Vector3f cross = new Vector3f();
+        final Vector3f cached = new Vector3f();
+        final Vector3f normal = new Vector3f();
+        float depth;
     }
 }
@@ -9,6 +9,13 @@ public interface SATSupport extends Shape {
 
     Interval getInterval(Vector3f axis);
 
+    // Writes the projection onto axis into dest and returns it. Shapes override this so SAT can run
+    // without allocating.
+    default Interval getInterval(Vector3f axis, Interval dest) {
+        Interval interval = getInterval(axis);
+        return dest.set(interval.getMin(), interval.getMax());
+    }
+
     List<Vector3f> getAxis();
 
     List<Vector3f> getVertices();
@@ -2,7 +2,10 @@ package collisionDetection.primitive;
 
 
 import collisionDetection.narrowPhase.Shape;
+import collisionDetection.narrowPhase.ShapeType;
 import collisionDetection.narrowPhase.gjk.GJKSupport;
+import collisionDetection.narrowPhase.manifold.FacePolygon;
+import collisionDetection.narrowPhase.manifold.FaceSupport;
 import collisionDetection.narrowPhase.sat.Interval;
 import collisionDetection.narrowPhase.sat.SATSupport;
 import math.Vector3f;
@@ -11,7 +14,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
-public class AABB implements Shape, SATSupport, GJKSupport {
+public class AABB implements Shape, SATSupport, GJKSupport, FaceSupport {
     private Vector3f min; // Min corner of the AABB
     private Vector3f max; // Max corner of the AABB
 
@@ -45,6 +48,11 @@ public class AABB implements Shape, SATSupport, GJKSupport {
     }
 
 
+    @Override
+    public ShapeType getType() {
+        return ShapeType.AABB;
+    }
+
     @Override
     public boolean isPointInside(Vector3f point) {
         return point.x >= min.x && point.x <= max.x &&
@@ -63,26 +71,30 @@ public class AABB implements Shape, SATSupport, GJKSupport {
 
     @Override
     public void translate(Vector3f position) {
-        min.set(min.add(position));
-        max.set(max.add(position));
+        min.addLocal(position);
+        max.addLocal(position);
     }
 
     @Override
     public void scale(Vector3f scale) {
-        min.set(min.mul(scale));
-        max.set(max.mul(scale));
+        min.mulLocal(scale);
+        max.mulLocal(scale);
     }
 
     @Override
     public Interval getInterval(Vector3f axis) {
-        float minProjection = axis.dot(getMin());
-        float maxProjection = axis.dot(getMax());
+        return getInterval(axis, new Interval(0, 0));
+    }
 
-        // Calculate the interval
-        float minInterval = Math.min(minProjection, maxProjection);
-        float maxInterval = Math.max(minProjection, maxProjection);
+    @Override
+    public Interval getInterval(Vector3f axis, Interval dest) {
+        // The corners furthest along and against the axis
+        float minProjection = axis.x * (axis.x >= 0 ? min.x : max.x) + axis.y * (axis.y >= 0 ? min.y : max.y)
+                + axis.z * (axis.z >= 0 ? min.z : max.z);
+        float maxProjection = axis.x * (axis.x >= 0 ? max.x : min.x) + axis.y * (axis.y >= 0 ? max.y : min.y)
+                + axis.z * (axis.z >= 0 ? max.z : min.z);
 
-        return new Interval(minInterval, maxInterval);
+        return dest.set(minProjection, maxProjection);
     }
 
     @Override
@@ -111,13 +123,21 @@ public class AABB implements Shape, SATSupport, GJKSupport {
 
     @Override
     public Vector3f support(Vector3f direction) {
-        Vector3f result = new Vector3f();
+        return support(direction, new Vector3f());
+    }
 
-        result.x = (direction.x >= 0) ? max.x : min.x;
-        result.y = (direction.y >= 0) ? max.y : min.y;
-        result.z = (direction.z >= 0) ? max.z : min.z;
+    @Override
+    public Vector3f support(Vector3f direction, Vector3f dest) {
+        return dest.set((direction.x >= 0) ? max.x : min.x,
+                (direction.y >= 0) ? max.y : min.y,
+                (direction.z >= 0) ? max.z : min.z);
+    }
 
-        return result;
+    @Override
+    public void supportFace(Vector3f direction, FacePolygon face) {
+        face.fromBox(direction, (min.x + max.x) * 0.5f, (min.y + max.y) * 0.5f, (min.z + max.z) * 0.5f,
+                Vector3f.XAxis, Vector3f.YAxis, Vector3f.ZAxis,
+                (max.x - min.x) * 0.5f, (max.y - min.y) * 0.5f, (max.z - min.z) * 0.5f);
     }
 
     public static boolean isCollide(AABB box1, AABB box2) {
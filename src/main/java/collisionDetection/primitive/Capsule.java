@@ -2,6 +2,7 @@ package collisionDetection.primitive;
 
 
 import collisionDetection.narrowPhase.Shape;
+import collisionDetection.narrowPhase.ShapeType;
 import collisionDetection.narrowPhase.gjk.GJKSupport;
 import math.Quaternion;
 import math.Vector3f;
@@ -43,6 +44,11 @@ public class Capsule implements Shape, GJKSupport {
         this.radius = radius;
     }
 
+    @Override
+    public ShapeType getType() {
+        return ShapeType.CAPSULE;
+    }
+
     @Override
     public boolean isPointInside(Vector3f point) {
         // Calculate the capsule axis vector and vectors to the start and end points
@@ -81,8 +87,8 @@ public class Capsule implements Shape, GJKSupport {
 
     @Override
     public void translate(Vector3f position) {
-        start.set(start.add(position));
-        end.set(end.add(position));
+        start.addLocal(position);
+        end.addLocal(position);
     }
 
     @Override
@@ -93,18 +99,24 @@ public class Capsule implements Shape, GJKSupport {
 
     @Override
     public void rotate(Quaternion rotate) {
-        start.set(start.rotate(rotate));
-        end.set(end.rotate(rotate));
+        start.rotateLocal(rotate);
+        end.rotateLocal(rotate);
     }
 
     @Override
     public Vector3f support(Vector3f direction) {
+        return support(direction, new Vector3f());
+    }
 
-        // For simplicity, let's assume the support point is at the center of the capsule.
-        Vector3f center = start.add(end).div(2.0f);
-
-        // Now, move the center in the direction specified by the input vector.
-        return center.add(direction.normalize().mul(radius));
+    @Override
+    public Vector3f support(Vector3f direction, Vector3f dest) {
+        // For simplicity, let's assume the support point is at the center of the capsule,
+        // moved in the direction specified by the input vector.
+        float length = direction.length();
+        float scale = length != 0 ? radius / length : 0;
+        return dest.set((start.x + end.x) / 2.0f + direction.x * scale,
+                (start.y + end.y) / 2.0f + direction.y * scale,
+                (start.z + end.z) / 2.0f + direction.z * scale);
     }
 
     @Override
@@ -1,7 +1,10 @@
 package collisionDetection.primitive;
 
 import collisionDetection.narrowPhase.Shape;
+import collisionDetection.narrowPhase.ShapeType;
 import collisionDetection.narrowPhase.gjk.GJKSupport;
+import collisionDetection.narrowPhase.manifold.FacePolygon;
+import collisionDetection.narrowPhase.manifold.FaceSupport;
 import collisionDetection.narrowPhase.sat.Interval;
 import collisionDetection.narrowPhase.sat.SATSupport;
 import collisionDetection.util.CollisionUtil;
@@ -12,7 +15,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
-public class ConvexPolyhedron implements Shape, SATSupport, GJKSupport {
+public class ConvexPolyhedron implements Shape, SATSupport, GJKSupport, FaceSupport {
     private List<Vector3f> vertices;
     private List<Line> edges;
 
@@ -44,6 +47,11 @@ public class ConvexPolyhedron implements Shape, SATSupport, GJKSupport {
         return edges;
     }
 
+    @Override
+    public ShapeType getType() {
+        return ShapeType.CONVEX_POLYHEDRON;
+    }
+
     @Override
     public boolean isPointInside(Vector3f point) {
         if (vertices.size() < 3)
@@ -106,15 +114,20 @@ public class ConvexPolyhedron implements Shape, SATSupport, GJKSupport {
 
     @Override
     public Interval getInterval(Vector3f axis) {
+        return getInterval(axis, new Interval(0, 0));
+    }
+
+    @Override
+    public Interval getInterval(Vector3f axis, Interval dest) {
         float min = Float.MAX_VALUE;
-        float max = Float.MIN_VALUE;
+        float max = -Float.MAX_VALUE;
 
         for (Vector3f vertex : vertices) {
             float projection = vertex.dot(axis);
             min = Math.min(min, projection);
             max = Math.max(max, projection);
         }
-        return new Interval(min, max);
+        return dest.set(min, max);
     }
 
     @Override
@@ -131,35 +144,47 @@ public class ConvexPolyhedron implements Shape, SATSupport, GJKSupport {
 
     @Override
     public Vector3f support(Vector3f direction) {
+        return support(direction, new Vector3f());
+    }
+
+    @Override
+    public Vector3f support(Vector3f direction, Vector3f dest) {
         Vector3f supportPoint = vertices.get(0);
-        float maxProjection = vertices.get(0).dot(direction);
+        float maxProjection = supportPoint.dot(direction);
 
-        for (Vector3f vertex : vertices) {
+        for (int i = 1; i < vertices.size(); i++) {
+            Vector3f vertex = vertices.get(i);
             float projection = vertex.dot(direction);
             if (projection > maxProjection) {
                 maxProjection = projection;
-                supportPoint.set(vertex);
+                supportPoint = vertex;
             }
         }
 
-        return supportPoint;
+        dest.set(supportPoint);
+        return dest;
+    }
+
+    @Override
+    public void supportFace(Vector3f direction, FacePolygon face) {
+        face.fromVertices(vertices, direction);
     }
     @Override
     public void translate(Vector3f translation) {
         for (Vector3f vertex : vertices) {
-            vertex.set(vertex.add(translation));
+            vertex.addLocal(translation);
         }
     }
     @Override
     public void scale(Vector3f scale) {
         for (Vector3f vertex : vertices) {
-            vertex.set(vertex.mul(scale));
+            vertex.mulLocal(scale);
         }
     }
     @Override
     public void rotate(Quaternion rotation) {
         for (Vector3f vertex : vertices) {
-            vertex.set(vertex.rotate(rotation));
+            vertex.rotateLocal(rotation);
         }
     }
 
@@ -1,6 +1,7 @@
 package collisionDetection.primitive;
 
 import collisionDetection.narrowPhase.Shape;
+import collisionDetection.narrowPhase.ShapeType;
 import collisionDetection.narrowPhase.gjk.GJKSupport;
 import math.Quaternion;
 import math.Vector3f;
@@ -52,6 +53,11 @@ public class Cylinder implements Shape, GJKSupport {
         this.height = height;
     }
 
+    @Override
+    public ShapeType getType() {
+        return ShapeType.CYLINDER;
+    }
+
     @Override
     public boolean isPointInside(Vector3f point) {
         // Calculate the distance between the point and the cylinder's center in the x-z plane
@@ -85,7 +91,7 @@ public class Cylinder implements Shape, GJKSupport {
 
     @Override
     public void translate(Vector3f position) {
-        center.set(center.add(position));
+        center.addLocal(position);
     }
 
     @Override
@@ -97,27 +103,30 @@ public class Cylinder implements Shape, GJKSupport {
     @Override
     public void rotate(Quaternion rotate) {
         // Rotate the upAxis
-        upAxis.set(upAxis.rotate(rotate));
+        upAxis.rotateLocal(rotate);
     }
 
     @Override
     public Vector3f support(Vector3f direction) {
-        // Calculate the support point based on the cylinder's geometry and direction.
-
-        // First, calculate the direction's projection on the cylinder's axis.
-        Vector3f axis = upAxis; // Assuming the cylinder is aligned with the Y-axis.
-        float projection = direction.dot(axis);
-
-        // Calculate the support point on the cylinder's surface along the axis.
-        float halfHeight = height / 2.0f;
-        float clampedProjection = Math.min(halfHeight, Math.max(-halfHeight, projection));
-        Vector3f supportOnAxis = axis.mul(clampedProjection);
-
-        // Calculate the support point on the cylinder's circular top/bottom surface.
-        Vector3f supportOnCircle = direction.sub(supportOnAxis).normalize().mul(radius);
+        return support(direction, new Vector3f());
+    }
 
-        // Calculate the final support point by adding the components together.
-        return center.add(supportOnAxis).add(supportOnCircle);
+    @Override
+    public Vector3f support(Vector3f direction, Vector3f dest) {
+        // The cap on the side of the direction
+        float projection = direction.dot(upAxis);
+        float halfHeight = projection >= 0 ? height / 2.0f : -height / 2.0f;
+
+        // The rim point on the part of the direction perpendicular to the axis
+        float radialX = direction.x - upAxis.x * projection;
+        float radialY = direction.y - upAxis.y * projection;
+        float radialZ = direction.z - upAxis.z * projection;
+        float radialLength = (float) Math.sqrt(radialX * radialX + radialY * radialY + radialZ * radialZ);
+        float scale = radialLength > 0 ? radius / radialLength : 0;
+
+        return dest.set(center.x + upAxis.x * halfHeight + radialX * scale,
+                center.y + upAxis.y * halfHeight + radialY * scale,
+                center.z + upAxis.z * halfHeight + radialZ * scale);
     }
 
     @Override
@@ -1,7 +1,10 @@
 package collisionDetection.primitive;
 
 import collisionDetection.narrowPhase.Shape;
+import collisionDetection.narrowPhase.ShapeType;
 import collisionDetection.narrowPhase.gjk.GJKSupport;
+import collisionDetection.narrowPhase.manifold.FacePolygon;
+import collisionDetection.narrowPhase.manifold.FaceSupport;
 import collisionDetection.narrowPhase.sat.Interval;
 import collisionDetection.narrowPhase.sat.SATSupport;
 import math.Quaternion;
@@ -11,7 +14,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
-public class Line implements Shape, GJKSupport, SATSupport {
+public class Line implements Shape, GJKSupport, SATSupport, FaceSupport {
     private Vector3f start;
     private Vector3f end;
 
@@ -36,6 +39,11 @@ public class Line implements Shape, GJKSupport, SATSupport {
         this.end = end;
     }
 
+    @Override
+    public ShapeType getType() {
+        return ShapeType.LINE;
+    }
+
     @Override
     public boolean isPointInside(Vector3f point) {
         // Check if the point is within the bounding box of the line segment
@@ -63,28 +71,31 @@ public class Line implements Shape, GJKSupport, SATSupport {
 
     @Override
     public void translate(Vector3f position) {
-        start.set(start.add(position));
-        end.set(end.add(position));
+        start.addLocal(position);
+        end.addLocal(position);
     }
 
     @Override
     public void rotate(Quaternion rotate) {
-        start.set(start.rotate(rotate));
-        end.set(end.rotate(rotate));
+        start.rotateLocal(rotate);
+        end.rotateLocal(rotate);
     }
 
     @Override
     public Vector3f support(Vector3f direction) {
-        // Calculate the dot products of the direction vector with the start and end points
-        float dotStart = start.dot(direction);
-        float dotEnd = end.dot(direction);
+        return support(direction, new Vector3f());
+    }
 
-        // Determine which endpoint is farthest in the given direction
-        if (dotStart >= dotEnd) {
-            return start; // Start point is the support point
-        }
-        return end; // End point is the support point
+    @Override
+    public Vector3f support(Vector3f direction, Vector3f dest) {
+        // The endpoint farthest in the given direction is the support point
+        dest.set(start.dot(direction) >= end.dot(direction) ? start : end);
+        return dest;
+    }
 
+    @Override
+    public void supportFace(Vector3f direction, FacePolygon face) {
+        face.fromVertices(List.of(start, end), direction);
     }
 
     @Override
@@ -110,15 +121,16 @@ public class Line implements Shape, GJKSupport, SATSupport {
 
     @Override
     public Interval getInterval(Vector3f axis) {
+        return getInterval(axis, new Interval(0, 0));
+    }
+
+    @Override
+    public Interval getInterval(Vector3f axis, Interval dest) {
         // Project the line onto the axis
         float dotStart = start.dot(axis);
         float dotEnd = end.dot(axis);
 
-        // Calculate the minimum and maximum values along the axis
-        float min = Math.min(dotStart, dotEnd);
-        float max = Math.max(dotStart, dotEnd);
-
-        return new Interval(min, max);
+        return dest.set(Math.min(dotStart, dotEnd), Math.max(dotStart, dotEnd));
     }
 
     @Override
@@ -1,7 +1,10 @@
 package collisionDetection.primitive;
 
 import collisionDetection.narrowPhase.Shape;
+import collisionDetection.narrowPhase.ShapeType;
 import collisionDetection.narrowPhase.gjk.GJKSupport;
+import collisionDetection.narrowPhase.manifold.FacePolygon;
+import collisionDetection.narrowPhase.manifold.FaceSupport;
 import collisionDetection.narrowPhase.sat.Interval;
 import collisionDetection.narrowPhase.sat.SATSupport;
 import math.Quaternion;
@@ -12,7 +15,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
-public class OBB implements Shape, SATSupport, GJKSupport {
+public class OBB implements Shape, SATSupport, GJKSupport, FaceSupport {
 
     private Vector3f center;
     private Vector3f[] axis;
@@ -20,7 +23,8 @@ public class OBB implements Shape, SATSupport, GJKSupport {
 
     public OBB(Vector3f center, Vector3f halfExtents) {
         this.center = center;
-        this.axis = new Vector3f[]{Vector3f.XAxis, Vector3f.YAxis, Vector3f.ZAxis};
+        // Own axes rather than the shared unit vectors, rotate and setAxis write into them
+        this.axis = new Vector3f[]{new Vector3f(1, 0, 0), new Vector3f(0, 1, 0), new Vector3f(0, 0, 1)};
         this.halfExtents = halfExtents;
     }
 
@@ -37,27 +41,32 @@ public class OBB implements Shape, SATSupport, GJKSupport {
         return List.of(axis);
     }
 
+    // Box axis 0, 1 or 2 without wrapping the axes in a list
+    public Vector3f getAxis(int index) {
+        return axis[index];
+    }
+
     @Override
     public List<Vector3f> getVertices() {
-        List<Vector3f> vertices = new ArrayList<>();
-
-        // Calculate the eight vertices of the OBB.
-        Vector3f[] localHalfExtents = new Vector3f[]{
-                halfExtents.mul(-1f),
-                halfExtents.mul(1f)
-        };
-
-        for (Vector3f axis : axis) {
-            for (Vector3f halfExtent : localHalfExtents) {
-                vertices.add(center.add(axis.mul(halfExtent)));
-            }
+        List<Vector3f> vertices = new ArrayList<>(8);
+
+        // The eight corners, one per choice of side along each box axis
+        for (int i = 0; i < 8; i++) {
+            float x = (i & 1) == 0 ? -halfExtents.x : halfExtents.x;
+            float y = (i & 2) == 0 ? -halfExtents.y : halfExtents.y;
+            float z = (i & 4) == 0 ? -halfExtents.z : halfExtents.z;
+            vertices.add(new Vector3f(center.x + axis[0].x * x + axis[1].x * y + axis[2].x * z,
+                    center.y + axis[0].y * x + axis[1].y * y + axis[2].y * z,
+                    center.z + axis[0].z * x + axis[1].z * y + axis[2].z * z));
         }
 
         return vertices;
     }
 
+    // Copies the three axes in
     public void setAxis(Vector3f[] axis) {
-        this.axis = axis;
+        for (int i = 0; i < this.axis.length; i++)
+            this.axis[i].set(axis[i]);
     }
 
     public Vector3f getHalfExtents() {
@@ -70,19 +79,24 @@ public class OBB implements Shape, SATSupport, GJKSupport {
 
     @Override
     public Interval getInterval(Vector3f axis) {
-        float centerProjection = axis.x * getCenter().x + axis.y * getCenter().y + axis.z * getCenter().z;
+        return getInterval(axis, new Interval(0, 0));
+    }
 
-        // Calculate the half-length of the projection
-        float halfLength =
-                getHalfExtents().x * Math.abs(axis.x) +
-                        getHalfExtents().y * Math.abs(axis.y) +
-                        getHalfExtents().z * Math.abs(axis.z);
+    @Override
+    public Interval getInterval(Vector3f axis, Interval dest) {
+        float centerProjection = axis.dot(center);
 
-        // Calculate the interval
-        float min = centerProjection - halfLength;
-        float max = centerProjection + halfLength;
+        // Half length of the projection, measured along the box's own axes
+        float halfLength = halfExtents.x * Math.abs(axis.dot(this.axis[0]))
+                + halfExtents.y * Math.abs(axis.dot(this.axis[1]))
+                + halfExtents.z * Math.abs(axis.dot(this.axis[2]));
 
-        return new Interval(min, max);
+        return dest.set(centerProjection - halfLength, centerProjection + halfLength);
+    }
+
+    @Override
+    public ShapeType getType() {
+        return ShapeType.OBB;
     }
 
     @Override
@@ -119,40 +133,40 @@ public class OBB implements Shape, SATSupport, GJKSupport {
 
     @Override
     public Vector3f support(Vector3f direction) {
-        // Transform the direction from world space to OBB local space
-        Vector3f localDirection = new Vector3f(
-                direction.dot(axis[0]),
-                direction.dot(axis[1]),
-                direction.dot(axis[2])
-        );
-
-        // Calculate the support point in local coordinates
-        Vector3f localSupport = new Vector3f(
-                Math.signum(localDirection.x) * halfExtents.x,
-                Math.signum(localDirection.y) * halfExtents.y,
-                Math.signum(localDirection.z) * halfExtents.z
-        );
-
-        // Calculate the world space support point
-        return new Vector3f(
-                axis[0].x * localSupport.x,
-                axis[1].y * localSupport.y,
-                axis[2].z * localSupport.z
-        ).add(center);
+        return support(direction, new Vector3f());
+    }
+
+    @Override
+    public Vector3f support(Vector3f direction, Vector3f dest) {
+        // Pick the corner on the side of the direction along every box axis
+        float x = direction.dot(axis[0]) >= 0 ? halfExtents.x : -halfExtents.x;
+        float y = direction.dot(axis[1]) >= 0 ? halfExtents.y : -halfExtents.y;
+        float z = direction.dot(axis[2]) >= 0 ? halfExtents.z : -halfExtents.z;
+
+        // Back to world space through the box axes
+        return dest.set(center.x + axis[0].x * x + axis[1].x * y + axis[2].x * z,
+                center.y + axis[0].y * x + axis[1].y * y + axis[2].y * z,
+                center.z + axis[0].z * x + axis[1].z * y + axis[2].z * z);
+    }
+
+    @Override
+    public void supportFace(Vector3f direction, FacePolygon face) {
+        face.fromBox(direction, center.x, center.y, center.z, axis[0], axis[1], axis[2],
+                halfExtents.x, halfExtents.y, halfExtents.z);
     }
 
     public void translate(Vector3f translation) {
-        center.set(center.add(translation));
+        center.addLocal(translation);
     }
 
     public void scale(Vector3f scale) {
-        halfExtents.set(halfExtents.mul(scale));
+        halfExtents.mulLocal(scale);
     }
 
     public void rotate(Quaternion rotation) {
         // Rotate each axis by the given quaternion
         for (int i = 0; i < axis.length; i++) {
-            axis[i] = axis[i].rotate(rotation);
+            axis[i].rotateLocal(rotation);
         }
     }
 
@@ -1,6 +1,7 @@
 package collisionDetection.primitive;
 
 import collisionDetection.narrowPhase.Shape;
+import collisionDetection.narrowPhase.ShapeType;
 import math.Vector3f;
 
 import java.util.Objects;
@@ -47,6 +48,11 @@ public class Plane implements Shape {
         return Math.abs(distance); // Ensure the distance is positive
     }
 
+    @Override
+    public ShapeType getType() {
+        return ShapeType.PLANE;
+    }
+
     @Override
     public boolean isPointInside(Vector3f point) {
         // Calculate the signed distance from the point to the plane
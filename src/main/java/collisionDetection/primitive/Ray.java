@@ -1,6 +1,7 @@
 package collisionDetection.primitive;
 
 import collisionDetection.narrowPhase.Shape;
+import collisionDetection.narrowPhase.ShapeType;
 import math.Quaternion;
 import math.Vector3f;
 
@@ -40,6 +41,11 @@ public class Ray implements Shape {
     }
 
     // check if point have the same direction
+    @Override
+    public ShapeType getType() {
+        return ShapeType.RAY;
+    }
+
     @Override
     public boolean isPointInside(Vector3f point) {
         // Calculate the vector from the ray's origin to the given point
@@ -1,6 +1,7 @@
 package collisionDetection.primitive;
 
 import collisionDetection.narrowPhase.Shape;
+import collisionDetection.narrowPhase.ShapeType;
 import collisionDetection.narrowPhase.gjk.GJKSupport;
 import math.Vector3f;
 
@@ -31,6 +32,11 @@ public class Sphere implements Shape, GJKSupport {
         this.radius = radius;
     }
 
+    @Override
+    public ShapeType getType() {
+        return ShapeType.SPHERE;
+    }
+
     @Override
     public boolean isPointInside(Vector3f point) {
         float distanceSquared = center.distanceSquared(point);
@@ -46,12 +52,19 @@ public class Sphere implements Shape, GJKSupport {
 
     @Override
     public Vector3f support(Vector3f direction) {
-        return center.add(direction.normalize().mul(radius));
+        return support(direction, new Vector3f());
+    }
+
+    @Override
+    public Vector3f support(Vector3f direction, Vector3f dest) {
+        float length = direction.length();
+        float scale = length != 0 ? radius / length : 0;
+        return dest.set(center.x + direction.x * scale, center.y + direction.y * scale, center.z + direction.z * scale);
     }
 
     @Override
     public void translate(Vector3f position) {
-        center.set(center.add(position));
+        center.addLocal(position);
     }
 
     @Override
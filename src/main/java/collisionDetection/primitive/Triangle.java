@@ -1,7 +1,10 @@
 package collisionDetection.primitive;
 
 import collisionDetection.narrowPhase.Shape;
+import collisionDetection.narrowPhase.ShapeType;
 import collisionDetection.narrowPhase.gjk.GJKSupport;
+import collisionDetection.narrowPhase.manifold.FacePolygon;
+import collisionDetection.narrowPhase.manifold.FaceSupport;
 import collisionDetection.narrowPhase.sat.Interval;
 import collisionDetection.narrowPhase.sat.SATSupport;
 import math.Quaternion;
@@ -11,7 +14,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
-public class Triangle implements Shape, SATSupport, GJKSupport {
+public class Triangle implements Shape, SATSupport, GJKSupport, FaceSupport {
     private Vector3f vertex1;
     private Vector3f vertex2;
     private Vector3f vertex3;
@@ -74,6 +77,11 @@ public class Triangle implements Shape, SATSupport, GJKSupport {
         return result;
     }
 
+    @Override
+    public ShapeType getType() {
+        return ShapeType.TRIANGLE;
+    }
+
     @Override
     public boolean isPointInside(Vector3f point) {
         Vector3f a = vertex1.sub(point);
@@ -127,6 +135,11 @@ public class Triangle implements Shape, SATSupport, GJKSupport {
 
     @Override
     public Interval getInterval(Vector3f axis) {
+        return getInterval(axis, new Interval(0, 0));
+    }
+
+    @Override
+    public Interval getInterval(Vector3f axis, Interval dest) {
         // Project the triangle vertices onto the axis
         float projection1 = axis.dot(getVertex1());
         float projection2 = axis.dot(getVertex2());
@@ -136,12 +149,14 @@ public class Triangle implements Shape, SATSupport, GJKSupport {
         float min = Math.min(Math.min(projection1, projection2), projection3);
         float max = Math.max(Math.max(projection1, projection2), projection3);
 
-        return new Interval(min, max);
+        return dest.set(min, max);
     }
 
     @Override
     public List<Vector3f> getAxis() {
-        return List.of(getEdge1().normalize(),
+        // Face normal first, it separates most pairs
+        return List.of(calculateFaceNormal(),
+                getEdge1().normalize(),
                 getEdge2().normalize(),
                 getEdge3().normalize());
     }
@@ -155,37 +170,49 @@ public class Triangle implements Shape, SATSupport, GJKSupport {
 
     @Override
     public Vector3f support(Vector3f direction) {
+        return support(direction, new Vector3f());
+    }
+
+    @Override
+    public Vector3f support(Vector3f direction, Vector3f dest) {
         float dot1 = vertex1.dot(direction);
         float dot2 = vertex2.dot(direction);
         float dot3 = vertex3.dot(direction);
 
         if (dot1 >= dot2 && dot1 >= dot3) {
-            return vertex1;
+            dest.set(vertex1);
         } else if (dot2 >= dot1 && dot2 >= dot3) {
-            return vertex2;
+            dest.set(vertex2);
+        } else {
+            dest.set(vertex3);
         }
-        return vertex3;
+        return dest;
+    }
+
+    @Override
+    public void supportFace(Vector3f direction, FacePolygon face) {
+        face.fromVertices(getVertices(), direction);
     }
 
     @Override
     public void translate(Vector3f position) {
-        vertex1.add(position);
-        vertex2.add(position);
-        vertex3.add(position);
+        vertex1.addLocal(position);
+        vertex2.addLocal(position);
+        vertex3.addLocal(position);
     }
 
     @Override
     public void scale(Vector3f scale) {
-        vertex1.set(vertex1.mul(scale));
-        vertex2.set(vertex2.mul(scale));
-        vertex3.set(vertex3.mul(scale));
+        vertex1.mulLocal(scale);
+        vertex2.mulLocal(scale);
+        vertex3.mulLocal(scale);
     }
 
     @Override
     public void rotate(Quaternion rotate) {
-        vertex1.set(vertex1.rotate(rotate));
-        vertex2.set(vertex2.rotate(rotate));
-        vertex3.set(vertex3.rotate(rotate));
+        vertex1.rotateLocal(rotate);
+        vertex2.rotateLocal(rotate);
+        vertex3.rotateLocal(rotate);
 
     }
 
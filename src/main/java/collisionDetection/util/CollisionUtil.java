@@ -16,6 +16,13 @@ public class CollisionUtil {
         return pointA.sub(pointB);
     }
 
+    // Allocation free variant writing into dest, negated and pointB are scratch vectors
+    public static Vector3f support(GJKSupport shape1, GJKSupport shape2, Vector3f direction, Vector3f dest,
+                                   Vector3f negated, Vector3f pointB) {
+        shape2.support(direction.negateInto(negated), pointB);
+        return shape1.support(direction, dest).subLocal(pointB);
+    }
+
     // Helper method to calculate the closest point on a line segment to an AABB
     public static Vector3f closestPointOnLineToAABB(AABB aabb, Line line) {
         Vector3f start = line.getStart();
@@ -0,0 +1,142 @@
+package collisionDetection.util;
+
+import java.util.Arrays;
+
+// Open addressing map from primitive long keys to objects, the map counterpart of LongHashSet.
+// Long.MIN_VALUE marks empty slots and cannot be used as a key.
+public class LongHashMap<V> {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    public LongHashMap() {
+        this(16);
+    }
+
+    public LongHashMap(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2)
+            capacity <<= 1;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    // Returns the previous value of the key, or null if it was not in the map
+    public V put(long key, V value) {
+        if (key == EMPTY)
+            throw new IllegalArgumentException("Long.MIN_VALUE cannot be used as a key");
+        int mask = keys.length - 1;
+        int i = LongHashSet.hash(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                V old = valueAt(i);
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length)
+            resize();
+        return null;
+    }
+
+    public V get(long key) {
+        int mask = keys.length - 1;
+        for (int i = LongHashSet.hash(key) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key)
+                return valueAt(i);
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    public V remove(long key) {
+        int mask = keys.length - 1;
+        int i = LongHashSet.hash(key) & mask;
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY)
+                return null;
+            i = (i + 1) & mask;
+        }
+        V old = valueAt(i);
+
+        // Shift the following entries back instead of leaving a tombstone
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == EMPTY)
+                break;
+            int home = LongHashSet.hash(keys[j]) & mask;
+            if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = EMPTY;
+        values[i] = null;
+        size--;
+        return old;
+    }
+
+    public void clear() {
+        if (size == 0)
+            return;
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Allocation free iteration: for (int i = map.next(0); i >= 0; i = map.next(i + 1)) map.valueAt(i).
+    // The map must not be modified while iterating.
+    public int next(int index) {
+        for (int i = index; i < keys.length; i++) {
+            if (keys[i] != EMPTY)
+                return i;
+        }
+        return -1;
+    }
+
+    public long keyAt(int index) {
+        return keys[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V valueAt(int index) {
+        return (V) values[index];
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        int mask = keys.length - 1;
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldKeys[k] == EMPTY)
+                continue;
+            int i = LongHashSet.hash(oldKeys[k]) & mask;
+            while (keys[i] != EMPTY)
+                i = (i + 1) & mask;
+            keys[i] = oldKeys[k];
+            values[i] = oldValues[k];
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package collisionDetection.util;
+
+import java.util.Arrays;
+
+// Open addressing set of primitive longs with linear probing, used for packed pair keys.
+// Long.MIN_VALUE marks empty slots and cannot be stored.
+public class LongHashSet {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int size;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2)
+            capacity <<= 1;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public boolean add(long key) {
+        checkKey(key);
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key)
+                return false;
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        if (++size * 2 > keys.length)
+            resize();
+        return true;
+    }
+
+    public boolean contains(long key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key)
+                return true;
+        }
+        return false;
+    }
+
+    public boolean remove(long key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY)
+                return false;
+            i = (i + 1) & mask;
+        }
+
+        // Shift the following entries back instead of leaving a tombstone
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == EMPTY)
+                break;
+            int home = hash(keys[j]) & mask;
+            if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+                keys[i] = keys[j];
+                i = j;
+            }
+        }
+        keys[i] = EMPTY;
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        if (size == 0)
+            return;
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Allocation free iteration: for (int i = set.next(0); i >= 0; i = set.next(i + 1)) set.get(i)
+    public int next(int index) {
+        for (int i = index; i < keys.length; i++) {
+            if (keys[i] != EMPTY)
+                return i;
+        }
+        return -1;
+    }
+
+    public long get(int index) {
+        return keys[index];
+    }
+
+    public static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        keys = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        int mask = keys.length - 1;
+        for (long key : oldKeys) {
+            if (key == EMPTY)
+                continue;
+            int i = hash(key) & mask;
+            while (keys[i] != EMPTY)
+                i = (i + 1) & mask;
+            keys[i] = key;
+        }
+    }
+
+    private static void checkKey(long key) {
+        if (key == EMPTY)
+            throw new IllegalArgumentException("Long.MIN_VALUE cannot be stored");
+    }
+}
@@ -3,6 +3,9 @@ package math;
 import static math.Const.EPSILON;
 
 public class Maths {
+    // 1 / sqrt(3): the largest component of a unit vector is at least this big
+    private static final float UNIT_MIN_MAX_COMPONENT = 0.57735f;
+
     public static float barryCentric(Vector3f p1, Vector3f p2, Vector3f p3, Vector2f pos) {
         float det = (p2.z - p3.z) * (p1.x - p3.x) + (p3.x - p2.x) * (p1.z - p3.z);
         float l1 = ((p2.z - p3.z) * (pos.x - p3.x) + (p3.x - p2.x) * (pos.y - p3.z)) / det;
@@ -32,6 +35,17 @@ public class Maths {
         return 1.0f / (float) Math.sqrt(r);
     }
 
+    // Fills tangent1 and tangent2 so that they form an orthonormal basis with the unit normal.
+    // The smallest normal component is dropped, so the first tangent never degenerates.
+    public static void tangentBasis(Vector3f normal, Vector3f tangent1, Vector3f tangent2) {
+        if (Math.abs(normal.x) >= UNIT_MIN_MAX_COMPONENT)
+            tangent1.set(normal.y, -normal.x, 0);
+        else
+            tangent1.set(0, normal.z, -normal.y);
+        tangent1.normalizeLocal();
+        normal.crossInto(tangent1, tangent2);
+    }
+
     public static float clamp(float value, float min, float max) {
         return (value < min) ? min : Math.min(value, max);
     }
@@ -61,11 +61,16 @@ public class Matrix3f {
     }
 
     public Vector3f transform(Vector3f position) {
+        return transformInto(position, new Vector3f());
+    }
+
+    // dest may be position
+    public Vector3f transformInto(Vector3f position, Vector3f dest) {
         float x = m00 * position.x + m01 * position.y + m02 * position.z + m03;
         float y = m10 * position.x + m11 * position.y + m12 * position.z + m13;
         float z = m20 * position.x + m21 * position.y + m22 * position.z + m23;
 
-        return new Vector3f(x, y, z);
+        return dest.set(x, y, z);
     }
 
     public Matrix3f add(Matrix3f right) {
@@ -105,21 +110,37 @@ public class Matrix3f {
     }
 
     public Matrix3f mul(Matrix3f right) {
-
-        m00 = m00 * right.m00 + m10 * right.m01 + m20 * right.m02;
-        m01 = m01 * right.m00 + m11 * right.m01 + m21 * right.m02;
-        m02 = m02 * right.m00 + m12 * right.m01 + m22 * right.m02;
-        m03 = m03 * right.m00 + m13 * right.m01 + m23 * right.m02;
-        m10 = m00 * right.m10 + m10 * right.m11 + m20 * right.m12;
-        m11 = m01 * right.m10 + m11 * right.m11 + m21 * right.m12;
-        m12 = m02 * right.m10 + m12 * right.m11 + m22 * right.m12;
-        m13 = m03 * right.m10 + m13 * right.m11 + m23 * right.m12;
-        m20 = m00 * right.m20 + m10 * right.m21 + m20 * right.m22;
-        m21 = m01 * right.m20 + m11 * right.m21 + m21 * right.m22;
-        m22 = m02 * right.m20 + m12 * right.m21 + m22 * right.m22;
-        m23 = m03 * right.m20 + m13 * right.m21 + m23 * right.m22;
-
-        return this;
+        return mulInto(right, this);
+    }
+
+    // Every term is read before dest is written, so dest may be this or right
+    public Matrix3f mulInto(Matrix3f right, Matrix3f dest) {
+        float t00 = m00 * right.m00 + m10 * right.m01 + m20 * right.m02;
+        float t01 = m01 * right.m00 + m11 * right.m01 + m21 * right.m02;
+        float t02 = m02 * right.m00 + m12 * right.m01 + m22 * right.m02;
+        float t03 = m03 * right.m00 + m13 * right.m01 + m23 * right.m02;
+        float t10 = m00 * right.m10 + m10 * right.m11 + m20 * right.m12;
+        float t11 = m01 * right.m10 + m11 * right.m11 + m21 * right.m12;
+        float t12 = m02 * right.m10 + m12 * right.m11 + m22 * right.m12;
+        float t13 = m03 * right.m10 + m13 * right.m11 + m23 * right.m12;
+        float t20 = m00 * right.m20 + m10 * right.m21 + m20 * right.m22;
+        float t21 = m01 * right.m20 + m11 * right.m21 + m21 * right.m22;
+        float t22 = m02 * right.m20 + m12 * right.m21 + m22 * right.m22;
+        float t23 = m03 * right.m20 + m13 * right.m21 + m23 * right.m22;
+
+        dest.m00 = t00;
+        dest.m01 = t01;
+        dest.m02 = t02;
+        dest.m03 = t03;
+        dest.m10 = t10;
+        dest.m11 = t11;
+        dest.m12 = t12;
+        dest.m13 = t13;
+        dest.m20 = t20;
+        dest.m21 = t21;
+        dest.m22 = t22;
+        dest.m23 = t23;
+        return dest;
     }
 
     public Matrix3f scale(Vector3f scale) {
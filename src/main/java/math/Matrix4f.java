@@ -118,25 +118,45 @@ public class Matrix4f {
     }
 
     public Matrix4f mul(Matrix4f right) {
-
-        m00 = m00 * right.m00 + m10 * right.m01 + m20 * right.m02 + m30 * right.m03;
-        m01 = m01 * right.m00 + m11 * right.m01 + m21 * right.m02 + m31 * right.m03;
-        m02 = m02 * right.m00 + m12 * right.m01 + m22 * right.m02 + m32 * right.m03;
-        m03 = m03 * right.m00 + m13 * right.m01 + m23 * right.m02 + m33 * right.m03;
-        m10 = m00 * right.m10 + m10 * right.m11 + m20 * right.m12 + m30 * right.m13;
-        m11 = m01 * right.m10 + m11 * right.m11 + m21 * right.m12 + m31 * right.m13;
-        m12 = m02 * right.m10 + m12 * right.m11 + m22 * right.m12 + m32 * right.m13;
-        m13 = m03 * right.m10 + m13 * right.m11 + m23 * right.m12 + m33 * right.m13;
-        m20 = m00 * right.m20 + m10 * right.m21 + m20 * right.m22 + m30 * right.m23;
-        m21 = m01 * right.m20 + m11 * right.m21 + m21 * right.m22 + m31 * right.m23;
-        m22 = m02 * right.m20 + m12 * right.m21 + m22 * right.m22 + m32 * right.m23;
-        m23 = m03 * right.m20 + m13 * right.m21 + m23 * right.m22 + m33 * right.m23;
-        m30 = m00 * right.m30 + m10 * right.m31 + m20 * right.m32 + m30 * right.m33;
-        m31 = m01 * right.m30 + m11 * right.m31 + m21 * right.m32 + m31 * right.m33;
-        m32 = m02 * right.m30 + m12 * right.m31 + m22 * right.m32 + m32 * right.m33;
-        m33 = m03 * right.m30 + m13 * right.m31 + m23 * right.m32 + m33 * right.m33;
-
-        return this;
+        return mulInto(right, this);
+    }
+
+    // Every term is read before dest is written, so dest may be this or right
+    public Matrix4f mulInto(Matrix4f right, Matrix4f dest) {
+        float t00 = m00 * right.m00 + m10 * right.m01 + m20 * right.m02 + m30 * right.m03;
+        float t01 = m01 * right.m00 + m11 * right.m01 + m21 * right.m02 + m31 * right.m03;
+        float t02 = m02 * right.m00 + m12 * right.m01 + m22 * right.m02 + m32 * right.m03;
+        float t03 = m03 * right.m00 + m13 * right.m01 + m23 * right.m02 + m33 * right.m03;
+        float t10 = m00 * right.m10 + m10 * right.m11 + m20 * right.m12 + m30 * right.m13;
+        float t11 = m01 * right.m10 + m11 * right.m11 + m21 * right.m12 + m31 * right.m13;
+        float t12 = m02 * right.m10 + m12 * right.m11 + m22 * right.m12 + m32 * right.m13;
+        float t13 = m03 * right.m10 + m13 * right.m11 + m23 * right.m12 + m33 * right.m13;
+        float t20 = m00 * right.m20 + m10 * right.m21 + m20 * right.m22 + m30 * right.m23;
+        float t21 = m01 * right.m20 + m11 * right.m21 + m21 * right.m22 + m31 * right.m23;
+        float t22 = m02 * right.m20 + m12 * right.m21 + m22 * right.m22 + m32 * right.m23;
+        float t23 = m03 * right.m20 + m13 * right.m21 + m23 * right.m22 + m33 * right.m23;
+        float t30 = m00 * right.m30 + m10 * right.m31 + m20 * right.m32 + m30 * right.m33;
+        float t31 = m01 * right.m30 + m11 * right.m31 + m21 * right.m32 + m31 * right.m33;
+        float t32 = m02 * right.m30 + m12 * right.m31 + m22 * right.m32 + m32 * right.m33;
+        float t33 = m03 * right.m30 + m13 * right.m31 + m23 * right.m32 + m33 * right.m33;
+
+        dest.m00 = t00;
+        dest.m01 = t01;
+        dest.m02 = t02;
+        dest.m03 = t03;
+        dest.m10 = t10;
+        dest.m11 = t11;
+        dest.m12 = t12;
+        dest.m13 = t13;
+        dest.m20 = t20;
+        dest.m21 = t21;
+        dest.m22 = t22;
+        dest.m23 = t23;
+        dest.m30 = t30;
+        dest.m31 = t31;
+        dest.m32 = t32;
+        dest.m33 = t33;
+        return dest;
     }
 
     public Matrix4f translate(Vector3f vec) {
@@ -150,11 +170,16 @@ public class Matrix4f {
     }
 
     public Vector3f transform(Vector3f vector) {
+        return transformInto(vector, new Vector3f());
+    }
+
+    // dest may be vector, here and in the other Into transforms
+    public Vector3f transformInto(Vector3f vector, Vector3f dest) {
         float x = m00 * vector.x + m01 * vector.y + m02 * vector.z;
         float y = m10 * vector.x + m11 * vector.y + m12 * vector.z;
         float z = m20 * vector.x + m21 * vector.y + m22 * vector.z;
 
-        return new Vector3f(x, y, z);
+        return dest.set(x, y, z);
     }
 
 
@@ -478,21 +503,29 @@ public class Matrix4f {
     }
 
     public static Vector3f localToWorldDirection(Vector3f local, Matrix4f transform) {
+        return localToWorldDirection(local, transform, new Vector3f());
+    }
+
+    public static Vector3f localToWorldDirection(Vector3f local, Matrix4f transform, Vector3f dest) {
         // Apply only the rotational part of the transformation matrix to the local direction
         float x = local.x * transform.m00 + local.y * transform.m10 + local.z * transform.m20;
         float y = local.x * transform.m01 + local.y * transform.m11 + local.z * transform.m21;
         float z = local.x * transform.m02 + local.y * transform.m12 + local.z * transform.m22;
 
-        return new Vector3f(x, y, z);
+        return dest.set(x, y, z);
     }
 
     public static Vector3f worldToLocalDirection(Vector3f world, Matrix4f transform) {
+        return worldToLocalDirection(world, transform, new Vector3f());
+    }
+
+    public static Vector3f worldToLocalDirection(Vector3f world, Matrix4f transform, Vector3f dest) {
         // Apply the inverse of the rotational part of the transformation matrix to the world direction
         float x = world.x * transform.m00 + world.y * transform.m01 + world.z * transform.m02;
         float y = world.x * transform.m10 + world.y * transform.m11 + world.z * transform.m12;
         float z = world.x * transform.m20 + world.y * transform.m21 + world.z * transform.m22;
 
-        return new Vector3f(x, y, z);
+        return dest.set(x, y, z);
     }
 
     public float getM00() {
@@ -666,27 +699,34 @@ public class Matrix4f {
     }
 
     public Vector3f transformInverse(Vector3f vector) {
-        Vector3f tmp = new Vector3f(vector);
-        tmp.x -= m03;
-        tmp.y -= m13;
-        tmp.z -= m23;
-        return new Vector3f(
-                tmp.x * m00 +
-                        tmp.y * m10 +
-                        tmp.z * m20,
-
-                tmp.x * m01 +
-                        tmp.y * m11 +
-                        tmp.z * m21,
-
-                tmp.x * m02 +
-                        tmp.y * m12 +
-                        tmp.z * m22
+        return transformInverseInto(vector, new Vector3f());
+    }
+
+    public Vector3f transformInverseInto(Vector3f vector, Vector3f dest) {
+        float x = vector.x - m03;
+        float y = vector.y - m13;
+        float z = vector.z - m23;
+        return dest.set(
+                x * m00 +
+                        y * m10 +
+                        z * m20,
+
+                x * m01 +
+                        y * m11 +
+                        z * m21,
+
+                x * m02 +
+                        y * m12 +
+                        z * m22
         );
     }
 
     public Vector3f transformDirection(Vector3f vector) {
-        return new Vector3f(
+        return transformDirectionInto(vector, new Vector3f());
+    }
+
+    public Vector3f transformDirectionInto(Vector3f vector, Vector3f dest) {
+        return dest.set(
                 vector.x * m00 +
                         vector.y * m01 +
                         vector.z * m02,
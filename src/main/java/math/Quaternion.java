@@ -69,7 +69,7 @@ public class Quaternion {
     }
 
     public Quaternion add(Quaternion other) {
-        return new Quaternion(this.x + other.x, this.y + other.y, this.z + other.z, this.w + other.w);
+        return new Quaternion(this).addLocal(other);
     }
 
     public Quaternion add(Vector3f other) {
@@ -87,7 +87,7 @@ public class Quaternion {
     }
 
     public Quaternion sub(Quaternion other) {
-        return new Quaternion(this.x - other.x, this.y - other.y, this.z - other.z, this.w - other.w);
+        return new Quaternion(this).subLocal(other);
     }
 
     public float dot(Quaternion other) {
@@ -95,7 +95,7 @@ public class Quaternion {
     }
 
     public Quaternion conjugate() {
-        return new Quaternion(-x, -y, -z, w);
+        return conjugateInto(new Quaternion());
     }
 
     public Quaternion negate() {
@@ -107,12 +107,7 @@ public class Quaternion {
     }
 
     public Quaternion mul(Quaternion right) {
-        return new Quaternion(x * right.w + w * right.x + y * right.z
-                - z * right.y, y * right.w + w * right.y
-                + z * right.x - x * right.z, z * right.w
-                + w * right.z + x * right.y - y * right.x,
-                w * right.w - x * right.x - y * right.y
-                        - z * right.z);
+        return mulInto(right, new Quaternion());
     }
 
     public Quaternion mulInverse(Quaternion right) {
@@ -140,6 +135,75 @@ public class Quaternion {
         this.w = q.w;
     }
 
+    public Quaternion set(float x, float y, float z, float w) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.w = w;
+        return this;
+    }
+
+    // In-place variants, written into this quaternion (Local) or into dest (Into) and returned
+    public Quaternion addLocal(Quaternion other) {
+        x += other.x;
+        y += other.y;
+        z += other.z;
+        w += other.w;
+        return this;
+    }
+
+    public Quaternion subLocal(Quaternion other) {
+        x -= other.x;
+        y -= other.y;
+        z -= other.z;
+        w -= other.w;
+        return this;
+    }
+
+    public Quaternion conjugateInto(Quaternion dest) {
+        return dest.set(-x, -y, -z, w);
+    }
+
+    // dest may be this or right
+    public Quaternion mulInto(Quaternion right, Quaternion dest) {
+        return dest.set(x * right.w + w * right.x + y * right.z - z * right.y,
+                y * right.w + w * right.y + z * right.x - x * right.z,
+                z * right.w + w * right.z + x * right.y - y * right.x,
+                w * right.w - x * right.x - y * right.y - z * right.z);
+    }
+
+    public Quaternion mulLocal(Quaternion right) {
+        return mulInto(right, this);
+    }
+
+    // Divides by the length, so the result has unit length; normalize divides by the squared length
+    public Quaternion normalizeLocal() {
+        float length = (float) Math.sqrt(lengthSquared());
+        if (length != 0) {
+            x /= length;
+            y /= length;
+            z /= length;
+            w /= length;
+        }
+        return this;
+    }
+
+    // this += (v * scale, 0) * this / 2, the first order step of an orientation by an angular velocity
+    public Quaternion addScaledVectorLocal(Vector3f v, float scale) {
+        float vx = v.x * scale;
+        float vy = v.y * scale;
+        float vz = v.z * scale;
+        float qx = x;
+        float qy = y;
+        float qz = z;
+        float qw = w;
+        x += (vx * qw + vy * qz - vz * qy) * 0.5f;
+        y += (vy * qw + vz * qx - vx * qz) * 0.5f;
+        z += (vz * qw + vx * qy - vy * qx) * 0.5f;
+        w += (-vx * qx - vy * qy - vz * qz) * 0.5f;
+        return this;
+    }
+
     public Quaternion setIdentity() {
         return new Quaternion(0, 0, 0, 1);
     }
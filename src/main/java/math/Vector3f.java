@@ -97,32 +97,27 @@ public class Vector3f {
     }
 
     public Vector3f add(Vector3f other) {
-        return new Vector3f(x + other.x, y + other.y, z + other.z);
+        return addInto(other, new Vector3f());
     }
 
     public Vector3f mul(float s) {
-        return new Vector3f(x * s, y * s, z * s);
+        return mulInto(s, new Vector3f());
     }
 
     public Vector3f mul(Vector3f other) {
-        return new Vector3f(x * other.x, y * other.y, z * other.z);
+        return mulInto(other, new Vector3f());
     }
 
     public Vector3f cross(Vector3f other) {
-        return new Vector3f(y * other.z - z * other.y, other.x * z - other.z * x,
-                x * other.y - y * other.x);
+        return crossInto(other, new Vector3f());
     }
 
     public Vector3f normalize() {
-        float l = length();
-        if (l != 0)
-            return new Vector3f(x / l, y / l, z / l);
-
-        return new Vector3f(x, y, z);
+        return normalizeInto(new Vector3f());
     }
 
     public Vector3f sub(Vector3f other) {
-        return new Vector3f(x - other.x, y - other.y, z - other.z);
+        return subInto(other, new Vector3f());
     }
 
     public float length() {
@@ -134,7 +129,7 @@ public class Vector3f {
     }
 
     public Vector3f div(float v) {
-        return new Vector3f(x / v, y / v, z / v);
+        return new Vector3f(this).divLocal(v);
     }
 
     public float distance(Vector3f point) {
@@ -145,24 +140,144 @@ public class Vector3f {
     }
 
     public Vector3f rotate(Quaternion rotation) {
-        // Convert the Vector3f to a Quaternion4f for the rotation
-        Quaternion vectorQuaternion = new Quaternion(x, y, z, 0);
-
-        // Perform the rotation by multiplying the rotation quaternion
-        Quaternion result = rotation.mul(vectorQuaternion).mul(rotation.conjugate());
-
-        // Update the Vector3f with the rotated values
-        return new Vector3f(result.x, result.y, result.z);
+        return rotateInto(rotation, new Vector3f());
     }
 
-    public void set(Vector3f point) {
+    public Vector3f set(Vector3f point) {
         this.x = point.x;
         this.y = point.y;
         this.z = point.z;
+        return this;
+    }
+
+    public Vector3f set(float x, float y, float z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
     }
 
     public Vector3f negate() {
-        return new Vector3f(x, y, z).mul(-1);
+        return negateInto(new Vector3f());
+    }
+
+    // In-place variants of the operations above. They write into this vector (Local) or into dest
+    // (Into) and return it, so hot loops can reuse scratch vectors instead of allocating.
+    public Vector3f addLocal(Vector3f other) {
+        x += other.x;
+        y += other.y;
+        z += other.z;
+        return this;
+    }
+
+    public Vector3f subLocal(Vector3f other) {
+        x -= other.x;
+        y -= other.y;
+        z -= other.z;
+        return this;
+    }
+
+    public Vector3f mulLocal(float s) {
+        x *= s;
+        y *= s;
+        z *= s;
+        return this;
+    }
+
+    public Vector3f mulLocal(Vector3f other) {
+        x *= other.x;
+        y *= other.y;
+        z *= other.z;
+        return this;
+    }
+
+    public Vector3f divLocal(float v) {
+        x /= v;
+        y /= v;
+        z /= v;
+        return this;
+    }
+
+    public Vector3f crossLocal(Vector3f other) {
+        return crossInto(other, this);
+    }
+
+    public Vector3f rotateLocal(Quaternion rotation) {
+        return rotateInto(rotation, this);
+    }
+
+    public Vector3f negateLocal() {
+        x = -x;
+        y = -y;
+        z = -z;
+        return this;
+    }
+
+    public Vector3f normalizeLocal() {
+        float l = length();
+        if (l != 0) {
+            x /= l;
+            y /= l;
+            z /= l;
+        }
+        return this;
+    }
+
+    // this + other * s
+    public Vector3f addScaledLocal(Vector3f other, float s) {
+        x += other.x * s;
+        y += other.y * s;
+        z += other.z * s;
+        return this;
+    }
+
+    public Vector3f addInto(Vector3f other, Vector3f dest) {
+        return dest.set(x + other.x, y + other.y, z + other.z);
+    }
+
+    public Vector3f subInto(Vector3f other, Vector3f dest) {
+        return dest.set(x - other.x, y - other.y, z - other.z);
+    }
+
+    public Vector3f mulInto(float s, Vector3f dest) {
+        return dest.set(x * s, y * s, z * s);
+    }
+
+    public Vector3f mulInto(Vector3f other, Vector3f dest) {
+        return dest.set(x * other.x, y * other.y, z * other.z);
+    }
+
+    public Vector3f normalizeInto(Vector3f dest) {
+        return dest.set(this).normalizeLocal();
+    }
+
+    public Vector3f lerpInto(Vector3f end, float t, Vector3f dest) {
+        return dest.set(x + (end.x - x) * t, y + (end.y - y) * t, z + (end.z - z) * t);
+    }
+
+    public Vector3f negateInto(Vector3f dest) {
+        return dest.set(-x, -y, -z);
+    }
+
+    // dest may be this or other
+    public Vector3f crossInto(Vector3f other, Vector3f dest) {
+        return dest.set(y * other.z - z * other.y, other.x * z - other.z * x,
+                x * other.y - y * other.x);
+    }
+
+    // Same product as rotate, rotation * (v, 0) * conjugate(rotation), written out; dest may be this
+    public Vector3f rotateInto(Quaternion rotation, Vector3f dest) {
+        float qx = rotation.x;
+        float qy = rotation.y;
+        float qz = rotation.z;
+        float qw = rotation.w;
+        float tx = qw * x + qy * z - qz * y;
+        float ty = qw * y + qz * x - qx * z;
+        float tz = qw * z + qx * y - qy * x;
+        float tw = -qx * x - qy * y - qz * z;
+        return dest.set(tx * qw - tw * qx - ty * qz + tz * qy,
+                ty * qw - tw * qy - tz * qx + tx * qz,
+                tz * qw - tw * qz - tx * qy + ty * qx);
     }
 
     public boolean isBetween(Vector3f start, Vector3f end) {
@@ -198,13 +313,7 @@ public class Vector3f {
     }
 
     public Vector3f lerp(Vector3f end, float t) {
-        // Interpolate each component (x, y, z) of the vector separately
-        float lerpedX = this.x + (end.x - this.x) * t;
-        float lerpedY = this.y + (end.y - this.y) * t;
-        float lerpedZ = this.z + (end.z - this.z) * t;
-
-        // Create a new Vector3f with the interpolated values
-        return new Vector3f(lerpedX, lerpedY, lerpedZ);
+        return lerpInto(end, t, new Vector3f());
     }
 
     public Vector3f clear() {
@@ -1,16 +1,16 @@
 package physics;
 
 import collisionDetection.CDEngine;
-import collisionDetection.broadPhase.BPPairs;
 import collisionDetection.broadPhase.BroadPhase;
-import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+import collisionDetection.contact.ContactPair;
+import collisionDetection.contact.PairManager;
 import physics.particle.ParticleForceRegistry;
 import physics.rigidBody.force.ForceRegistry;
-import physics.rigidBody.RigidBody;
+import physics.rigidBody.IslandManager;
 import physics.rigidBody.RigidBodySolver;
 import physics.rigidBody.SolveCollisionDispatcher;
 
-import java.util.Set;
+import java.util.List;
 
 public class PhysicsEngine {
 
@@ -18,6 +18,8 @@ public class PhysicsEngine {
     private final CDEngine cdEngine;
     private final ParticleWorld particleWorld;
     private final World world;
+    private final PairManager pairManager;
+    private final IslandManager islandManager;
 
     public PhysicsEngine(BroadPhase broadPhase, int iterations, int maxContacts) {
         CDEngine.init(broadPhase);
@@ -25,15 +27,33 @@ public class PhysicsEngine {
         this.solveCollisionDispatcher = new RigidBodySolver();
         this.particleWorld = new ParticleWorld(iterations, maxContacts);
         this.world = new World();
+        this.pairManager = new PairManager(cdEngine);
+        this.islandManager = new IslandManager();
     }
 
-    public void solve() {
-        Set<BPPairs> bpPairs = cdEngine.query();
-        for (BPPairs pairs : bpPairs) {
-            RigidBody bodyA = pairs.getBpBox1().getBody();
-            RigidBody bodyB = pairs.getBpBox2().getBody();
-            CollisionResult result = cdEngine.solve(pairs);
-            solveCollisionDispatcher.solve(bodyA, bodyB, result);
+    // Finds the touching pairs and resolves all their contacts together; runs between the velocity
+    // and the position half of the body integration. The islands are woken or put to sleep first,
+    // so the solver sees which bodies move this step.
+    public void solve(float duration) {
+        pairManager.update();
+        List<ContactPair> touching = pairManager.getTouching();
+        islandManager.update(touching);
+        for (int i = 0; i < touching.size(); i++) {
+            ContactPair pair = touching.get(i);
+            solveCollisionDispatcher.solve(pair.getBpBox1().getBody(), pair.getBpBox2().getBody(), pair.getManifold());
         }
+        solveCollisionDispatcher.resolve(duration);
+    }
+
+    public SolveCollisionDispatcher getSolveCollisionDispatcher() {
+        return solveCollisionDispatcher;
+    }
+
+    public PairManager getPairManager() {
+        return pairManager;
+    }
+
+    public IslandManager getIslandManager() {
+        return islandManager;
     }
 }
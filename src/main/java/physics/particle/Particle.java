@@ -81,7 +81,7 @@ public class Particle {
     }
 
     public void addForce(Vector3f force) {
-        forceAccumulate = forceAccumulate.add(force);
+        forceAccumulate.addLocal(force);
     }
 
     public boolean isFiniteMass() {
@@ -99,15 +99,13 @@ public class Particle {
         assert (duration > 0.0);
 
         // Update linear position.
-        position = position.add(velocity.mul(duration));
-        // Work out the acceleration from the force
-        Vector3f resultingAcc = new Vector3f(acceleration);
-        resultingAcc = resultingAcc.add(forceAccumulate.mul(inverseMass));
+        position.addScaledLocal(velocity, duration);
 
-        // Update linear velocity from the acceleration.
-        velocity = resultingAcc.add(resultingAcc.mul(duration));
+        // Update linear velocity from the acceleration, a + force / m
+        velocity.addScaledLocal(acceleration, duration);
+        velocity.addScaledLocal(forceAccumulate, inverseMass * duration);
         // Impose drag.
-        velocity = velocity.mul((float) Math.pow(damping, duration));
+        velocity.mulLocal((float) Math.pow(damping, duration));
 
         // Clear the forces.
         clearAccumulator();
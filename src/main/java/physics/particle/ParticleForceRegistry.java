@@ -26,7 +26,9 @@ public class ParticleForceRegistry {
 
 
     public void updateForces(float duration) {
-        for (ParticleForceRegistration particleForceRegistration : particleForceRegistrations) {
+        // Indexed, the iterator of a for-each would be allocated on every update
+        for (int i = 0; i < particleForceRegistrations.size(); i++) {
+            ParticleForceRegistration particleForceRegistration = particleForceRegistrations.get(i);
             particleForceRegistration.particleForceGenerator().updateForce(particleForceRegistration.particle(), duration);
         }
     }
@@ -16,8 +16,7 @@ public class ParticleAnchoredBungee extends ParticleAnchoredSpring {
     @Override
     public void updateForce(Particle particle, float duration) {
         // Calculate the vector of the spring
-        Vector3f force = particle.getPosition();
-        force = force.sub(getAnchor());
+        particle.getPosition().subInto(getAnchor(), force);
 
         // Calculate the magnitude of the force
         float magnitude = force.length();
@@ -27,7 +26,7 @@ public class ParticleAnchoredBungee extends ParticleAnchoredSpring {
         magnitude *= getSpringConstant();
 
         // Calculate the final force and apply it
-        force = force.normalize().mul(-magnitude);
+        force.normalizeLocal().mulLocal(-magnitude);
         particle.addForce(force);
     }
 }
@@ -12,6 +12,9 @@ public class ParticleAnchoredSpring implements ParticleForceGenerator {
 
     private float restLength;
 
+    // Reused by every update, the bungee subclass included
+    protected final Vector3f force = new Vector3f();
+
     public ParticleAnchoredSpring() {
         this.anchor = new Vector3f();
     }
@@ -37,15 +40,14 @@ public class ParticleAnchoredSpring implements ParticleForceGenerator {
     @Override
     public void updateForce(Particle particle, float duration) {
         // Calculate the vector of the spring
-        Vector3f force = particle.getPosition();
-        force = force.sub(anchor);
+        particle.getPosition().subInto(anchor, force);
 
         // Calculate the magnitude of the force
         float magnitude = force.length();
         magnitude = (restLength - magnitude) * springConstant;
 
         // Calculate the final force and apply it
-        force = force.normalize().mul(magnitude);
+        force.normalizeLocal().mulLocal(magnitude);
         particle.addForce(force);
     }
 }
@@ -12,6 +12,8 @@ public class ParticleBungee implements ParticleForceGenerator {
 
     private final float restLength;
 
+    private final Vector3f force = new Vector3f();
+
     public ParticleBungee(Particle other, float springConstant, float restLength) {
         this.other = other;
         this.springConstant = springConstant;
@@ -21,8 +23,7 @@ public class ParticleBungee implements ParticleForceGenerator {
     @Override
     public void updateForce(Particle particle, float duration) {
         // Calculate the vector of the spring
-        Vector3f force = particle.getPosition();
-        force = force.sub(other.getPosition());
+        particle.getPosition().subInto(other.getPosition(), force);
 
         // Check if the bungee is compressed
         float magnitude = force.length();
@@ -32,7 +33,7 @@ public class ParticleBungee implements ParticleForceGenerator {
         magnitude = springConstant * (restLength - magnitude);
 
         // Calculate the final force and apply it
-        force = force.normalize().mul(-magnitude);
+        force.normalizeLocal().mulLocal(-magnitude);
         particle.addForce(force);
     }
 }
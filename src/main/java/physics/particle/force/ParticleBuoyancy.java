@@ -13,6 +13,8 @@ public class ParticleBuoyancy implements ParticleForceGenerator {
 
     private final float liquidDensity;
 
+    private final Vector3f force = new Vector3f();
+
     public ParticleBuoyancy(float maxDepth, float volume, float waterHeight, float liquidDensity) {
         this.maxDepth = maxDepth;
         this.volume = volume;
@@ -27,7 +29,7 @@ public class ParticleBuoyancy implements ParticleForceGenerator {
 
         // Check if we're out of the water
         if (depth >= waterHeight + maxDepth) return;
-        Vector3f force = new Vector3f();
+        force.clear();
 
         // Check if we're at maximum depth
         if (depth <= waterHeight - maxDepth) {
@@ -10,6 +10,8 @@ public class ParticleDrag implements ParticleForceGenerator {
 
     private final float k2;
 
+    private final Vector3f force = new Vector3f();
+
     public ParticleDrag(float k1, float k2) {
         this.k1 = k1;
         this.k2 = k2;
@@ -17,14 +19,14 @@ public class ParticleDrag implements ParticleForceGenerator {
 
     @Override
     public void updateForce(Particle particle, float duration) {
-        Vector3f force = particle.getForceAccumulate();
+        force.set(particle.getForceAccumulate());
 
         // Calculate the total drag coefficient
         float dragCoeff = force.length();
         dragCoeff = k1 * dragCoeff + k2 * dragCoeff * dragCoeff;
 
         // Calculate the final force and apply it
-        force = force.normalize().mul(-dragCoeff);
+        force.normalizeLocal().mulLocal(-dragCoeff);
         particle.addForce(force);
     }
 }
@@ -8,6 +8,8 @@ public class ParticleGravity implements ParticleForceGenerator {
 
     private final Vector3f gravity;
 
+    private final Vector3f force = new Vector3f();
+
     public ParticleGravity(Vector3f gravity) {
         this.gravity = gravity;
     }
@@ -18,7 +20,7 @@ public class ParticleGravity implements ParticleForceGenerator {
         if (!particle.isFiniteMass()) return;
 
         // Apply the mass-scaled force to the particle
-        particle.addForce(gravity.mul(particle.getMass()));
+        particle.addForce(gravity.mulInto(particle.getMass(), force));
 
     }
 }
@@ -10,6 +10,9 @@ public class ParticleSpring implements ParticleForceGenerator {
     private final float springConstant;
     private final float restLength;
 
+    // Scratch for the force, so updating it does not allocate
+    private final Vector3f force = new Vector3f();
+
     public ParticleSpring(Particle other, float springConstant, float restLength) {
         this.other = other;
         this.springConstant = springConstant;
@@ -19,8 +22,7 @@ public class ParticleSpring implements ParticleForceGenerator {
     @Override
     public void updateForce(Particle particle, float duration) {
         // Calculate the vector of the spring
-        Vector3f force = particle.getPosition();
-        force = force.sub(other.getPosition());
+        particle.getPosition().subInto(other.getPosition(), force);
 
         // Calculate the magnitude of the force
         float magnitude = force.length();
@@ -28,7 +30,7 @@ public class ParticleSpring implements ParticleForceGenerator {
         magnitude *= springConstant;
 
         // Calculate the final force and apply it
-        force = force.normalize().mul(-magnitude);
+        force.normalizeLocal().mulLocal(-magnitude);
         particle.addForce(force);
     }
 }
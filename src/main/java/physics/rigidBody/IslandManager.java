@@ -0,0 +1,171 @@
+package physics.rigidBody;
+
+import collisionDetection.contact.ContactPair;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static math.Const.SLEEP_EPSILON;
+
+// Groups the moving bodies that touch each other into islands, with a union-find over the touching
+// pairs of every step, and lets a whole island sleep or wake at once. An island falls asleep when
+// every body in it is calm, so a resting pile stops costing integration, narrow phase and solving
+// as a unit, while one restless body keeps its island awake and a body that hits a sleeping island
+// wakes all of it. Static bodies join no island, or the ground would tie every pile together;
+// bodies touching nothing but static ones still fall asleep on their own in the integration.
+public class IslandManager {
+
+    // Bodies of the last update in the order they became union-find nodes
+    private RigidBody[] bodies;
+    private int bodyCount;
+    private int[] parent;
+    // Bodies under a root, the smaller tree is hung under the larger one
+    private int[] size;
+    // Island of a root while the islands are numbered, -1 before
+    private int[] rootIsland;
+    // Island of every node
+    private int[] island;
+    // Per island, whether one of its bodies is still moving
+    private boolean[] restless;
+    private int islandCount;
+
+    public IslandManager() {
+        this.bodies = new RigidBody[0];
+        this.parent = new int[0];
+        this.size = new int[0];
+        this.rootIsland = new int[0];
+        this.island = new int[0];
+        this.restless = new boolean[0];
+    }
+
+    // Rebuilds the islands from the pairs touching this step, then wakes every island with a
+    // restless body and puts the others to sleep
+    public void update(List<ContactPair> touching) {
+        release();
+
+        for (int i = 0; i < touching.size(); i++) {
+            ContactPair pair = touching.get(i);
+            RigidBody bodyA = pair.getBpBox1().getBody();
+            RigidBody bodyB = pair.getBpBox2().getBody();
+            if (canMove(bodyA) && canMove(bodyB))
+                union(node(bodyA), node(bodyB));
+        }
+
+        Arrays.fill(rootIsland, 0, bodyCount, -1);
+        for (int i = 0; i < bodyCount; i++) {
+            int root = find(i);
+            if (rootIsland[root] < 0) {
+                rootIsland[root] = islandCount;
+                restless[islandCount++] = false;
+            }
+            island[i] = rootIsland[root];
+            if (!isCalm(bodies[i]))
+                restless[island[i]] = true;
+        }
+
+        for (int i = 0; i < bodyCount; i++) {
+            RigidBody body = bodies[i];
+            RigidBodyPool pool = body.getPool();
+            int slot = body.getSlot();
+            pool.grouped[slot] = true;
+            if (restless[island[i]]) {
+                if (!pool.awake[slot])
+                    body.setAwake(true);
+            } else if (pool.awake[slot]) {
+                sleep(pool, slot);
+            }
+        }
+    }
+
+    // Islands found by the last update
+    public int getIslandCount() {
+        return islandCount;
+    }
+
+    // Island of the body in the last update, -1 when it touched no other moving body
+    public int getIsland(RigidBody body) {
+        return body.islandIndex >= 0 ? island[body.islandIndex] : -1;
+    }
+
+    // Number of bodies in islands after the last update
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+    // Hands the bodies of the last update back to sleeping on their own
+    private void release() {
+        for (int i = 0; i < bodyCount; i++) {
+            RigidBody body = bodies[i];
+            body.islandIndex = -1;
+            // A body removed from its pool since has no slot left to clear
+            if (body.getPool() != null)
+                body.getPool().grouped[body.getSlot()] = false;
+            bodies[i] = null;
+        }
+        bodyCount = 0;
+        islandCount = 0;
+    }
+
+    private int node(RigidBody body) {
+        if (body.islandIndex < 0) {
+            if (bodyCount == bodies.length) {
+                int capacity = Math.max(16, bodyCount * 2);
+                bodies = Arrays.copyOf(bodies, capacity);
+                parent = Arrays.copyOf(parent, capacity);
+                size = Arrays.copyOf(size, capacity);
+                rootIsland = Arrays.copyOf(rootIsland, capacity);
+                island = Arrays.copyOf(island, capacity);
+                restless = Arrays.copyOf(restless, capacity);
+            }
+            bodies[bodyCount] = body;
+            parent[bodyCount] = bodyCount;
+            size[bodyCount] = 1;
+            body.islandIndex = bodyCount++;
+        }
+        return body.islandIndex;
+    }
+
+    // Root of the node, halving the path on the way up
+    private int find(int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    private void union(int a, int b) {
+        a = find(a);
+        b = find(b);
+        if (a == b)
+            return;
+        if (size[a] < size[b]) {
+            int swap = a;
+            a = b;
+            b = swap;
+        }
+        parent[b] = a;
+        size[a] += size[b];
+    }
+
+    private static boolean canMove(RigidBody body) {
+        return body != null && body.getPool() != null && body.getInverseMass() > 0;
+    }
+
+    // Asleep already, or allowed to sleep and moving less than the threshold
+    private static boolean isCalm(RigidBody body) {
+        RigidBodyPool pool = body.getPool();
+        int slot = body.getSlot();
+        return !pool.awake[slot] || pool.canSleep[slot] && pool.motion[slot] < SLEEP_EPSILON;
+    }
+
+    // The velocities go too, a body woken later does not pick up the drift it fell asleep with
+    private static void sleep(RigidBodyPool pool, int slot) {
+        pool.awake[slot] = false;
+        int v = pool.offset(slot, 3);
+        for (int c = 0; c < 3; c++) {
+            pool.velocity[v + c * pool.block] = 0;
+            pool.rotation[v + c * pool.block] = 0;
+        }
+    }
+}
@@ -8,143 +8,49 @@ import math.Vector3f;
 
 import static math.Const.SLEEP_EPSILON;
 
+// Handle to one slot of a RigidBodyPool, where the state of the body lives. Getters return copies,
+// so changing a returned vector does not change the body; the overloads taking a dest fill it
+// without allocating. A body made with the public constructor gets a pool of its own.
 public class RigidBody {
-    /**
-     * Holds the inverse of the mass of the rigid body. It
-     * is more useful to hold the inverse mass because
-     * integration is simpler, and because in real time
-     * simulation it is more useful to have bodies with
-     * infinite mass (immovable) than zero mass
-     * (completely unstable in numerical simulation).
-     */
-    private float inverseMass;
-
-    /**
-     * Holds the inverse of the body's inertia tensor. The
-     * inertia tensor provided must not be degenerate
-     * (that would mean the body had zero inertia for
-     * spinning along one axis). As long as the tensor is
-     * finite, it will be invertible. The inverse tensor
-     * is used for similar reasons to the use of inverse
-     * mass.
-     * <p>
-     * The inertia tensor, unlike the other variables that
-     * define a rigid body, is given in body space.
-     */
-    private Matrix3f inverseInertiaTensor;
-
-    /**
-     * Holds the amount of damping applied to linear
-     * motion.  Damping is required to remove energy added
-     * through numerical instability in the integrator.
-     */
-    private float linearDamping;
-
-    /**
-     * Holds the amount of damping applied to angular
-     * motion.  Damping is required to remove energy added
-     * through numerical instability in the integrator.
-     */
-    private float angularDamping;
-
-    /**
-     * Holds the linear position of the rigid body in
-     * world space.
-     */
-    private Vector3f position;
-
-    /**
-     * Holds the angular orientation of the rigid body in
-     * world space.
-     */
-    private Quaternion orientation;
-
-    /**
-     * Holds the linear velocity of the rigid body in
-     * world space.
-     */
-    private Vector3f velocity;
-
-    /**
-     * Holds the angular velocity, or rotation, or the
-     * rigid body in world space.
-     */
-    private Vector3f rotation;
-
-    /**
-     * Holds the inverse inertia tensor of the body in world
-     * space. The inverse inertia tensor member is specified in
-     * the body's local space.
-     */
-    private Matrix3f inverseInertiaTensorWorld;
-
-    /**
-     * Holds the amount of motion of the body. This is a recency
-     * weighted mean that can be used to put a body to sleep.
-     */
-    private float motion;
-
-    /**
-     * A body can be put to sleep to avoid it being updated
-     * by the integration functions or affected by collisions
-     * with the world.
-     */
-    private boolean isAwake;
-
-    /**
-     * Some bodies may never be allowed to fall asleep.
-     * User controlled bodies, for example, should be
-     * always awake.
-     */
-    private boolean canSleep;
-
-    /**
-     * Holds a transform matrix for converting body space into
-     * world space and vice versa. This can be achieved by calling
-     * the getPointIn*Space functions.
-     */
-    private Matrix4f transformMatrix;
-
-    /**
-     * Holds the accumulated force to be applied at the next
-     * integration step.
-     */
-    private Vector3f forceAccum;
-
-    /**
-     * Holds the accumulated torque to be applied at the next
-     * integration step.
-     */
-    private Vector3f torqueAccum;
-
-    /**
-     * Holds the acceleration of the rigid body.  This value
-     * can be used to set acceleration due to gravity (its primary
-     * use), or any other constant acceleration.
-     */
-    private Vector3f acceleration;
-
-    /**
-     * Holds the linear acceleration of the rigid body, for the
-     * previous frame.
-     */
-    private Vector3f lastFrameAcceleration;
+
+    private RigidBodyPool pool;
+    private int slot;
+
+    // Index of the body among the dynamic bodies of the solver step running, -1 outside of one
+    int solverIndex;
+
+    // Node of the body in the union-find of the last island update, -1 when it was in no island
+    int islandIndex;
 
     private Shape colliderShape;
 
     public RigidBody() {
-        this.acceleration = new Vector3f();
-        this.forceAccum = new Vector3f();
-        this.lastFrameAcceleration = new Vector3f();
-        this.torqueAccum = new Vector3f();
-        this.inverseInertiaTensor = new Matrix3f();
-        this.position = new Vector3f();
-        this.orientation = new Quaternion();
-        this.velocity = new Vector3f();
-        this.rotation = new Vector3f();
-        this.inverseInertiaTensorWorld = new Matrix3f();
-        this.transformMatrix = new Matrix4f();
-        this.acceleration = new Vector3f();
+        this(new RigidBodyPool(1));
+    }
+
+    RigidBody(RigidBodyPool pool) {
+        this.pool = pool;
+        this.solverIndex = -1;
+        this.islandIndex = -1;
+        this.slot = pool.add(this);
+    }
+
+    public RigidBodyPool getPool() {
+        return pool;
+    }
+
+    // Position of the body in the arrays of its pool; changes when another body is removed
+    public int getSlot() {
+        return slot;
+    }
+
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    void detach() {
+        pool = null;
+        slot = -1;
     }
 
     public Shape getColliderShape() {
@@ -156,145 +62,206 @@ public class RigidBody {
     }
 
     public float getInverseMass() {
-        return inverseMass;
+        return pool.inverseMass[slot];
     }
 
     public void setInverseMass(float inverseMass) {
-        this.inverseMass = inverseMass;
+        pool.inverseMass[slot] = inverseMass;
     }
 
     public Matrix3f getInverseInertiaTensor() {
-        return inverseInertiaTensor;
+        return toMatrix(pool.inverseInertia, new Matrix3f());
     }
 
+    // Body space inverse inertia; the world space one is derived from it right away
     public void setInverseInertiaTensor(Matrix3f inverseInertiaTensor) {
-        this.inverseInertiaTensor = inverseInertiaTensor;
+        fromMatrix(inverseInertiaTensor, pool.inverseInertia);
+        pool.calculateDerivedData(slot);
     }
 
     public float getLinearDamping() {
-        return linearDamping;
+        return pool.linearDamping[slot];
     }
 
     public void setLinearDamping(float linearDamping) {
-        this.linearDamping = linearDamping;
+        pool.linearDamping[slot] = linearDamping;
+        pool.dampingChanged();
     }
 
     public float getAngularDamping() {
-        return angularDamping;
+        return pool.angularDamping[slot];
     }
 
     public void setAngularDamping(float angularDamping) {
-        this.angularDamping = angularDamping;
+        pool.angularDamping[slot] = angularDamping;
+        pool.dampingChanged();
     }
 
     public Vector3f getPosition() {
-        return position;
+        return getPosition(new Vector3f());
+    }
+
+    public Vector3f getPosition(Vector3f dest) {
+        return get(pool.position, dest);
     }
 
     public void setPosition(Vector3f position) {
-        this.position = position;
+        set(pool.position, position);
     }
 
     public Quaternion getOrientation() {
-        return orientation;
+        return getOrientation(new Quaternion());
+    }
+
+    public Quaternion getOrientation(Quaternion dest) {
+        int q = pool.offset(slot, 4);
+        int b = pool.block;
+        dest.x = pool.orientation[q];
+        dest.y = pool.orientation[q + b];
+        dest.z = pool.orientation[q + 2 * b];
+        dest.w = pool.orientation[q + 3 * b];
+        return dest;
     }
 
+    // Normalised on the way in, the derived data follows
     public void setOrientation(Quaternion orientation) {
-        this.orientation = orientation;
+        int q = pool.offset(slot, 4);
+        int b = pool.block;
+        pool.orientation[q] = orientation.x;
+        pool.orientation[q + b] = orientation.y;
+        pool.orientation[q + 2 * b] = orientation.z;
+        pool.orientation[q + 3 * b] = orientation.w;
+        pool.calculateDerivedData(slot);
     }
 
     public Vector3f getVelocity() {
-        return velocity;
+        return getVelocity(new Vector3f());
+    }
+
+    public Vector3f getVelocity(Vector3f dest) {
+        return get(pool.velocity, dest);
     }
 
     public void setVelocity(Vector3f velocity) {
-        this.velocity = velocity;
+        set(pool.velocity, velocity);
     }
 
     public Vector3f getRotation() {
-        return rotation;
+        return getRotation(new Vector3f());
+    }
+
+    public Vector3f getRotation(Vector3f dest) {
+        return get(pool.rotation, dest);
     }
 
     public void setRotation(Vector3f rotation) {
-        this.rotation = rotation;
+        set(pool.rotation, rotation);
     }
 
     public Matrix3f getInverseInertiaTensorWorld() {
-        return inverseInertiaTensorWorld;
+        return toMatrix(pool.inverseInertiaWorld, new Matrix3f());
     }
 
     public void setInverseInertiaTensorWorld(Matrix3f inverseInertiaTensorWorld) {
-        this.inverseInertiaTensorWorld = inverseInertiaTensorWorld;
+        fromMatrix(inverseInertiaTensorWorld, pool.inverseInertiaWorld);
     }
 
     public float getMotion() {
-        return motion;
+        return pool.motion[slot];
     }
 
     public void setMotion(float motion) {
-        this.motion = motion;
+        pool.motion[slot] = motion;
     }
 
     public boolean isAwake() {
-        return isAwake;
+        return pool.awake[slot];
     }
 
+    // Waking a sleeping body gives it some motion, so it stays awake for a while instead of
+    // falling asleep again on the next step
     public void setAwake(boolean awake) {
-        isAwake = awake;
+        if (awake && !pool.awake[slot])
+            pool.motion[slot] = 2 * SLEEP_EPSILON;
+        pool.awake[slot] = awake;
+    }
+
+    // Asleep although it moves under forces; static bodies, with zero inverse mass, never sleep and
+    // may be moved by hand. The boxes of sleeping bodies are left out of broad phase updates.
+    public boolean isSleeping() {
+        return !isAwake() && getInverseMass() > 0;
     }
 
     public boolean isCanSleep() {
-        return canSleep;
+        return pool.canSleep[slot];
     }
 
     public void setCanSleep(boolean canSleep) {
-        this.canSleep = canSleep;
-        
-        if (!canSleep && !isAwake) setAwake(true);
-    }
+        pool.canSleep[slot] = canSleep;
 
-    public Matrix4f getTransformMatrix() {
-        return transformMatrix;
+        if (!canSleep && !isAwake()) setAwake(true);
     }
 
+    // Rotation in the upper 3x3, position in m30, m31, m32
+    public Matrix4f getTransformMatrix() {
+        Matrix4f transform = new Matrix4f();
+        Matrix3f rotation = toMatrix(pool.rotationMatrix, new Matrix3f());
+        transform.setM00(rotation.getM00());
+        transform.setM01(rotation.getM01());
+        transform.setM02(rotation.getM02());
+        transform.setM10(rotation.getM10());
+        transform.setM11(rotation.getM11());
+        transform.setM12(rotation.getM12());
+        transform.setM20(rotation.getM20());
+        transform.setM21(rotation.getM21());
+        transform.setM22(rotation.getM22());
+        Vector3f position = getPosition();
+        transform.setM30(position.x);
+        transform.setM31(position.y);
+        transform.setM32(position.z);
+        return transform;
+    }
+
+    // Takes position and orientation from a transform laid out like getTransformMatrix
     public void setTransformMatrix(Matrix4f transformMatrix) {
-        this.transformMatrix = transformMatrix;
+        setPosition(new Vector3f(transformMatrix.getM30(), transformMatrix.getM31(), transformMatrix.getM32()));
+        setOrientation(Quaternion.setFromMatrix(transformMatrix, new Quaternion()));
     }
 
     public Vector3f getForceAccum() {
-        return forceAccum;
+        return get(pool.forceAccum, new Vector3f());
     }
 
     public void setForceAccum(Vector3f forceAccum) {
-        this.forceAccum = forceAccum;
+        set(pool.forceAccum, forceAccum);
     }
 
     public Vector3f getTorqueAccum() {
-        return torqueAccum;
+        return get(pool.torqueAccum, new Vector3f());
     }
 
     public void setTorqueAccum(Vector3f torqueAccum) {
-        this.torqueAccum = torqueAccum;
+        set(pool.torqueAccum, torqueAccum);
     }
 
     public Vector3f getAcceleration() {
-        return acceleration;
+        return get(pool.acceleration, new Vector3f());
     }
 
     public void setAcceleration(Vector3f acceleration) {
-        this.acceleration = acceleration;
+        set(pool.acceleration, acceleration);
     }
 
     public Vector3f getLastFrameAcceleration() {
-        return lastFrameAcceleration;
+        return get(pool.lastFrameAcceleration, new Vector3f());
     }
 
     public void setLastFrameAcceleration(Vector3f lastFrameAcceleration) {
-        this.lastFrameAcceleration = lastFrameAcceleration;
+        set(pool.lastFrameAcceleration, lastFrameAcceleration);
     }
 
     public boolean isFiniteMass() {
-        return inverseMass >= 0.0f;
+        return getInverseMass() >= 0.0f;
     }
 
     public boolean hasCollider() {
@@ -302,17 +269,17 @@ public class RigidBody {
     }
 
     public void addForce(Vector3f force) {
-        forceAccum = forceAccum.add(force);
-        isAwake = true;
+        add(pool.forceAccum, force.x, force.y, force.z);
+        setAwake(true);
     }
 
     public Vector3f getPointInWorldSpace(Vector3f point) {
-        return transformMatrix.transform(point);
+        return rotate(point, new Vector3f()).addLocal(getPosition());
     }
 
     public void addTorque(Vector3f torque) {
-        torqueAccum = torqueAccum.add(torque);
-        isAwake = true;
+        add(pool.torqueAccum, torque.x, torque.y, torque.z);
+        setAwake(true);
     }
 
     public void addForceAtBodyPoint(Vector3f force, Vector3f point) {
@@ -323,142 +290,119 @@ public class RigidBody {
 
     public void addForceAtPoint(Vector3f force, Vector3f point) {
         // Convert to coordinates relative to center of mass.
-        Vector3f pt = point.sub(position);
+        int v = pool.offset(slot, 3);
+        int b = pool.block;
+        float px = point.x - pool.position[v];
+        float py = point.y - pool.position[v + b];
+        float pz = point.z - pool.position[v + 2 * b];
 
-        forceAccum = forceAccum.add(force);
-        torqueAccum = torqueAccum.add(pt.cross(force));
+        add(pool.forceAccum, force.x, force.y, force.z);
+        add(pool.torqueAccum, py * force.z - pz * force.y, pz * force.x - px * force.z, px * force.y - py * force.x);
 
-        isAwake = true;
+        setAwake(true);
     }
 
-    private void clearAccumulators() {
-        forceAccum.clear();
-        torqueAccum.clear();
+    public void integrate(float duration) {
+        integrateVelocity(duration);
+        integratePosition(duration);
     }
 
-    public void integrate(float duration) {
-        if (!isAwake) return;
-
-        // Calculate linear acceleration from force inputs.
-        lastFrameAcceleration = acceleration.add(acceleration.mul(forceAccum.mul(inverseMass)));
-
-        // Calculate angular acceleration from torque inputs.
-        Vector3f angularAcceleration = inverseInertiaTensorWorld.transform(torqueAccum);
-
-        // Adjust velocities
-        // Update linear velocity from both acceleration and impulse.
-        velocity = lastFrameAcceleration.add(lastFrameAcceleration.mul(duration));
-
-        // Update angular velocity from both acceleration and impulse.
-        rotation = rotation.add(angularAcceleration.mul(duration));
-
-        // Impose drag.
-        velocity = velocity.mul((float) Math.pow(linearDamping, duration));
-        rotation = rotation.mul((float) Math.pow(angularDamping, duration));
-
-        // Adjust positions
-        // Update linear position.
-        position = position.add(velocity.mul(duration));
-
-        // Update angular position.
-        orientation = orientation.add(rotation.mul(duration));
-
-        // Normalise the orientation, and update the matrices with the new
-        // position and orientation
-        calculateDerivedData();
-
-        // Clear accumulators.
-        clearAccumulators();
-
-        // Update the kinetic energy store, and possibly put the body to
-        // sleep.
-        if (canSleep) {
-            float currentMotion = velocity.dot(velocity) +
-                    rotation.dot(rotation);
-
-            float bias = (float) Math.pow(0.5, duration);
-            motion = bias * motion + (1 - bias) * currentMotion;
-
-            if (motion < SLEEP_EPSILON) setAwake(false);
-            else if (motion > 10 * SLEEP_EPSILON) motion = 10 * SLEEP_EPSILON;
-        }
-    }
-
-    private void calculateTransformMatrix() {
-        // Extract the rotation matrix from the quaternion.
-        float xx = orientation.x * orientation.x;
-        float xy = orientation.x * orientation.y;
-        float xz = orientation.x * orientation.z;
-        float yy = orientation.y * orientation.y;
-        float yz = orientation.y * orientation.z;
-        float zz = orientation.z * orientation.z;
-        float wx = orientation.w * orientation.x;
-        float wy = orientation.w * orientation.y;
-        float wz = orientation.w * orientation.z;
-
-        transformMatrix.setM00(1.0f - 2.0f * (yy + zz));
-        transformMatrix.setM01(2.0f * (xy - wz));
-        transformMatrix.setM02(2.0f * (xz + wy));
-        transformMatrix.setM03(0.0f);
-        transformMatrix.setM10(2.0f * (xy + wz));
-        transformMatrix.setM11(1.0f - 2.0f * (xx + zz));
-        transformMatrix.setM12(2.0f * (yz - wx));
-        transformMatrix.setM13(0.0f);
-        transformMatrix.setM20(2.0f * (xz - wy));
-        transformMatrix.setM21(2.0f * (yz + wx));
-        transformMatrix.setM22(1.0f - 2.0f * (xx + yy));
-        transformMatrix.setM23(0.0f);
-        transformMatrix.setM30(position.x);
-        transformMatrix.setM31(position.y);
-        transformMatrix.setM32(position.z);
-        transformMatrix.setM33(1.0f);
-
-    }
-
-    private void transformInertiaTensor() {
-
-        transformMatrix.setM00(1 - 2 * orientation.z * orientation.z -
-                2 * orientation.w * orientation.w);
-        transformMatrix.setM01(2 * orientation.y * orientation.z -
-                2 * orientation.x * orientation.w);
-        transformMatrix.setM02(2 * orientation.y * orientation.w +
-                2 * orientation.x * orientation.z);
-        transformMatrix.setM03(position.x);
-
-        transformMatrix.setM10(2 * orientation.y * orientation.z +
-                2 * orientation.x * orientation.w);
-        transformMatrix.setM11(1 - 2 * orientation.y * orientation.y -
-                2 * orientation.w * orientation.w);
-        transformMatrix.setM12(2 * orientation.z * orientation.w -
-                2 * orientation.x * orientation.y);
-        transformMatrix.setM13(position.y);
-
-        transformMatrix.setM20(2 * orientation.y * orientation.w -
-                2 * orientation.x * orientation.z);
-        transformMatrix.setM21(2 * orientation.z * orientation.w +
-                2 * orientation.x * orientation.y);
-        transformMatrix.setM22(1 - 2 * orientation.y * orientation.y -
-                2 * orientation.z * orientation.z);
-        transformMatrix.setM23(position.z);
-
-    }
-
-    private void calculateDerivedData() {
-        orientation = orientation.normalize();
-
-        // Calculate the transform matrix for the body.
-        calculateTransformMatrix();
-
-        // Calculate the inertiaTensor in world space.
-        transformInertiaTensor();
+    // First half of a step: forces and the constant acceleration change the velocities. The contact
+    // solver runs in between, on the velocities the bodies are about to move with.
+    public void integrateVelocity(float duration) {
+        pool.integrateVelocity(slot, duration);
+    }
+
+    // Second half of a step: the body moves with its velocities
+    public void integratePosition(float duration) {
+        pool.integratePosition(slot, duration);
+    }
+
+    // Normalises the orientation and rebuilds the rotation and the world inverse inertia from it
+    public void calculateDerivedData() {
+        pool.calculateDerivedData(slot);
     }
 
     public Vector3f getPointInLocalSpace(Vector3f point) {
-        return transformMatrix.transformInverse(point);
+        Vector3f local = getPosition().negateLocal().addLocal(point);
+        return rotateInverse(local, local);
     }
 
     public Vector3f getDirectionInWorldSpace(Vector3f direction) {
-        return transformMatrix.transformDirection(direction);
+        return rotate(direction, new Vector3f());
+    }
+
+    public Vector3f getDirectionInWorldSpace(Vector3f direction, Vector3f dest) {
+        return rotate(direction, dest);
+    }
+
+    private Vector3f rotate(Vector3f v, Vector3f dest) {
+        int m = pool.offset(slot, 9);
+        int b = pool.block;
+        float[] r = pool.rotationMatrix;
+        // All of v is read before dest is written, so dest may be v
+        return dest.set(r[m] * v.x + r[m + b] * v.y + r[m + 2 * b] * v.z,
+                r[m + 3 * b] * v.x + r[m + 4 * b] * v.y + r[m + 5 * b] * v.z,
+                r[m + 6 * b] * v.x + r[m + 7 * b] * v.y + r[m + 8 * b] * v.z);
+    }
+
+    private Vector3f rotateInverse(Vector3f v, Vector3f dest) {
+        int m = pool.offset(slot, 9);
+        int b = pool.block;
+        float[] r = pool.rotationMatrix;
+        return dest.set(r[m] * v.x + r[m + 3 * b] * v.y + r[m + 6 * b] * v.z,
+                r[m + b] * v.x + r[m + 4 * b] * v.y + r[m + 7 * b] * v.z,
+                r[m + 2 * b] * v.x + r[m + 5 * b] * v.y + r[m + 8 * b] * v.z);
+    }
+
+    private Vector3f get(float[] array, Vector3f dest) {
+        int v = pool.offset(slot, 3);
+        int b = pool.block;
+        return dest.set(array[v], array[v + b], array[v + 2 * b]);
+    }
+
+    private void set(float[] array, Vector3f value) {
+        int v = pool.offset(slot, 3);
+        int b = pool.block;
+        array[v] = value.x;
+        array[v + b] = value.y;
+        array[v + 2 * b] = value.z;
+    }
+
+    private void add(float[] array, float x, float y, float z) {
+        int v = pool.offset(slot, 3);
+        int b = pool.block;
+        array[v] += x;
+        array[v + b] += y;
+        array[v + 2 * b] += z;
+    }
+
+    private Matrix3f toMatrix(float[] array, Matrix3f dest) {
+        int m = pool.offset(slot, 9);
+        int b = pool.block;
+        dest.setM00(array[m]);
+        dest.setM01(array[m + b]);
+        dest.setM02(array[m + 2 * b]);
+        dest.setM10(array[m + 3 * b]);
+        dest.setM11(array[m + 4 * b]);
+        dest.setM12(array[m + 5 * b]);
+        dest.setM20(array[m + 6 * b]);
+        dest.setM21(array[m + 7 * b]);
+        dest.setM22(array[m + 8 * b]);
+        return dest;
+    }
+
+    private void fromMatrix(Matrix3f matrix, float[] array) {
+        int m = pool.offset(slot, 9);
+        int b = pool.block;
+        array[m] = matrix.getM00();
+        array[m + b] = matrix.getM01();
+        array[m + 2 * b] = matrix.getM02();
+        array[m + 3 * b] = matrix.getM10();
+        array[m + 4 * b] = matrix.getM11();
+        array[m + 5 * b] = matrix.getM12();
+        array[m + 6 * b] = matrix.getM20();
+        array[m + 7 * b] = matrix.getM21();
+        array[m + 8 * b] = matrix.getM22();
     }
-
 }
@@ -0,0 +1,499 @@
+package physics.rigidBody;
+
+import java.util.Arrays;
+
+import static math.Const.SLEEP_EPSILON;
+
+// State of many rigid bodies in parallel primitive arrays, one slot per body, so stepping them is
+// a linear scan over a few arrays instead of a walk over ten small objects per body. Vectors take
+// three floats per slot, quaternions four (x, y, z, w) and matrices nine, row major.
+// The slots of those arrays are grouped in blocks of up to BLOCK bodies, and within a block each
+// component has a run of its own: all the x of the block, then all the y, and so on. Component c
+// of a slot is at offset(slot, floats) + c * block, and the same component of a whole block
+// loads as one SIMD vector.
+// RigidBody is a handle into a slot. Removing a body moves the last one into its slot so the
+// arrays stay dense; the handle of the moved body is updated, so handles stay valid but slot
+// numbers do not.
+public class RigidBodyPool {
+
+    public static final int DEFAULT_CAPACITY = 16;
+
+    // Bodies per block in pools of at least that capacity, smaller pools are one block
+    static final int BLOCK = 16;
+
+    // The vectorised integration needs the incubating module, run with --add-modules
+    // jdk.incubator.vector to get it; without it every pool integrates with the scalar code
+    private static final boolean VECTOR_API = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private boolean vectorized = VECTOR_API;
+
+    // Bodies per block, a power of two up to BLOCK that divides the capacity
+    int block;
+
+    private RigidBody[] bodies;
+    private int size;
+
+    /**
+     * Inverse of the mass of every body. Zero is an immovable body.
+     */
+    float[] inverseMass;
+
+    /**
+     * Inverse inertia tensor of every body, in body space.
+     */
+    float[] inverseInertia;
+
+    /**
+     * Inverse inertia tensor of every body in world space, derived from the body space one and
+     * the orientation by calculateDerivedData.
+     */
+    float[] inverseInertiaWorld;
+
+    /**
+     * Part of the velocity kept after one second, 1 is no damping. Damping removes energy added
+     * through numerical instability in the integrator.
+     */
+    float[] linearDamping;
+    float[] angularDamping;
+
+    /**
+     * The damping of every body raised to dampingDuration: the part of the velocity kept over one
+     * step of that length. Worked out once for a run of steps of the same length, instead of a
+     * Math.pow per body per step.
+     */
+    float[] linearDampingStep;
+    float[] angularDampingStep;
+    private float dampingDuration = Float.NaN;
+
+    /**
+     * Position and orientation of every body in world space.
+     */
+    float[] position;
+    float[] orientation;
+
+    /**
+     * Rotation matrix of every orientation, derived by calculateDerivedData.
+     */
+    float[] rotationMatrix;
+
+    /**
+     * Linear and angular velocity of every body in world space.
+     */
+    float[] velocity;
+    float[] rotation;
+
+    /**
+     * Force and torque accumulated for the next integration step.
+     */
+    float[] forceAccum;
+    float[] torqueAccum;
+
+    /**
+     * Constant acceleration of every body, gravity for most, and the linear acceleration of the
+     * previous step.
+     */
+    float[] acceleration;
+    float[] lastFrameAcceleration;
+
+    /**
+     * Recency weighted mean of the motion of every body, used to put it to sleep.
+     */
+    float[] motion;
+
+    boolean[] awake;
+    boolean[] canSleep;
+
+    /**
+     * Set while the body touches another moving body. It then falls asleep with its island, see
+     * IslandManager, rather than on its own.
+     */
+    boolean[] grouped;
+
+    public RigidBodyPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public RigidBodyPool(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        capacity = roundCapacity(capacity);
+        block = Math.min(capacity, BLOCK);
+        bodies = new RigidBody[capacity];
+        inverseMass = new float[capacity];
+        inverseInertia = new float[capacity * 9];
+        inverseInertiaWorld = new float[capacity * 9];
+        linearDamping = new float[capacity];
+        angularDamping = new float[capacity];
+        linearDampingStep = new float[capacity];
+        angularDampingStep = new float[capacity];
+        position = new float[capacity * 3];
+        orientation = new float[capacity * 4];
+        rotationMatrix = new float[capacity * 9];
+        velocity = new float[capacity * 3];
+        rotation = new float[capacity * 3];
+        forceAccum = new float[capacity * 3];
+        torqueAccum = new float[capacity * 3];
+        acceleration = new float[capacity * 3];
+        lastFrameAcceleration = new float[capacity * 3];
+        motion = new float[capacity];
+        awake = new boolean[capacity];
+        canSleep = new boolean[capacity];
+        grouped = new boolean[capacity];
+    }
+
+    // A power of two below BLOCK, a multiple of BLOCK from there
+    private static int roundCapacity(int capacity) {
+        if (capacity < BLOCK)
+            return Integer.highestOneBit(capacity * 2 - 1);
+        return (capacity + BLOCK - 1) / BLOCK * BLOCK;
+    }
+
+    // Index of the first component of the slot in an array of the given floats per slot
+    int offset(int slot, int floats) {
+        return offset(slot, floats, block);
+    }
+
+    private static int offset(int slot, int floats, int block) {
+        return (slot & -block) * floats + (slot & (block - 1));
+    }
+
+    // New body at the origin, at rest, with zero inverse mass, identity inverse inertia and no damping
+    public RigidBody create() {
+        return new RigidBody(this);
+    }
+
+    // Claims a cleared slot for the handle
+    int add(RigidBody body) {
+        if (size == bodies.length)
+            grow(bodies.length * 2);
+        int slot = size++;
+        clearSlot(slot);
+        bodies[slot] = body;
+        return slot;
+    }
+
+    public void remove(RigidBody body) {
+        if (body.getPool() != this)
+            throw new IllegalArgumentException("Body is not in this pool");
+        int slot = body.getSlot();
+        int last = --size;
+        if (slot != last) {
+            copySlot(last, slot);
+            bodies[slot] = bodies[last];
+            bodies[slot].setSlot(slot);
+        }
+        bodies[last] = null;
+        body.detach();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public RigidBody get(int slot) {
+        if (slot < 0 || slot >= size)
+            throw new IndexOutOfBoundsException("Slot " + slot + " of " + size);
+        return bodies[slot];
+    }
+
+    public static boolean isVectorApiAvailable() {
+        return VECTOR_API;
+    }
+
+    public boolean isVectorized() {
+        return vectorized;
+    }
+
+    // Vectorised integration is on by default whenever the Vector API is available
+    public void setVectorized(boolean vectorized) {
+        if (vectorized && !VECTOR_API)
+            throw new IllegalStateException("jdk.incubator.vector is not available, run with --add-modules jdk.incubator.vector");
+        this.vectorized = vectorized;
+    }
+
+    public void integrate(float duration) {
+        integrateVelocities(duration);
+        integratePositions(duration);
+    }
+
+    public void integrateVelocities(float duration) {
+        if (duration != dampingDuration) {
+            for (int i = 0; i < size; i++) {
+                linearDampingStep[i] = dampingStep(linearDamping[i], duration);
+                angularDampingStep[i] = dampingStep(angularDamping[i], duration);
+            }
+            dampingDuration = duration;
+        }
+        if (vectorized) {
+            VectorIntegrator.integrateVelocities(this, duration);
+            return;
+        }
+        for (int i = 0; i < size; i++)
+            integrateVelocity(i, duration);
+    }
+
+    public void integratePositions(float duration) {
+        if (vectorized) {
+            VectorIntegrator.integratePositions(this, duration);
+            return;
+        }
+        for (int i = 0; i < size; i++)
+            integratePosition(i, duration);
+    }
+
+    // Forces and the constant acceleration change the velocities of the body in the slot
+    void integrateVelocity(int slot, float duration) {
+        if (!awake[slot] || inverseMass[slot] == 0) return;
+
+        int b = block;
+        int v = offset(slot, 3);
+        int m = offset(slot, 9);
+        float inverse = inverseMass[slot];
+
+        // Linear acceleration from the constant acceleration and the force inputs
+        float ax = acceleration[v] + forceAccum[v] * inverse;
+        float ay = acceleration[v + b] + forceAccum[v + b] * inverse;
+        float az = acceleration[v + 2 * b] + forceAccum[v + 2 * b] * inverse;
+        lastFrameAcceleration[v] = ax;
+        lastFrameAcceleration[v + b] = ay;
+        lastFrameAcceleration[v + 2 * b] = az;
+
+        // Angular acceleration from the torque inputs
+        float tx = torqueAccum[v];
+        float ty = torqueAccum[v + b];
+        float tz = torqueAccum[v + 2 * b];
+        float[] inertia = inverseInertiaWorld;
+        float wx = inertia[m] * tx + inertia[m + b] * ty + inertia[m + 2 * b] * tz;
+        float wy = inertia[m + 3 * b] * tx + inertia[m + 4 * b] * ty + inertia[m + 5 * b] * tz;
+        float wz = inertia[m + 6 * b] * tx + inertia[m + 7 * b] * ty + inertia[m + 8 * b] * tz;
+
+        // Impose drag after the update
+        boolean cached = duration == dampingDuration;
+        float linear = cached ? linearDampingStep[slot] : dampingStep(linearDamping[slot], duration);
+        float angular = cached ? angularDampingStep[slot] : dampingStep(angularDamping[slot], duration);
+        velocity[v] = (velocity[v] + ax * duration) * linear;
+        velocity[v + b] = (velocity[v + b] + ay * duration) * linear;
+        velocity[v + 2 * b] = (velocity[v + 2 * b] + az * duration) * linear;
+        rotation[v] = (rotation[v] + wx * duration) * angular;
+        rotation[v + b] = (rotation[v + b] + wy * duration) * angular;
+        rotation[v + 2 * b] = (rotation[v + 2 * b] + wz * duration) * angular;
+
+        forceAccum[v] = 0;
+        forceAccum[v + b] = 0;
+        forceAccum[v + 2 * b] = 0;
+        torqueAccum[v] = 0;
+        torqueAccum[v + b] = 0;
+        torqueAccum[v + 2 * b] = 0;
+    }
+
+    private static float dampingStep(float damping, float duration) {
+        return damping == 1 ? 1 : (float) Math.pow(damping, duration);
+    }
+
+    // The damping of a body changed, the steps are worked out again on the next integration
+    void dampingChanged() {
+        dampingDuration = Float.NaN;
+    }
+
+    // The body in the slot moves with its velocities, and may fall asleep
+    void integratePosition(int slot, float duration) {
+        if (!awake[slot]) return;
+
+        int b = block;
+        int v = offset(slot, 3);
+        int q = offset(slot, 4);
+        float vx = velocity[v];
+        float vy = velocity[v + b];
+        float vz = velocity[v + 2 * b];
+        position[v] += vx * duration;
+        position[v + b] += vy * duration;
+        position[v + 2 * b] += vz * duration;
+
+        // q += 0.5 * (rotation, 0) * q * duration
+        float rx = rotation[v];
+        float ry = rotation[v + b];
+        float rz = rotation[v + 2 * b];
+        float wx = rx * duration * 0.5f;
+        float wy = ry * duration * 0.5f;
+        float wz = rz * duration * 0.5f;
+        float qx = orientation[q];
+        float qy = orientation[q + b];
+        float qz = orientation[q + 2 * b];
+        float qw = orientation[q + 3 * b];
+        orientation[q] = qx + wx * qw + wy * qz - wz * qy;
+        orientation[q + b] = qy + wy * qw + wz * qx - wx * qz;
+        orientation[q + 2 * b] = qz + wz * qw + wx * qy - wy * qx;
+        orientation[q + 3 * b] = qw - wx * qx - wy * qy - wz * qz;
+
+        calculateDerivedData(slot);
+
+        // Update the kinetic energy store, and possibly put the body to sleep
+        if (canSleep[slot]) {
+            float currentMotion = vx * vx + vy * vy + vz * vz + rx * rx + ry * ry + rz * rz;
+            float bias = (float) Math.pow(0.5, duration);
+            motion[slot] = bias * motion[slot] + (1 - bias) * currentMotion;
+
+            if (motion[slot] < SLEEP_EPSILON) {
+                // A body in an island sleeps when the whole island does
+                if (!grouped[slot]) awake[slot] = false;
+            } else if (motion[slot] > 10 * SLEEP_EPSILON) motion[slot] = 10 * SLEEP_EPSILON;
+        }
+    }
+
+    // Normalises the orientation and rebuilds the rotation matrix and the world inverse inertia
+    void calculateDerivedData(int slot) {
+        int b = block;
+        int q = offset(slot, 4);
+        float x = orientation[q];
+        float y = orientation[q + b];
+        float z = orientation[q + 2 * b];
+        float w = orientation[q + 3 * b];
+        float lengthSquared = x * x + y * y + z * z + w * w;
+        if (lengthSquared > 0) {
+            float inverseLength = (float) (1 / Math.sqrt(lengthSquared));
+            x *= inverseLength;
+            y *= inverseLength;
+            z *= inverseLength;
+            w *= inverseLength;
+        } else {
+            w = 1;
+        }
+        orientation[q] = x;
+        orientation[q + b] = y;
+        orientation[q + 2 * b] = z;
+        orientation[q + 3 * b] = w;
+
+        int m = offset(slot, 9);
+        float[] r = rotationMatrix;
+        r[m] = 1 - 2 * (y * y + z * z);
+        r[m + b] = 2 * (x * y - w * z);
+        r[m + 2 * b] = 2 * (x * z + w * y);
+        r[m + 3 * b] = 2 * (x * y + w * z);
+        r[m + 4 * b] = 1 - 2 * (x * x + z * z);
+        r[m + 5 * b] = 2 * (y * z - w * x);
+        r[m + 6 * b] = 2 * (x * z - w * y);
+        r[m + 7 * b] = 2 * (y * z + w * x);
+        r[m + 8 * b] = 1 - 2 * (x * x + y * y);
+
+        // World inverse inertia R * I^-1 * R^T
+        float[] local = inverseInertia;
+        float[] world = inverseInertiaWorld;
+        for (int row = 0; row < 3; row++) {
+            float r0 = r[m + row * 3 * b];
+            float r1 = r[m + (row * 3 + 1) * b];
+            float r2 = r[m + (row * 3 + 2) * b];
+            float t0 = r0 * local[m] + r1 * local[m + 3 * b] + r2 * local[m + 6 * b];
+            float t1 = r0 * local[m + b] + r1 * local[m + 4 * b] + r2 * local[m + 7 * b];
+            float t2 = r0 * local[m + 2 * b] + r1 * local[m + 5 * b] + r2 * local[m + 8 * b];
+            for (int column = 0; column < 3; column++)
+                world[m + (row * 3 + column) * b] = t0 * r[m + column * 3 * b] + t1 * r[m + (column * 3 + 1) * b]
+                        + t2 * r[m + (column * 3 + 2) * b];
+        }
+    }
+
+    private void clearSlot(int slot) {
+        int b = block;
+        int q = offset(slot, 4);
+        int m = offset(slot, 9);
+        inverseMass[slot] = 0;
+        linearDamping[slot] = 1;
+        angularDamping[slot] = 1;
+        linearDampingStep[slot] = 1;
+        angularDampingStep[slot] = 1;
+        motion[slot] = 0;
+        awake[slot] = false;
+        canSleep[slot] = false;
+        grouped[slot] = false;
+        clear(position, slot, 3);
+        clear(velocity, slot, 3);
+        clear(rotation, slot, 3);
+        clear(forceAccum, slot, 3);
+        clear(torqueAccum, slot, 3);
+        clear(acceleration, slot, 3);
+        clear(lastFrameAcceleration, slot, 3);
+        clear(orientation, slot, 4);
+        orientation[q + 3 * b] = 1;
+        clear(inverseInertia, slot, 9);
+        inverseInertia[m] = 1;
+        inverseInertia[m + 4 * b] = 1;
+        inverseInertia[m + 8 * b] = 1;
+        calculateDerivedData(slot);
+    }
+
+    private void clear(float[] array, int slot, int floats) {
+        int offset = offset(slot, floats);
+        for (int c = 0; c < floats; c++)
+            array[offset + c * block] = 0;
+    }
+
+    private void copySlot(int from, int to) {
+        inverseMass[to] = inverseMass[from];
+        linearDamping[to] = linearDamping[from];
+        angularDamping[to] = angularDamping[from];
+        linearDampingStep[to] = linearDampingStep[from];
+        angularDampingStep[to] = angularDampingStep[from];
+        motion[to] = motion[from];
+        awake[to] = awake[from];
+        canSleep[to] = canSleep[from];
+        grouped[to] = grouped[from];
+        copy(position, from, to, 3);
+        copy(velocity, from, to, 3);
+        copy(rotation, from, to, 3);
+        copy(forceAccum, from, to, 3);
+        copy(torqueAccum, from, to, 3);
+        copy(acceleration, from, to, 3);
+        copy(lastFrameAcceleration, from, to, 3);
+        copy(orientation, from, to, 4);
+        copy(rotationMatrix, from, to, 9);
+        copy(inverseInertia, from, to, 9);
+        copy(inverseInertiaWorld, from, to, 9);
+    }
+
+    private void copy(float[] array, int from, int to, int floats) {
+        int source = offset(from, floats);
+        int target = offset(to, floats);
+        for (int c = 0; c < floats; c++)
+            array[target + c * block] = array[source + c * block];
+    }
+
+    private void grow(int capacity) {
+        int grown = Math.min(capacity, BLOCK);
+        bodies = Arrays.copyOf(bodies, capacity);
+        inverseMass = Arrays.copyOf(inverseMass, capacity);
+        inverseInertia = grow(inverseInertia, 9, capacity, grown);
+        inverseInertiaWorld = grow(inverseInertiaWorld, 9, capacity, grown);
+        linearDamping = Arrays.copyOf(linearDamping, capacity);
+        angularDamping = Arrays.copyOf(angularDamping, capacity);
+        linearDampingStep = Arrays.copyOf(linearDampingStep, capacity);
+        angularDampingStep = Arrays.copyOf(angularDampingStep, capacity);
+        position = grow(position, 3, capacity, grown);
+        orientation = grow(orientation, 4, capacity, grown);
+        rotationMatrix = grow(rotationMatrix, 9, capacity, grown);
+        velocity = grow(velocity, 3, capacity, grown);
+        rotation = grow(rotation, 3, capacity, grown);
+        forceAccum = grow(forceAccum, 3, capacity, grown);
+        torqueAccum = grow(torqueAccum, 3, capacity, grown);
+        acceleration = grow(acceleration, 3, capacity, grown);
+        lastFrameAcceleration = grow(lastFrameAcceleration, 3, capacity, grown);
+        motion = Arrays.copyOf(motion, capacity);
+        awake = Arrays.copyOf(awake, capacity);
+        canSleep = Arrays.copyOf(canSleep, capacity);
+        grouped = Arrays.copyOf(grouped, capacity);
+        block = grown;
+    }
+
+    // Whole blocks keep their layout; while the pool is a single block that block gets wider,
+    // and every slot moves
+    private float[] grow(float[] array, int floats, int capacity, int grown) {
+        if (grown == block)
+            return Arrays.copyOf(array, capacity * floats);
+        float[] moved = new float[capacity * floats];
+        for (int slot = 0; slot < size; slot++) {
+            int source = offset(slot, floats, block);
+            int target = offset(slot, floats, grown);
+            for (int c = 0; c < floats; c++)
+                moved[target + c * grown] = array[source + c * block];
+        }
+        return moved;
+    }
+}
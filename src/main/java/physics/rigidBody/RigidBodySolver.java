@@ -1,10 +1,440 @@
 package physics.rigidBody;
 
+import collisionDetection.contact.ContactPoint;
+import collisionDetection.contact.PersistentManifold;
 import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+import math.Maths;
+import math.Vector3f;
 
+import java.util.Arrays;
+
+// Sequential impulse contact solver. solve only queues the contact points of a pair; resolve then
+// sweeps over all queued points of the step a fixed number of times, each point applying the
+// impulse that cancels its own relative velocity, so the impulses spread through a stack instead
+// of being settled one pair at a time. Accumulated impulses are clamped rather than the per sweep
+// ones, the normal one to push only and the friction ones to the Coulomb cone. Points of a
+// PersistentManifold start from the impulses of the previous step and hand the final ones back.
+// Penetration is corrected with a Baumgarte velocity bias, restitution with a bias from the
+// approach speed; a point takes whichever of the two pushes harder.
+// The velocities of the moving bodies are copied into one array for the step, so the sweeps read
+// and write them by index rather than through the body pools. Bodies with zero inverse mass or
+// asleep do not move.
 public class RigidBodySolver implements SolveCollisionDispatcher {
+
+    public static final int DEFAULT_ITERATIONS = 10;
+
+    // Approach speeds below this do not bounce, so resting contacts do not jitter under gravity
+    private static final float RESTITUTION_THRESHOLD = 1;
+
+    private ContactConstraint[] constraints;
+    private int constraintCount;
+    // Bodies the step moves, in the order of their solverIndex
+    private RigidBody[] bodies;
+    private int bodyCount;
+    // Linear then angular velocity of every moving body, six floats each
+    private float[] velocities;
+    private float[] inverseMasses;
+    private int iterations;
+    private float friction;
+    private float restitution;
+    private float baumgarte;
+    private float slop;
+    private boolean warmStarting;
+    private final Vector3f scratch;
+
+    public RigidBodySolver() {
+        this.constraints = new ContactConstraint[0];
+        this.bodies = new RigidBody[0];
+        this.velocities = new float[0];
+        this.inverseMasses = new float[0];
+        this.iterations = DEFAULT_ITERATIONS;
+        this.friction = 0.5f;
+        this.restitution = 0;
+        this.baumgarte = 0.2f;
+        this.slop = 0.01f;
+        this.warmStarting = true;
+        this.scratch = new Vector3f();
+    }
+
     @Override
     public void solve(RigidBody bodyA, RigidBody bodyB, CollisionResult collisionResult) {
+        if (!collisionResult.isColliding() || !(isDynamic(bodyA) || isDynamic(bodyB)))
+            return;
+
+        int indexA = index(bodyA);
+        int indexB = index(bodyB);
+        if (collisionResult instanceof PersistentManifold manifold) {
+            for (int i = 0; i < manifold.getPointCount(); i++) {
+                ContactPoint point = manifold.getPoint(i);
+                next().set(bodyA, bodyB, indexA, indexB, manifold.getNormal(), manifold.getTangent1(),
+                        manifold.getTangent2(), point.getWorldA(), point.getWorldB(), point.getDepth(), point);
+            }
+            return;
+        }
+
+        // A plain result has one point and no impulses from before. SAT results carry none, their
+        // points only come with a manifold, so there is nothing to push on.
+        if (collisionResult.getContactPointA() == null)
+            return;
+        ContactConstraint constraint = next();
+        Vector3f normal = collisionResult.getNormal();
+        Vector3f tangent1 = constraint.tangent1.direction;
+        Maths.tangentBasis(normal, tangent1, scratch);
+        constraint.set(bodyA, bodyB, indexA, indexB, normal, tangent1, scratch, collisionResult.getContactPointA(),
+                collisionResult.getContactPointB(), collisionResult.getDepth(), null);
+    }
+
+    @Override
+    public void resolve(float duration) {
+        if (duration <= 0)
+            throw new IllegalArgumentException("Duration must be positive: " + duration);
+
+        for (int i = 0; i < bodyCount; i++) {
+            RigidBody body = bodies[i];
+            RigidBodyPool pool = body.getPool();
+            int v = pool.offset(body.getSlot(), 3);
+            for (int c = 0; c < 3; c++) {
+                velocities[i * 6 + c] = pool.velocity[v + c * pool.block];
+                velocities[i * 6 + 3 + c] = pool.rotation[v + c * pool.block];
+            }
+            inverseMasses[i] = pool.inverseMass[body.getSlot()];
+        }
+
+        // Every bias is taken from the velocities at the start of the step, before any warm start
+        // impulse moves them
+        for (int i = 0; i < constraintCount; i++)
+            prepare(constraints[i], duration);
+        if (warmStarting) {
+            for (int i = 0; i < constraintCount; i++)
+                warmStart(constraints[i]);
+        }
+
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (int i = 0; i < constraintCount; i++)
+                solveConstraint(constraints[i]);
+        }
+
+        for (int i = 0; i < bodyCount; i++) {
+            RigidBody body = bodies[i];
+            RigidBodyPool pool = body.getPool();
+            int v = pool.offset(body.getSlot(), 3);
+            for (int c = 0; c < 3; c++) {
+                pool.velocity[v + c * pool.block] = velocities[i * 6 + c];
+                pool.rotation[v + c * pool.block] = velocities[i * 6 + 3 + c];
+            }
+            body.solverIndex = -1;
+            bodies[i] = null;
+        }
+        bodyCount = 0;
+
+        for (int i = 0; i < constraintCount; i++) {
+            ContactConstraint constraint = constraints[i];
+            if (constraint.point != null) {
+                constraint.point.setNormalImpulse(constraint.normal.impulse);
+                constraint.point.setTangentImpulse1(constraint.tangent1.impulse);
+                constraint.point.setTangentImpulse2(constraint.tangent2.impulse);
+            }
+            // Drop the references so removed bodies are not kept alive by an old step
+            constraint.clear();
+        }
+        constraintCount = 0;
+    }
+
+    // Contact points waiting for the next resolve
+    public int getContactCount() {
+        return constraintCount;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public void setIterations(int iterations) {
+        if (iterations < 1)
+            throw new IllegalArgumentException("Iterations must be positive: " + iterations);
+        this.iterations = iterations;
+    }
+
+    public float getFriction() {
+        return friction;
+    }
+
+    public void setFriction(float friction) {
+        if (friction < 0)
+            throw new IllegalArgumentException("Friction must not be negative: " + friction);
+        this.friction = friction;
+    }
+
+    public float getRestitution() {
+        return restitution;
+    }
+
+    public void setRestitution(float restitution) {
+        if (restitution < 0 || restitution > 1)
+            throw new IllegalArgumentException("Restitution must be between 0 and 1: " + restitution);
+        this.restitution = restitution;
+    }
+
+    // Part of the penetration beyond the slop removed per step
+    public float getBaumgarte() {
+        return baumgarte;
+    }
+
+    public void setBaumgarte(float baumgarte) {
+        if (baumgarte < 0 || baumgarte > 1)
+            throw new IllegalArgumentException("Baumgarte factor must be between 0 and 1: " + baumgarte);
+        this.baumgarte = baumgarte;
+    }
+
+    // Penetration left alone, so resting contacts stay touching instead of popping in and out
+    public float getSlop() {
+        return slop;
+    }
+
+    public void setSlop(float slop) {
+        if (slop < 0)
+            throw new IllegalArgumentException("Slop must not be negative: " + slop);
+        this.slop = slop;
+    }
+
+    public boolean isWarmStarting() {
+        return warmStarting;
+    }
+
+    public void setWarmStarting(boolean warmStarting) {
+        this.warmStarting = warmStarting;
+    }
+
+    private ContactConstraint next() {
+        if (constraintCount == constraints.length) {
+            int oldCapacity = constraints.length;
+            constraints = Arrays.copyOf(constraints, Math.max(16, oldCapacity * 2));
+            for (int i = oldCapacity; i < constraints.length; i++)
+                constraints[i] = new ContactConstraint();
+        }
+        return constraints[constraintCount++];
+    }
+
+    // Index of the body in the velocity array, -1 for a body the step does not move
+    private int index(RigidBody body) {
+        if (!isDynamic(body))
+            return -1;
+        if (body.solverIndex < 0) {
+            if (bodyCount == bodies.length) {
+                int capacity = Math.max(16, bodyCount * 2);
+                bodies = Arrays.copyOf(bodies, capacity);
+                velocities = Arrays.copyOf(velocities, capacity * 6);
+                inverseMasses = Arrays.copyOf(inverseMasses, capacity);
+            }
+            bodies[bodyCount] = body;
+            body.solverIndex = bodyCount++;
+        }
+        return body.solverIndex;
+    }
+
+    private void prepare(ContactConstraint constraint, float duration) {
+        Vector3f rA = constraint.rA;
+        Vector3f rB = constraint.rB;
+        if (constraint.bodyA != null)
+            subtractPosition(constraint.bodyA, rA);
+        if (constraint.bodyB != null)
+            subtractPosition(constraint.bodyB, rB);
+
+        prepareRow(constraint, constraint.normal);
+        prepareRow(constraint, constraint.tangent1);
+        prepareRow(constraint, constraint.tangent2);
+
+        float positionBias = baumgarte / duration * Math.max(constraint.depth - slop, 0);
+        float approach = relativeVelocity(constraint, constraint.normal);
+        float restitutionBias = approach < -RESTITUTION_THRESHOLD ? -restitution * approach : 0;
+        constraint.bias = Math.max(positionBias, restitutionBias);
+    }
+
+    // Starts a manifold point from the impulses it ended the previous step with
+    private void warmStart(ContactConstraint constraint) {
+        if (constraint.point == null)
+            return;
+        constraint.normal.impulse = constraint.point.getNormalImpulse();
+        constraint.tangent1.impulse = constraint.point.getTangentImpulse1();
+        constraint.tangent2.impulse = constraint.point.getTangentImpulse2();
+        apply(constraint, constraint.normal, constraint.normal.impulse);
+        apply(constraint, constraint.tangent1, constraint.tangent1.impulse);
+        apply(constraint, constraint.tangent2, constraint.tangent2.impulse);
+    }
+
+    // Lever arms and effective mass of an impulse along the row direction. The velocity of a body
+    // the step does not move is constant, its part of the relative velocity is worked out once.
+    private void prepareRow(ContactConstraint constraint, Row row) {
+        constraint.rA.crossInto(row.direction, row.crossA);
+        constraint.rB.crossInto(row.direction, row.crossB);
+        float mass = 0;
+        row.offset = 0;
+        if (constraint.indexA >= 0) {
+            mass += inverseMasses[constraint.indexA];
+            transformInertia(constraint.bodyA, row.crossA, row.angularA);
+            mass += row.crossA.dot(row.angularA);
+        } else {
+            row.angularA.clear();
+            if (constraint.bodyA != null)
+                row.offset -= pointVelocity(constraint.bodyA, row.direction, row.crossA);
+        }
+        if (constraint.indexB >= 0) {
+            mass += inverseMasses[constraint.indexB];
+            transformInertia(constraint.bodyB, row.crossB, row.angularB);
+            mass += row.crossB.dot(row.angularB);
+        } else {
+            row.angularB.clear();
+            if (constraint.bodyB != null)
+                row.offset += pointVelocity(constraint.bodyB, row.direction, row.crossB);
+        }
+        row.mass = mass > 0 ? 1 / mass : 0;
+        row.impulse = 0;
+    }
+
+    private void solveConstraint(ContactConstraint constraint) {
+        // Friction first, bounded by the normal impulse of the previous sweep
+        float limit = friction * constraint.normal.impulse;
+        solveFriction(constraint, constraint.tangent1, limit);
+        solveFriction(constraint, constraint.tangent2, limit);
+
+        Row normal = constraint.normal;
+        float lambda = normal.mass * (constraint.bias - relativeVelocity(constraint, normal));
+        float accumulated = Math.max(normal.impulse + lambda, 0);
+        apply(constraint, normal, accumulated - normal.impulse);
+        normal.impulse = accumulated;
+    }
+
+    private void solveFriction(ContactConstraint constraint, Row row, float limit) {
+        float lambda = -row.mass * relativeVelocity(constraint, row);
+        float accumulated = Math.max(-limit, Math.min(row.impulse + lambda, limit));
+        apply(constraint, row, accumulated - row.impulse);
+        row.impulse = accumulated;
+    }
+
+    // Velocity of the point on B relative to the point on A, along the row direction
+    private float relativeVelocity(ContactConstraint constraint, Row row) {
+        float velocity = row.offset;
+        float[] v = velocities;
+        if (constraint.indexA >= 0) {
+            int a = constraint.indexA * 6;
+            velocity -= v[a] * row.direction.x + v[a + 1] * row.direction.y + v[a + 2] * row.direction.z
+                    + v[a + 3] * row.crossA.x + v[a + 4] * row.crossA.y + v[a + 5] * row.crossA.z;
+        }
+        if (constraint.indexB >= 0) {
+            int b = constraint.indexB * 6;
+            velocity += v[b] * row.direction.x + v[b + 1] * row.direction.y + v[b + 2] * row.direction.z
+                    + v[b + 3] * row.crossB.x + v[b + 4] * row.crossB.y + v[b + 5] * row.crossB.z;
+        }
+        return velocity;
+    }
+
+    // Impulse lambda along the row direction on B, and the opposite one on A
+    private void apply(ContactConstraint constraint, Row row, float lambda) {
+        float[] v = velocities;
+        if (constraint.indexA >= 0) {
+            int a = constraint.indexA * 6;
+            float linear = -lambda * inverseMasses[constraint.indexA];
+            v[a] += row.direction.x * linear;
+            v[a + 1] += row.direction.y * linear;
+            v[a + 2] += row.direction.z * linear;
+            v[a + 3] -= row.angularA.x * lambda;
+            v[a + 4] -= row.angularA.y * lambda;
+            v[a + 5] -= row.angularA.z * lambda;
+        }
+        if (constraint.indexB >= 0) {
+            int b = constraint.indexB * 6;
+            float linear = lambda * inverseMasses[constraint.indexB];
+            v[b] += row.direction.x * linear;
+            v[b + 1] += row.direction.y * linear;
+            v[b + 2] += row.direction.z * linear;
+            v[b + 3] += row.angularB.x * lambda;
+            v[b + 4] += row.angularB.y * lambda;
+            v[b + 5] += row.angularB.z * lambda;
+        }
+    }
+
+    private static boolean isDynamic(RigidBody body) {
+        return body != null && body.isAwake() && body.getInverseMass() > 0;
+    }
+
+    private static void subtractPosition(RigidBody body, Vector3f point) {
+        RigidBodyPool pool = body.getPool();
+        float[] position = pool.position;
+        int v = pool.offset(body.getSlot(), 3);
+        int b = pool.block;
+        point.set(point.x - position[v], point.y - position[v + b], point.z - position[v + 2 * b]);
+    }
+
+    // Velocity of a body at the lever arm whose cross with direction is cross, along direction
+    private static float pointVelocity(RigidBody body, Vector3f direction, Vector3f cross) {
+        RigidBodyPool pool = body.getPool();
+        int v = pool.offset(body.getSlot(), 3);
+        int b = pool.block;
+        return pool.velocity[v] * direction.x + pool.velocity[v + b] * direction.y + pool.velocity[v + 2 * b] * direction.z
+                + pool.rotation[v] * cross.x + pool.rotation[v + b] * cross.y + pool.rotation[v + 2 * b] * cross.z;
+    }
+
+    // World inverse inertia of the body applied to v
+    private static void transformInertia(RigidBody body, Vector3f v, Vector3f dest) {
+        RigidBodyPool pool = body.getPool();
+        float[] m = pool.inverseInertiaWorld;
+        int i = pool.offset(body.getSlot(), 9);
+        int b = pool.block;
+        dest.set(m[i] * v.x + m[i + b] * v.y + m[i + 2 * b] * v.z,
+                m[i + 3 * b] * v.x + m[i + 4 * b] * v.y + m[i + 5 * b] * v.z,
+                m[i + 6 * b] * v.x + m[i + 7 * b] * v.y + m[i + 8 * b] * v.z);
+    }
+
+    // One direction of a contact point with the impulse accumulated along it
+    private static final class Row {
+        final Vector3f direction = new Vector3f();
+        // rA x direction, rB x direction
+        final Vector3f crossA = new Vector3f();
+        final Vector3f crossB = new Vector3f();
+        // World inverse inertia times the crosses: angular velocity change per unit impulse
+        final Vector3f angularA = new Vector3f();
+        final Vector3f angularB = new Vector3f();
+        // Relative velocity from the bodies the step does not move
+        float offset;
+        float mass;
+        float impulse;
+    }
+
+    private static final class ContactConstraint {
+        RigidBody bodyA;
+        RigidBody bodyB;
+        // Index in the velocity array, -1 when the body does not move
+        int indexA;
+        int indexB;
+        // Contact point relative to each body, the world points until prepare
+        final Vector3f rA = new Vector3f();
+        final Vector3f rB = new Vector3f();
+        final Row normal = new Row();
+        final Row tangent1 = new Row();
+        final Row tangent2 = new Row();
+        float depth;
+        float bias;
+        ContactPoint point;
+
+        void set(RigidBody bodyA, RigidBody bodyB, int indexA, int indexB, Vector3f normal, Vector3f tangent1,
+                 Vector3f tangent2, Vector3f pointA, Vector3f pointB, float depth, ContactPoint point) {
+            this.bodyA = bodyA;
+            this.bodyB = bodyB;
+            this.indexA = indexA;
+            this.indexB = indexB;
+            this.normal.direction.set(normal);
+            this.tangent1.direction.set(tangent1);
+            this.tangent2.direction.set(tangent2);
+            rA.set(pointA);
+            rB.set(pointB);
+            this.depth = depth;
+            this.point = point;
+        }
 
+        void clear() {
+            bodyA = null;
+            bodyB = null;
+            point = null;
+        }
     }
 }
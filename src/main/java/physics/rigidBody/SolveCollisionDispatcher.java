@@ -3,5 +3,9 @@ package physics.rigidBody;
 import collisionDetection.narrowPhase.collisionResult.CollisionResult;
 
 public interface SolveCollisionDispatcher {
+    // Queues the contact of a touching pair, nothing is applied until resolve
     void solve(RigidBody bodyA, RigidBody bodyB, CollisionResult collisionResult);
+
+    // Resolves every contact queued since the last call together and empties the queue
+    void resolve(float duration);
 }
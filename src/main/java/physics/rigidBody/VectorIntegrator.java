@@ -0,0 +1,267 @@
+package physics.rigidBody;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import static math.Const.SLEEP_EPSILON;
+import static physics.rigidBody.RigidBodyPool.BLOCK;
+
+// The integration of RigidBodyPool with one SIMD lane per body. In the block layout of the pool
+// one component of consecutive bodies is contiguous, so every load and store is a plain vector
+// one; each lane does exactly what the scalar code of the pool does to one slot, and keeps the
+// old values where the scalar code would have skipped the body. The bodies of the last, partly
+// filled block go through the scalar code.
+// Only touched when the jdk.incubator.vector module is in the boot layer, see RigidBodyPool.
+final class VectorIntegrator {
+
+    // No wider than a block, so a vector never straddles two
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED.length() <= BLOCK
+            ? FloatVector.SPECIES_PREFERRED : FloatVector.SPECIES_512;
+    private static final int LANES = SPECIES.length();
+
+    private VectorIntegrator() {
+    }
+
+    // Expects the damping steps of the pool to be up to date for the duration
+    static void integrateVelocities(RigidBodyPool pool, float duration) {
+        int size = pool.size();
+        int body = 0;
+        if (pool.block == BLOCK) {
+            for (int end = size - size % BLOCK; body < end; body += LANES)
+                integrateVelocities(pool, body, duration);
+        }
+        for (; body < size; body++)
+            pool.integrateVelocity(body, duration);
+    }
+
+    static void integratePositions(RigidBodyPool pool, float duration) {
+        // Same for every body, worked out once instead of once per body
+        float bias = (float) Math.pow(0.5, duration);
+        int size = pool.size();
+        int body = 0;
+        if (pool.block == BLOCK) {
+            for (int end = size - size % BLOCK; body < end; body += LANES)
+                integratePositions(pool, body, duration, bias);
+        }
+        for (; body < size; body++)
+            pool.integratePosition(body, duration);
+    }
+
+    private static void integrateVelocities(RigidBodyPool pool, int body, float duration) {
+        FloatVector inverse = FloatVector.fromArray(SPECIES, pool.inverseMass, body);
+        VectorMask<Float> active = VectorMask.fromArray(SPECIES, pool.awake, body)
+                .and(inverse.compare(VectorOperators.NE, 0));
+        if (!active.anyTrue()) return;
+
+        int v = pool.offset(body, 3);
+        int m = pool.offset(body, 9);
+        FloatVector linear = FloatVector.fromArray(SPECIES, pool.linearDampingStep, body);
+        FloatVector angular = FloatVector.fromArray(SPECIES, pool.angularDampingStep, body);
+
+        // Linear acceleration from the constant acceleration and the force inputs
+        for (int c = v; c < v + 3 * BLOCK; c += BLOCK) {
+            FloatVector force = FloatVector.fromArray(SPECIES, pool.forceAccum, c);
+            FloatVector acceleration = FloatVector.fromArray(SPECIES, pool.acceleration, c).add(force.mul(inverse));
+            store(acceleration, pool.lastFrameAcceleration, c, active);
+            FloatVector velocity = FloatVector.fromArray(SPECIES, pool.velocity, c);
+            velocity.blend(velocity.add(acceleration.mul(duration)).mul(linear), active).intoArray(pool.velocity, c);
+            force.blend(0, active).intoArray(pool.forceAccum, c);
+        }
+
+        // Angular acceleration from the torque inputs, a row of the world inverse inertia at a time
+        float[] inertia = pool.inverseInertiaWorld;
+        FloatVector tx = FloatVector.fromArray(SPECIES, pool.torqueAccum, v);
+        FloatVector ty = FloatVector.fromArray(SPECIES, pool.torqueAccum, v + BLOCK);
+        FloatVector tz = FloatVector.fromArray(SPECIES, pool.torqueAccum, v + 2 * BLOCK);
+        for (int row = 0; row < 3; row++) {
+            int r = m + row * 3 * BLOCK;
+            FloatVector w = FloatVector.fromArray(SPECIES, inertia, r).mul(tx)
+                    .add(FloatVector.fromArray(SPECIES, inertia, r + BLOCK).mul(ty))
+                    .add(FloatVector.fromArray(SPECIES, inertia, r + 2 * BLOCK).mul(tz));
+            int c = v + row * BLOCK;
+            FloatVector rotation = FloatVector.fromArray(SPECIES, pool.rotation, c);
+            rotation.blend(rotation.add(w.mul(duration)).mul(angular), active).intoArray(pool.rotation, c);
+        }
+        tx.blend(0, active).intoArray(pool.torqueAccum, v);
+        ty.blend(0, active).intoArray(pool.torqueAccum, v + BLOCK);
+        tz.blend(0, active).intoArray(pool.torqueAccum, v + 2 * BLOCK);
+    }
+
+    // The second half of the step for one block, split in steps that take no vectors and reload
+    // what they need from the pool. All of it in one method grows past what C2 will inline into a
+    // single compilation; the calls it leaves out box their vectors and run the allocating fallback
+    // code. The steps are called through this array, a call site with many targets that C2 does
+    // not inline, so each step is compiled on its own.
+    private static final BlockStep[] POSITION_STEPS = {
+            (pool, body, duration, bias) -> integratePosition(pool, body, duration),
+            (pool, body, duration, bias) -> integrateOrientation(pool, body, duration),
+            (pool, body, duration, bias) -> normalizeOrientation(pool, body),
+            (pool, body, duration, bias) -> calculateRotationDiagonal(pool, body),
+            (pool, body, duration, bias) -> calculateRotationOffDiagonal(pool, body),
+            (pool, body, duration, bias) -> calculateInverseInertiaWorld(pool, body, 0),
+            (pool, body, duration, bias) -> calculateInverseInertiaWorld(pool, body, 1),
+            (pool, body, duration, bias) -> calculateInverseInertiaWorld(pool, body, 2),
+            (pool, body, duration, bias) -> updateMotion(pool, body, bias)
+    };
+
+    private interface BlockStep {
+        void apply(RigidBodyPool pool, int body, float duration, float bias);
+    }
+
+    private static void integratePositions(RigidBodyPool pool, int body, float duration, float bias) {
+        if (!VectorMask.fromArray(SPECIES, pool.awake, body).anyTrue()) return;
+
+        for (BlockStep step : POSITION_STEPS)
+            step.apply(pool, body, duration, bias);
+    }
+
+    private static void integratePosition(RigidBodyPool pool, int body, float duration) {
+        VectorMask<Float> active = VectorMask.fromArray(SPECIES, pool.awake, body);
+        int v = pool.offset(body, 3);
+        float[] position = pool.position;
+        for (int c = v; c < v + 3 * BLOCK; c += BLOCK) {
+            FloatVector velocity = FloatVector.fromArray(SPECIES, pool.velocity, c);
+            store(FloatVector.fromArray(SPECIES, position, c).add(velocity.mul(duration)), position, c, active);
+        }
+    }
+
+    // q += 0.5 * (rotation, 0) * q * duration
+    private static void integrateOrientation(RigidBodyPool pool, int body, float duration) {
+        VectorMask<Float> active = VectorMask.fromArray(SPECIES, pool.awake, body);
+        int v = pool.offset(body, 3);
+        int q = pool.offset(body, 4);
+        // Halving is exact, so this rounds like the scalar rotation * duration * 0.5f
+        float half = duration * 0.5f;
+        FloatVector wx = FloatVector.fromArray(SPECIES, pool.rotation, v).mul(half);
+        FloatVector wy = FloatVector.fromArray(SPECIES, pool.rotation, v + BLOCK).mul(half);
+        FloatVector wz = FloatVector.fromArray(SPECIES, pool.rotation, v + 2 * BLOCK).mul(half);
+        float[] orientation = pool.orientation;
+        FloatVector qx = FloatVector.fromArray(SPECIES, orientation, q);
+        FloatVector qy = FloatVector.fromArray(SPECIES, orientation, q + BLOCK);
+        FloatVector qz = FloatVector.fromArray(SPECIES, orientation, q + 2 * BLOCK);
+        FloatVector qw = FloatVector.fromArray(SPECIES, orientation, q + 3 * BLOCK);
+        store(qx.add(wx.mul(qw)).add(wy.mul(qz)).sub(wz.mul(qy)), orientation, q, active);
+        store(qy.add(wy.mul(qw)).add(wz.mul(qx)).sub(wx.mul(qz)), orientation, q + BLOCK, active);
+        store(qz.add(wz.mul(qw)).add(wx.mul(qy)).sub(wy.mul(qx)), orientation, q + 2 * BLOCK, active);
+        store(qw.sub(wx.mul(qx)).sub(wy.mul(qy)).sub(wz.mul(qz)), orientation, q + 3 * BLOCK, active);
+    }
+
+    // The derived data of the awake lanes, like RigidBodyPool.calculateDerivedData: the orientation is
+    // normalised, then the rotation matrix and the world inverse inertia are rebuilt from it
+    private static void normalizeOrientation(RigidBodyPool pool, int body) {
+        VectorMask<Float> active = VectorMask.fromArray(SPECIES, pool.awake, body);
+        int q = pool.offset(body, 4);
+        float[] orientation = pool.orientation;
+        FloatVector x = FloatVector.fromArray(SPECIES, orientation, q);
+        FloatVector y = FloatVector.fromArray(SPECIES, orientation, q + BLOCK);
+        FloatVector z = FloatVector.fromArray(SPECIES, orientation, q + 2 * BLOCK);
+        FloatVector w = FloatVector.fromArray(SPECIES, orientation, q + 3 * BLOCK);
+        FloatVector lengthSquared = x.mul(x).add(y.mul(y)).add(z.mul(z)).add(w.mul(w));
+        VectorMask<Float> degenerate = lengthSquared.compare(VectorOperators.GT, 0).not();
+        FloatVector inverseLength = FloatVector.broadcast(SPECIES, 1).div(lengthSquared.sqrt());
+        store(x.mul(inverseLength).blend(x, degenerate), orientation, q, active);
+        store(y.mul(inverseLength).blend(y, degenerate), orientation, q + BLOCK, active);
+        store(z.mul(inverseLength).blend(z, degenerate), orientation, q + 2 * BLOCK, active);
+        store(w.mul(inverseLength).blend(1, degenerate), orientation, q + 3 * BLOCK, active);
+    }
+
+    private static void calculateRotationDiagonal(RigidBodyPool pool, int body) {
+        VectorMask<Float> active = VectorMask.fromArray(SPECIES, pool.awake, body);
+        int q = pool.offset(body, 4);
+        float[] orientation = pool.orientation;
+        FloatVector x = FloatVector.fromArray(SPECIES, orientation, q);
+        FloatVector y = FloatVector.fromArray(SPECIES, orientation, q + BLOCK);
+        FloatVector z = FloatVector.fromArray(SPECIES, orientation, q + 2 * BLOCK);
+        FloatVector xx = x.mul(x);
+        FloatVector yy = y.mul(y);
+        FloatVector zz = z.mul(z);
+        int m = pool.offset(body, 9);
+        float[] r = pool.rotationMatrix;
+        store(yy.add(zz).mul(-2).add(1), r, m, active);
+        store(xx.add(zz).mul(-2).add(1), r, m + 4 * BLOCK, active);
+        store(xx.add(yy).mul(-2).add(1), r, m + 8 * BLOCK, active);
+    }
+
+    private static void calculateRotationOffDiagonal(RigidBodyPool pool, int body) {
+        VectorMask<Float> active = VectorMask.fromArray(SPECIES, pool.awake, body);
+        int q = pool.offset(body, 4);
+        float[] orientation = pool.orientation;
+        FloatVector x = FloatVector.fromArray(SPECIES, orientation, q);
+        FloatVector y = FloatVector.fromArray(SPECIES, orientation, q + BLOCK);
+        FloatVector z = FloatVector.fromArray(SPECIES, orientation, q + 2 * BLOCK);
+        FloatVector w = FloatVector.fromArray(SPECIES, orientation, q + 3 * BLOCK);
+        FloatVector xy = x.mul(y);
+        FloatVector xz = x.mul(z);
+        FloatVector yz = y.mul(z);
+        FloatVector wx = w.mul(x);
+        FloatVector wy = w.mul(y);
+        FloatVector wz = w.mul(z);
+        int m = pool.offset(body, 9);
+        float[] r = pool.rotationMatrix;
+        store(xy.sub(wz).mul(2), r, m + BLOCK, active);
+        store(xz.add(wy).mul(2), r, m + 2 * BLOCK, active);
+        store(xy.add(wz).mul(2), r, m + 3 * BLOCK, active);
+        store(yz.sub(wx).mul(2), r, m + 5 * BLOCK, active);
+        store(xz.sub(wy).mul(2), r, m + 6 * BLOCK, active);
+        store(yz.add(wx).mul(2), r, m + 7 * BLOCK, active);
+    }
+
+    // One row of the world inverse inertia R * I^-1 * R^T, from the row of R * I^-1
+    private static void calculateInverseInertiaWorld(RigidBodyPool pool, int body, int row) {
+        VectorMask<Float> active = VectorMask.fromArray(SPECIES, pool.awake, body);
+        int m = pool.offset(body, 9);
+        float[] r = pool.rotationMatrix;
+        float[] local = pool.inverseInertia;
+        int a = m + row * 3 * BLOCK;
+        FloatVector a0 = FloatVector.fromArray(SPECIES, r, a);
+        FloatVector a1 = FloatVector.fromArray(SPECIES, r, a + BLOCK);
+        FloatVector a2 = FloatVector.fromArray(SPECIES, r, a + 2 * BLOCK);
+        FloatVector t0 = a0.mul(FloatVector.fromArray(SPECIES, local, m))
+                .add(a1.mul(FloatVector.fromArray(SPECIES, local, m + 3 * BLOCK)))
+                .add(a2.mul(FloatVector.fromArray(SPECIES, local, m + 6 * BLOCK)));
+        FloatVector t1 = a0.mul(FloatVector.fromArray(SPECIES, local, m + BLOCK))
+                .add(a1.mul(FloatVector.fromArray(SPECIES, local, m + 4 * BLOCK)))
+                .add(a2.mul(FloatVector.fromArray(SPECIES, local, m + 7 * BLOCK)));
+        FloatVector t2 = a0.mul(FloatVector.fromArray(SPECIES, local, m + 2 * BLOCK))
+                .add(a1.mul(FloatVector.fromArray(SPECIES, local, m + 5 * BLOCK)))
+                .add(a2.mul(FloatVector.fromArray(SPECIES, local, m + 8 * BLOCK)));
+        float[] world = pool.inverseInertiaWorld;
+        for (int column = 0; column < 3; column++) {
+            int b = m + column * 3 * BLOCK;
+            FloatVector value = t0.mul(FloatVector.fromArray(SPECIES, r, b))
+                    .add(t1.mul(FloatVector.fromArray(SPECIES, r, b + BLOCK)))
+                    .add(t2.mul(FloatVector.fromArray(SPECIES, r, b + 2 * BLOCK)));
+            store(value, world, a + column * BLOCK, active);
+        }
+    }
+
+    // Update the kinetic energy store, and possibly put the body to sleep
+    private static void updateMotion(RigidBodyPool pool, int body, float bias) {
+        VectorMask<Float> active = VectorMask.fromArray(SPECIES, pool.awake, body);
+        VectorMask<Float> sleepy = VectorMask.fromArray(SPECIES, pool.canSleep, body).and(active);
+        if (!sleepy.anyTrue()) return;
+
+        int v = pool.offset(body, 3);
+        FloatVector vx = FloatVector.fromArray(SPECIES, pool.velocity, v);
+        FloatVector vy = FloatVector.fromArray(SPECIES, pool.velocity, v + BLOCK);
+        FloatVector vz = FloatVector.fromArray(SPECIES, pool.velocity, v + 2 * BLOCK);
+        FloatVector rx = FloatVector.fromArray(SPECIES, pool.rotation, v);
+        FloatVector ry = FloatVector.fromArray(SPECIES, pool.rotation, v + BLOCK);
+        FloatVector rz = FloatVector.fromArray(SPECIES, pool.rotation, v + 2 * BLOCK);
+        FloatVector currentMotion = vx.mul(vx).add(vy.mul(vy)).add(vz.mul(vz))
+                .add(rx.mul(rx)).add(ry.mul(ry)).add(rz.mul(rz));
+        FloatVector motion = FloatVector.fromArray(SPECIES, pool.motion, body);
+        FloatVector updated = motion.mul(bias).add(currentMotion.mul(1 - bias));
+        VectorMask<Float> asleep = updated.compare(VectorOperators.LT, SLEEP_EPSILON).and(sleepy)
+                .andNot(VectorMask.fromArray(SPECIES, pool.grouped, body));
+        motion.blend(updated.min(10 * SLEEP_EPSILON), sleepy).intoArray(pool.motion, body);
+        active.andNot(asleep).intoArray(pool.awake, body);
+    }
+
+    // Writes the lanes of value that are set in mask, keeping the others
+    private static void store(FloatVector value, float[] array, int offset, VectorMask<Float> mask) {
+        FloatVector.fromArray(SPECIES, array, offset).blend(value, mask).intoArray(array, offset);
+    }
+}
@@ -8,8 +8,12 @@ import physics.rigidBody.RigidBody;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
+import static collisionDetection.broadPhase.BroadPhaseScenes.assertMatchesBruteForce;
+import static collisionDetection.broadPhase.BroadPhaseScenes.assertParallelQueryMatchesBruteForce;
+import static collisionDetection.broadPhase.BroadPhaseScenes.randomBoxes;
 import static org.junit.jupiter.api.Assertions.*;
 
 class BVHTest {
@@ -89,7 +93,87 @@ class BVHTest {
         bpBox1.setMax(new Vector3f(3, 5, 0));
         bvh.update(bpBox1);
         Set<BPPairs> pairsSet = bvh.query();
-        assertEquals(3, pairsSet.size());
+        assertEquals(4, pairsSet.size());
+    }
+
+    @Test
+    public void testUpdatesKeepIdsAndRemovedIdsAreReused() {
+        List<BPBox> boxes = randomBoxes(new Random(9), 300, 60, 3);
+        for (BPBox box : boxes)
+            bvh.insert(box);
+        int[] ids = new int[boxes.size()];
+        for (int i = 0; i < boxes.size(); i++)
+            ids[i] = boxes.get(i).getId();
+
+        for (int step = 0; step < 20; step++)
+            bvh.updateAll(boxes);
+        for (int i = 0; i < boxes.size(); i++)
+            assertEquals(ids[i], boxes.get(i).getId());
+
+        // The id of a removed box is the next one given out
+        bvh.remove(boxes.get(0));
+        BPBox box = new BPBox(new Vector3f(), new Vector3f(1, 1, 1), null);
+        bvh.insert(box);
+        assertEquals(ids[0], box.getId());
+    }
+
+    @Test
+    public void testDuplicateAddIsIgnored() {
+        bvh.addAll(bpBoxes);
+        bvh.insert(bpBox1);
+        bvh.addAll(List.of(bpBox1, bpBox1));
+        assertEquals(2, bvh.query().size());
+        assertEquals(bpBoxes.size(), bvh.getSnapshot().getPrimitiveCount());
+
+        // One remove takes the box out and releases its id
+        bvh.remove(bpBox1);
+        assertEquals(BPBox.NO_ID, bpBox1.getId());
+        assertFalse(bvh.query(bpBox1).contains(bpBox1));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testBulkBuildMatchesBruteForce() {
+        List<BPBox> boxes = randomBoxes(new Random(5), 2000, 60, 3);
+        bvh.addAll(boxes);
+        assertMatchesBruteForce(bvh, boxes);
+
+        // Boxes added later are merged into a new bulk build
+        List<BPBox> more = randomBoxes(new Random(6), 500, 60, 3);
+        bvh.addAll(more);
+        boxes.addAll(more);
+        assertMatchesBruteForce(bvh, boxes);
+    }
+
+    @Test
+    public void testInsertAndRebuildMatchBruteForce() {
+        List<BPBox> boxes = randomBoxes(new Random(8), 600, 60, 3);
+        for (BPBox box : boxes)
+            bvh.insert(box);
+        assertMatchesBruteForce(bvh, boxes);
+
+        for (BPBox box : boxes)
+            box.translate(new Vector3f(box.getMin().y * 0.1f, 0, 0));
+        bvh.updateAll(boxes);
+        assertMatchesBruteForce(bvh, boxes);
+
+        bvh.rebuild();
+        assertMatchesBruteForce(bvh, boxes);
+    }
+
+    @Test
+    public void testBulkBuildWithIdenticalBoxes() {
+        List<BPBox> boxes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            RigidBody body = new RigidBody();
+            body.setColliderShape(new Sphere(new Vector3f(), 1.0f));
+            boxes.add(new BPBox(new Vector3f(1, 1, 1), new Vector3f(2, 2, 2), body));
+        }
+        bvh.addAll(boxes);
+        assertEquals(100 * 99 / 2, bvh.query().size());
+    }
+
+    @Test
+    public void testParallelQueryMatchesBruteForce() {
+        assertParallelQueryMatchesBruteForce(BVH::new);
+    }
+}
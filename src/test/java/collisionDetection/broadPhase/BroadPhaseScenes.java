@@ -0,0 +1,127 @@
+package collisionDetection.broadPhase;
+
+import collisionDetection.primitive.Sphere;
+import math.Vector3f;
+import physics.rigidBody.RigidBody;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Random scenes and the brute force reference the broad phase tests compare against
+final class BroadPhaseScenes {
+
+    private BroadPhaseScenes() {
+    }
+
+    static BPBox box(Vector3f min, Vector3f size) {
+        RigidBody body = new RigidBody();
+        body.setColliderShape(new Sphere(new Vector3f(), 1.0f));
+        return new BPBox(min, min.add(size), body);
+    }
+
+    // Boxes with their min corner in [0, range)^3 and each side in [0, maxSize)
+    static List<BPBox> randomBoxes(Random random, int count, float range, float maxSize) {
+        List<BPBox> boxes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Vector3f min = new Vector3f(random.nextFloat() * range, random.nextFloat() * range, random.nextFloat() * range);
+            Vector3f size = new Vector3f(random.nextFloat() * maxSize, random.nextFloat() * maxSize, random.nextFloat() * maxSize);
+            boxes.add(box(min, size));
+        }
+        return boxes;
+    }
+
+    // Cubes with their min corner in [0, range)^3
+    static List<BPBox> randomCubes(Random random, int count, float range, float size) {
+        List<BPBox> boxes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Vector3f min = new Vector3f(random.nextFloat() * range, random.nextFloat() * range, random.nextFloat() * range);
+            boxes.add(box(min, new Vector3f(size, size, size)));
+        }
+        return boxes;
+    }
+
+    static int countOverlaps(List<BPBox> boxes) {
+        int count = 0;
+        for (int i = 0; i < boxes.size(); i++) {
+            for (int j = i + 1; j < boxes.size(); j++) {
+                if (BPBox.isCollide(boxes.get(i), boxes.get(j)))
+                    count++;
+            }
+        }
+        return count;
+    }
+
+    // Keys of every overlapping pair, the boxes must be in a broad phase so they have ids
+    static Set<Long> bruteForcePairs(List<BPBox> boxes) {
+        Set<Long> keys = new HashSet<>();
+        for (int i = 0; i < boxes.size(); i++) {
+            for (int j = i + 1; j < boxes.size(); j++) {
+                if (BPBox.isCollide(boxes.get(i), boxes.get(j)))
+                    keys.add(BPPairs.key(boxes.get(i), boxes.get(j)));
+            }
+        }
+        return keys;
+    }
+
+    // The pairs must be exactly the overlapping pairs of boxes, each reported once
+    static void assertPairs(Set<Long> expected, Set<BPPairs> pairs) {
+        Set<Long> keys = new HashSet<>();
+        for (BPPairs pair : pairs)
+            assertTrue(keys.add(pair.getKey()), "pair reported twice: " + pair);
+        assertEquals(expected, keys);
+    }
+
+    static void assertMatchesBruteForce(BroadPhase broadPhase, List<BPBox> boxes) {
+        assertPairs(bruteForcePairs(boxes), broadPhase.query());
+    }
+
+    // Adds the boxes, then every frame moves each one by up to jitter / 2 per axis, runs frameHook
+    // for extra changes and updates them all; the pairs are checked after every step. Finally the
+    // first half of the boxes is removed and the rest checked again.
+    static void runJitterScene(BroadPhase broadPhase, List<BPBox> boxes, Random random, int frames, float jitter,
+                               IntConsumer frameHook) {
+        broadPhase.addAll(boxes);
+        assertMatchesBruteForce(broadPhase, boxes);
+
+        for (int frame = 0; frame < frames; frame++) {
+            for (BPBox box : boxes) {
+                box.translate(new Vector3f(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f,
+                        random.nextFloat() - 0.5f).mul(jitter));
+            }
+            frameHook.accept(frame);
+            broadPhase.updateAll(boxes);
+            assertMatchesBruteForce(broadPhase, boxes);
+        }
+
+        int half = boxes.size() / 2;
+        broadPhase.removeAll(boxes.subList(0, half));
+        assertMatchesBruteForce(broadPhase, boxes.subList(half, boxes.size()));
+    }
+
+    static void runJitterScene(BroadPhase broadPhase, List<BPBox> boxes, Random random, int frames, float jitter) {
+        runJitterScene(broadPhase, boxes, random, frames, jitter, frame -> {
+        });
+    }
+
+    // A scene large enough to split the pair query across a pool of four workers
+    static void assertParallelQueryMatchesBruteForce(Function<ForkJoinPool, BroadPhase> factory) {
+        List<BPBox> boxes = randomBoxes(new Random(9), 5000, 70, 2);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            BroadPhase parallel = factory.apply(pool);
+            parallel.addAll(boxes);
+            assertMatchesBruteForce(parallel, boxes);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package collisionDetection.broadPhase;
+
+import collisionDetection.primitive.Ray;
+import collisionDetection.primitive.Sphere;
+import math.Vector3f;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import physics.rigidBody.RigidBody;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static collisionDetection.broadPhase.BroadPhaseScenes.randomCubes;
+import static collisionDetection.broadPhase.BroadPhaseScenes.runJitterScene;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DynamicAABBTreeTest {
+
+    private DynamicAABBTree tree;
+    private List<BPBox> bpBoxes;
+    private BPBox bpBox1;
+
+    @BeforeEach
+    void setUp() {
+        bpBoxes = new ArrayList<>();
+
+        Sphere sphere1 = new Sphere(new Vector3f(), 1.0f);
+        RigidBody body1 = new RigidBody();
+        body1.setColliderShape(sphere1);
+        bpBox1 = new BPBox(new Vector3f(-1, -1, 0), new Vector3f(), body1);
+
+        Sphere sphere2 = new Sphere(new Vector3f(1, 1, 1), 1.0f);
+        RigidBody body2 = new RigidBody();
+        body2.setColliderShape(sphere2);
+        BPBox bpBox2 = new BPBox(new Vector3f(), new Vector3f(1, 1, 0), body2);
+
+        Sphere sphere3 = new Sphere(new Vector3f(2, 2, 2), 1.0f);
+        RigidBody body3 = new RigidBody();
+        body3.setColliderShape(sphere3);
+        BPBox bpBox3 = new BPBox(new Vector3f(0.5f, 0.5f, 0), new Vector3f(1, 1, 0), body3);
+
+        Sphere sphere4 = new Sphere(new Vector3f(3, 3, 3), 1.0f);
+        RigidBody body4 = new RigidBody();
+        body4.setColliderShape(sphere4);
+        BPBox bpBox4 = new BPBox(new Vector3f(3, 3, 0), new Vector3f(4, 4, 0), body4);
+
+        Sphere sphere5 = new Sphere(new Vector3f(4, 4, 4), 1.0f);
+        RigidBody body5 = new RigidBody();
+        body5.setColliderShape(sphere5);
+        BPBox bpBox5 = new BPBox(new Vector3f(6, 6, 0), new Vector3f(6, 6, 0), body5);
+
+        bpBoxes.add(bpBox1);
+        bpBoxes.add(bpBox2);
+        bpBoxes.add(bpBox3);
+        bpBoxes.add(bpBox4);
+        bpBoxes.add(bpBox5);
+        tree = new DynamicAABBTree();
+    }
+
+    @Test
+    public void testInsertAndQueryAndRemoveAll() {
+        tree.addAll(bpBoxes);
+        Set<BPPairs> pairsSet = tree.query();
+        assertEquals(2, pairsSet.size());
+        tree.removeAll(bpBoxes);
+        Set<BPPairs> pairsSet2 = tree.query();
+        assertEquals(0, pairsSet2.size());
+    }
+
+    @Test
+    public void testClear() {
+        tree.addAll(bpBoxes);
+        tree.clear();
+        Set<BPPairs> pairsSet = tree.query();
+        assertEquals(0, pairsSet.size());
+    }
+
+    @Test
+    public void testQueryObject() {
+        Sphere sphere1 = new Sphere(new Vector3f(8, 8, 0), 1.0f);
+        RigidBody body1 = new RigidBody();
+        body1.setColliderShape(sphere1);
+        BPBox bpBox1 = new BPBox(new Vector3f(-2, -2, 0), new Vector3f(2, 2, 0), body1);
+        tree.addAll(bpBoxes);
+        Set<BPBox> pairsSet = tree.query(bpBox1);
+        assertEquals(3, pairsSet.size());
+    }
+
+    @Test
+    public void testUpdate() {
+        tree.addAll(bpBoxes);
+        bpBox1.setMax(new Vector3f(3, 5, 0));
+        tree.update(bpBox1);
+        Set<BPPairs> pairsSet = tree.query();
+        assertEquals(4, pairsSet.size());
+    }
+
+    @Test
+    public void testQueryRay() {
+        tree.addAll(bpBoxes);
+        Ray ray = new Ray(new Vector3f(-5, 0.75f, 0), new Vector3f(1, 0, 0));
+        Set<BPBox> result = tree.query(ray);
+        assertEquals(2, result.size());
+        assertTrue(result.contains(bpBoxes.get(1)));
+        assertTrue(result.contains(bpBoxes.get(2)));
+    }
+
+    @Test
+    public void testSmallMotionStaysInFatBounds() {
+        tree.addAll(bpBoxes);
+        bpBox1.translate(new Vector3f(0.05f, 0, 0));
+        tree.update(bpBox1);
+        assertEquals(2, tree.query().size());
+        // Moving apart inside the margin must not report the pair any more
+        bpBox1.translate(new Vector3f(-0.1f, -0.1f, 0));
+        tree.update(bpBox1);
+        assertEquals(1, tree.query().size());
+    }
+
+    @Test
+    public void testTreeStaysBalanced() {
+        List<BPBox> boxes = new ArrayList<>();
+        for (int i = 0; i < 1024; i++) {
+            RigidBody body = new RigidBody();
+            body.setColliderShape(new Sphere(new Vector3f(), 1.0f));
+            // Sorted insertion is the worst case for an unbalanced tree
+            Vector3f min = new Vector3f(i * 2, 0, 0);
+            boxes.add(new BPBox(min, min.add(new Vector3f(1, 1, 1)), body));
+        }
+        tree.addAll(boxes);
+        assertTrue(tree.getHeight() <= 20);
+        assertEquals(0, tree.query().size());
+    }
+
+    @Test
+    public void testIncrementalUpdatesMatchBruteForce() {
+        Random random = new Random(11);
+        runJitterScene(tree, randomCubes(random, 300, 40, 2), random, 20, 1);
+    }
+}
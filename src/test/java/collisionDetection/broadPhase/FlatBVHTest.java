@@ -0,0 +1,102 @@
+package collisionDetection.broadPhase;
+
+import collisionDetection.primitive.Ray;
+import collisionDetection.primitive.Sphere;
+import math.Vector3f;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import physics.rigidBody.RigidBody;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlatBVHTest {
+
+    private BVH bvh;
+    private List<BPBox> boxes;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(21);
+        boxes = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            RigidBody body = new RigidBody();
+            // Distinct shapes, query(BPBox) skips boxes sharing the shape of the query box
+            body.setColliderShape(new Sphere(new Vector3f(i, 0, 0), 1.0f));
+            Vector3f min = new Vector3f(random.nextFloat() * 50, random.nextFloat() * 50, random.nextFloat() * 50);
+            Vector3f size = new Vector3f(random.nextFloat() * 2, random.nextFloat() * 2, random.nextFloat() * 2);
+            boxes.add(new BPBox(min, min.add(size), body));
+        }
+        bvh = new BVH();
+        bvh.addAll(boxes);
+    }
+
+    @Test
+    public void testSnapshotLayout() {
+        FlatBVH snapshot = bvh.getSnapshot();
+        assertEquals(boxes.size(), snapshot.getPrimitiveCount());
+        assertTrue(snapshot.getNodeCount() > 1);
+        assertTrue(snapshot == bvh.getSnapshot());
+    }
+
+    @Test
+    public void testQueryRayMatchesBruteForce() {
+        Random random = new Random(4);
+        for (int i = 0; i < 50; i++) {
+            Vector3f origin = new Vector3f(random.nextFloat() * 50, random.nextFloat() * 50, -10);
+            Vector3f direction = new Vector3f(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, 1);
+            Ray ray = new Ray(origin, direction);
+            assertEquals(bruteForce(ray), bvh.query(ray));
+        }
+
+        // Axis aligned rays have zero direction components
+        Ray ray = new Ray(new Vector3f(-5, 25, 25), new Vector3f(1, 0, 0));
+        assertEquals(bruteForce(ray), bvh.query(ray));
+    }
+
+    @Test
+    public void testQueryBoxMatchesBruteForce() {
+        RigidBody body = new RigidBody();
+        body.setColliderShape(new Sphere(new Vector3f(-1, -1, -1), 1.0f));
+        BPBox box = new BPBox(new Vector3f(10, 10, 10), new Vector3f(20, 20, 20), body);
+
+        Set<BPBox> expected = new HashSet<>();
+        for (BPBox other : boxes) {
+            if (BPBox.isCollide(box, other))
+                expected.add(other);
+        }
+        assertEquals(expected, bvh.query(box));
+    }
+
+    @Test
+    public void testRefitFollowsMovedBoxes() {
+        FlatBVH snapshot = bvh.getSnapshot();
+        for (BPBox box : boxes)
+            box.translate(new Vector3f(100, 0, 0));
+        snapshot.refit();
+
+        Ray ray = new Ray(new Vector3f(125, 25, -10), new Vector3f(0, 0, 1));
+        Set<BPBox> expected = bruteForce(ray);
+        assertEquals(expected, snapshot.query(ray));
+
+        // An update marks the tree dirty and the next query flattens it again
+        bvh.updateAll(boxes);
+        assertEquals(expected, bvh.query(ray));
+    }
+
+    private Set<BPBox> bruteForce(Ray ray) {
+        Set<BPBox> result = new HashSet<>();
+        for (BPBox box : boxes) {
+            if (BPBox.isCollide(ray, box.getMin().x, box.getMin().y, box.getMin().z,
+                    box.getMax().x, box.getMax().y, box.getMax().z))
+                result.add(box);
+        }
+        return result;
+    }
+}
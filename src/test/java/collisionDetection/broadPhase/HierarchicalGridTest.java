@@ -0,0 +1,138 @@
+package collisionDetection.broadPhase;
+
+import collisionDetection.primitive.Sphere;
+import math.Vector3f;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import physics.rigidBody.RigidBody;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static collisionDetection.broadPhase.BroadPhaseScenes.assertMatchesBruteForce;
+import static collisionDetection.broadPhase.BroadPhaseScenes.box;
+import static collisionDetection.broadPhase.BroadPhaseScenes.runJitterScene;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HierarchicalGridTest {
+
+    private HierarchicalGrid grid;
+    private List<BPBox> bpBoxes;
+    private BPBox bpBox1;
+
+    @BeforeEach
+    void setUp() {
+        bpBoxes = new ArrayList<>();
+
+        Sphere sphere1 = new Sphere(new Vector3f(), 1.0f);
+        RigidBody body1 = new RigidBody();
+        body1.setColliderShape(sphere1);
+        bpBox1 = new BPBox(new Vector3f(-1, -1, 0), new Vector3f(), body1);
+
+        Sphere sphere2 = new Sphere(new Vector3f(1, 1, 1), 1.0f);
+        RigidBody body2 = new RigidBody();
+        body2.setColliderShape(sphere2);
+        BPBox bpBox2 = new BPBox(new Vector3f(), new Vector3f(1, 1, 0), body2);
+
+        Sphere sphere3 = new Sphere(new Vector3f(2, 2, 2), 1.0f);
+        RigidBody body3 = new RigidBody();
+        body3.setColliderShape(sphere3);
+        BPBox bpBox3 = new BPBox(new Vector3f(0.5f, 0.5f, 0), new Vector3f(1, 1, 0), body3);
+
+        Sphere sphere4 = new Sphere(new Vector3f(3, 3, 3), 1.0f);
+        RigidBody body4 = new RigidBody();
+        body4.setColliderShape(sphere4);
+        BPBox bpBox4 = new BPBox(new Vector3f(3, 3, 0), new Vector3f(4, 4, 0), body4);
+
+        Sphere sphere5 = new Sphere(new Vector3f(4, 4, 4), 1.0f);
+        RigidBody body5 = new RigidBody();
+        body5.setColliderShape(sphere5);
+        BPBox bpBox5 = new BPBox(new Vector3f(6, 6, 0), new Vector3f(6, 6, 0), body5);
+
+        bpBoxes.add(bpBox1);
+        bpBoxes.add(bpBox2);
+        bpBoxes.add(bpBox3);
+        bpBoxes.add(bpBox4);
+        bpBoxes.add(bpBox5);
+        grid = new HierarchicalGrid();
+    }
+
+    @Test
+    public void testInsertAndQueryAndRemoveAll() {
+        grid.addAll(bpBoxes);
+        Set<BPPairs> pairsSet = grid.query();
+        assertEquals(2, pairsSet.size());
+        grid.removeAll(bpBoxes);
+        Set<BPPairs> pairsSet2 = grid.query();
+        assertEquals(0, pairsSet2.size());
+    }
+
+    @Test
+    public void testClear() {
+        grid.addAll(bpBoxes);
+        grid.clear();
+        Set<BPPairs> pairsSet = grid.query();
+        assertEquals(0, pairsSet.size());
+    }
+
+    @Test
+    public void testQueryObject() {
+        Sphere sphere1 = new Sphere(new Vector3f(8, 8, 0), 1.0f);
+        RigidBody body1 = new RigidBody();
+        body1.setColliderShape(sphere1);
+        BPBox bpBox1 = new BPBox(new Vector3f(-2, -2, 0), new Vector3f(2, 2, 0), body1);
+        grid.addAll(bpBoxes);
+        Set<BPBox> pairsSet = grid.query(bpBox1);
+        assertEquals(3, pairsSet.size());
+    }
+
+    @Test
+    public void testUpdate() {
+        grid.addAll(bpBoxes);
+        bpBox1.setMax(new Vector3f(3, 5, 0));
+        grid.update(bpBox1);
+        Set<BPPairs> pairsSet = grid.query();
+        assertEquals(4, pairsSet.size());
+    }
+
+    @Test
+    public void testBoxesGoToLevelMatchingTheirSize() {
+        grid.addAll(bpBoxes);
+        // Four boxes fit a 1 unit cell, none is larger
+        assertEquals(5, grid.getLevelSize(0));
+
+        bpBox1.setMax(new Vector3f(3, 5, 0));
+        grid.update(bpBox1);
+        // Extent 6 needs 8 unit cells
+        assertEquals(4, grid.getLevelSize(0));
+        assertEquals(1, grid.getLevelSize(3));
+    }
+
+    @Test
+    public void testMixedSizesMatchBruteForce() {
+        Random random = new Random(17);
+        List<BPBox> boxes = mixedBoxes(random, 400);
+        // Some boxes grow into a coarser level
+        runJitterScene(grid, boxes, random, 10, 1,
+                frame -> boxes.get(frame * 7).setMax(boxes.get(frame * 7).getMax().add(new Vector3f(4, 4, 4))));
+
+        // Removed slots are reused by the boxes added back
+        grid.addAll(boxes.subList(0, 100));
+        List<BPBox> present = new ArrayList<>(boxes.subList(0, 100));
+        present.addAll(boxes.subList(200, 400));
+        assertMatchesBruteForce(grid, present);
+    }
+
+    // Mostly small debris with a few huge boxes
+    private static List<BPBox> mixedBoxes(Random random, int count) {
+        List<BPBox> boxes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            float size = i % 50 == 0 ? 20 + random.nextFloat() * 40 : 0.2f + random.nextFloat();
+            Vector3f min = new Vector3f(random.nextFloat() * 60, random.nextFloat() * 60, random.nextFloat() * 60);
+            boxes.add(box(min, new Vector3f(size, size * random.nextFloat(), size)));
+        }
+        return boxes;
+    }
+}
@@ -0,0 +1,95 @@
+package collisionDetection.broadPhase;
+
+import collisionDetection.primitive.Sphere;
+import math.Vector3f;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import physics.rigidBody.RigidBody;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Compares the SAP sweep against the all-pairs reference. Run with main() from the test classpath.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SAPBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int boxCount;
+
+    private List<BPBox> boxes;
+    private SAP sap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        // Keep the density constant so every size sees a similar number of pairs per box
+        float worldSize = (float) Math.cbrt(boxCount) * 4;
+
+        boxes = new ArrayList<>(boxCount);
+        for (int i = 0; i < boxCount; i++) {
+            RigidBody body = new RigidBody();
+            body.setColliderShape(new Sphere(new Vector3f(), 1.0f));
+            Vector3f min = new Vector3f(random.nextFloat() * worldSize, random.nextFloat() * worldSize,
+                    random.nextFloat() * worldSize);
+            Vector3f size = new Vector3f(0.5f + random.nextFloat(), 0.5f + random.nextFloat(), 0.5f + random.nextFloat());
+            boxes.add(new BPBox(min, min.add(size), body));
+        }
+
+        sap = new SAP();
+        sap.addAll(boxes);
+
+        Set<Long> expected = bruteForcePairs();
+        Set<Long> actual = toKeys(sap.query());
+        if (!expected.equals(actual))
+            throw new IllegalStateException("SAP found " + actual.size() + " pairs, brute force found " + expected.size());
+    }
+
+    @Benchmark
+    public Set<BPPairs> sweep() {
+        return sap.query();
+    }
+
+    @Benchmark
+    public Set<Long> bruteForce() {
+        return bruteForcePairs();
+    }
+
+    private Set<Long> bruteForcePairs() {
+        Set<Long> pairs = new HashSet<>();
+        for (int i = 0; i < boxes.size(); i++) {
+            for (int j = i + 1; j < boxes.size(); j++) {
+                if (BPBox.isCollide(boxes.get(i), boxes.get(j)))
+                    pairs.add(((long) i << 32) | j);
+            }
+        }
+        return pairs;
+    }
+
+    // Maps every pair to the original box indices so both results can be compared in any order
+    private Set<Long> toKeys(Set<BPPairs> pairs) {
+        Map<BPBox, Integer> indices = new IdentityHashMap<>();
+        for (int i = 0; i < boxes.size(); i++)
+            indices.put(boxes.get(i), i);
+
+        Set<Long> keys = new HashSet<>();
+        for (BPPairs pair : pairs) {
+            int index1 = indices.get(pair.getBpBox1());
+            int index2 = indices.get(pair.getBpBox2());
+            keys.add(((long) Math.min(index1, index2) << 32) | Math.max(index1, index2));
+        }
+        return keys;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SAPBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -7,10 +7,14 @@ import org.junit.jupiter.api.Test;
 import physics.rigidBody.RigidBody;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
+import static collisionDetection.broadPhase.BroadPhaseScenes.assertParallelQueryMatchesBruteForce;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class SAPTest {
 
@@ -90,7 +94,85 @@ class SAPTest {
         bpBox1.setMax(new Vector3f(3, 5, 0));
         sap.update(bpBox1);
         Set<BPPairs> pairsSet = sap.query();
-        assertEquals(3, pairsSet.size());
+        assertEquals(4, pairsSet.size());
+    }
+
+    @Test
+    public void testQueryIntoPairList() {
+        sap.addAll(bpBoxes);
+        BPPairList pairs = new BPPairList();
+        sap.query(pairs);
+        Set<BPPairs> pairsSet = sap.query();
+        assertEquals(pairsSet.size(), pairs.size());
+        for (int i = 0; i < pairs.size(); i++)
+            assertTrue(pairsSet.contains(new BPPairs(pairs.getBox2(i), pairs.getBox1(i))));
+
+        // The list is refilled, not appended to
+        sap.query(pairs);
+        assertEquals(pairsSet.size(), pairs.size());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testPairKeyIsStableWhileBoxesMove() {
+        sap.addAll(bpBoxes);
+        BPPairs pair = new BPPairs(bpBoxes.get(0), bpBoxes.get(1));
+        long key = pair.getKey();
+        int hash = pair.hashCode();
+        bpBoxes.get(0).translate(new Vector3f(5, 5, 5));
+        assertEquals(key, pair.getKey());
+        assertEquals(hash, pair.hashCode());
+        assertEquals(pair, new BPPairs(bpBoxes.get(1), bpBoxes.get(0)));
+    }
+
+    @Test
+    public void testIdsGivenOutOnInsertAndReused() {
+        assertEquals(BPBox.NO_ID, bpBox1.getId());
+        sap.addAll(bpBoxes);
+        Set<Integer> ids = new HashSet<>();
+        for (BPBox bpBox : bpBoxes)
+            assertTrue(ids.add(bpBox.getId()));
+
+        int id = bpBox1.getId();
+        sap.remove(bpBox1);
+        assertEquals(BPBox.NO_ID, bpBox1.getId());
+        BPBox next = new BPBox(new Vector3f(), new Vector3f(1, 1, 1), bpBox1.getBody());
+        sap.insert(next);
+        assertEquals(id, next.getId());
+
+        sap.clear();
+        for (BPBox bpBox : bpBoxes)
+            assertEquals(BPBox.NO_ID, bpBox.getId());
+    }
+
+    @Test
+    public void testQueryMatchesBruteForce() {
+        Random random = new Random(3);
+        List<BPBox> boxes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            RigidBody body = new RigidBody();
+            body.setColliderShape(new Sphere(new Vector3f(), 1.0f));
+            Vector3f min = new Vector3f(random.nextFloat() * 30, random.nextFloat() * 5, random.nextFloat() * 30);
+            Vector3f size = new Vector3f(random.nextFloat() * 3, random.nextFloat() * 3, random.nextFloat() * 3);
+            boxes.add(new BPBox(min, min.add(size), body));
+        }
+        sap.addAll(boxes);
+
+        int expected = 0;
+        for (int i = 0; i < boxes.size(); i++) {
+            for (int j = i + 1; j < boxes.size(); j++) {
+                if (BPBox.isCollide(boxes.get(i), boxes.get(j)))
+                    expected++;
+            }
+        }
+
+        Set<BPPairs> pairsSet = sap.query();
+        assertEquals(expected, pairsSet.size());
+        for (BPPairs pair : pairsSet)
+            assertTrue(BPBox.isCollide(pair.getBpBox1(), pair.getBpBox2()));
+    }
+
+    @Test
+    public void testParallelQueryMatchesBruteForce() {
+        assertParallelQueryMatchesBruteForce(SAP::new);
+    }
+}
@@ -0,0 +1,142 @@
+package collisionDetection.broadPhase;
+
+import collisionDetection.primitive.Ray;
+import collisionDetection.primitive.Sphere;
+import math.Vector3f;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import physics.rigidBody.RigidBody;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static collisionDetection.broadPhase.BroadPhaseScenes.randomBoxes;
+import static collisionDetection.broadPhase.BroadPhaseScenes.runJitterScene;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpatialHashGridTest {
+
+    private SpatialHashGrid grid;
+    private List<BPBox> bpBoxes;
+    private BPBox bpBox1;
+
+    @BeforeEach
+    void setUp() {
+        bpBoxes = new ArrayList<>();
+
+        Sphere sphere1 = new Sphere(new Vector3f(), 1.0f);
+        RigidBody body1 = new RigidBody();
+        body1.setColliderShape(sphere1);
+        bpBox1 = new BPBox(new Vector3f(-1, -1, 0), new Vector3f(), body1);
+
+        Sphere sphere2 = new Sphere(new Vector3f(1, 1, 1), 1.0f);
+        RigidBody body2 = new RigidBody();
+        body2.setColliderShape(sphere2);
+        BPBox bpBox2 = new BPBox(new Vector3f(), new Vector3f(1, 1, 0), body2);
+
+        Sphere sphere3 = new Sphere(new Vector3f(2, 2, 2), 1.0f);
+        RigidBody body3 = new RigidBody();
+        body3.setColliderShape(sphere3);
+        BPBox bpBox3 = new BPBox(new Vector3f(0.5f, 0.5f, 0), new Vector3f(1, 1, 0), body3);
+
+        Sphere sphere4 = new Sphere(new Vector3f(3, 3, 3), 1.0f);
+        RigidBody body4 = new RigidBody();
+        body4.setColliderShape(sphere4);
+        BPBox bpBox4 = new BPBox(new Vector3f(3, 3, 0), new Vector3f(4, 4, 0), body4);
+
+        Sphere sphere5 = new Sphere(new Vector3f(4, 4, 4), 1.0f);
+        RigidBody body5 = new RigidBody();
+        body5.setColliderShape(sphere5);
+        BPBox bpBox5 = new BPBox(new Vector3f(6, 6, 0), new Vector3f(6, 6, 0), body5);
+
+        bpBoxes.add(bpBox1);
+        bpBoxes.add(bpBox2);
+        bpBoxes.add(bpBox3);
+        bpBoxes.add(bpBox4);
+        bpBoxes.add(bpBox5);
+        grid = new SpatialHashGrid();
+    }
+
+    @Test
+    public void testInsertAndQueryAndRemoveAll() {
+        grid.addAll(bpBoxes);
+        Set<BPPairs> pairsSet = grid.query();
+        assertEquals(2, pairsSet.size());
+        grid.removeAll(bpBoxes);
+        Set<BPPairs> pairsSet2 = grid.query();
+        assertEquals(0, pairsSet2.size());
+    }
+
+    @Test
+    public void testClear() {
+        grid.addAll(bpBoxes);
+        grid.clear();
+        Set<BPPairs> pairsSet = grid.query();
+        assertEquals(0, pairsSet.size());
+    }
+
+    @Test
+    public void testQueryObject() {
+        Sphere sphere1 = new Sphere(new Vector3f(8, 8, 0), 1.0f);
+        RigidBody body1 = new RigidBody();
+        body1.setColliderShape(sphere1);
+        BPBox bpBox1 = new BPBox(new Vector3f(-2, -2, 0), new Vector3f(2, 2, 0), body1);
+        grid.addAll(bpBoxes);
+        Set<BPBox> pairsSet = grid.query(bpBox1);
+        assertEquals(3, pairsSet.size());
+    }
+
+    @Test
+    public void testUpdate() {
+        grid.addAll(bpBoxes);
+        bpBox1.setMax(new Vector3f(3, 5, 0));
+        grid.update(bpBox1);
+        Set<BPPairs> pairsSet = grid.query();
+        assertEquals(4, pairsSet.size());
+    }
+
+    @Test
+    public void testRemoveAllFreesCells() {
+        grid.addAll(bpBoxes);
+        assertTrue(grid.getCellCount() > 0);
+        grid.removeAll(bpBoxes);
+        assertEquals(0, grid.getCellCount());
+        assertEquals(0, grid.query().size());
+    }
+
+    @Test
+    public void testQueryRayMatchesBruteForce() {
+        List<BPBox> boxes = randomBoxes(new Random(13), 400, 40, 5);
+        grid.addAll(boxes);
+
+        Random random = new Random(14);
+        for (int i = 0; i < 50; i++) {
+            Vector3f origin = new Vector3f(random.nextFloat() * 80 - 20, random.nextFloat() * 80 - 20, random.nextFloat() * 80 - 20);
+            Vector3f direction = new Vector3f(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f);
+            Ray ray = new Ray(origin, direction);
+            assertEquals(bruteForce(boxes, ray), grid.query(ray));
+        }
+
+        Ray ray = new Ray(new Vector3f(-5, 20, 20), new Vector3f(1, 0, 0));
+        assertEquals(bruteForce(boxes, ray), grid.query(ray));
+    }
+
+    @Test
+    public void testIncrementalUpdatesMatchBruteForce() {
+        runJitterScene(grid, randomBoxes(new Random(15), 300, 40, 5), new Random(16), 20, 2);
+    }
+
+    private static Set<BPBox> bruteForce(List<BPBox> boxes, Ray ray) {
+        Set<BPBox> result = new HashSet<>();
+        for (BPBox box : boxes) {
+            if (BPBox.isCollide(ray, box.getMin().x, box.getMin().y, box.getMin().z,
+                    box.getMax().x, box.getMax().y, box.getMax().z))
+                result.add(box);
+        }
+        return result;
+    }
+}
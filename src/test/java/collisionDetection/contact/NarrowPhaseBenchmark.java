@@ -0,0 +1,87 @@
+package collisionDetection.contact;
+
+import collisionDetection.CDEngine;
+import collisionDetection.broadPhase.BPBox;
+import collisionDetection.broadPhase.SAP;
+import collisionDetection.narrowPhase.Shape;
+import collisionDetection.primitive.OBB;
+import collisionDetection.primitive.Sphere;
+import math.Quaternion;
+import math.Vector3f;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import physics.rigidBody.RigidBody;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Full PairManager update over a crowd of boxes and spheres, every pair retested each update, with
+// the narrow phase on 1 to 8 threads. Run with main() from the test classpath.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NarrowPhaseBenchmark {
+
+    private static final int BODY_COUNT = 4000;
+
+    @Param({"1", "2", "4", "8"})
+    private int threads;
+
+    private ExecutorService executor;
+    private PairManager pairManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CDEngine.init(new SAP());
+        CDEngine cdEngine = CDEngine.getCdEngine();
+        Random random = new Random(42);
+        for (int i = 0; i < BODY_COUNT; i++) {
+            Vector3f center = new Vector3f(random.nextFloat() * 30, random.nextFloat() * 30, random.nextFloat() * 30);
+            Shape shape;
+            if (i % 4 == 0) {
+                shape = new Sphere(center, 0.6f);
+            } else {
+                OBB box = new OBB(center, new Vector3f(0.5f, 0.5f, 0.5f));
+                float angle = random.nextFloat() * (float) Math.PI;
+                box.rotate(new Quaternion(0, (float) Math.sin(angle / 2), 0, (float) Math.cos(angle / 2)));
+                shape = box;
+            }
+            RigidBody body = new RigidBody();
+            body.setColliderShape(shape);
+            Vector3f extent = new Vector3f(0.9f, 0.9f, 0.9f);
+            cdEngine.add(new BPBox(center.sub(extent), center.add(extent), body));
+        }
+
+        pairManager = new PairManager(cdEngine);
+        pairManager.setSkipUnchanged(false);
+        if (threads > 1) {
+            executor = new ForkJoinPool(threads - 1);
+            pairManager.setExecutor(executor);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (executor != null)
+            executor.shutdown();
+    }
+
+    @Benchmark
+    public int update() {
+        pairManager.update();
+        return pairManager.getTouching().size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(NarrowPhaseBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
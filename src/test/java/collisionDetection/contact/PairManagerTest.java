@@ -0,0 +1,226 @@
+package collisionDetection.contact;
+
+import collisionDetection.CDEngine;
+import collisionDetection.broadPhase.BPBox;
+import collisionDetection.broadPhase.SAP;
+import collisionDetection.narrowPhase.Shape;
+import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+import collisionDetection.primitive.OBB;
+import collisionDetection.primitive.Sphere;
+import math.Vector3f;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import physics.rigidBody.RigidBody;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PairManagerTest {
+
+    private CDEngine cdEngine;
+    private PairManager pairManager;
+    private List<String> events;
+    private Sphere sphere1;
+    private Sphere sphere2;
+    private BPBox bpBox1;
+    private BPBox bpBox2;
+
+    @BeforeEach
+    void setUp() {
+        CDEngine.init(new SAP());
+        cdEngine = CDEngine.getCdEngine();
+        pairManager = new PairManager(cdEngine);
+        events = new ArrayList<>();
+        pairManager.addListener(new ContactListener() {
+            @Override
+            public void onBegin(ContactPair pair) {
+                events.add("begin");
+            }
+
+            @Override
+            public void onPersist(ContactPair pair) {
+                events.add("persist");
+            }
+
+            @Override
+            public void onEnd(ContactPair pair) {
+                events.add("end");
+            }
+        });
+
+        sphere1 = new Sphere(new Vector3f(), 1.0f);
+        sphere2 = new Sphere(new Vector3f(1.5f, 0, 0), 1.0f);
+        bpBox1 = createBox(sphere1);
+        bpBox2 = createBox(sphere2);
+        cdEngine.add(bpBox1);
+        cdEngine.add(bpBox2);
+    }
+
+    private BPBox createBox(Sphere sphere) {
+        RigidBody body = new RigidBody();
+        body.setColliderShape(sphere);
+        // Boxes a bit larger than the spheres, so pairs can overlap in the broad phase without touching
+        float extent = sphere.getRadius() + 0.5f;
+        Vector3f radius = new Vector3f(extent, extent, extent);
+        return new BPBox(sphere.getCenter().sub(radius), sphere.getCenter().add(radius), body);
+    }
+
+    private void move(Sphere sphere, BPBox bpBox, Vector3f offset) {
+        sphere.translate(offset);
+        bpBox.translate(offset);
+        cdEngine.update(bpBox);
+    }
+
+    @Test
+    public void testBeginPersistEnd() {
+        pairManager.update();
+        assertEquals(List.of("begin"), events);
+        assertEquals(1, pairManager.getTouching().size());
+
+        pairManager.update();
+        assertEquals(List.of("begin", "persist"), events);
+
+        // Still overlapping in the broad phase but the spheres no longer touch
+        move(sphere2, bpBox2, new Vector3f(0.6f, 0, 0));
+        pairManager.update();
+        assertEquals(List.of("begin", "persist", "end"), events);
+        assertEquals(1, pairManager.size());
+        // Sphere pairs are solved analytically and leave nothing in the axis cache
+        assertEquals(0, pairManager.getAxisCache().size());
+        assertTrue(pairManager.getTouching().isEmpty());
+
+        move(sphere2, bpBox2, new Vector3f(-0.6f, 0, 0));
+        pairManager.update();
+        assertEquals(List.of("begin", "persist", "end", "begin"), events);
+    }
+
+    @Test
+    public void testPairLeavingBroadPhaseEnds() {
+        pairManager.update();
+        ContactPair pair = pairManager.getPair(bpBox2, bpBox1);
+        assertNotNull(pair);
+        pair.setUserData("data");
+
+        pairManager.update();
+        assertSame(pair, pairManager.getPair(bpBox1, bpBox2));
+        assertEquals("data", pair.getUserData());
+
+        cdEngine.remove(bpBox2);
+        pairManager.update();
+        assertEquals(0, pairManager.getAxisCache().size());
+        assertEquals(List.of("begin", "persist", "end"), events);
+        assertNull(pairManager.getPair(bpBox1, bpBox2));
+        assertEquals(0, pairManager.size());
+    }
+
+    @Test
+    public void testBoxTakingOverRemovedIdStartsNewPair() {
+        pairManager.update();
+        ContactPair pair = pairManager.getPair(bpBox1, bpBox2);
+
+        // The new box gets the id bpBox2 gave back, so the pair key is the same
+        cdEngine.remove(bpBox2);
+        BPBox bpBox3 = createBox(new Sphere(new Vector3f(-1.5f, 0, 0), 1.0f));
+        cdEngine.add(bpBox3);
+        assertEquals(pair.getKey(), pairManager.getPair(bpBox1, bpBox3).getKey());
+
+        pairManager.update();
+        assertEquals(List.of("begin", "end", "begin"), events);
+        ContactPair next = pairManager.getPair(bpBox1, bpBox3);
+        assertNotSame(pair, next);
+        assertSame(bpBox3, next.getBpBox1() == bpBox1 ? next.getBpBox2() : next.getBpBox1());
+    }
+
+    @Test
+    public void testUnchangedPairReusesResult() {
+        pairManager.update();
+        CollisionResult result = pairManager.getPair(bpBox1, bpBox2).getResult();
+        assertTrue(result.isColliding());
+
+        pairManager.update();
+        assertSame(result, pairManager.getPair(bpBox1, bpBox2).getResult());
+
+        move(sphere1, bpBox1, new Vector3f(0.1f, 0, 0));
+        pairManager.update();
+        assertNotSame(result, pairManager.getPair(bpBox1, bpBox2).getResult());
+
+        pairManager.setSkipUnchanged(false);
+        result = pairManager.getPair(bpBox1, bpBox2).getResult();
+        pairManager.update();
+        assertNotSame(result, pairManager.getPair(bpBox1, bpBox2).getResult());
+    }
+
+    @Test
+    public void testClearEndsTouchingPairs() {
+        pairManager.update();
+        pairManager.clear();
+        assertEquals(List.of("begin", "end"), events);
+        assertEquals(0, pairManager.size());
+        assertTrue(pairManager.getTouching().isEmpty());
+    }
+
+    @Test
+    public void testManifoldPersistsAcrossUpdates() {
+        pairManager.update();
+        PersistentManifold manifold = pairManager.getPair(bpBox1, bpBox2).getManifold();
+        assertEquals(1, manifold.getPointCount());
+        assertEquals(0, manifold.getPoint(0).getLifetime());
+        manifold.getPoint(0).setNormalImpulse(2);
+
+        // Unchanged bounds refresh the points, retesting matches them again
+        pairManager.update();
+        assertEquals(1, manifold.getPoint(0).getLifetime());
+        pairManager.setSkipUnchanged(false);
+        pairManager.update();
+        assertEquals(2, manifold.getPoint(0).getLifetime());
+        assertEquals(2, manifold.getPoint(0).getNormalImpulse());
+
+        move(sphere2, bpBox2, new Vector3f(0.6f, 0, 0));
+        pairManager.update();
+        assertEquals(0, manifold.getPointCount());
+    }
+
+    @Test
+    public void testParallelNarrowPhaseMatchesSequential() {
+        Random random = new Random(3);
+        for (int i = 0; i < 300; i++) {
+            Vector3f center = new Vector3f(random.nextFloat() * 10, random.nextFloat() * 10, random.nextFloat() * 10);
+            Shape shape = i % 3 == 0 ? new Sphere(center, 0.6f) : new OBB(center, new Vector3f(0.5f, 0.5f, 0.5f));
+            RigidBody body = new RigidBody();
+            body.setColliderShape(shape);
+            Vector3f extent = new Vector3f(0.9f, 0.9f, 0.9f);
+            cdEngine.add(new BPBox(center.sub(extent), center.add(extent), body));
+        }
+
+        PairManager parallel = new PairManager(cdEngine);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            parallel.setExecutor(executor);
+            parallel.setChunkSize(8);
+            pairManager.update();
+            parallel.update();
+
+            List<ContactPair> expected = pairManager.getTouching();
+            List<ContactPair> actual = parallel.getTouching();
+            assertTrue(expected.size() > 20);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getKey(), actual.get(i).getKey());
+                assertEquals(expected.get(i).getResult().getDepth(), actual.get(i).getResult().getDepth());
+                assertEquals(expected.get(i).getManifold().getPointCount(), actual.get(i).getManifold().getPointCount());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testChunkSizeMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> pairManager.setChunkSize(0));
+    }
+}
@@ -0,0 +1,144 @@
+package collisionDetection.contact;
+
+import collisionDetection.narrowPhase.collisionResult.ContactManifold;
+import math.Quaternion;
+import math.Vector3f;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import physics.rigidBody.RigidBody;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentManifoldTest {
+
+    private RigidBody ground;
+    private RigidBody box;
+    private PersistentManifold persistent;
+
+    @BeforeEach
+    void setUp() {
+        ground = new RigidBody();
+        box = new RigidBody();
+        box.setPosition(new Vector3f(0, 0.45f, 0));
+        persistent = new PersistentManifold();
+    }
+
+    // The four bottom corners of a unit box sunk 0.05 into the ground, the box centred at x, z
+    private static ContactManifold restingBox(float x, float z) {
+        ContactManifold manifold = new ContactManifold();
+        manifold.getNormal().set(0, 1, 0);
+        for (int i = 0; i < 4; i++) {
+            float cornerX = x + ((i & 1) == 0 ? -0.5f : 0.5f);
+            float cornerZ = z + ((i & 2) == 0 ? -0.5f : 0.5f);
+            manifold.addPoint(new Vector3f(cornerX, 0, cornerZ), new Vector3f(cornerX, -0.05f, cornerZ), 0.05f);
+        }
+        return manifold;
+    }
+
+    @Test
+    void testMatchedPointsKeepImpulses() {
+        persistent.update(restingBox(0, 0), ground, box);
+        assertEquals(4, persistent.getPointCount());
+        for (int i = 0; i < 4; i++)
+            persistent.getPoint(i).setNormalImpulse(i + 1);
+
+        persistent.update(restingBox(0.001f, 0), ground, box);
+        assertEquals(4, persistent.getPointCount());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i + 1, persistent.getPoint(i).getNormalImpulse());
+            assertEquals(1, persistent.getPoint(i).getLifetime());
+        }
+    }
+
+    @Test
+    void testNewPointsStartWithoutImpulses() {
+        persistent.update(restingBox(0, 0), ground, box);
+        persistent.getPoint(0).setNormalImpulse(5);
+        persistent.getPoint(0).setTangentImpulse1(2);
+
+        persistent.update(restingBox(0.2f, 0), ground, box);
+        for (int i = 0; i < persistent.getPointCount(); i++) {
+            assertEquals(0, persistent.getPoint(i).getNormalImpulse());
+            assertEquals(0, persistent.getPoint(i).getTangentImpulse1());
+            assertEquals(0, persistent.getPoint(i).getLifetime());
+        }
+    }
+
+    @Test
+    void testPointsMatchInLocalSpace() {
+        persistent.update(restingBox(0, 0), ground, box);
+        persistent.getPoint(2).setNormalImpulse(3);
+
+        // Ground and box both moved, the contact is still the same in the space of each body
+        Vector3f move = new Vector3f(4, 0, -2);
+        ground.setPosition(ground.getPosition().add(move));
+        box.setPosition(box.getPosition().add(move));
+        persistent.update(restingBox(4, -2), ground, box);
+        assertEquals(3, persistent.getPoint(2).getNormalImpulse());
+    }
+
+    @Test
+    void testRefreshFollowsBodies() {
+        persistent.update(restingBox(0, 0), ground, box);
+
+        // The box sinks further in, its points go with it
+        box.setPosition(new Vector3f(0, 0.43f, 0));
+        persistent.refresh(ground, box);
+        assertEquals(4, persistent.getPointCount());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0.07f, persistent.getPoint(i).getDepth(), 1e-5f);
+            assertEquals(-0.07f, persistent.getPoint(i).getWorldB().y, 1e-5f);
+        }
+
+        ground.setPosition(new Vector3f(0, 0.01f, 0));
+        persistent.refresh(ground, box);
+        assertEquals(0.08f, persistent.getDepth(), 1e-5f);
+    }
+
+    @Test
+    void testRefreshDropsSeparatedAndSlidPoints() {
+        persistent.update(restingBox(0, 0), ground, box);
+        ground.setPosition(new Vector3f(0, -0.1f, 0));
+        persistent.refresh(ground, box);
+        assertEquals(0, persistent.getPointCount());
+        assertFalse(persistent.isColliding());
+
+        ground.setPosition(new Vector3f());
+        persistent.update(restingBox(0, 0), ground, box);
+        ground.setPosition(new Vector3f(0.1f, 0, 0));
+        persistent.refresh(ground, box);
+        assertEquals(0, persistent.getPointCount());
+    }
+
+    @Test
+    void testRefreshRotatesLocalPoints() {
+        persistent.update(restingBox(0, 0), ground, box);
+
+        // A quarter turn about the vertical axis maps the box corners onto each other
+        float half = (float) Math.sin(Math.PI / 4);
+        box.setOrientation(new Quaternion(0, half, 0, half));
+        persistent.refresh(ground, box);
+        assertEquals(0, persistent.getPointCount());
+    }
+
+    @Test
+    void testResultViewReportsDeepestPoint() {
+        ContactManifold manifold = restingBox(0, 0);
+        ContactManifold tilted = new ContactManifold();
+        tilted.getNormal().set(manifold.getNormal());
+        for (int i = 0; i < 4; i++)
+            tilted.addPoint(manifold.getPointA(i), manifold.getPointB(i), i == 3 ? 0.08f : 0.05f);
+
+        persistent.update(tilted, ground, box);
+        assertTrue(persistent.isColliding());
+        assertEquals(0.08f, persistent.getDepth());
+        assertEquals(tilted.getPointA(3), persistent.getContactPointA());
+        assertEquals(tilted.getPointB(3), persistent.getContactPointB());
+        assertEquals(0, persistent.getTangent1().dot(persistent.getNormal()), 1e-6f);
+        assertEquals(0, persistent.getTangent2().dot(persistent.getTangent1()), 1e-6f);
+
+        persistent.reset();
+        assertEquals(0, persistent.getPointCount());
+        assertNull(persistent.getContactPointA());
+    }
+}
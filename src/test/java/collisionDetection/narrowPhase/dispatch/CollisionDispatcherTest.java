@@ -0,0 +1,136 @@
+package collisionDetection.narrowPhase.dispatch;
+
+import collisionDetection.narrowPhase.Shape;
+import collisionDetection.narrowPhase.ShapeType;
+import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+import collisionDetection.narrowPhase.gjk.GJK;
+import collisionDetection.narrowPhase.sat.BoxBoxSAT;
+import collisionDetection.narrowPhase.sat.SAT;
+import collisionDetection.primitive.*;
+import math.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CollisionDispatcherTest {
+    static CollisionDispatcher dispatcher = new CollisionDispatcher(new GJK(), new SAT(), new BoxBoxSAT());
+
+    private static CollisionResult collide(Shape shape1, Shape shape2) {
+        return dispatcher.collide(shape1, shape2, new CollisionResult());
+    }
+
+    @Test
+    void testSphereSphere() {
+        Sphere sphere1 = new Sphere(new Vector3f(0, 0, 0), 1);
+        Sphere sphere2 = new Sphere(new Vector3f(1.5f, 0, 0), 1);
+
+        CollisionResult result = collide(sphere1, sphere2);
+        assertTrue(result.isColliding());
+        assertEquals(0.5f, result.getDepth(), 1e-6f);
+        assertEquals(new Vector3f(1, 0, 0), result.getNormal());
+        assertEquals(new Vector3f(1, 0, 0), result.getContactPointA());
+        assertEquals(new Vector3f(0.5f, 0, 0), result.getContactPointB());
+
+        sphere2.setCenter(new Vector3f(2.1f, 0, 0));
+        assertFalse(collide(sphere1, sphere2).isColliding());
+    }
+
+    @Test
+    void testCapsulePairs() {
+        Capsule capsule1 = new Capsule(new Vector3f(-1, 0, 0), new Vector3f(1, 0, 0), 0.5f);
+        Capsule capsule2 = new Capsule(new Vector3f(0, 0.8f, -1), new Vector3f(0, 0.8f, 1), 0.5f);
+
+        CollisionResult result = collide(capsule1, capsule2);
+        assertEquals(0.2f, result.getDepth(), 1e-6f);
+        assertEquals(1, result.getNormal().y, 1e-6f);
+        assertEquals(0.5f, result.getContactPointA().y, 1e-6f);
+        assertEquals(0.3f, result.getContactPointB().y, 1e-6f);
+
+        // Sphere beyond the end of the capsule
+        Sphere sphere = new Sphere(new Vector3f(1.9f, 0, 0), 0.5f);
+        result = collide(sphere, capsule1);
+        assertEquals(0.1f, result.getDepth(), 1e-6f);
+        assertEquals(-1, result.getNormal().x, 1e-6f);
+
+        // Crossing cores are pushed apart perpendicular to both
+        capsule2 = new Capsule(new Vector3f(0, 0, -1), new Vector3f(0, 0, 1), 0.5f);
+        result = collide(capsule1, capsule2);
+        assertEquals(1, result.getDepth(), 1e-6f);
+        assertEquals(1, Math.abs(result.getNormal().y), 1e-6f);
+    }
+
+    @Test
+    void testSphereAgainstBoxBothOrders() {
+        AABB box = new AABB(new Vector3f(-1, -1, -1), new Vector3f(1, 1, 1));
+        Sphere sphere = new Sphere(new Vector3f(0.2f, 1.4f, 0), 0.5f);
+
+        CollisionResult result = collide(sphere, box);
+        assertEquals(0.1f, result.getDepth(), 1e-5f);
+        assertEquals(-1, result.getNormal().y, 1e-5f);
+        assertEquals(0.9f, result.getContactPointA().y, 1e-5f);
+        assertEquals(1, result.getContactPointB().y, 1e-5f);
+
+        result = collide(box, sphere);
+        assertEquals(0.1f, result.getDepth(), 1e-5f);
+        assertEquals(1, result.getNormal().y, 1e-5f);
+        assertEquals(1, result.getContactPointA().y, 1e-5f);
+        assertEquals(0.9f, result.getContactPointB().y, 1e-5f);
+
+        sphere.setCenter(new Vector3f(1.4f, 1.4f, 0));
+        assertFalse(collide(sphere, box).isColliding());
+    }
+
+    @Test
+    void testCapsuleCoreInsideBox() {
+        OBB box = new OBB(new Vector3f(0, 0, 0), new Vector3f(1, 1, 1));
+        Capsule capsule = new Capsule(new Vector3f(-0.5f, 0.8f, 0), new Vector3f(0.5f, 0.8f, 0), 0.5f);
+
+        // The core is 0.2 below the top face, the capsule reaches 0.7 into the box
+        CollisionResult result = collide(box, capsule);
+        assertTrue(result.isColliding());
+        assertEquals(0.7f, result.getDepth(), 1e-3f);
+        assertEquals(1, result.getNormal().y, 1e-3f);
+    }
+
+    @Test
+    void testPlane() {
+        Plane plane = new Plane(new Vector3f(0, 1, 0), 0);
+        Sphere sphere = new Sphere(new Vector3f(0, 0.8f, 0), 1);
+
+        CollisionResult result = collide(plane, sphere);
+        assertEquals(0.2f, result.getDepth(), 1e-6f);
+        assertEquals(1, result.getNormal().y, 1e-6f);
+        assertEquals(0, result.getContactPointA().y, 1e-6f);
+        assertEquals(-0.2f, result.getContactPointB().y, 1e-6f);
+
+        OBB box = new OBB(new Vector3f(0, -0.4f, 0), new Vector3f(0.5f, 0.5f, 0.5f));
+        result = collide(box, plane);
+        assertEquals(0.1f, result.getDepth(), 1e-6f);
+        assertEquals(1, result.getNormal().y, 1e-6f);
+
+        Capsule capsule = new Capsule(new Vector3f(0, 1, 0), new Vector3f(0, 3, 0), 0.5f);
+        assertFalse(collide(plane, capsule).isColliding());
+    }
+
+    @Test
+    void testFallbackAndRegistration() {
+        AABB box = new AABB(new Vector3f(-1, -1, -1), new Vector3f(1, 1, 1));
+        Triangle triangle = new Triangle(new Vector3f(-1, 0.9f, -1), new Vector3f(1, 0.9f, -1), new Vector3f(0, 0.9f, 1));
+        assertNull(dispatcher.getAlgorithm(ShapeType.AABB, ShapeType.TRIANGLE));
+        assertTrue(collide(box, triangle).isColliding());
+
+        CollisionDispatcher custom = new CollisionDispatcher(new GJK(), new SAT(), new BoxBoxSAT());
+        custom.register(ShapeType.AABB, ShapeType.TRIANGLE, (shape1, shape2, result, cache, key) ->
+                result.setContact(new Vector3f(0, 1, 0), 0.25f, new Vector3f(0, 1, 0), new Vector3f(0, 0.75f, 0)));
+
+        CollisionResult result = custom.collide(box, triangle, new CollisionResult());
+        assertEquals(0.25f, result.getDepth());
+        // The other order runs the same algorithm with the result turned around
+        result = custom.collide(triangle, box, new CollisionResult());
+        assertEquals(-1, result.getNormal().y);
+        assertEquals(new Vector3f(0, 0.75f, 0), result.getContactPointA());
+        assertEquals(new Vector3f(0, 1, 0), result.getContactPointB());
+
+        assertThrows(IllegalArgumentException.class, () -> custom.register(ShapeType.AABB, null, null));
+    }
+}
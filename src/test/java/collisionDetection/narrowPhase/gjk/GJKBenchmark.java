@@ -0,0 +1,89 @@
+package collisionDetection.narrowPhase.gjk;
+
+import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+import collisionDetection.narrowPhase.collisionResult.DistanceResult;
+import collisionDetection.primitive.AABB;
+import collisionDetection.primitive.OBB;
+import collisionDetection.primitive.Sphere;
+import math.Vector3f;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// GJK over a fixed set of shape pairs, about half of them separated. Run with main() from the test
+// classpath; the gc profiler reports gc.alloc.rate.norm, the bytes allocated per pair test.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GJKBenchmark {
+
+    private static final int PAIR_COUNT = 1024;
+
+    private GJKSupport[] shapes1;
+    private GJKSupport[] shapes2;
+    private GJK gjk;
+    private CollisionResult result;
+    private DistanceResult distanceResult;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        shapes1 = new GJKSupport[PAIR_COUNT];
+        shapes2 = new GJKSupport[PAIR_COUNT];
+        for (int i = 0; i < PAIR_COUNT; i++) {
+            shapes1[i] = new OBB(new Vector3f(), new Vector3f(1, 1, 1));
+            Vector3f center = new Vector3f(random.nextFloat() * 6 - 3, random.nextFloat() * 6 - 3, random.nextFloat() * 6 - 3);
+            if (i % 2 == 0)
+                shapes2[i] = new Sphere(center, 0.5f + random.nextFloat());
+            else
+                shapes2[i] = new AABB(center, center.add(new Vector3f(1, 1, 1)));
+        }
+        gjk = new GJK();
+        result = new CollisionResult();
+        distanceResult = new DistanceResult();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIR_COUNT)
+    public void intersects(Blackhole blackhole) {
+        for (int i = 0; i < PAIR_COUNT; i++)
+            blackhole.consume(gjk.intersects(shapes1[i], shapes2[i]));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIR_COUNT)
+    public void isCollideReusedResult(Blackhole blackhole) {
+        for (int i = 0; i < PAIR_COUNT; i++)
+            blackhole.consume(gjk.isCollide(shapes1[i], shapes2[i], result).isColliding());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIR_COUNT)
+    public void isCollide(Blackhole blackhole) {
+        for (int i = 0; i < PAIR_COUNT; i++)
+            blackhole.consume(gjk.isCollide(shapes1[i], shapes2[i]));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIR_COUNT)
+    public void distance(Blackhole blackhole) {
+        for (int i = 0; i < PAIR_COUNT; i++)
+            blackhole.consume(gjk.distance(shapes1[i], shapes2[i], distanceResult).getDistance());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GJKBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
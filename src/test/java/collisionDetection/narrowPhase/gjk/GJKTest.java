@@ -1,14 +1,17 @@
 package collisionDetection.narrowPhase.gjk;
 
+import collisionDetection.narrowPhase.SeparatingAxisCache;
+import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+import collisionDetection.narrowPhase.collisionResult.DistanceResult;
 import collisionDetection.primitive.*;
 import math.Vector3f;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
-import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 
 class GJKTest {
@@ -815,4 +818,226 @@ class GJKTest {
         Line line5 = new Line(new Vector3f(2, 2, 2), new Vector3f(4, 4, 4));
         assertFalse(gjk.isCollide(line5, cylinder).isColliding());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testDiagonalSpheresNotColliding() {
+        // Separated along a diagonal, takes the triangle case that used to keep a stale direction
+        Sphere sphere1 = new Sphere(new Vector3f(0, 0, 0), 1.0f);
+        Sphere sphere2 = new Sphere(new Vector3f(1.9f, 0.9f, 0), 1.0f);
+
+        assertFalse(gjk.isCollide(sphere1, sphere2).isColliding());
+        assertFalse(gjk.intersects(sphere1, sphere2));
+    }
+
+    @Test
+    void testRotatedOBBSupport() {
+        OBB obb = new OBB(new Vector3f(1, 0, 0), new Vector3f(2, 1, 1));
+        // Rotated 90 degrees around z, the long side now lies along y
+        obb.setAxis(new Vector3f[]{new Vector3f(0, 1, 0), new Vector3f(-1, 0, 0), new Vector3f(0, 0, 1)});
+
+        assertEquals(new Vector3f(0, 2, 1), obb.support(new Vector3f(-0.1f, 1, 0.1f)));
+        assertFalse(gjk.intersects(obb, new Sphere(new Vector3f(1, 3.5f, 0), 1.0f)));
+        assertTrue(gjk.intersects(obb, new Sphere(new Vector3f(1, 2.5f, 0), 1.0f)));
+    }
+
+    @Test
+    void testIsCollideReusesResult() {
+        Sphere sphere1 = new Sphere(new Vector3f(0, 0, 0), 1.0f);
+        Sphere sphere2 = new Sphere(new Vector3f(1, 0, 0), 1.0f);
+        Sphere sphere3 = new Sphere(new Vector3f(5, 0, 0), 1.0f);
+        CollisionResult result = new CollisionResult();
+
+        assertSame(result, gjk.isCollide(sphere1, sphere2, result));
+        assertTrue(result.isColliding());
+
+        gjk.isCollide(sphere1, sphere3, result);
+        assertFalse(result.isColliding());
+        assertEquals(0, result.getDepth());
+        assertTrue(result.getContactPoints().isEmpty());
+    }
+
+    @Test
+    void testIntersectsMatchesIsCollide() {
+        Random random = new Random(3);
+        for (int i = 0; i < 500; i++) {
+            Sphere sphere = new Sphere(new Vector3f(random.nextFloat() * 4 - 2, random.nextFloat() * 4 - 2,
+                    random.nextFloat() * 4 - 2), 0.5f + random.nextFloat());
+            AABB aabb = new AABB(new Vector3f(-1, -1, -1), new Vector3f(1, 1, 1));
+            assertEquals(gjk.isCollide(sphere, aabb).isColliding(), gjk.intersects(sphere, aabb));
+        }
+    }
+
+    @Test
+    void testDistanceBetweenBoxes() {
+        AABB aabb1 = new AABB(new Vector3f(-1, -1, -1), new Vector3f(1, 1, 1));
+        AABB aabb2 = new AABB(new Vector3f(2, 3, -5), new Vector3f(4, 5, 5));
+
+        DistanceResult result = gjk.distance(aabb1, aabb2);
+
+        assertFalse(result.isOverlapping());
+        assertEquals(Math.sqrt(5), result.getDistance(), 1e-4f);
+        assertEquals(1, result.getPointA().x, 1e-4f);
+        assertEquals(1, result.getPointA().y, 1e-4f);
+        assertEquals(2, result.getPointB().x, 1e-4f);
+        assertEquals(3, result.getPointB().y, 1e-4f);
+        assertEquals(1, result.getSeparatingAxis().length(), 1e-4f);
+        assertTrue(result.getSeparatingAxis().dot(new Vector3f(1, 2, 0)) > 0);
+    }
+
+    @Test
+    void testDistanceBetweenSpheres() {
+        Sphere sphere1 = new Sphere(new Vector3f(0, 0, 0), 1.0f);
+        Sphere sphere2 = new Sphere(new Vector3f(3, 4, 0), 1.0f);
+
+        DistanceResult result = gjk.distance(sphere1, sphere2);
+
+        assertFalse(result.isOverlapping());
+        assertEquals(3, result.getDistance(), 1e-2f);
+        assertEquals(1, result.getPointA().length(), 1e-2f);
+        assertEquals(result.getDistance(), result.getPointA().distance(result.getPointB()), 1e-4f);
+        assertEquals(0.6f, result.getSeparatingAxis().x, 1e-2f);
+        assertEquals(0.8f, result.getSeparatingAxis().y, 1e-2f);
+    }
+
+    @Test
+    void testDistanceOfOverlappingShapes() {
+        AABB aabb = new AABB(new Vector3f(-1, -1, -1), new Vector3f(1, 1, 1));
+        Sphere sphere = new Sphere(new Vector3f(0.5f, 0, 0), 1.0f);
+
+        DistanceResult result = gjk.distance(aabb, sphere);
+
+        assertTrue(result.isOverlapping());
+        assertEquals(0, result.getDistance());
+    }
+
+    @Test
+    void testDistanceMatchesSphereBoxDistance() {
+        AABB aabb = new AABB(new Vector3f(-1, -1, -1), new Vector3f(1, 1, 1));
+        DistanceResult result = new DistanceResult();
+        Random random = new Random(5);
+        for (int i = 0; i < 1000; i++) {
+            Vector3f center = new Vector3f(random.nextFloat() * 8 - 4, random.nextFloat() * 8 - 4, random.nextFloat() * 8 - 4);
+            float radius = 0.2f + random.nextFloat();
+            float dx = Math.max(0, Math.abs(center.x) - 1);
+            float dy = Math.max(0, Math.abs(center.y) - 1);
+            float dz = Math.max(0, Math.abs(center.z) - 1);
+            float expected = (float) Math.sqrt(dx * dx + dy * dy + dz * dz) - radius;
+
+            gjk.distance(aabb, new Sphere(center, radius), result);
+
+            if (expected > 1e-3f) {
+                assertFalse(result.isOverlapping());
+                assertEquals(expected, result.getDistance(), 1e-2f);
+            } else if (expected < -1e-3f) {
+                assertTrue(result.isOverlapping());
+            }
+        }
+    }
+
+    @Test
+    void testWarmStartFromCachedAxis() {
+        SeparatingAxisCache cache = new SeparatingAxisCache();
+        OBB obb = new OBB(new Vector3f(0, 0, 0), new Vector3f(1, 1, 1));
+        Sphere sphere = new Sphere(new Vector3f(-2, 3, 1), 1.0f);
+
+        assertFalse(gjk.intersects(obb, sphere, cache, 7));
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.size());
+
+        // Still apart after a small move, the cached axis rejects the pair on its own
+        sphere.translate(new Vector3f(0.1f, -0.1f, 0));
+        assertFalse(gjk.intersects(obb, sphere, cache, 7));
+        assertEquals(1, cache.getHits());
+
+        // Touching pairs are still found when a stale axis is cached
+        sphere.translate(new Vector3f(1.9f, -2.4f, -1));
+        assertTrue(gjk.intersects(obb, sphere, cache, 7));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void testWarmStartMatchesColdStart() {
+        SeparatingAxisCache cache = new SeparatingAxisCache();
+        AABB aabb = new AABB(new Vector3f(-1, -1, -1), new Vector3f(1, 1, 1));
+        Random random = new Random(4);
+        Sphere[] spheres = new Sphere[50];
+        for (int i = 0; i < spheres.length; i++)
+            spheres[i] = new Sphere(new Vector3f(random.nextFloat() * 6 - 3, random.nextFloat() * 6 - 3,
+                    random.nextFloat() * 6 - 3), 0.5f);
+
+        for (int step = 0; step < 20; step++) {
+            for (int i = 0; i < spheres.length; i++) {
+                spheres[i].translate(new Vector3f(random.nextFloat() * 0.2f - 0.1f, random.nextFloat() * 0.2f - 0.1f,
+                        random.nextFloat() * 0.2f - 0.1f));
+                assertEquals(gjk.intersects(aabb, spheres[i]), gjk.intersects(aabb, spheres[i], cache, i));
+            }
+        }
+        assertTrue(cache.getHitRate() > 0.5f);
+    }
+
+    @Test
+    void testPenetrationOfOverlappingBoxes() {
+        AABB aabb1 = new AABB(new Vector3f(0, 0, 0), new Vector3f(1, 1, 1));
+        AABB aabb2 = new AABB(new Vector3f(0.5f, 0, 0), new Vector3f(1.5f, 1, 1));
+
+        CollisionResult result = gjk.isCollide(aabb1, aabb2);
+        assertTrue(result.isColliding());
+        assertEquals(0.5f, result.getDepth(), 1e-4f);
+        assertEquals(1, result.getNormal().x, 1e-4f);
+
+        // Contact points are [on shape 1, on shape 2], one depth apart along the normal
+        Vector3f onA = result.getContactPoints().get(0);
+        Vector3f onB = result.getContactPoints().get(1);
+        assertEquals(1, onA.x, 1e-4f);
+        assertEquals(0.5f, onB.x, 1e-4f);
+    }
+
+    @Test
+    void testPenetrationOfOverlappingSpheres() {
+        Sphere sphere1 = new Sphere(new Vector3f(0, 0, 0), 1.0f);
+        Sphere sphere2 = new Sphere(new Vector3f(1, 1, 0), 1.0f);
+
+        CollisionResult result = gjk.isCollide(sphere1, sphere2);
+        assertTrue(result.isColliding());
+        assertEquals(2 - (float) Math.sqrt(2), result.getDepth(), 1e-2f);
+        assertEquals(0.7071f, result.getNormal().x, 1e-2f);
+        assertEquals(0.7071f, result.getNormal().y, 1e-2f);
+    }
+
+    @Test
+    void testPenetrationMatchesSphereDepth() {
+        Random random = new Random(3);
+        Sphere sphere = new Sphere(new Vector3f(0, 0, 0), 1.0f);
+        CollisionResult result = new CollisionResult();
+        for (int i = 0; i < 200; i++) {
+            Vector3f center = new Vector3f(random.nextFloat() * 2 - 1, random.nextFloat() * 2 - 1, random.nextFloat() * 2 - 1);
+            float radius = 0.5f + random.nextFloat();
+            float expected = 1 + radius - center.length();
+            if (expected <= 0)
+                continue;
+
+            gjk.isCollide(sphere, new Sphere(center, radius), result);
+            assertTrue(result.isColliding());
+            assertEquals(expected, result.getDepth(), 0.05f);
+        }
+    }
+
+    @Test
+    void testPenetrationOfRoundedShapes() {
+        Sphere sphere = new Sphere(new Vector3f(0.8f, 1, 0), 0.5f);
+        Capsule capsule = new Capsule(new Vector3f(0, 0, 0), new Vector3f(0, 2, 0), 0.5f);
+        Cylinder cylinder = new Cylinder(new Vector3f(0, 0, 0), 0.5f, 2f);
+
+        CollisionResult capsuleResult = gjk.isCollide(capsule, sphere);
+        assertTrue(capsuleResult.isColliding());
+        assertEquals(0.2f, capsuleResult.getDepth(), 1e-2f);
+        assertEquals(1, capsuleResult.getNormal().x, 1e-2f);
+
+        CollisionResult cylinderResult = gjk.isCollide(cylinder, new Sphere(new Vector3f(0.8f, 0.5f, 0), 0.5f));
+        assertTrue(cylinderResult.isColliding());
+        assertEquals(0.2f, cylinderResult.getDepth(), 1e-2f);
+        assertEquals(1, cylinderResult.getNormal().x, 1e-2f);
+    }
+}
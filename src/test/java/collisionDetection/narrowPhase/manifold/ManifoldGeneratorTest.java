@@ -0,0 +1,147 @@
+package collisionDetection.narrowPhase.manifold;
+
+import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+import collisionDetection.narrowPhase.collisionResult.ContactManifold;
+import collisionDetection.narrowPhase.gjk.GJK;
+import collisionDetection.narrowPhase.gjk.GJKSupport;
+import collisionDetection.primitive.*;
+import math.Quaternion;
+import math.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ManifoldGeneratorTest {
+    static GJK gjk = new GJK();
+    static ManifoldGenerator generator = new ManifoldGenerator();
+
+    private static ContactManifold manifold(GJKSupport shape1, GJKSupport shape2) {
+        CollisionResult result = gjk.isCollide(shape1, shape2);
+        return generator.generate(shape1, shape2, result, new ContactManifold());
+    }
+
+    @Test
+    void testBoxRestingOnBoxHasFourCorners() {
+        AABB ground = new AABB(new Vector3f(-2, -1, -2), new Vector3f(2, 0, 2));
+        OBB box = new OBB(new Vector3f(0, 0.45f, 0), new Vector3f(0.5f, 0.5f, 0.5f));
+
+        ContactManifold manifold = manifold(ground, box);
+        assertEquals(4, manifold.getPointCount());
+        assertEquals(1, manifold.getNormal().y, 1e-4f);
+        for (int i = 0; i < manifold.getPointCount(); i++) {
+            assertEquals(0.05f, manifold.getDepth(i), 1e-4f);
+            assertEquals(0, manifold.getPointA(i).y, 1e-4f);
+            assertEquals(-0.05f, manifold.getPointB(i).y, 1e-4f);
+            assertEquals(0.5f, Math.abs(manifold.getPointB(i).x), 1e-4f);
+            assertEquals(0.5f, Math.abs(manifold.getPointB(i).z), 1e-4f);
+        }
+    }
+
+    @Test
+    void testReferenceFaceOnSecondShape() {
+        OBB box = new OBB(new Vector3f(0, 0, 0), new Vector3f(0.5f, 0.5f, 0.5f));
+        OBB lid = new OBB(new Vector3f(0, 1.4f, 0), new Vector3f(1, 1, 1));
+
+        ContactManifold manifold = manifold(box, lid);
+        assertEquals(4, manifold.getPointCount());
+        // Still from shape 1 to shape 2, with the points on the small box corners
+        assertEquals(1, manifold.getNormal().y, 1e-4f);
+        for (int i = 0; i < manifold.getPointCount(); i++) {
+            assertEquals(0.5f, manifold.getPointA(i).y, 1e-4f);
+            assertEquals(0.4f, manifold.getPointB(i).y, 1e-4f);
+            assertEquals(0.1f, manifold.getDepth(i), 1e-4f);
+        }
+    }
+
+    @Test
+    void testClippedPointsReducedToFour() {
+        AABB base = new AABB(new Vector3f(-0.5f, -1, -0.5f), new Vector3f(0.5f, 0, 0.5f));
+        OBB box = new OBB(new Vector3f(0, 0.55f, 0), new Vector3f(0.6f, 0.6f, 0.6f));
+        box.rotate(new Quaternion(0, (float) Math.sin(Math.PI / 8), 0, (float) Math.cos(Math.PI / 8)));
+
+        // The two squares overlap in an octagon, only four of its corners are kept
+        ContactManifold manifold = manifold(base, box);
+        assertEquals(ContactManifold.MAX_POINTS, manifold.getPointCount());
+        float minX = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, minZ = Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+        for (int i = 0; i < manifold.getPointCount(); i++) {
+            Vector3f point = manifold.getPointA(i);
+            minX = Math.min(minX, point.x);
+            maxX = Math.max(maxX, point.x);
+            minZ = Math.min(minZ, point.z);
+            maxZ = Math.max(maxZ, point.z);
+        }
+        assertTrue(maxX - minX > 0.6f);
+        assertTrue(maxZ - minZ > 0.6f);
+    }
+
+    @Test
+    void testTiltedBoxHasPerPointDepth() {
+        AABB ground = new AABB(new Vector3f(-2, -1, -2), new Vector3f(2, 0, 2));
+        OBB box = new OBB(new Vector3f(0, 0.45f, 0), new Vector3f(0.5f, 0.5f, 0.5f));
+        box.rotate(new Quaternion((float) Math.sin(0.02), 0, 0, (float) Math.cos(0.02)));
+
+        ContactManifold manifold = manifold(ground, box);
+        assertEquals(4, manifold.getPointCount());
+        float min = Float.MAX_VALUE;
+        float max = 0;
+        for (int i = 0; i < manifold.getPointCount(); i++) {
+            min = Math.min(min, manifold.getDepth(i));
+            max = Math.max(max, manifold.getDepth(i));
+        }
+        assertTrue(max - min > 0.03f);
+        assertEquals(max, manifold.getMaxDepth(), 1e-6f);
+    }
+
+    @Test
+    void testEdgeOnFaceHasTwoPoints() {
+        AABB ground = new AABB(new Vector3f(-1, -1, -1), new Vector3f(1, 1, 1));
+        OBB box = new OBB(new Vector3f(0, 1.6f, 0), new Vector3f(0.5f, 0.5f, 0.5f));
+        box.rotate(new Quaternion(0, 0, (float) Math.sin(Math.PI / 8), (float) Math.cos(Math.PI / 8)));
+
+        ContactManifold manifold = manifold(ground, box);
+        assertEquals(2, manifold.getPointCount());
+        assertEquals(1, manifold.getPointA(0).y, 1e-4f);
+        assertEquals(1, Math.abs(manifold.getPointA(0).z - manifold.getPointA(1).z), 1e-4f);
+    }
+
+    @Test
+    void testTriangleAndPolyhedronFaces() {
+        AABB box = new AABB(new Vector3f(-1, -1, -1), new Vector3f(1, 1, 1));
+        Triangle triangle = new Triangle(new Vector3f(-0.5f, 0.9f, -0.5f), new Vector3f(0.5f, 0.9f, -0.5f),
+                new Vector3f(0, 0.9f, 0.5f));
+        assertEquals(3, manifold(box, triangle).getPointCount());
+
+        List<Vector3f> cube = new ArrayList<>();
+        for (int i = 0; i < 8; i++)
+            cube.add(new Vector3f((i & 1) == 0 ? -0.5f : 0.5f, (i & 2) == 0 ? 0.9f : 1.9f, (i & 4) == 0 ? -0.5f : 0.5f));
+        ContactManifold manifold = manifold(box, new ConvexPolyhedron(cube));
+        assertEquals(4, manifold.getPointCount());
+        assertEquals(0.1f, manifold.getDepth(0), 1e-4f);
+    }
+
+    @Test
+    void testShapesWithoutFacesUseSingleContact() {
+        AABB box = new AABB(new Vector3f(-1, -1, -1), new Vector3f(1, 1, 1));
+        Sphere sphere = new Sphere(new Vector3f(0, 1.5f, 0), 1);
+
+        CollisionResult result = gjk.isCollide(box, sphere);
+        ContactManifold manifold = generator.generate(box, sphere, result, new ContactManifold());
+        assertEquals(1, manifold.getPointCount());
+        assertEquals(result.getDepth(), manifold.getDepth(0));
+        assertEquals(result.getContactPoints().get(0), manifold.getPointA(0));
+    }
+
+    @Test
+    void testSeparatedShapesClearManifold() {
+        ContactManifold manifold = new ContactManifold();
+        manifold.addPoint(new Vector3f(), new Vector3f(), 1);
+
+        AABB box1 = new AABB(new Vector3f(-1, -1, -1), new Vector3f(1, 1, 1));
+        AABB box2 = new AABB(new Vector3f(2, 2, 2), new Vector3f(3, 3, 3));
+        generator.generate(box1, box2, gjk.isCollide(box1, box2), manifold);
+        assertTrue(manifold.isEmpty());
+    }
+}
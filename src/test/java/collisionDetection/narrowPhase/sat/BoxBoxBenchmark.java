@@ -0,0 +1,91 @@
+package collisionDetection.narrowPhase.sat;
+
+import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+import collisionDetection.narrowPhase.gjk.GJK;
+import collisionDetection.primitive.OBB;
+import math.Quaternion;
+import math.Vector3f;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Rotated box pairs, about half of them overlapping, through the 15 axis test, the generic SAT and
+// GJK/EPA. Run with main() from the test classpath; gc.alloc.rate.norm is the bytes per pair test.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoxBoxBenchmark {
+
+    private static final int PAIR_COUNT = 1024;
+
+    private OBB[] boxes1;
+    private OBB[] boxes2;
+    private BoxBoxSAT boxBoxSat;
+    private SAT sat;
+    private GJK gjk;
+    private CollisionResult result;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        boxes1 = new OBB[PAIR_COUNT];
+        boxes2 = new OBB[PAIR_COUNT];
+        for (int i = 0; i < PAIR_COUNT; i++) {
+            boxes1[i] = new OBB(new Vector3f(), new Vector3f(1, 1, 1));
+            Vector3f center = new Vector3f(random.nextFloat() * 5 - 2.5f, random.nextFloat() * 5 - 2.5f, random.nextFloat() * 5 - 2.5f);
+            boxes2[i] = new OBB(center, new Vector3f(0.5f, 0.5f, 0.5f));
+            float angle = random.nextFloat() * (float) Math.PI;
+            Vector3f axis = new Vector3f(random.nextFloat(), random.nextFloat(), random.nextFloat()).normalize();
+            float sin = (float) Math.sin(angle / 2);
+            boxes2[i].rotate(new Quaternion(axis.x * sin, axis.y * sin, axis.z * sin, (float) Math.cos(angle / 2)));
+        }
+        boxBoxSat = new BoxBoxSAT();
+        sat = new SAT();
+        gjk = new GJK();
+        result = new CollisionResult();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIR_COUNT)
+    public void boxBoxIntersects(Blackhole blackhole) {
+        for (int i = 0; i < PAIR_COUNT; i++)
+            blackhole.consume(boxBoxSat.intersects(boxes1[i], boxes2[i]));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIR_COUNT)
+    public void boxBoxIsCollide(Blackhole blackhole) {
+        for (int i = 0; i < PAIR_COUNT; i++)
+            blackhole.consume(boxBoxSat.isCollide(boxes1[i], boxes2[i], result).isColliding());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIR_COUNT)
+    public void satIsCollide(Blackhole blackhole) {
+        for (int i = 0; i < PAIR_COUNT; i++)
+            blackhole.consume(sat.isCollide(boxes1[i], boxes2[i]).isColliding());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIR_COUNT)
+    public void gjkIsCollide(Blackhole blackhole) {
+        for (int i = 0; i < PAIR_COUNT; i++)
+            blackhole.consume(gjk.isCollide(boxes1[i], boxes2[i], result).isColliding());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BoxBoxBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,110 @@
+package collisionDetection.narrowPhase.sat;
+
+import collisionDetection.narrowPhase.SeparatingAxisCache;
+import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+import collisionDetection.narrowPhase.gjk.GJK;
+import collisionDetection.primitive.OBB;
+import math.Quaternion;
+import math.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoxBoxSATTest {
+    static BoxBoxSAT boxBoxSat = new BoxBoxSAT();
+
+    private static Quaternion randomRotation(Random random) {
+        Quaternion rotation = new Quaternion(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f,
+                random.nextFloat() - 0.5f, random.nextFloat() - 0.5f);
+        float length = (float) Math.sqrt(rotation.x * rotation.x + rotation.y * rotation.y
+                + rotation.z * rotation.z + rotation.w * rotation.w);
+        return new Quaternion(rotation.x / length, rotation.y / length, rotation.z / length, rotation.w / length);
+    }
+
+    @Test
+    void testFaceContact() {
+        OBB ground = new OBB(new Vector3f(0, -1, 0), new Vector3f(2, 1, 2));
+        OBB box = new OBB(new Vector3f(0.3f, 0.45f, 0), new Vector3f(0.5f, 0.5f, 0.5f));
+
+        CollisionResult result = boxBoxSat.isCollide(ground, box);
+        assertTrue(result.isColliding());
+        assertEquals(0.05f, result.getDepth(), 1e-5f);
+        assertEquals(1, result.getNormal().y, 1e-5f);
+        assertEquals(0, result.getContactPointA().y, 1e-5f);
+        assertEquals(-0.05f, result.getContactPointB().y, 1e-5f);
+
+        // Reference face on the second box, the normal still points from box 1 to box 2
+        result = boxBoxSat.isCollide(box, ground);
+        assertEquals(-1, result.getNormal().y, 1e-5f);
+        assertEquals(-0.05f, result.getContactPointA().y, 1e-5f);
+        assertEquals(0, result.getContactPointB().y, 1e-5f);
+    }
+
+    @Test
+    void testEdgeContact() {
+        // Box 2 turned 45 degrees about x and then about y, one of its edges crosses an edge of box 1
+        OBB box1 = new OBB(new Vector3f(0, 0, 0), new Vector3f(0.5f, 0.5f, 0.5f));
+        box1.rotate(new Quaternion(0, 0, (float) Math.sin(Math.PI / 8), (float) Math.cos(Math.PI / 8)));
+        OBB box2 = new OBB(new Vector3f(0, 1.35f, 0), new Vector3f(0.5f, 0.5f, 0.5f));
+        box2.rotate(new Quaternion((float) Math.sin(Math.PI / 8), 0, 0, (float) Math.cos(Math.PI / 8)));
+
+        CollisionResult result = boxBoxSat.isCollide(box1, box2);
+        assertTrue(result.isColliding());
+        assertEquals(Math.sqrt(2) - 1.35f, result.getDepth(), 1e-4f);
+        assertEquals(1, result.getNormal().y, 1e-4f);
+        assertEquals(Math.sqrt(0.5), result.getContactPointA().y, 1e-4f);
+        assertEquals(0, result.getContactPointA().x, 1e-4f);
+        assertEquals(0, result.getContactPointA().z, 1e-4f);
+        assertEquals(1.35f - Math.sqrt(0.5), result.getContactPointB().y, 1e-4f);
+    }
+
+    @Test
+    void testMatchesGJK() {
+        Random random = new Random(7);
+        GJK gjk = new GJK();
+        CollisionResult result = new CollisionResult();
+        int colliding = 0;
+        for (int i = 0; i < 500; i++) {
+            OBB box1 = new OBB(new Vector3f(random.nextFloat(), random.nextFloat(), random.nextFloat()),
+                    new Vector3f(0.2f + random.nextFloat(), 0.2f + random.nextFloat(), 0.2f + random.nextFloat()));
+            OBB box2 = new OBB(new Vector3f(random.nextFloat() * 4 - 2, random.nextFloat() * 4 - 2, random.nextFloat() * 4 - 2),
+                    new Vector3f(0.2f + random.nextFloat(), 0.2f + random.nextFloat(), 0.2f + random.nextFloat()));
+            box1.rotate(randomRotation(random));
+            box2.rotate(randomRotation(random));
+
+            CollisionResult expected = gjk.isCollide(box1, box2);
+            boxBoxSat.isCollide(box1, box2, result);
+            assertEquals(expected.isColliding(), result.isColliding(), "pair " + i);
+            assertEquals(expected.isColliding(), boxBoxSat.intersects(box1, box2), "pair " + i);
+            if (!expected.isColliding())
+                continue;
+
+            colliding++;
+            // The chosen axis may be a face axis within the edge bias of the true minimum
+            assertTrue(result.getDepth() >= expected.getDepth() - 1e-3f, "pair " + i);
+            assertTrue(result.getDepth() <= expected.getDepth() / 0.95f + 1e-3f, "pair " + i);
+            assertTrue(result.getNormal().dot(box2.getCenter().sub(box1.getCenter())) >= -1e-4f, "pair " + i);
+        }
+        assertTrue(colliding > 50);
+    }
+
+    @Test
+    void testCachedAxis() {
+        SeparatingAxisCache cache = new SeparatingAxisCache();
+        OBB box1 = new OBB(new Vector3f(0, 0, 0), new Vector3f(1, 1, 1));
+        OBB box2 = new OBB(new Vector3f(2.5f, 0, 0), new Vector3f(1, 1, 1));
+        box2.rotate(new Quaternion(0, 0, (float) Math.sin(0.1), (float) Math.cos(0.1)));
+        CollisionResult result = new CollisionResult();
+
+        assertFalse(boxBoxSat.isCollide(box1, box2, result, cache, 3).isColliding());
+        assertEquals(1, cache.size());
+        assertFalse(boxBoxSat.intersects(box1, box2, cache, 3));
+        assertEquals(1, cache.getHits());
+
+        box2.setCenter(new Vector3f(1.8f, 0, 0));
+        assertTrue(boxBoxSat.isCollide(box1, box2, result, cache, 3).isColliding());
+        assertEquals(1, cache.getMisses());
+    }
+}
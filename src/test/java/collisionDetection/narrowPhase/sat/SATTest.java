@@ -1,15 +1,17 @@
 package collisionDetection.narrowPhase.sat;
 
 
+import collisionDetection.narrowPhase.SeparatingAxisCache;
+import collisionDetection.narrowPhase.collisionResult.CollisionResult;
 import collisionDetection.primitive.*;
+import math.Quaternion;
 import math.Vector3f;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 
 class SATTest {
@@ -401,5 +403,84 @@ class SATTest {
         assertFalse(sat.isCollide(line11, line12).isColliding());
     }
 
+    @Test
+    public void testMinimumOverlapNormalAndDepth() {
+        AABB aabb = new AABB(new Vector3f(-1, -1, -1), new Vector3f(1, 1, 1));
+        OBB obb = new OBB(new Vector3f(1.8f, 0.5f, 0), new Vector3f(1, 1, 1));
+
+        CollisionResult result = sat.isCollide(aabb, obb);
+        assertTrue(result.isColliding());
+        assertEquals(0.2f, result.getDepth(), 1e-5f);
+        assertEquals(1, result.getNormal().x, 1e-5f);
+
+        // Same pair the other way round, the normal still points from shape 1 to shape 2
+        result = sat.isCollide(obb, aabb);
+        assertEquals(0.2f, result.getDepth(), 1e-5f);
+        assertEquals(-1, result.getNormal().x, 1e-5f);
+    }
+
+    @Test
+    public void testRotatedOBBUsesItsOwnAxes() {
+        AABB aabb = new AABB(new Vector3f(-1, -1, -1), new Vector3f(1, 1, 1));
+        // Rotated 45 degrees about z its corner reaches sqrt(2) * 0.5 towards the box
+        OBB obb = new OBB(new Vector3f(1.6f, 0, 0), new Vector3f(0.5f, 0.5f, 0.5f));
+        obb.rotate(new Quaternion(0, 0, (float) Math.sin(Math.PI / 8), (float) Math.cos(Math.PI / 8)));
+
+        CollisionResult result = sat.isCollide(aabb, obb);
+        assertTrue(result.isColliding());
+        assertEquals(Math.sqrt(0.5) - 0.6f, result.getDepth(), 1e-4f);
 
-}
\ No newline at end of file
+        obb.setCenter(new Vector3f(1.75f, 0, 0));
+        assertFalse(sat.isCollide(aabb, obb).isColliding());
+    }
+
+    @Test
+    public void testCachedAxisRejectsSeparatedPair() {
+        SeparatingAxisCache cache = new SeparatingAxisCache();
+        OBB obb1 = new OBB(new Vector3f(0, 0, 0), new Vector3f(1, 1, 1));
+        OBB obb2 = new OBB(new Vector3f(0, 0, 3), new Vector3f(1, 1, 1));
+
+        assertFalse(sat.isCollide(obb1, obb2, cache, 7).isColliding());
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.getHits() + cache.getMisses());
+
+        assertFalse(sat.intersects(obb1, obb2, cache, 7));
+        assertEquals(1, cache.getHits());
+
+        // Overlapping now, the cached axis no longer separates
+        obb2.setCenter(new Vector3f(0, 0, 1.5f));
+        assertTrue(sat.isCollide(obb1, obb2, cache, 7).isColliding());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testTriangleFaceNormalSeparates() {
+        Triangle triangle = new Triangle(new Vector3f(-1, 0, -1), new Vector3f(1, 0, -1), new Vector3f(0, 0, 1));
+        AABB above = new AABB(new Vector3f(-0.2f, 0.1f, -0.2f), new Vector3f(0.2f, 0.5f, 0.2f));
+        assertFalse(sat.intersects(triangle, above));
+
+        AABB through = new AABB(new Vector3f(-0.2f, -0.1f, -0.2f), new Vector3f(0.2f, 0.5f, 0.2f));
+        CollisionResult result = sat.isCollide(triangle, through);
+        assertTrue(result.isColliding());
+        assertEquals(0.1f, result.getDepth(), 1e-5f);
+    }
+
+    @Test
+    public void testHitFillsNormalAndDepthOnly() {
+        AABB box = new AABB(new Vector3f(-1, -1, -1), new Vector3f(1, 1, 1));
+        OBB above = new OBB(new Vector3f(0, 1.9f, 0), new Vector3f(1, 1, 1));
+
+        CollisionResult result = new CollisionResult();
+        Vector3f normal = result.getNormal();
+        assertSame(result, sat.isCollide(box, above, result, null, 0));
+        assertTrue(result.isColliding());
+        assertEquals(new Vector3f(0, 1, 0), result.getNormal());
+        assertEquals(0.1f, result.getDepth(), 1e-5f);
+        // The points are left to the manifold pass
+        assertTrue(result.getContactPoints().isEmpty());
+        assertSame(normal, result.getNormal());
+
+        above.setCenter(new Vector3f(0, 3, 0));
+        assertFalse(sat.isCollide(box, above, result, null, 0).isColliding());
+    }
+}
@@ -0,0 +1,57 @@
+package collisionDetection.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        LongHashMap<String> map = new LongHashMap<>();
+        assertNull(map.put(3, "a"));
+        assertEquals("a", map.put(3, "b"));
+        assertEquals("b", map.get(3));
+        assertTrue(map.containsKey(3));
+        assertFalse(map.containsKey(4));
+        assertEquals(1, map.size());
+
+        assertEquals("b", map.remove(3));
+        assertNull(map.remove(3));
+        assertNull(map.get(3));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testMatchesHashMap() {
+        LongHashMap<Integer> map = new LongHashMap<>();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(2);
+        for (int i = 0; i < 20000; i++) {
+            long key = ((long) random.nextInt(64) << 32) | random.nextInt(64);
+            if (random.nextInt(3) == 0)
+                assertEquals(expected.remove(key), map.remove(key));
+            else
+                assertEquals(expected.put(key, i), map.put(key, i));
+        }
+        assertEquals(expected.size(), map.size());
+
+        Map<Long, Integer> iterated = new HashMap<>();
+        for (int i = map.next(0); i >= 0; i = map.next(i + 1))
+            iterated.put(map.keyAt(i), map.valueAt(i));
+        assertEquals(expected, iterated);
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(-1, map.next(0));
+    }
+
+    @Test
+    public void testRejectsEmptyMarker() {
+        assertThrows(IllegalArgumentException.class, () -> new LongHashMap<String>().put(Long.MIN_VALUE, "a"));
+    }
+}
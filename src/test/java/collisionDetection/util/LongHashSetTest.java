@@ -0,0 +1,60 @@
+package collisionDetection.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashSetTest {
+
+    @Test
+    public void testAddContainsRemove() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.add(5));
+        assertFalse(set.add(5));
+        assertTrue(set.add(-7));
+        assertTrue(set.contains(5));
+        assertTrue(set.contains(-7));
+        assertFalse(set.contains(6));
+        assertEquals(2, set.size());
+
+        assertTrue(set.remove(5));
+        assertFalse(set.remove(5));
+        assertFalse(set.contains(5));
+        assertEquals(1, set.size());
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(-7));
+    }
+
+    @Test
+    public void testMatchesHashSet() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 20000; i++) {
+            // A small key range forces long probe chains and removals inside them
+            long key = ((long) random.nextInt(64) << 32) | random.nextInt(64);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), set.remove(key));
+            } else {
+                assertEquals(expected.add(key), set.add(key));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+
+        Set<Long> iterated = new HashSet<>();
+        for (int i = set.next(0); i >= 0; i = set.next(i + 1))
+            iterated.add(set.get(i));
+        assertEquals(expected, iterated);
+    }
+
+    @Test
+    public void testRejectsEmptyMarker() {
+        assertThrows(IllegalArgumentException.class, () -> new LongHashSet().add(Long.MIN_VALUE));
+    }
+}
@@ -0,0 +1,56 @@
+package math;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Matrix3fTest {
+
+    private static final float EPSILON = 1e-5f;
+
+    @Test
+    void testMulIntoItself() {
+        Matrix3f left = left();
+        Matrix3f right = right();
+        Matrix3f expected = left.mulInto(right, new Matrix3f());
+        // Column 0 of the product, worked out from the elements
+        assertEquals(left.getM00() * right.getM00() + left.getM10() * right.getM01() + left.getM20() * right.getM02(),
+                expected.getM00(), EPSILON);
+        assertEquals(left.getM01() * right.getM00() + left.getM11() * right.getM01() + left.getM21() * right.getM02(),
+                expected.getM01(), EPSILON);
+
+        // mul writes into this; every element has to be read before any is written
+        assertMatrixEquals(expected, left().mul(right));
+        Matrix3f aliased = right();
+        assertMatrixEquals(expected, left.mulInto(aliased, aliased));
+    }
+
+    @Test
+    void testTransformIntoMatchesTransform() {
+        Matrix3f matrix = left();
+        Vector3f v = new Vector3f(1, 2, 3);
+        Vector3f expected = matrix.transform(v);
+        assertEquals(expected, matrix.transformInto(v, new Vector3f()));
+        assertEquals(expected, matrix.transformInto(v, v));
+    }
+
+    private static Matrix3f left() {
+        return new Matrix3f().rotation(new Quaternion(0.3f, 0.1f, -0.2f, 0.9f).normalizeLocal());
+    }
+
+    private static Matrix3f right() {
+        return new Matrix3f().rotation(new Quaternion(-0.5f, 0.4f, 0.2f, 0.7f).normalizeLocal());
+    }
+
+    private static void assertMatrixEquals(Matrix3f expected, Matrix3f actual) {
+        assertEquals(expected.getM00(), actual.getM00(), EPSILON);
+        assertEquals(expected.getM01(), actual.getM01(), EPSILON);
+        assertEquals(expected.getM02(), actual.getM02(), EPSILON);
+        assertEquals(expected.getM10(), actual.getM10(), EPSILON);
+        assertEquals(expected.getM11(), actual.getM11(), EPSILON);
+        assertEquals(expected.getM12(), actual.getM12(), EPSILON);
+        assertEquals(expected.getM20(), actual.getM20(), EPSILON);
+        assertEquals(expected.getM21(), actual.getM21(), EPSILON);
+        assertEquals(expected.getM22(), actual.getM22(), EPSILON);
+    }
+}
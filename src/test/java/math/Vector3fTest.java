@@ -0,0 +1,56 @@
+package math;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Vector3fTest {
+
+    private static final float EPSILON = 1e-5f;
+
+    @Test
+    void testLocalAndIntoMatchTheAllocatingOnes() {
+        Vector3f a = new Vector3f(1, -2, 3);
+        Vector3f b = new Vector3f(-4, 5, 0.5f);
+
+        assertEquals(a.add(b), new Vector3f(a).addLocal(b));
+        assertEquals(a.sub(b), a.subInto(b, new Vector3f()));
+        assertEquals(a.mul(b), a.mulInto(b, new Vector3f()));
+        assertEquals(a.mul(2.5f), new Vector3f(a).mulLocal(2.5f));
+        assertEquals(a.div(4), new Vector3f(a).divLocal(4));
+        assertEquals(a.cross(b), new Vector3f(a).crossLocal(b));
+        assertEquals(a.normalize(), a.normalizeInto(new Vector3f()));
+        assertEquals(a.lerp(b, 0.25f), a.lerpInto(b, 0.25f, new Vector3f()));
+
+        // None of the above touched the operands
+        assertEquals(new Vector3f(1, -2, 3), a);
+        assertEquals(new Vector3f(-4, 5, 0.5f), b);
+    }
+
+    @Test
+    void testDestMayBeAnOperand() {
+        Vector3f a = new Vector3f(1, 2, 3);
+        Vector3f b = new Vector3f(4, 5, 6);
+        Vector3f expected = a.cross(b);
+        assertEquals(expected, a.crossInto(b, a));
+
+        a = new Vector3f(1, 2, 3);
+        assertEquals(expected, a.crossInto(b, b));
+    }
+
+    @Test
+    void testRotateIntoMatchesTheQuaternionProduct() {
+        Quaternion rotation = new Quaternion(0.2f, -0.4f, 0.1f, 0.8f).normalizeLocal();
+        Vector3f v = new Vector3f(3, -1, 2);
+
+        // q * (v, 0) * conj(q)
+        Quaternion product = rotation.mul(new Quaternion(v.x, v.y, v.z, 0)).mul(rotation.conjugate());
+        Vector3f rotated = v.rotateInto(rotation, new Vector3f());
+        assertEquals(product.x, rotated.x, EPSILON);
+        assertEquals(product.y, rotated.y, EPSILON);
+        assertEquals(product.z, rotated.z, EPSILON);
+        assertEquals(v.length(), rotated.length(), EPSILON);
+
+        assertEquals(rotated, new Vector3f(v).rotateLocal(rotation));
+    }
+}
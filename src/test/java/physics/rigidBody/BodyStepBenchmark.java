@@ -0,0 +1,173 @@
+package physics.rigidBody;
+
+import collisionDetection.CDEngine;
+import collisionDetection.broadPhase.BPBox;
+import collisionDetection.broadPhase.SAP;
+import collisionDetection.primitive.OBB;
+import collisionDetection.primitive.Sphere;
+import math.Matrix3f;
+import math.Vector3f;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import physics.PhysicsEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Boxes stacked two high and spheres resting between them on a static ground box, one full step
+// per call: velocities, narrow phase, contact solver, positions, shapes and broad phase bounds.
+// Once the scene has settled a step should not allocate; gc.alloc.rate.norm is the bytes per
+// body-step and ought to read 0. With canSleep the settled islands are asleep, and a step costs
+// little more than the broad phase query. Run with main() from the test classpath.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class BodyStepBenchmark {
+
+    private static final float STEP = 1 / 60f;
+    private static final int SIDE = 16;
+    // Two boxes and a sphere per cell of the grid
+    private static final int BODY_COUNT = SIDE * SIDE * 3;
+    private static final int SETTLE_STEPS = 300;
+
+    @Param({"false", "true"})
+    public boolean canSleep;
+
+    private PhysicsEngine engine;
+    private CDEngine cdEngine;
+    private RigidBodyPool pool;
+    private List<BPBox> proxies;
+    private final Vector3f axis = new Vector3f();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new PhysicsEngine(new SAP(), 0, 0);
+        cdEngine = CDEngine.getCdEngine();
+        cdEngine.clear();
+        pool = new RigidBodyPool(BODY_COUNT + 1);
+        proxies = new ArrayList<>(BODY_COUNT);
+
+        float groundHalf = SIDE * 1.5f + 1;
+        RigidBody ground = box(new Vector3f(SIDE * 1.5f, -0.5f, SIDE * 1.5f), new Vector3f(groundHalf, 0.5f, groundHalf), 0);
+        cdEngine.add(proxy(ground));
+
+        for (int x = 0; x < SIDE; x++) {
+            for (int z = 0; z < SIDE; z++) {
+                add(box(new Vector3f(x * 3, 0.5f, z * 3), new Vector3f(0.5f, 0.5f, 0.5f), 1));
+                add(box(new Vector3f(x * 3, 1.5f, z * 3), new Vector3f(0.5f, 0.5f, 0.5f), 1));
+                add(sphere(new Vector3f(x * 3 + 1.5f, 0.5f, z * 3 + 1.5f), 0.5f, 1));
+            }
+        }
+
+        // Measure the resting scene, not the pairs and manifolds made while it lands
+        for (int i = 0; i < SETTLE_STEPS; i++)
+            step();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BODY_COUNT)
+    public int step() {
+        pool.integrateVelocities(STEP);
+        engine.solve(STEP);
+        pool.integratePositions(STEP);
+        for (int i = 0; i < proxies.size(); i++) {
+            if (!proxies.get(i).getBody().isSleeping())
+                sync(proxies.get(i));
+        }
+        cdEngine.updateAll(proxies);
+        return engine.getPairManager().getTouching().size();
+    }
+
+    private void add(RigidBody body) {
+        body.setAcceleration(new Vector3f(0, -10, 0));
+        BPBox proxy = proxy(body);
+        proxies.add(proxy);
+        cdEngine.add(proxy);
+    }
+
+    private RigidBody box(Vector3f position, Vector3f halfExtents, float mass) {
+        RigidBody body = pool.create();
+        body.setPosition(position);
+        body.setColliderShape(new OBB(new Vector3f(position), halfExtents));
+        if (mass > 0) {
+            body.setInverseMass(1 / mass);
+            // Box inertia m / 3 * (b^2 + c^2) for half extents a, b, c
+            Matrix3f inverseInertia = new Matrix3f();
+            inverseInertia.setM00(3 / (mass * (halfExtents.y * halfExtents.y + halfExtents.z * halfExtents.z)));
+            inverseInertia.setM11(3 / (mass * (halfExtents.x * halfExtents.x + halfExtents.z * halfExtents.z)));
+            inverseInertia.setM22(3 / (mass * (halfExtents.x * halfExtents.x + halfExtents.y * halfExtents.y)));
+            body.setInverseInertiaTensor(inverseInertia);
+        }
+        body.setCanSleep(canSleep);
+        body.setAwake(true);
+        body.calculateDerivedData();
+        return body;
+    }
+
+    private RigidBody sphere(Vector3f position, float radius, float mass) {
+        RigidBody body = pool.create();
+        body.setPosition(position);
+        body.setColliderShape(new Sphere(new Vector3f(position), radius));
+        body.setInverseMass(1 / mass);
+        // Solid sphere inertia 2 / 5 * m * r^2 about every axis
+        float inverse = 5 / (2 * mass * radius * radius);
+        Matrix3f inverseInertia = new Matrix3f();
+        inverseInertia.setM00(inverse);
+        inverseInertia.setM11(inverse);
+        inverseInertia.setM22(inverse);
+        body.setInverseInertiaTensor(inverseInertia);
+        body.setCanSleep(canSleep);
+        body.setAwake(true);
+        body.calculateDerivedData();
+        return body;
+    }
+
+    private BPBox proxy(RigidBody body) {
+        BPBox proxy = new BPBox(new Vector3f(), new Vector3f(), body);
+        sync(proxy);
+        return proxy;
+    }
+
+    // Moves the shape and its bounds to where the body is now
+    private void sync(BPBox proxy) {
+        RigidBody body = proxy.getBody();
+        if (body.getColliderShape() instanceof Sphere sphere) {
+            Vector3f center = body.getPosition(sphere.getCenter());
+            float radius = sphere.getRadius();
+            proxy.getMin().set(center.x - radius, center.y - radius, center.z - radius);
+            proxy.getMax().set(center.x + radius, center.y + radius, center.z + radius);
+            return;
+        }
+
+        OBB box = (OBB) body.getColliderShape();
+        Vector3f center = body.getPosition(box.getCenter());
+        Vector3f half = box.getHalfExtents();
+        float extentX = 0;
+        float extentY = 0;
+        float extentZ = 0;
+        for (int i = 0; i < 3; i++) {
+            Vector3f boxAxis = box.getAxis(i);
+            body.getDirectionInWorldSpace(axis.set(i == 0 ? 1 : 0, i == 1 ? 1 : 0, i == 2 ? 1 : 0), boxAxis);
+            float extent = half.get(i);
+            extentX += Math.abs(boxAxis.x) * extent;
+            extentY += Math.abs(boxAxis.y) * extent;
+            extentZ += Math.abs(boxAxis.z) * extent;
+        }
+        proxy.getMin().set(center.x - extentX, center.y - extentY, center.z - extentZ);
+        proxy.getMax().set(center.x + extentX, center.y + extentY, center.z + extentZ);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BodyStepBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
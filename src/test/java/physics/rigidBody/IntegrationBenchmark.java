@@ -0,0 +1,83 @@
+package physics.rigidBody;
+
+import math.Vector3f;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// One integration step of 100k falling, spinning bodies: the vectorised and the scalar scan over
+// one pool against the same bodies each in a pool of its own, scattered over the heap like
+// separately allocated objects. Run with main() from the test classpath; the fork gets the Vector
+// API module.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class IntegrationBenchmark {
+
+    private static final int BODY_COUNT = 100_000;
+    private static final float STEP = 1 / 60f;
+
+    private RigidBodyPool vectorized;
+    private RigidBodyPool pool;
+    private RigidBody[] standalone;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        vectorized = new RigidBodyPool(BODY_COUNT);
+        vectorized.setVectorized(true);
+        pool = new RigidBodyPool(BODY_COUNT);
+        pool.setVectorized(false);
+        standalone = new RigidBody[BODY_COUNT];
+        Random random = new Random(42);
+        for (int i = 0; i < BODY_COUNT; i++) {
+            Vector3f position = new Vector3f(random.nextFloat() * 100, random.nextFloat() * 100, random.nextFloat() * 100);
+            Vector3f rotation = new Vector3f(random.nextFloat(), random.nextFloat(), random.nextFloat());
+            setUp(vectorized.create(), position, rotation);
+            setUp(pool.create(), position, rotation);
+            standalone[i] = new RigidBody();
+            setUp(standalone[i], position, rotation);
+        }
+    }
+
+    private static void setUp(RigidBody body, Vector3f position, Vector3f rotation) {
+        body.setInverseMass(1);
+        body.setAwake(true);
+        body.setLinearDamping(0.99f);
+        body.setAngularDamping(0.9f);
+        body.setAcceleration(new Vector3f(0, -10, 0));
+        body.setPosition(position);
+        body.setRotation(rotation);
+    }
+
+    @Benchmark
+    public RigidBodyPool vectorized() {
+        vectorized.integrate(STEP);
+        return vectorized;
+    }
+
+    @Benchmark
+    public RigidBodyPool pool() {
+        pool.integrate(STEP);
+        return pool;
+    }
+
+    @Benchmark
+    public RigidBody[] separate() {
+        for (RigidBody body : standalone)
+            body.integrate(STEP);
+        return standalone;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IntegrationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
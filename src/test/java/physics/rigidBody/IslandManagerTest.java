@@ -0,0 +1,168 @@
+package physics.rigidBody;
+
+import collisionDetection.CDEngine;
+import collisionDetection.broadPhase.BPBox;
+import collisionDetection.broadPhase.SAP;
+import collisionDetection.primitive.OBB;
+import collisionDetection.primitive.Sphere;
+import math.Matrix3f;
+import math.Vector3f;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import physics.PhysicsEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IslandManagerTest {
+    private static final float STEP = 1 / 60f;
+
+    private PhysicsEngine engine;
+    private CDEngine cdEngine;
+    private RigidBodyPool pool;
+    private List<BPBox> proxies;
+    private RigidBody ground;
+
+    @BeforeEach
+    void setUp() {
+        engine = new PhysicsEngine(new SAP(), 0, 0);
+        cdEngine = CDEngine.getCdEngine();
+        pool = new RigidBodyPool();
+        proxies = new ArrayList<>();
+
+        ground = pool.create();
+        ground.setPosition(new Vector3f(0, -0.5f, 0));
+        ground.setColliderShape(new OBB(new Vector3f(0, -0.5f, 0), new Vector3f(20, 0.5f, 20)));
+        ground.setAwake(true);
+        ground.calculateDerivedData();
+        cdEngine.add(new BPBox(new Vector3f(-20, -1, -20), new Vector3f(20, 0, 20), ground));
+    }
+
+    // Sphere of radius 0.5 and mass 1 falling under gravity
+    private RigidBody sphere(float x, float y, float z) {
+        RigidBody body = pool.create();
+        body.setPosition(new Vector3f(x, y, z));
+        body.setColliderShape(new Sphere(new Vector3f(x, y, z), 0.5f));
+        body.setInverseMass(1);
+        Matrix3f inverseInertia = new Matrix3f();
+        inverseInertia.setM00(10);
+        inverseInertia.setM11(10);
+        inverseInertia.setM22(10);
+        body.setInverseInertiaTensor(inverseInertia);
+        body.setAcceleration(new Vector3f(0, -10, 0));
+        body.setCanSleep(true);
+        body.setAwake(true);
+        BPBox proxy = new BPBox(new Vector3f(), new Vector3f(), body);
+        sync(proxy);
+        proxies.add(proxy);
+        cdEngine.add(proxy);
+        return body;
+    }
+
+    private void sync(BPBox proxy) {
+        Sphere sphere = (Sphere) proxy.getShape();
+        Vector3f center = proxy.getBody().getPosition(sphere.getCenter());
+        proxy.getMin().set(center.x - 0.5f, center.y - 0.5f, center.z - 0.5f);
+        proxy.getMax().set(center.x + 0.5f, center.y + 0.5f, center.z + 0.5f);
+    }
+
+    private void step() {
+        pool.integrateVelocities(STEP);
+        engine.solve(STEP);
+        pool.integratePositions(STEP);
+        for (BPBox proxy : proxies)
+            sync(proxy);
+        cdEngine.updateAll(proxies);
+    }
+
+    @Test
+    void testTouchingBodiesShareAnIsland() {
+        RigidBody bottom = sphere(0, 0.5f, 0);
+        RigidBody top = sphere(0, 1.49f, 0);
+        RigidBody other = sphere(5, 0.5f, 0);
+        RigidBody otherTop = sphere(5, 1.49f, 0);
+        RigidBody alone = sphere(-5, 0.5f, 0);
+        step();
+
+        IslandManager islands = engine.getIslandManager();
+        // The ground touches all of them but is static, so it ties nothing together
+        assertEquals(2, islands.getIslandCount());
+        assertEquals(4, islands.getBodyCount());
+        assertEquals(islands.getIsland(bottom), islands.getIsland(top));
+        assertEquals(islands.getIsland(other), islands.getIsland(otherTop));
+        assertNotEquals(islands.getIsland(bottom), islands.getIsland(other));
+        assertEquals(-1, islands.getIsland(alone));
+        assertEquals(-1, islands.getIsland(ground));
+    }
+
+    @Test
+    void testIslandSleepsAndWakesAsAUnit() {
+        RigidBody bottom = sphere(0, 0.5f, 0);
+        RigidBody top = sphere(0, 1.49f, 0);
+        RigidBody other = sphere(5, 0.5f, 0);
+        RigidBody otherTop = sphere(5, 1.49f, 0);
+
+        for (int i = 0; i < 600 && (top.isAwake() || otherTop.isAwake()); i++) {
+            step();
+            assertEquals(bottom.isAwake(), top.isAwake());
+            assertEquals(other.isAwake(), otherTop.isAwake());
+        }
+        assertTrue(bottom.isSleeping());
+        assertTrue(other.isSleeping());
+        assertEquals(new Vector3f(), top.getVelocity());
+
+        // Asleep the stack stays where it is
+        Vector3f position = top.getPosition();
+        for (int i = 0; i < 30; i++)
+            step();
+        assertEquals(position, top.getPosition());
+        assertFalse(top.isAwake());
+
+        // A push on the top wakes the sphere under it too, the other stack sleeps on
+        top.addForce(new Vector3f(0, 200, 0));
+        step();
+        assertTrue(top.isAwake());
+        assertTrue(bottom.isAwake());
+        assertFalse(other.isAwake());
+        assertFalse(otherTop.isAwake());
+    }
+
+    @Test
+    void testRestlessBodyKeepsItsIslandAwake() {
+        RigidBody bottom = sphere(0, 0.5f, 0);
+        RigidBody top = sphere(0, 1.49f, 0);
+        // Calm on its own, the bottom would have fallen asleep long before the top stopped
+        top.setCanSleep(false);
+        for (int i = 0; i < 300; i++)
+            step();
+        assertTrue(bottom.isAwake());
+        assertTrue(top.isAwake());
+
+        top.setCanSleep(true);
+        for (int i = 0; i < 600 && top.isAwake(); i++)
+            step();
+        assertFalse(top.isAwake());
+        assertFalse(bottom.isAwake());
+    }
+
+    @Test
+    void testFallingBodyWakesASleepingIsland() {
+        RigidBody bottom = sphere(0, 0.5f, 0);
+        RigidBody top = sphere(0, 1.49f, 0);
+        for (int i = 0; i < 600 && top.isAwake(); i++)
+            step();
+        assertFalse(bottom.isAwake());
+
+        RigidBody falling = sphere(0, 4, 0);
+        falling.setVelocity(new Vector3f(0, -5, 0));
+        boolean woken = false;
+        for (int i = 0; i < 60 && !woken; i++) {
+            step();
+            woken = top.isAwake();
+            assertEquals(bottom.isAwake(), top.isAwake());
+        }
+        assertTrue(woken);
+    }
+}
@@ -0,0 +1,181 @@
+package physics.rigidBody;
+
+import math.Matrix3f;
+import math.Quaternion;
+import math.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class RigidBodyPoolTest {
+
+    @Test
+    void testHandlesReadAndWriteTheirSlot() {
+        RigidBodyPool pool = new RigidBodyPool(1);
+        RigidBody first = pool.create();
+        RigidBody second = pool.create();
+        assertEquals(2, pool.size());
+        assertSame(second, pool.get(1));
+
+        first.setPosition(new Vector3f(1, 2, 3));
+        second.setVelocity(new Vector3f(4, 5, 6));
+        assertEquals(new Vector3f(1, 2, 3), first.getPosition());
+        assertEquals(new Vector3f(), second.getPosition());
+        assertEquals(new Vector3f(4, 5, 6), second.getVelocity());
+
+        // Getters hand out copies
+        first.getPosition().set(9, 9, 9);
+        assertEquals(new Vector3f(1, 2, 3), first.getPosition());
+    }
+
+    @Test
+    void testGrowingKeepsTheBodies() {
+        // From one slot through the small single block pools into several blocks
+        RigidBodyPool pool = new RigidBodyPool(1);
+        for (int i = 0; i < 40; i++) {
+            RigidBody body = pool.create();
+            body.setPosition(new Vector3f(i, 2 * i, 3 * i));
+            body.setOrientation(new Quaternion(0, 1, 0, i));
+        }
+        for (int i = 0; i < 40; i++) {
+            assertEquals(new Vector3f(i, 2 * i, 3 * i), pool.get(i).getPosition());
+            assertEquals(i / (float) Math.sqrt(1 + i * i), pool.get(i).getOrientation().w, 1e-6f);
+        }
+    }
+
+    @Test
+    void testRemoveMovesTheLastBodyIntoTheGap() {
+        RigidBodyPool pool = new RigidBodyPool();
+        RigidBody first = pool.create();
+        RigidBody second = pool.create();
+        RigidBody third = pool.create();
+        third.setPosition(new Vector3f(3, 0, 0));
+        third.setInverseMass(0.5f);
+
+        pool.remove(first);
+        assertEquals(2, pool.size());
+        assertNull(first.getPool());
+        assertEquals(0, third.getSlot());
+        assertSame(third, pool.get(0));
+        assertEquals(new Vector3f(3, 0, 0), third.getPosition());
+        assertEquals(0.5f, third.getInverseMass());
+
+        assertThrows(IllegalArgumentException.class, () -> new RigidBodyPool().remove(second));
+        assertThrows(IndexOutOfBoundsException.class, () -> pool.get(2));
+    }
+
+    @Test
+    void testPoolIntegrationMatchesTheHandles() {
+        RigidBodyPool pool = new RigidBodyPool();
+        pool.setVectorized(false);
+        RigidBody[] standalone = new RigidBody[8];
+        for (int i = 0; i < standalone.length; i++) {
+            standalone[i] = new RigidBody();
+            setUp(standalone[i], i);
+            setUp(pool.create(), i);
+        }
+
+        for (int step = 0; step < 30; step++) {
+            pool.integrate(1 / 60f);
+            for (RigidBody body : standalone)
+                body.integrate(1 / 60f);
+        }
+
+        for (int i = 0; i < standalone.length; i++) {
+            assertEquals(standalone[i].getPosition(), pool.get(i).getPosition());
+            assertEquals(standalone[i].getOrientation(), pool.get(i).getOrientation());
+            assertEquals(standalone[i].getVelocity(), pool.get(i).getVelocity());
+        }
+        // A static body does not fall
+        assertEquals(new Vector3f(), pool.get(0).getPosition());
+    }
+
+    @Test
+    void testVectorizedIntegrationMatchesScalar() {
+        assumeTrue(RigidBodyPool.isVectorApiAvailable());
+        RigidBodyPool scalar = new RigidBodyPool();
+        scalar.setVectorized(false);
+        RigidBodyPool vectorized = new RigidBodyPool();
+        vectorized.setVectorized(true);
+        // Not a multiple of any lane count, so the scalar tail runs too
+        for (int i = 0; i < 101; i++) {
+            setUpRandom(scalar.create(), new Random(i));
+            setUpRandom(vectorized.create(), new Random(i));
+        }
+
+        for (int step = 0; step < 120; step++) {
+            scalar.integrate(1 / 60f);
+            vectorized.integrate(1 / 60f);
+        }
+
+        for (int i = 0; i < scalar.size(); i++) {
+            RigidBody expected = scalar.get(i);
+            RigidBody actual = vectorized.get(i);
+            assertEquals(expected.isAwake(), actual.isAwake());
+            assertClose(expected.getPosition(), actual.getPosition());
+            assertClose(expected.getVelocity(), actual.getVelocity());
+            assertClose(expected.getRotation(), actual.getRotation());
+            assertClose(expected.getDirectionInWorldSpace(new Vector3f(1, 0, 0)), actual.getDirectionInWorldSpace(new Vector3f(1, 0, 0)));
+            assertEquals(expected.getInverseInertiaTensorWorld().getM01(), actual.getInverseInertiaTensorWorld().getM01(), 1e-4f);
+        }
+    }
+
+    @Test
+    void testIntegrateMovesAndTurns() {
+        RigidBody body = new RigidBody();
+        body.setInverseMass(1);
+        body.setAwake(true);
+        body.setAcceleration(new Vector3f(0, -10, 0));
+        body.setRotation(new Vector3f(0, (float) Math.PI, 0));
+
+        for (int step = 0; step < 60; step++)
+            body.integrate(1 / 60f);
+
+        assertEquals(-10, body.getVelocity().y, 1e-4f);
+        // Semi implicit Euler: the sum of the step velocities
+        assertEquals(-10 * 61 / 120f, body.getPosition().y, 1e-3f);
+        // Half a turn about y in one second
+        Quaternion orientation = body.getOrientation();
+        assertEquals(1, Math.abs(orientation.y), 1e-3f);
+        assertEquals(-1, body.getDirectionInWorldSpace(new Vector3f(1, 0, 0)).x, 1e-3f);
+    }
+
+    private static void setUp(RigidBody body, int index) {
+        body.setInverseMass(index == 0 ? 0 : 1f / index);
+        body.setAwake(true);
+        body.setAcceleration(new Vector3f(0, -10, 0));
+        body.setVelocity(new Vector3f(index, 0, -index));
+        body.setRotation(new Vector3f(0.1f * index, 0.2f, 0));
+        body.addForce(new Vector3f(0, 0, index));
+    }
+
+    // Static, asleep, sleepy and damped bodies, pushed and spun a little
+    private static void setUpRandom(RigidBody body, Random random) {
+        body.setInverseMass(random.nextInt(5) == 0 ? 0 : random.nextFloat() + 0.1f);
+        body.setCanSleep(random.nextBoolean());
+        body.setLinearDamping(random.nextBoolean() ? 1 : 0.9f);
+        body.setAngularDamping(random.nextFloat());
+        body.setAcceleration(new Vector3f(0, -10, 0));
+        body.setVelocity(new Vector3f(random.nextFloat(), random.nextFloat(), random.nextFloat()));
+        body.setRotation(new Vector3f(random.nextFloat(), random.nextFloat(), random.nextFloat()));
+        body.setOrientation(new Quaternion(random.nextFloat(), random.nextFloat(), random.nextFloat(), 1));
+        Matrix3f inverseInertia = new Matrix3f();
+        inverseInertia.setM00(random.nextFloat() + 0.5f);
+        inverseInertia.setM11(random.nextFloat() + 0.5f);
+        inverseInertia.setM22(random.nextFloat() + 0.5f);
+        body.setInverseInertiaTensor(inverseInertia);
+        body.addForce(new Vector3f(random.nextFloat(), 0, random.nextFloat()));
+        body.addTorque(new Vector3f(0, random.nextFloat(), 0));
+        // addForce wakes the body up
+        body.setAwake(random.nextInt(5) != 0);
+    }
+
+    private static void assertClose(Vector3f expected, Vector3f actual) {
+        assertEquals(expected.x, actual.x, 1e-4f);
+        assertEquals(expected.y, actual.y, 1e-4f);
+        assertEquals(expected.z, actual.z, 1e-4f);
+    }
+}
@@ -0,0 +1,179 @@
+package physics.rigidBody;
+
+import collisionDetection.contact.PersistentManifold;
+import collisionDetection.narrowPhase.collisionResult.CollisionResult;
+import collisionDetection.narrowPhase.collisionResult.ContactManifold;
+import math.Matrix3f;
+import math.Vector3f;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RigidBodySolverTest {
+    private static final float STEP = 1 / 60f;
+
+    private RigidBodySolver solver;
+    private RigidBody ground;
+    private RigidBody box;
+
+    @BeforeEach
+    void setUp() {
+        solver = new RigidBodySolver();
+        ground = new RigidBody();
+        ground.setAwake(true);
+        ground.calculateDerivedData();
+
+        // Unit cube of mass 1, inertia 1/6 about every axis
+        box = new RigidBody();
+        box.setInverseMass(1);
+        Matrix3f inverseInertia = new Matrix3f();
+        inverseInertia.setM00(6);
+        inverseInertia.setM11(6);
+        inverseInertia.setM22(6);
+        box.setInverseInertiaTensor(inverseInertia);
+        box.setAcceleration(new Vector3f(0, -10, 0));
+        box.setAwake(true);
+        box.setPosition(new Vector3f(0, 0.5f, 0));
+        box.calculateDerivedData();
+    }
+
+    // Ground below, sphere of radius 1 centred at height, touching at the origin
+    private static CollisionResult sphereOnGround(float height) {
+        float depth = 1 - height;
+        return new CollisionResult().setContact(new Vector3f(0, 1, 0), depth, new Vector3f(0, 0, 0),
+                new Vector3f(0, -depth, 0));
+    }
+
+    // The bottom corners of the unit box where it sits now, those that reach the ground
+    private ContactManifold boxOnGround() {
+        ContactManifold manifold = new ContactManifold();
+        manifold.getNormal().set(0, 1, 0);
+        Vector3f position = box.getPosition();
+        float depth = 0.5f - position.y;
+        for (int i = 0; i < 4; i++) {
+            float x = position.x + ((i & 1) == 0 ? -0.5f : 0.5f);
+            float z = position.z + ((i & 2) == 0 ? -0.5f : 0.5f);
+            if (depth >= 0)
+                manifold.addPoint(new Vector3f(x, 0, z), new Vector3f(x, -depth, z), depth);
+        }
+        return manifold;
+    }
+
+    @Test
+    void testStopsApproach() {
+        RigidBody sphere = box;
+        sphere.setVelocity(new Vector3f(0, -0.5f, 0));
+
+        solver.solve(ground, sphere, sphereOnGround(1));
+        assertEquals(1, solver.getContactCount());
+        solver.resolve(STEP);
+        assertEquals(0, solver.getContactCount());
+        assertEquals(0, sphere.getVelocity().y, 1e-5f);
+        assertEquals(0, ground.getVelocity().y);
+
+        // Separating bodies are left alone
+        sphere.setVelocity(new Vector3f(0, 2, 0));
+        solver.solve(ground, sphere, sphereOnGround(1));
+        solver.resolve(STEP);
+        assertEquals(2, sphere.getVelocity().y, 1e-6f);
+    }
+
+    @Test
+    void testRestitutionAndPenetrationBias() {
+        solver.setRestitution(0.5f);
+        box.setVelocity(new Vector3f(0, -4, 0));
+        solver.solve(ground, box, sphereOnGround(1));
+        solver.resolve(STEP);
+        assertEquals(2, box.getVelocity().y, 1e-4f);
+
+        // Slow approach does not bounce, but the depth beyond the slop is pushed out
+        box.setVelocity(new Vector3f(0, -0.1f, 0));
+        solver.solve(ground, box, sphereOnGround(0.9f));
+        solver.resolve(STEP);
+        assertEquals(0.2f / STEP * (0.1f - 0.01f), box.getVelocity().y, 1e-4f);
+    }
+
+    @Test
+    void testRestitutionIgnoresWarmStartImpulses() {
+        // Each corner starts with an impulse from the step before, the approach speed they bounce
+        // from must still be the one the box arrived with
+        solver.setRestitution(0.5f);
+        PersistentManifold manifold = new PersistentManifold();
+        box.setVelocity(new Vector3f(0, -4, 0));
+        manifold.update(boxOnGround(), ground, box);
+        for (int i = 0; i < manifold.getPointCount(); i++)
+            manifold.getPoint(i).setNormalImpulse(1);
+        solver.solve(ground, box, manifold);
+        solver.resolve(STEP);
+        assertEquals(2, box.getVelocity().y, 1e-2f);
+        assertEquals(0, box.getRotation().length(), 1e-2f);
+    }
+
+    @Test
+    void testFriction() {
+        PersistentManifold manifold = new PersistentManifold();
+        box.setVelocity(new Vector3f(0.05f, -10 * STEP, 0));
+        manifold.update(boxOnGround(), ground, box);
+        solver.solve(ground, box, manifold);
+        solver.resolve(STEP);
+        // Friction is bounded by normal impulses that are still building up over the sweeps
+        assertEquals(0, box.getVelocity().x, 2e-3f);
+        assertEquals(0, box.getRotation().length(), 1e-2f);
+
+        solver.setFriction(0);
+        box.setVelocity(new Vector3f(0.05f, -10 * STEP, 0));
+        manifold.update(boxOnGround(), ground, box);
+        solver.solve(ground, box, manifold);
+        solver.resolve(STEP);
+        assertEquals(0.05f, box.getVelocity().x, 1e-5f);
+    }
+
+    @Test
+    void testRestingBoxSettlesWithWarmStart() {
+        PersistentManifold manifold = new PersistentManifold();
+        box.setPosition(new Vector3f(0, 0.6f, 0));
+        for (int step = 0; step < 180; step++) {
+            box.integrateVelocity(STEP);
+            ContactManifold contacts = boxOnGround();
+            if (contacts.isEmpty())
+                manifold.reset();
+            else
+                manifold.update(contacts, ground, box);
+            solver.solve(ground, box, manifold);
+            solver.resolve(STEP);
+            box.integratePosition(STEP);
+        }
+
+        assertEquals(0.5f, box.getPosition().y, 0.02f);
+        assertEquals(0, box.getVelocity().length(), 1e-3f);
+        assertEquals(0, box.getRotation().length(), 1e-3f);
+
+        // The impulses handed back carry the weight of the box for the next step
+        assertEquals(4, manifold.getPointCount());
+        float total = 0;
+        for (int i = 0; i < 4; i++)
+            total += manifold.getPoint(i).getNormalImpulse();
+        assertEquals(10 * STEP, total, 1e-3f);
+    }
+
+    @Test
+    void testStaticAndSleepingPairsAreSkipped() {
+        RigidBody other = new RigidBody();
+        other.setAwake(true);
+        solver.solve(ground, other, sphereOnGround(0.9f));
+        assertEquals(0, solver.getContactCount());
+
+        box.setAwake(false);
+        solver.solve(ground, box, sphereOnGround(0.9f));
+        assertEquals(0, solver.getContactCount());
+    }
+
+    @Test
+    void testSettingsAreValidated() {
+        assertThrows(IllegalArgumentException.class, () -> solver.setIterations(0));
+        assertThrows(IllegalArgumentException.class, () -> solver.setRestitution(1.5f));
+        assertThrows(IllegalArgumentException.class, () -> solver.setFriction(-1));
+        assertThrows(IllegalArgumentException.class, () -> solver.resolve(0));
+    }
+}
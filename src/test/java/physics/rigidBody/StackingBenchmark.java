@@ -0,0 +1,151 @@
+package physics.rigidBody;
+
+import collisionDetection.CDEngine;
+import collisionDetection.broadPhase.BPBox;
+import collisionDetection.broadPhase.SAP;
+import collisionDetection.contact.ContactPair;
+import collisionDetection.contact.PersistentManifold;
+import collisionDetection.primitive.OBB;
+import math.Matrix3f;
+import math.Vector3f;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import physics.PhysicsEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Columns of ten unit boxes on a static ground box, all in one RigidBodyPool, one full step per
+// call: velocities, narrow phase, contact solver, positions and broad phase bounds. Reports ms/step; at the end of every
+// trial the residual penetration, the deepest and the mean contact depth left in the stacks, is
+// printed. Run with main() from the test classpath.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StackingBenchmark {
+
+    private static final float STEP = 1 / 60f;
+    private static final int STACK_HEIGHT = 10;
+
+    @Param({"1000", "5000", "10000"})
+    private int boxCount;
+
+    private PhysicsEngine engine;
+    private CDEngine cdEngine;
+    private RigidBodyPool pool;
+    private List<BPBox> proxies;
+    private final Vector3f axis = new Vector3f();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new PhysicsEngine(new SAP(), 0, 0);
+        cdEngine = CDEngine.getCdEngine();
+        pool = new RigidBodyPool(boxCount + 1);
+        proxies = new ArrayList<>(boxCount);
+
+        int columns = boxCount / STACK_HEIGHT;
+        int side = (int) Math.ceil(Math.sqrt(columns));
+        float groundHalf = side + 1;
+        RigidBody ground = body(pool, new Vector3f(side - 1, -0.5f, side - 1), new Vector3f(groundHalf, 0.5f, groundHalf), 0);
+        cdEngine.add(proxy(ground));
+
+        for (int column = 0; column < columns; column++) {
+            float x = (column % side) * 2;
+            float z = (float) (column / side) * 2;
+            for (int level = 0; level < STACK_HEIGHT; level++) {
+                RigidBody box = body(pool, new Vector3f(x, 0.5f + level, z), new Vector3f(0.5f, 0.5f, 0.5f), 1);
+                box.setAcceleration(new Vector3f(0, -10, 0));
+                BPBox proxy = proxy(box);
+                proxies.add(proxy);
+                cdEngine.add(proxy);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        float deepest = 0;
+        float total = 0;
+        int points = 0;
+        for (ContactPair pair : engine.getPairManager().getTouching()) {
+            PersistentManifold manifold = pair.getManifold();
+            for (int i = 0; i < manifold.getPointCount(); i++) {
+                float depth = manifold.getPoint(i).getDepth();
+                deepest = Math.max(deepest, depth);
+                total += depth;
+                points++;
+            }
+        }
+        System.out.printf("%nresidual penetration over %d contacts: max %.4f, mean %.4f%n",
+                points, deepest, points == 0 ? 0 : total / points);
+    }
+
+    @Benchmark
+    public int step() {
+        pool.integrateVelocities(STEP);
+        engine.solve(STEP);
+        pool.integratePositions(STEP);
+        for (int i = 0; i < proxies.size(); i++)
+            sync(proxies.get(i));
+        cdEngine.updateAll(proxies);
+        return engine.getPairManager().getTouching().size();
+    }
+
+    private static RigidBody body(RigidBodyPool pool, Vector3f position, Vector3f halfExtents, float mass) {
+        RigidBody body = pool.create();
+        body.setPosition(position);
+        OBB box = new OBB(new Vector3f(position), halfExtents);
+        body.setColliderShape(box);
+        if (mass > 0) {
+            body.setInverseMass(1 / mass);
+            // Box inertia m / 3 * (b^2 + c^2) for half extents a, b, c
+            Matrix3f inverseInertia = new Matrix3f();
+            inverseInertia.setM00(3 / (mass * (halfExtents.y * halfExtents.y + halfExtents.z * halfExtents.z)));
+            inverseInertia.setM11(3 / (mass * (halfExtents.x * halfExtents.x + halfExtents.z * halfExtents.z)));
+            inverseInertia.setM22(3 / (mass * (halfExtents.x * halfExtents.x + halfExtents.y * halfExtents.y)));
+            body.setInverseInertiaTensor(inverseInertia);
+        }
+        body.setAwake(true);
+        body.calculateDerivedData();
+        return body;
+    }
+
+    private BPBox proxy(RigidBody body) {
+        BPBox proxy = new BPBox(new Vector3f(), new Vector3f(), body);
+        sync(proxy);
+        return proxy;
+    }
+
+    // Moves the box shape and its bounds to where the body is now
+    private void sync(BPBox proxy) {
+        RigidBody body = proxy.getBody();
+        OBB box = (OBB) body.getColliderShape();
+        Vector3f center = body.getPosition(box.getCenter());
+        Vector3f half = box.getHalfExtents();
+        float extentX = 0;
+        float extentY = 0;
+        float extentZ = 0;
+        for (int i = 0; i < 3; i++) {
+            Vector3f boxAxis = box.getAxis(i);
+            body.getDirectionInWorldSpace(axis.set(i == 0 ? 1 : 0, i == 1 ? 1 : 0, i == 2 ? 1 : 0), boxAxis);
+            float extent = half.get(i);
+            extentX += Math.abs(boxAxis.x) * extent;
+            extentY += Math.abs(boxAxis.y) * extent;
+            extentZ += Math.abs(boxAxis.z) * extent;
+        }
+        proxy.getMin().set(center.x - extentX, center.y - extentY, center.z - extentZ);
+        proxy.getMax().set(center.x + extentX, center.y + extentY, center.z + extentZ);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StackingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}